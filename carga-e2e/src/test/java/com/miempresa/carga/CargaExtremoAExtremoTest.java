@@ -0,0 +1,268 @@
+package com.miempresa.carga;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * productos-service e inventario-service en esta JVM, cada uno desde su JAR y sobre su base H2
+ * en memoria, con inventario llamando de verdad a productos por HTTP. Sobre ellos, una carga de
+ * modelo abierto ({@link GeneradorCargaAbierta}) con una mezcla de consultas, compras y altas
+ * de productos a un ritmo fijo. Falla si se incumple algún SLO.
+ *
+ * <pre>
+ * mvn -f ../productos-service/pom.xml package -DskipTests
+ * mvn -f ../inventario-service/pom.xml package -DskipTests
+ * mvn -Pcarga test -De2e.rps=150 -De2e.segundos=60 -De2e.slo.p99-ms=300
+ * </pre>
+ * Las propiedades están en docs/carga-e2e.md. El informe queda en {@code target/carga-e2e.json}
+ * y el log de cada servicio en {@code target/servicios/}.
+ */
+@Tag("carga")
+class CargaExtremoAExtremoTest {
+
+    private static final String API_KEY = "carga-e2e";
+    private static final String BASE_PRODUCTOS = "jdbc:h2:mem:e2e-productos;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final String BASE_INVENTARIO = "jdbc:h2:mem:e2e-inventario;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private final Path jarProductos = Path.of(System.getProperty("e2e.jar.productos", "../productos-service/target/productos.jar"));
+    private final Path jarInventario = Path.of(System.getProperty("e2e.jar.inventario", "../inventario-service/target/inventario.jar"));
+    private final double rps = Double.parseDouble(System.getProperty("e2e.rps", "40"));
+    private final int segundos = Integer.getInteger("e2e.segundos", 30);
+    private final int segundosCalentamiento = Integer.getInteger("e2e.calentamiento-segundos", 15);
+    private final String mezcla = System.getProperty("e2e.mezcla", "consulta:50,compra:40,alta:10");
+    private final boolean poisson = !"constante".equals(System.getProperty("e2e.llegadas", "poisson"));
+    private final int productos = Integer.getInteger("e2e.productos", 200);
+    private final int maxEnVuelo = Integer.getInteger("e2e.max-en-vuelo", 1000);
+
+    private final double sloP99Ms = Double.parseDouble(System.getProperty("e2e.slo.p99-ms", "500"));
+    private final double sloErrores = Double.parseDouble(System.getProperty("e2e.slo.errores", "0.01"));
+    private final double sloRendimiento = Double.parseDouble(System.getProperty("e2e.slo.rendimiento", "0.95"));
+
+    @Test
+    @DisplayName("Mezcla de consultas, compras y altas a ritmo fijo contra los dos servicios, dentro de los SLO")
+    void cargaAbiertaDentroDeSlo() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("peticionesPorSegundoObjetivo", rps);
+        informe.put("segundos", segundos);
+        informe.put("mezcla", mezcla);
+        informe.put("llegadas", poisson ? "poisson" : "constante");
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+        informe.put("slo", Map.of("p99Ms", sloP99Ms, "errores", sloErrores, "rendimiento", sloRendimiento));
+
+        GeneradorCargaAbierta.Resultado resultado;
+        try (ServicioEnProceso servicioProductos = ServicioEnProceso.arrancar("productos-service", jarProductos,
+                     propiedadesProductos());
+             ServicioEnProceso servicioInventario = ServicioEnProceso.arrancar("inventario-service", jarInventario,
+                     propiedadesInventario(servicioProductos));
+             HttpClient cliente = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build()) {
+            List<Long> ids = prepararCatalogo(cliente, servicioProductos);
+
+            GeneradorCargaAbierta generador = new GeneradorCargaAbierta(cliente,
+                    operaciones(servicioProductos, servicioInventario, ids), poisson, maxEnVuelo, 42);
+            generador.ejecutar(rps, Duration.ofSeconds(segundosCalentamiento));
+            resultado = generador.ejecutar(rps, Duration.ofSeconds(segundos));
+        }
+
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        resultado.mediciones().forEach((nombre, medicion) -> operaciones.put(nombre, resumen(resultado, medicion)));
+        informe.put("total", resumen(resultado, resultado.total()));
+        informe.put("operaciones", operaciones);
+        List<String> incumplidos = comprobarSlo(resultado);
+        informe.put("sloIncumplidos", incumplidos);
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(informe);
+        System.out.println(json);
+        Files.writeString(Path.of("target", "carga-e2e.json"), json);
+
+        assertTrue(incumplidos.isEmpty(), "SLO incumplidos:\n" + String.join("\n", incumplidos));
+    }
+
+    private Map<String, String> propiedadesProductos() {
+        Map<String, String> propiedades = propiedadesComunes("productos", BASE_PRODUCTOS);
+        propiedades.put("productos.trazas.fichero.ruta", "target/servicios/productos-trazas.jsonl");
+        return propiedades;
+    }
+
+    private Map<String, String> propiedadesInventario(ServicioEnProceso servicioProductos) {
+        Map<String, String> propiedades = propiedadesComunes("inventario", BASE_INVENTARIO);
+        propiedades.put("inventario.trazas.fichero.ruta", "target/servicios/inventario-trazas.jsonl");
+        propiedades.put("inventario.movimientos.particionado", "false");
+        propiedades.put("productos.api.url", servicioProductos.url("/api"));
+        propiedades.put("productos.service.api.key", API_KEY);
+        return propiedades;
+    }
+
+    // Lo mismo que un despliegue salvo la base de datos y los puertos; el log va a fichero
+    private static Map<String, String> propiedadesComunes(String servicio, String baseDatos) {
+        Map<String, String> propiedades = new LinkedHashMap<>();
+        propiedades.put("server.port", "0");
+        propiedades.put("management.server.port", "0");
+        propiedades.put("spring.datasource.url", baseDatos);
+        propiedades.put("spring.datasource.username", "sa");
+        propiedades.put("spring.datasource.password", "");
+        propiedades.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        propiedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        propiedades.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propiedades.put("spring.sql.init.mode", "never");
+        propiedades.put("spring.main.banner-mode", "off");
+        propiedades.put("logging.file.name", "target/servicios/" + servicio + ".log");
+        propiedades.put("logging.pattern.console", "");
+        propiedades.put("api.key", API_KEY);
+        return propiedades;
+    }
+
+    /**
+     * Da de alta los productos por la API de productos y su stock directamente en la base de
+     * inventario: el ajuste de inventario usa {@code ON CONFLICT ... DO UPDATE}, que H2 no tiene.
+     */
+    private List<Long> prepararCatalogo(HttpClient cliente, ServicioEnProceso servicioProductos) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < productos; i++) {
+            HttpResponse<String> respuesta = cliente.send(altaProducto(servicioProductos, "Producto " + i),
+                    HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 201) {
+                throw new IllegalStateException("Alta de producto rechazada: " + respuesta.statusCode() + " " + respuesta.body());
+            }
+            ids.add(mapper.readTree(respuesta.body()).at("/data/id").asLong());
+        }
+        try (Connection conexion = ServicioEnProceso.jdbc(BASE_INVENTARIO);
+             PreparedStatement insercion = conexion.prepareStatement(
+                     "INSERT INTO inventarios (producto_id, cantidad, reservado) VALUES (?, ?, 0)")) {
+            for (Long id : ids) {
+                insercion.setLong(1, id);
+                insercion.setInt(2, 100_000_000);
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+        return List.copyOf(ids);
+    }
+
+    /** Las operaciones de {@code e2e.mezcla}, en el formato {@code nombre:peso,...}. */
+    private List<GeneradorCargaAbierta.Operacion> operaciones(ServicioEnProceso servicioProductos,
+                                                             ServicioEnProceso servicioInventario, List<Long> ids) {
+        String inventario = servicioInventario.url("/api/inventario");
+        String productosApi = servicioProductos.url("/api/productos");
+        List<GeneradorCargaAbierta.Operacion> operaciones = new ArrayList<>();
+        for (String entrada : mezcla.split(",")) {
+            String[] partes = entrada.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Entrada de e2e.mezcla mal formada: " + entrada);
+            }
+            String nombre = partes[0];
+            int peso = Integer.parseInt(partes[1]);
+            operaciones.add(new GeneradorCargaAbierta.Operacion(nombre, peso, switch (nombre) {
+                // inventario → productos → H2 de los dos
+                case "consulta" -> aleatorio -> peticion(inventario + "/" + ids.get(aleatorio.nextInt(ids.size())) + "/detalle")
+                        .GET().build();
+                case "compra" -> aleatorio -> peticion(inventario + "/compra?productoId="
+                        + ids.get(aleatorio.nextInt(ids.size())) + "&cantidad=1")
+                        .POST(HttpRequest.BodyPublishers.noBody()).build();
+                case "alta" -> aleatorio -> altaProducto(servicioProductos, "Alta " + aleatorio.nextLong());
+                case "producto" -> aleatorio -> peticion(productosApi + "/" + ids.get(aleatorio.nextInt(ids.size())))
+                        .GET().build();
+                default -> throw new IllegalArgumentException("Operación desconocida en e2e.mezcla: " + nombre
+                        + " (consulta, compra, alta, producto)");
+            }));
+        }
+        return operaciones;
+    }
+
+    private static HttpRequest altaProducto(ServicioEnProceso servicioProductos, String nombre) {
+        String cuerpo = "{\"nombre\":\"" + nombre + "\",\"descripcion\":\"Carga e2e\",\"precio\":9.95}";
+        return peticion(servicioProductos.url("/api/productos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    private static HttpRequest.Builder peticion(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("x-api-key", API_KEY)
+                .timeout(Duration.ofSeconds(10));
+    }
+
+    /**
+     * SLO de la fase medida: p99 total y por operación ({@code e2e.slo.p99-ms.<operación>}),
+     * proporción de errores y rendimiento logrado frente al pedido.
+     */
+    private List<String> comprobarSlo(GeneradorCargaAbierta.Resultado resultado) {
+        List<String> incumplidos = new ArrayList<>();
+        GeneradorCargaAbierta.Medicion total = resultado.total();
+        double p99 = percentil(total.latenciasOrdenadas(), 0.99);
+        if (p99 > sloP99Ms) {
+            incumplidos.add(String.format("p99 total %.1f ms > %.1f ms", p99, sloP99Ms));
+        }
+        resultado.mediciones().forEach((nombre, medicion) -> {
+            String limite = System.getProperty("e2e.slo.p99-ms." + nombre);
+            double p99Operacion = percentil(medicion.latenciasOrdenadas(), 0.99);
+            if (limite != null && p99Operacion > Double.parseDouble(limite)) {
+                incumplidos.add(String.format("p99 de %s %.1f ms > %s ms", nombre, p99Operacion, limite));
+            }
+        });
+        double errores = resultado.enviadas() == 0 ? 0 : (double) total.errores() / resultado.enviadas();
+        if (errores > sloErrores) {
+            incumplidos.add(String.format("errores %.2f %% > %.2f %% (%s)", errores * 100, sloErrores * 100, total.codigos()));
+        }
+        double logrado = resultado.peticionesPorSegundo(total);
+        if (logrado < resultado.peticionesPorSegundoObjetivo() * sloRendimiento) {
+            incumplidos.add(String.format("rendimiento %.1f peticiones/s < %.0f %% de %.1f",
+                    logrado, sloRendimiento * 100, resultado.peticionesPorSegundoObjetivo()));
+        }
+        if (!resultado.terminadas()) {
+            incumplidos.add("quedaron peticiones sin respuesta 60 s después de terminar la fase");
+        }
+        return incumplidos;
+    }
+
+    private static Map<String, Object> resumen(GeneradorCargaAbierta.Resultado resultado,
+                                               GeneradorCargaAbierta.Medicion medicion) {
+        long[] latencias = medicion.latenciasOrdenadas();
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("respondidas", medicion.respondidas());
+        resumen.put("errores", medicion.errores());
+        resumen.put("descartadas", medicion.descartadas());
+        resumen.put("peticionesPorSegundo", Math.round(resultado.peticionesPorSegundo(medicion) * 10) / 10.0);
+        resumen.put("codigos", medicion.codigos());
+        resumen.put("p50Ms", percentil(latencias, 0.50));
+        resumen.put("p90Ms", percentil(latencias, 0.90));
+        resumen.put("p99Ms", percentil(latencias, 0.99));
+        resumen.put("p999Ms", percentil(latencias, 0.999));
+        resumen.put("maxMs", latencias.length == 0 ? 0 : Math.round(latencias[latencias.length - 1] / 10_000.0) / 100.0);
+        return resumen;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return Math.round(ordenadas[Math.max(0, posicion)] / 10_000.0) / 100.0;
+    }
+}
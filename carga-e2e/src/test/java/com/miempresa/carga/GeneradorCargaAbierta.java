@@ -0,0 +1,193 @@
+package com.miempresa.carga;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Carga de modelo abierto: las peticiones llegan al ritmo fijado, respondan o no los servicios,
+ * como llegan los usuarios reales. Un generador de clientes cerrados (N clientes que esperan
+ * cada respuesta) frena cuando el servicio se atasca y esconde justo la latencia que interesa.
+ * <p>
+ * La latencia se mide desde el instante en que la petición <em>debía</em> salir, no desde que
+ * salió: si el generador se retrasa, el retraso cuenta. Las llegadas son de Poisson (intervalos
+ * exponenciales, con ráfagas como en producción) o a intervalo constante.
+ * <p>
+ * Con {@code maxEnVuelo} peticiones sin responder, las siguientes no se envían y cuentan como
+ * descartadas: el servicio ya no da abasto y seguir abriendo conexiones solo mediría al cliente.
+ */
+final class GeneradorCargaAbierta {
+
+    private final HttpClient cliente;
+    private final List<Operacion> operaciones;
+    private final int pesoTotal;
+    private final boolean poisson;
+    private final int maxEnVuelo;
+    private final SplittableRandom aleatorio;
+
+    GeneradorCargaAbierta(HttpClient cliente, List<Operacion> operaciones, boolean poisson, int maxEnVuelo, long semilla) {
+        if (operaciones.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene operaciones");
+        }
+        this.cliente = cliente;
+        this.operaciones = operaciones;
+        this.pesoTotal = operaciones.stream().mapToInt(Operacion::peso).sum();
+        this.poisson = poisson;
+        this.maxEnVuelo = maxEnVuelo;
+        this.aleatorio = new SplittableRandom(semilla);
+    }
+
+    /** Lanza {@code peticionesPorSegundo} durante {@code duracion} y espera a las que queden en vuelo. */
+    Resultado ejecutar(double peticionesPorSegundo, Duration duracion) throws InterruptedException {
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        operaciones.forEach(operacion -> mediciones.put(operacion.nombre(), new Medicion()));
+        Semaphore enVuelo = new Semaphore(maxEnVuelo);
+        AtomicLong ultimaRespuesta = new AtomicLong();
+
+        double intervaloNanos = 1e9 / peticionesPorSegundo;
+        long inicio = System.nanoTime();
+        long fin = inicio + duracion.toNanos();
+        long enviadas = 0;
+        double previsto = inicio;
+        while (previsto < fin) {
+            long salida = (long) previsto;
+            esperarHasta(salida);
+            Operacion operacion = elegir();
+            Medicion medicion = mediciones.get(operacion.nombre());
+            enviadas++;
+            if (!enVuelo.tryAcquire()) {
+                medicion.descartadas.increment();
+            } else {
+                cliente.sendAsync(operacion.peticion().apply(aleatorio), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((respuesta, error) -> {
+                            long ahora = System.nanoTime();
+                            medicion.registrar(ahora - salida, respuesta != null ? respuesta.statusCode() : -1);
+                            ultimaRespuesta.accumulateAndGet(ahora, Math::max);
+                            enVuelo.release();
+                        });
+            }
+            previsto += poisson ? -Math.log(1 - aleatorio.nextDouble()) * intervaloNanos : intervaloNanos;
+        }
+        boolean terminadas = enVuelo.tryAcquire(maxEnVuelo, 60, TimeUnit.SECONDS);
+        double segundos = (Math.max(ultimaRespuesta.get(), fin) - inicio) / 1e9;
+        return new Resultado(peticionesPorSegundo, enviadas, segundos, terminadas, mediciones);
+    }
+
+    private Operacion elegir() {
+        int tirada = aleatorio.nextInt(pesoTotal);
+        for (Operacion operacion : operaciones) {
+            tirada -= operacion.peso();
+            if (tirada < 0) {
+                return operacion;
+            }
+        }
+        throw new IllegalStateException("Pesos de la mezcla incoherentes");
+    }
+
+    private static void esperarHasta(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    /**
+     * Un tipo de petición de la mezcla con su peso. {@code peticion} recibe el aleatorio del
+     * generador, que solo se usa desde su hilo.
+     */
+    record Operacion(String nombre, int peso, Function<SplittableRandom, HttpRequest> peticion) {
+    }
+
+    /** Latencias y códigos de estado de una operación. */
+    static final class Medicion {
+
+        private final Map<Integer, LongAdder> codigos = new ConcurrentHashMap<>();
+        private final LongAdder descartadas = new LongAdder();
+        private long[] latencias = new long[1 << 12];
+        private int cantidad;
+
+        private synchronized void registrar(long latenciaNanos, int estado) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = latenciaNanos;
+            codigos.computeIfAbsent(estado, clave -> new LongAdder()).increment();
+        }
+
+        synchronized long[] latenciasOrdenadas() {
+            long[] ordenadas = Arrays.copyOf(latencias, cantidad);
+            Arrays.sort(ordenadas);
+            return ordenadas;
+        }
+
+        long respondidas() {
+            return codigos.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        long correctas() {
+            return codigos.entrySet().stream()
+                    .filter(codigo -> codigo.getKey() >= 200 && codigo.getKey() < 300)
+                    .mapToLong(codigo -> codigo.getValue().sum())
+                    .sum();
+        }
+
+        /** Respuestas fuera de 2xx, fallos de conexión o timeouts (código -1) y descartadas. */
+        long errores() {
+            return respondidas() - correctas() + descartadas.sum();
+        }
+
+        long descartadas() {
+            return descartadas.sum();
+        }
+
+        Map<Integer, Long> codigos() {
+            Map<Integer, Long> vista = new TreeMap<>();
+            codigos.forEach((codigo, cuenta) -> vista.put(codigo, cuenta.sum()));
+            return vista;
+        }
+    }
+
+    /**
+     * Lo medido en una fase. {@code segundos} va del inicio a la última respuesta, así que si el
+     * servicio se queda atrás el rendimiento logrado baja aunque las peticiones acaben saliendo.
+     */
+    record Resultado(double peticionesPorSegundoObjetivo, long enviadas, double segundos, boolean terminadas,
+                     Map<String, Medicion> mediciones) {
+
+        /** Todas las operaciones juntas. */
+        Medicion total() {
+            Medicion total = new Medicion();
+            for (Medicion medicion : mediciones.values()) {
+                long[] latencias = medicion.latenciasOrdenadas();
+                synchronized (total) {
+                    total.latencias = Arrays.copyOf(total.latencias, total.cantidad + latencias.length);
+                    System.arraycopy(latencias, 0, total.latencias, total.cantidad, latencias.length);
+                    total.cantidad += latencias.length;
+                }
+                medicion.codigos().forEach((codigo, cuenta) ->
+                        total.codigos.computeIfAbsent(codigo, clave -> new LongAdder()).add(cuenta));
+                total.descartadas.add(medicion.descartadas());
+            }
+            return total;
+        }
+
+        /** Respuestas correctas por segundo. */
+        double peticionesPorSegundo(Medicion medicion) {
+            return medicion.correctas() / segundos;
+        }
+    }
+}
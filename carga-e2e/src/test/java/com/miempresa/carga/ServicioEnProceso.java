@@ -0,0 +1,196 @@
+package com.miempresa.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Un servicio Spring Boot arrancado en esta JVM desde su JAR ejecutable.
+ * <p>
+ * Cada servicio tiene su propio class loader con {@code BOOT-INF/classes} y
+ * {@code BOOT-INF/lib} del JAR, como si se lanzara con {@code java -jar}: los dos traen su
+ * {@code application.properties}, su {@code spring.factories} y su logback, y en el mismo
+ * classpath se pisarían. Lo único compartido es H2, en un class loader padre común, para que
+ * la prueba pueda preparar datos en la base de cualquiera de los dos con {@link #jdbc(String)}.
+ */
+final class ServicioEnProceso implements AutoCloseable {
+
+    private static final URLClassLoader H2 = new URLClassLoader("h2", new URL[] { ubicacion(org.h2.Driver.class) },
+            ClassLoader.getPlatformClassLoader());
+
+    private final String nombre;
+    private final URLClassLoader cargador;
+    private final AutoCloseable contexto;
+    private final int puerto;
+
+    private ServicioEnProceso(String nombre, URLClassLoader cargador, AutoCloseable contexto, int puerto) {
+        this.nombre = nombre;
+        this.cargador = cargador;
+        this.contexto = contexto;
+        this.puerto = puerto;
+    }
+
+    /**
+     * Arranca el servicio del JAR con {@code propiedades} como argumentos de línea de comandos,
+     * que prevalecen sobre su {@code application.properties}.
+     */
+    static ServicioEnProceso arrancar(String nombre, Path jar, Map<String, String> propiedades) throws Exception {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No existe " + jar.toAbsolutePath() + ". Hay que empaquetar el servicio antes: "
+                    + "mvn -f ../" + nombre + "/pom.xml package -DskipTests");
+        }
+        Path directorio = Path.of("target", "servicios", nombre);
+        String claseAplicacion = extraer(jar, directorio);
+
+        List<URL> urls = new ArrayList<>();
+        urls.add(directorio.resolve("classes").toUri().toURL());
+        try (var librerias = Files.list(directorio.resolve("lib"))) {
+            for (Path libreria : librerias.sorted().toList()) {
+                urls.add(libreria.toUri().toURL());
+            }
+        }
+        URLClassLoader cargador = new URLClassLoader(nombre, urls.toArray(URL[]::new), H2);
+
+        String[] argumentos = propiedades.entrySet().stream()
+                .map(propiedad -> "--" + propiedad.getKey() + "=" + propiedad.getValue())
+                .toArray(String[]::new);
+        Thread hilo = Thread.currentThread();
+        ClassLoader anterior = hilo.getContextClassLoader();
+        hilo.setContextClassLoader(cargador);
+        try {
+            // Tomcat registra su URLStreamHandlerFactory, que es única por JVM: con dos servicios el
+            // segundo no arrancaría. Ninguno la necesita, solo sirve para JAR dentro de un WAR
+            cargador.loadClass("org.apache.catalina.webresources.TomcatURLStreamHandlerFactory")
+                    .getMethod("disable").invoke(null);
+            Class<?> springApplication = cargador.loadClass("org.springframework.boot.SpringApplication");
+            Object contexto = springApplication.getMethod("run", Class.class, String[].class)
+                    .invoke(null, cargador.loadClass(claseAplicacion), argumentos);
+            Object entorno = cargador.loadClass("org.springframework.context.ConfigurableApplicationContext")
+                    .getMethod("getEnvironment").invoke(contexto);
+            String puerto = (String) cargador.loadClass("org.springframework.core.env.PropertyResolver")
+                    .getMethod("getProperty", String.class).invoke(entorno, "local.server.port");
+            return new ServicioEnProceso(nombre, cargador, (AutoCloseable) contexto, Integer.parseInt(puerto));
+        } catch (InvocationTargetException e) {
+            cargador.close();
+            throw new IllegalStateException(nombre + " no ha arrancado", e.getCause());
+        } finally {
+            hilo.setContextClassLoader(anterior);
+        }
+    }
+
+    String url(String ruta) {
+        return "http://127.0.0.1:" + puerto + ruta;
+    }
+
+    /** Conexión a una base H2 en memoria de los servicios, con el mismo motor que usan ellos. */
+    static Connection jdbc(String url) throws SQLException {
+        try {
+            Driver driver = (Driver) H2.loadClass("org.h2.Driver").getDeclaredConstructor().newInstance();
+            Properties credenciales = new Properties();
+            credenciales.setProperty("user", "sa");
+            credenciales.setProperty("password", "");
+            return driver.connect(url, credenciales);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se ha podido cargar el driver de H2", e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        Thread hilo = Thread.currentThread();
+        ClassLoader anterior = hilo.getContextClassLoader();
+        hilo.setContextClassLoader(cargador);
+        try {
+            contexto.close();
+        } finally {
+            hilo.setContextClassLoader(anterior);
+            cargador.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return nombre + " en el puerto " + puerto;
+    }
+
+    /**
+     * Copia {@code BOOT-INF/classes} y los JAR de {@code BOOT-INF/lib} a {@code destino}, salvo
+     * que ya estén copiados de este mismo JAR, y devuelve la clase de la aplicación.
+     */
+    private static String extraer(Path jar, Path destino) throws IOException {
+        Path marca = destino.resolve(".extraido");
+        boolean alDia = Files.exists(marca)
+                && Files.getLastModifiedTime(marca).compareTo(Files.getLastModifiedTime(jar)) >= 0;
+        try (JarFile fichero = new JarFile(jar.toFile())) {
+            String claseAplicacion = fichero.getManifest().getMainAttributes().getValue("Start-Class");
+            if (claseAplicacion == null) {
+                throw new IllegalStateException(jar + " no es un JAR ejecutable de Spring Boot");
+            }
+            if (alDia) {
+                return claseAplicacion;
+            }
+            borrar(destino);
+            Enumeration<JarEntry> entradas = fichero.entries();
+            while (entradas.hasMoreElements()) {
+                JarEntry entrada = entradas.nextElement();
+                Path copia = rutaExtraida(entrada.getName(), destino);
+                if (copia == null || entrada.isDirectory()) {
+                    continue;
+                }
+                Files.createDirectories(copia.getParent());
+                try (InputStream contenido = fichero.getInputStream(entrada)) {
+                    Files.copy(contenido, copia, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.writeString(marca, jar.toAbsolutePath().toString());
+            return claseAplicacion;
+        }
+    }
+
+    private static Path rutaExtraida(String entrada, Path destino) {
+        if (entrada.startsWith("BOOT-INF/classes/")) {
+            return destino.resolve("classes").resolve(entrada.substring("BOOT-INF/classes/".length()));
+        }
+        if (entrada.startsWith("BOOT-INF/lib/")) {
+            return destino.resolve("lib").resolve(entrada.substring("BOOT-INF/lib/".length()));
+        }
+        return null;
+    }
+
+    private static void borrar(Path directorio) throws IOException {
+        if (!Files.exists(directorio)) {
+            return;
+        }
+        try (var rutas = Files.walk(directorio)) {
+            for (Path ruta : rutas.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(ruta);
+            }
+        }
+    }
+
+    private static URL ubicacion(Class<?> clase) {
+        try {
+            return clase.getProtectionDomain().getCodeSource().getLocation().toURI().toURL();
+        } catch (MalformedURLException | URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.miempresa.inventarioreactivo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class InventarioReactivoServiceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(InventarioReactivoServiceApplication.class, args);
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.miempresa.inventarioreactivo.config;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente reactivo del filtro de inventario-service: exige x-api-key en las rutas /api/.
+ */
+public class ApiKeyFilter implements WebFilter {
+
+    private static final byte[] CUERPO_NO_AUTORIZADO =
+            "{\"errors\":[{\"status\":\"401\",\"detail\":\"API Key inválida\"}]}".getBytes(StandardCharsets.UTF_8);
+
+    private final String apiKey;
+
+    public ApiKeyFilter(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        if (!path.startsWith("/api/")) {
+            return chain.filter(exchange);
+        }
+
+        String requestApiKey = exchange.getRequest().getHeaders().getFirst("x-api-key");
+        if (!apiKey.equals(requestApiKey)) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            DataBuffer cuerpo = exchange.getResponse().bufferFactory().wrap(CUERPO_NO_AUTORIZADO);
+            return exchange.getResponse().writeWith(Mono.just(cuerpo));
+        }
+
+        return chain.filter(exchange);
+    }
+}
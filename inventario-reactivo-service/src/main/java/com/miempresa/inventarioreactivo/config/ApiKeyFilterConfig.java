@@ -0,0 +1,20 @@
+package com.miempresa.inventarioreactivo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class ApiKeyFilterConfig {
+
+    @Value("${api.key}")
+    private String apiKey;
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ApiKeyFilter apiKeyFilter() {
+        return new ApiKeyFilter(apiKey);
+    }
+}
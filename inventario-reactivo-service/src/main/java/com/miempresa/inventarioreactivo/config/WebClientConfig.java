@@ -0,0 +1,40 @@
+package com.miempresa.inventarioreactivo.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class WebClientConfig {
+
+    /**
+     * Cliente de MSProducto. El pool por defecto de Reactor Netty es pequeño para la
+     * concurrencia que se busca con la variante reactiva, así que se dimensiona por propiedad.
+     */
+    @Bean
+    public WebClient productosWebClient(
+            WebClient.Builder builder,
+            @Value("${productos.api.url}") String productosApiUrl,
+            @Value("${productos.service.api.key}") String apiKeyProducto,
+            @Value("${productos.cliente.max-conexiones:500}") int maxConexiones,
+            @Value("${productos.cliente.timeout-ms:5000}") long timeoutMs) {
+        ConnectionProvider pool = ConnectionProvider.builder("productos")
+                .maxConnections(maxConexiones)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient httpClient = HttpClient.create(pool).responseTimeout(Duration.ofMillis(timeoutMs));
+
+        return builder
+                .baseUrl(productosApiUrl)
+                .defaultHeader("X-API-KEY", apiKeyProducto)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
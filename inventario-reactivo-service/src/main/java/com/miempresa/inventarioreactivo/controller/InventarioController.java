@@ -0,0 +1,100 @@
+package com.miempresa.inventarioreactivo.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.miempresa.inventarioreactivo.dtos.DisponibilidadDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDetalleDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDto;
+import com.miempresa.inventarioreactivo.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventarioreactivo.services.InventarioService;
+import com.miempresa.inventarioreactivo.wrappers.JsonApiCollectionWrapper;
+import com.miempresa.inventarioreactivo.wrappers.JsonApiData;
+import com.miempresa.inventarioreactivo.wrappers.JsonApiWrapper;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/inventario")
+@RequiredArgsConstructor
+public class InventarioController {
+
+    private final InventarioService inventarioService;
+
+    private static final String TYPE_INVENTARIO = "inventario";
+    private static final String TYPE_DISPONIBILIDAD = "disponibilidad";
+    private static final String TYPE_INVENTARIO_DETALLE = "inventario-detalle";
+
+    @GetMapping
+    public Mono<ResponseEntity<JsonApiCollectionWrapper<DisponibilidadDto>>> consultarDisponibilidad(
+            @RequestParam(name = "filter[productoId]", required = false) List<Long> productoIds
+    ) {
+        return inventarioService.consultarDisponibilidad(productoIds)
+                .map(item -> wrapData(TYPE_DISPONIBILIDAD, item.getProductoId().toString(), item))
+                .collectList()
+                .map(data -> {
+                    JsonApiCollectionWrapper<DisponibilidadDto> wrapper = new JsonApiCollectionWrapper<>();
+                    wrapper.setData(data);
+                    return ResponseEntity.ok(wrapper);
+                });
+    }
+
+    @GetMapping("/{productoId}")
+    public Mono<ResponseEntity<String>> consultarInventarioPorProductoId(@PathVariable Long productoId) {
+        return inventarioService.consultarInventarioPorProductoId(productoId).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{productoId}/detalle")
+    public Mono<ResponseEntity<JsonApiWrapper<InventarioDetalleDto>>> consultarDetalleInventario(@PathVariable Long productoId) {
+        return inventarioService.consultarDetalleInventario(productoId)
+                .map(detalle -> ResponseEntity.ok(wrapResponse(TYPE_INVENTARIO_DETALLE, productoId.toString(), detalle)));
+    }
+
+    @PostMapping("/{productoId}")
+    public Mono<ResponseEntity<JsonApiWrapper<InventarioDto>>> actualizarCantidadInventario(
+            @PathVariable Long productoId,
+            @RequestParam int cantidad
+    ) {
+        return inventarioService.actualizarCantidadInventario(productoId, cantidad)
+                .map(inventario -> ResponseEntity.ok(wrapResponse(TYPE_INVENTARIO, productoId.toString(), inventario)));
+    }
+
+    @PostMapping("/compra")
+    public Mono<ResponseEntity<JsonApiWrapper<InventarioDto>>> comprarProducto(
+            @RequestParam Long productoId,
+            @RequestParam int cantidad,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        // Esta variante no guarda respuestas idempotentes: es preferible rechazar la clave a
+        // aceptarla y descontar dos veces en un reintento
+        if (idempotencyKey != null) {
+            return Mono.error(new SolicitudInvalidaException(
+                    "Idempotency-Key no está soportado en inventario-reactivo-service; use inventario-service"));
+        }
+        return inventarioService.comprarProducto(productoId, cantidad)
+                .map(inventario -> ResponseEntity.ok(wrapResponse(TYPE_INVENTARIO, productoId.toString(), inventario)));
+    }
+
+    private <T> JsonApiWrapper<T> wrapResponse(String type, String id, T attributes) {
+        JsonApiWrapper<T> wrapper = new JsonApiWrapper<>();
+        wrapper.setData(wrapData(type, id, attributes));
+        return wrapper;
+    }
+
+    private <T> JsonApiData<T> wrapData(String type, String id, T attributes) {
+        JsonApiData<T> data = new JsonApiData<>();
+        data.setType(type);
+        data.setId(id);
+        data.setAttributes(attributes);
+        return data;
+    }
+}
@@ -0,0 +1,14 @@
+package com.miempresa.inventarioreactivo.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DisponibilidadDto {
+    private Long productoId;
+    private Integer cantidad;
+    private Integer reservado;
+    private Integer disponible;
+    private Boolean enStock;
+}
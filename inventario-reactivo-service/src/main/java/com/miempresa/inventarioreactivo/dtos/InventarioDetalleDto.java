@@ -0,0 +1,14 @@
+package com.miempresa.inventarioreactivo.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class InventarioDetalleDto {
+    private Long productoId;
+    private ProductoDto producto;
+    private Integer cantidad;
+    private Integer reservado;
+    private Integer disponible;
+}
@@ -0,0 +1,13 @@
+package com.miempresa.inventarioreactivo.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class InventarioDto {
+    private Long id;
+    private Long productoId;
+    private Integer cantidad;
+    private Integer reservado;
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.miempresa.inventarioreactivo.dtos;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Atributos del recurso "producto" que expone MSProducto
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoDto {
+    private Long id;
+    private String nombre;
+    private String descripcion;
+    private BigDecimal precio;
+}
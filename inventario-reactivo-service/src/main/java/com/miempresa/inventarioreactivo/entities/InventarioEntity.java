@@ -0,0 +1,37 @@
+package com.miempresa.inventarioreactivo.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de la tabla {@code inventarios}, compartida con inventario-service (que es quien
+ * mantiene el esquema).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("inventarios")
+public class InventarioEntity {
+
+    @Id
+    private Long id;
+
+    @Column("producto_id")
+    private Long productoId;
+
+    @Column("cantidad")
+    private Integer cantidad;
+
+    // Unidades retenidas por reservas pendientes; siguen contando en cantidad hasta confirmarse
+    @Column("reservado")
+    private Integer reservado = 0;
+
+    public int getDisponible() {
+        return cantidad - reservado;
+    }
+}
@@ -0,0 +1,44 @@
+package com.miempresa.inventarioreactivo.entities;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimiento del libro de inventario. Solo se insertan filas; la tabla particionada la crea
+ * inventario-service (schema-postgresql.sql).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("movimientos_inventario")
+public class MovimientoInventarioEntity {
+
+    @Id
+    private Long id;
+
+    @Column("producto_id")
+    private Long productoId;
+
+    @Column("tipo")
+    private TipoMovimiento tipo;
+
+    // Variación con signo; nula en los ajustes, que fijan la cantidad de forma absoluta
+    @Column("variacion")
+    private Integer variacion;
+
+    @Column("cantidad_resultante")
+    private Integer cantidadResultante;
+
+    @Column("referencia")
+    private String referencia;
+
+    @Column("creado_en")
+    private Instant creadoEn;
+}
@@ -0,0 +1,7 @@
+package com.miempresa.inventarioreactivo.entities;
+
+public enum TipoMovimiento {
+    AJUSTE,
+    COMPRA,
+    RESERVA_CONFIRMADA
+}
@@ -0,0 +1,130 @@
+package com.miempresa.inventarioreactivo.exceptions;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * Mismas respuestas de error que inventario-service; en WebFlux la validación de cuerpos
+ * llega como {@link WebExchangeBindException} en lugar de MethodArgumentNotValidException.
+ */
+@ControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final JsonStringEncoder JSON = JsonStringEncoder.getInstance();
+
+    // Todo lo que precede al detalle en {"errors":[{...}]}, fijo para cada código
+    private static final Map<CodigoError, String> PLANTILLAS = new EnumMap<>(CodigoError.class);
+
+    static {
+        for (CodigoError codigo : CodigoError.values()) {
+            PLANTILLAS.put(codigo, "{\"errors\":[{\"status\":\"" + codigo.getEstado().value()
+                    + "\",\"code\":\"" + codigo.name()
+                    + "\",\"title\":\"" + new String(JSON.quoteAsString(codigo.getTitulo()))
+                    + "\",\"detail\":\"");
+        }
+    }
+
+    private static volatile MarcaDeTiempo ultimaMarca = new MarcaDeTiempo(-1, "");
+
+    /**
+     * Errores de negocio (producto inexistente, stock agotado), con el mismo cuerpo y el mismo
+     * {@code code} que inventario-service. Se escriben desde una plantilla precalculada por
+     * {@link CodigoError}: solo se escapan el detalle y la marca de tiempo, sin montar mapas ni
+     * pasar por Jackson.
+     */
+    @ExceptionHandler(ErrorDominioException.class)
+    public ResponseEntity<Object> manejarErrorDominio(ErrorDominioException ex) {
+        return ResponseEntity.status(ex.getCodigo().getEstado())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpoError(ex));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Object> manejarValidaciones(WebExchangeBindException ex) {
+        List<Map<String, Object>> errores = ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> Map.of(
+                        "status", "400",
+                        "title", "Error de validación",
+                        "detail", error.getDefaultMessage(),
+                        "source", Map.of("pointer", "/data/attributes/" + error.getField()),
+                        "timestamp", LocalDateTime.now().toString()
+                ))
+                .collect(Collectors.toList());
+
+        return new ResponseEntity<>(Map.of("errors", errores), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Object> manejarViolaciones(ConstraintViolationException ex) {
+        List<Map<String, Object>> errores = ex.getConstraintViolations().stream()
+                .map(violation -> Map.of(
+                        "status", "400",
+                        "title", "Violación de restricción",
+                        "detail", violation.getMessage(),
+                        "source", Map.of("pointer", violation.getPropertyPath().toString()),
+                        "timestamp", LocalDateTime.now().toString()
+                ))
+                .collect(Collectors.toList());
+
+        return new ResponseEntity<>(Map.of("errors", errores), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> manejarExcepcionesGenerales(Exception ex) {
+        return new ResponseEntity<>(
+                Map.of(
+                        "errors", List.of(
+                                Map.of(
+                                        "status", "500",
+                                        "title", "Error interno del servidor",
+                                        "detail", ex.getMessage(),
+                                        "timestamp", LocalDateTime.now().toString()
+                                )
+                        )
+                ),
+                HttpStatus.INTERNAL_SERVER_ERROR
+        );
+    }
+
+    private static String cuerpoError(ErrorDominioException ex) {
+        String plantilla = PLANTILLAS.get(ex.getCodigo());
+        String detalle = ex.getMessage() == null ? "" : new String(JSON.quoteAsString(ex.getMessage()));
+        return new StringBuilder(plantilla.length() + detalle.length() + 48)
+                .append(plantilla)
+                .append(detalle)
+                .append("\",\"timestamp\":\"")
+                .append(marcaDeTiempo())
+                .append("\"}]}")
+                .toString();
+    }
+
+    // Varias respuestas en el mismo milisegundo comparten el texto de la marca de tiempo
+    private static String marcaDeTiempo() {
+        MarcaDeTiempo actual = ultimaMarca;
+        long ahora = System.currentTimeMillis();
+        if (actual.milis() != ahora) {
+            actual = new MarcaDeTiempo(ahora, LocalDateTime.ofInstant(Instant.ofEpochMilli(ahora), ZoneId.systemDefault()).toString());
+            ultimaMarca = actual;
+        }
+        return actual.texto();
+    }
+
+    private record MarcaDeTiempo(long milis, String texto) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.miempresa.inventarioreactivo.exceptions;
+
+public class InventarioInsuficienteException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InventarioInsuficienteException(String mensaje) {
+        super(CodigoError.INVENTARIO_INSUFICIENTE, mensaje);
+    }
+}
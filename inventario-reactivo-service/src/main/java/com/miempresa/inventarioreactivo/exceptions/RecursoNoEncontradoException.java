@@ -0,0 +1,10 @@
+package com.miempresa.inventarioreactivo.exceptions;
+
+public class RecursoNoEncontradoException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RecursoNoEncontradoException(String mensaje) {
+        super(CodigoError.RECURSO_NO_ENCONTRADO, mensaje);
+    }
+}
@@ -0,0 +1,44 @@
+package com.miempresa.inventarioreactivo.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import com.miempresa.inventarioreactivo.entities.InventarioEntity;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface InventarioRepository extends ReactiveCrudRepository<InventarioEntity, Long> {
+
+    Mono<InventarioEntity> findByProductoId(Long productoId);
+
+    /** Filas de inventario de varios productos en una sola consulta {@code IN}. */
+    Flux<InventarioEntity> findByProductoIdIn(Collection<Long> productoIds);
+
+    /**
+     * Fija la cantidad de un producto en una sola sentencia: inserta la fila si no existe
+     * o actualiza la existente (producto_id es único), devolviendo la fila almacenada. Vacío si
+     * la nueva cantidad no cubre las unidades que inventario-service tiene reservadas.
+     */
+    @Query("""
+            INSERT INTO inventarios (producto_id, cantidad, reservado)
+            VALUES (:productoId, :cantidad, 0)
+            ON CONFLICT (producto_id) DO UPDATE SET cantidad = EXCLUDED.cantidad
+            WHERE inventarios.reservado <= EXCLUDED.cantidad
+            RETURNING *
+            """)
+    Mono<InventarioEntity> upsertCantidad(Long productoId, int cantidad);
+
+    /**
+     * Descuenta {@code cantidad} unidades si hay suficiente disponible (cantidad - reservado).
+     * Vacío si no existe la fila o no alcanza el disponible.
+     */
+    @Query("""
+            UPDATE inventarios SET cantidad = cantidad - :cantidad
+            WHERE producto_id = :productoId AND cantidad - reservado >= :cantidad
+            RETURNING *
+            """)
+    Mono<InventarioEntity> descontarCantidad(Long productoId, int cantidad);
+}
@@ -0,0 +1,8 @@
+package com.miempresa.inventarioreactivo.repositories;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import com.miempresa.inventarioreactivo.entities.MovimientoInventarioEntity;
+
+public interface MovimientoInventarioRepository extends ReactiveCrudRepository<MovimientoInventarioEntity, Long> {
+}
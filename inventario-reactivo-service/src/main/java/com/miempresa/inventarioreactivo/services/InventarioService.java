@@ -0,0 +1,24 @@
+package com.miempresa.inventarioreactivo.services;
+
+import java.util.List;
+
+import com.miempresa.inventarioreactivo.dtos.DisponibilidadDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDetalleDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDto;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface InventarioService {
+
+    Mono<String> consultarInventarioPorProductoId(Long productoId);
+
+    Mono<InventarioDetalleDto> consultarDetalleInventario(Long productoId);
+
+    /** Disponibilidad de varios productos; los ids que no existen en MSProducto se omiten. */
+    Flux<DisponibilidadDto> consultarDisponibilidad(List<Long> productoIds);
+
+    Mono<InventarioDto> actualizarCantidadInventario(Long productoId, int nuevaCantidad);
+
+    Mono<InventarioDto> comprarProducto(Long productoId, int cantidad);
+}
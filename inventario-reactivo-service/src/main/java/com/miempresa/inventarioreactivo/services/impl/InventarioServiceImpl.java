@@ -0,0 +1,231 @@
+package com.miempresa.inventarioreactivo.services.impl;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.CodecException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+
+import com.miempresa.inventarioreactivo.dtos.DisponibilidadDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDetalleDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDto;
+import com.miempresa.inventarioreactivo.dtos.ProductoDto;
+import com.miempresa.inventarioreactivo.entities.InventarioEntity;
+import com.miempresa.inventarioreactivo.entities.MovimientoInventarioEntity;
+import com.miempresa.inventarioreactivo.entities.TipoMovimiento;
+import com.miempresa.inventarioreactivo.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventarioreactivo.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventarioreactivo.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventarioreactivo.repositories.InventarioRepository;
+import com.miempresa.inventarioreactivo.repositories.MovimientoInventarioRepository;
+import com.miempresa.inventarioreactivo.services.InventarioService;
+import com.miempresa.inventarioreactivo.utils.LogLimitado;
+import com.miempresa.inventarioreactivo.wrappers.JsonApiWrapper;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Misma lógica que inventario-service, pero sin bloquear hilos: MSProducto se consulta con
+ * WebClient y la base de datos con R2DBC, así que la concurrencia no queda limitada por el
+ * tamaño de un pool de hilos.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventarioServiceImpl implements InventarioService {
+
+	private static final Logger log = LoggerFactory.getLogger(InventarioServiceImpl.class);
+
+	private static final ParameterizedTypeReference<String> TIPO_TEXTO = new ParameterizedTypeReference<>() {};
+	private static final ParameterizedTypeReference<JsonApiWrapper<ProductoDto>> TIPO_RESPUESTA_PRODUCTO =
+	        new ParameterizedTypeReference<>() {};
+	private static final ParameterizedTypeReference<List<JsonApiWrapper<ProductoDto>>> TIPO_RESPUESTA_PRODUCTOS =
+	        new ParameterizedTypeReference<>() {};
+
+	private final InventarioRepository inventarioRepository;
+	private final MovimientoInventarioRepository movimientoInventarioRepository;
+	private final WebClient productosWebClient;
+
+	private final LogLimitado logErroresProductos = new LogLimitado(10, 1, TimeUnit.SECONDS);
+	private final LogLimitado logInventarioInsuficiente = new LogLimitado(10, 1, TimeUnit.SECONDS);
+
+	@Value("${inventario.disponibilidad.max-ids:200}")
+	private int maxIdsDisponibilidad = 200;
+
+	@Override
+	public Mono<String> consultarInventarioPorProductoId(Long productoId) {
+	    log.debug("Consultando inventario para productoId: {}", productoId);
+	    return validarExistenciaProducto(productoId);
+	}
+
+	@Override
+	public Mono<InventarioDetalleDto> consultarDetalleInventario(Long productoId) {
+	    log.debug("Consultando detalle de inventario para productoId: {}", productoId);
+
+	    // zip se suscribe a ambas fuentes a la vez: la latencia es la de la más lenta
+	    return Mono.zip(
+	            obtenerProducto(productoId),
+	            inventarioRepository.findByProductoId(productoId).map(Optional::of).defaultIfEmpty(Optional.empty()))
+	        .map(tupla -> {
+	            Optional<InventarioEntity> inv = tupla.getT2();
+	            // Un producto sin fila de inventario simplemente no tiene stock
+	            int cantidad = inv.map(InventarioEntity::getCantidad).orElse(0);
+	            int reservado = inv.map(InventarioEntity::getReservado).orElse(0);
+	            return InventarioDetalleDto.builder()
+	                    .productoId(productoId)
+	                    .producto(tupla.getT1())
+	                    .cantidad(cantidad)
+	                    .reservado(reservado)
+	                    .disponible(cantidad - reservado)
+	                    .build();
+	        });
+	}
+
+	@Override
+	public Flux<DisponibilidadDto> consultarDisponibilidad(List<Long> productoIds) {
+	    List<Long> ids = productoIds == null ? List.of() : productoIds.stream().distinct().toList();
+	    if (ids.isEmpty()) {
+	        return Flux.error(new SolicitudInvalidaException("Debe indicar al menos un productoId en filter[productoId]"));
+	    }
+	    if (ids.size() > maxIdsDisponibilidad) {
+	        return Flux.error(new SolicitudInvalidaException(
+	                "Se admiten como máximo " + maxIdsDisponibilidad + " productoIds por consulta"));
+	    }
+	    log.debug("Consultando disponibilidad de {} productos", ids.size());
+
+	    String filtro = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+	    Mono<List<Long>> existentes = consultarProductos(
+	                uri -> uri.path("/productos").queryParam("filter[id]", filtro).build(), TIPO_RESPUESTA_PRODUCTOS)
+	            .map(productos -> productos.stream().map(wrapper -> Long.valueOf(wrapper.getData().getId())).toList());
+
+	    return Mono.zip(existentes, inventarioRepository.findByProductoIdIn(ids).collectMap(InventarioEntity::getProductoId))
+	        .flatMapMany(tupla -> Flux.fromIterable(ids)
+	            .filter(tupla.getT1()::contains)
+	            .map(id -> {
+	                InventarioEntity inv = tupla.getT2().get(id);
+	                int cantidad = inv != null ? inv.getCantidad() : 0;
+	                int reservado = inv != null ? inv.getReservado() : 0;
+	                return DisponibilidadDto.builder()
+	                        .productoId(id)
+	                        .cantidad(cantidad)
+	                        .reservado(reservado)
+	                        .disponible(cantidad - reservado)
+	                        .enStock(cantidad - reservado > 0)
+	                        .build();
+	            }));
+	}
+
+	@Transactional
+	@Override
+	public Mono<InventarioDto> actualizarCantidadInventario(Long productoId, int nuevaCantidad) {
+	    log.debug("Actualizando cantidad de inventario. productoId: {}, nuevaCantidad: {}", productoId, nuevaCantidad);
+
+	    return validarExistenciaProducto(productoId)
+	        .then(inventarioRepository.upsertCantidad(productoId, nuevaCantidad))
+	        .switchIfEmpty(Mono.error(() -> new InventarioInsuficienteException(
+	                "La cantidad " + nuevaCantidad + " no cubre las unidades reservadas del producto " + productoId)))
+	        .flatMap(guardado -> registrarMovimiento(productoId, TipoMovimiento.AJUSTE, null, guardado.getCantidad())
+	            .doOnSuccess(m -> log.info("Inventario actualizado para productoId: {} con cantidad: {}",
+	                    productoId, guardado.getCantidad()))
+	            .thenReturn(toDto(guardado)));
+	}
+
+	@Transactional
+	@Override
+	public Mono<InventarioDto> comprarProducto(Long productoId, int cantidad) {
+	    log.debug("Procesando compra de productoId: {}, cantidad: {}", productoId, cantidad);
+	    if (cantidad <= 0) {
+	        return Mono.error(new SolicitudInvalidaException("La cantidad a comprar debe ser positiva"));
+	    }
+
+	    // El descuento es un UPDATE condicional; si no devuelve fila se distingue entre
+	    // inventario inexistente e insuficiente para responder igual que inventario-service
+	    return validarExistenciaProducto(productoId)
+	        .then(inventarioRepository.descontarCantidad(productoId, cantidad))
+	        .switchIfEmpty(Mono.defer(() -> inventarioRepository.findByProductoId(productoId)
+	            .switchIfEmpty(Mono.defer(() -> {
+	                log.warn("Inventario no encontrado para productoId: {}", productoId);
+	                return Mono.error(new RecursoNoEncontradoException("Inventario no encontrado"));
+	            }))
+	            .flatMap(inventario -> {
+	                logInventarioInsuficiente.emitir(omitidos -> log.warn(
+	                        "Inventario insuficiente para productoId: {}. Disponible: {}, Solicitado: {} [omitidos: {}]",
+	                        productoId, inventario.getDisponible(), cantidad, omitidos));
+	                return Mono.error(new InventarioInsuficienteException("Inventario insuficiente"));
+	            })))
+	        .flatMap(inventario -> registrarMovimiento(productoId, TipoMovimiento.COMPRA, -cantidad, inventario.getCantidad())
+	            .doOnSuccess(m -> log.info("Compra realizada. Nuevo inventario para productoId {}: {}",
+	                    productoId, inventario.getCantidad()))
+	            .thenReturn(toDto(inventario)));
+	}
+
+	private Mono<MovimientoInventarioEntity> registrarMovimiento(Long productoId, TipoMovimiento tipo,
+	        Integer variacion, int cantidadResultante) {
+	    return movimientoInventarioRepository.save(new MovimientoInventarioEntity(
+	            null, productoId, tipo, variacion, cantidadResultante, null, Instant.now()));
+	}
+
+	private InventarioDto toDto(InventarioEntity entity) {
+	    return InventarioDto.builder()
+	            .id(entity.getId())
+	            .productoId(entity.getProductoId())
+	            .cantidad(entity.getCantidad())
+	            .reservado(entity.getReservado())
+	            .build();
+	}
+
+	private Mono<ProductoDto> obtenerProducto(Long productoId) {
+	    return consultarProductos(uri -> uri.path("/productos/{id}").build(productoId), TIPO_RESPUESTA_PRODUCTO)
+	        .flatMap(wrapper -> wrapper.getData() == null || wrapper.getData().getAttributes() == null
+	            ? Mono.error(new RecursoNoEncontradoException("Respuesta sin datos del servicio de productos para ID: " + productoId))
+	            : Mono.just(wrapper.getData().getAttributes()));
+	}
+
+	protected Mono<String> validarExistenciaProducto(Long productoId) {
+	    return consultarProductos(uri -> uri.path("/productos/{id}").build(productoId), TIPO_TEXTO)
+	        .doOnNext(respuesta -> log.debug("Producto con ID {} encontrado en MSProducto", productoId));
+	}
+
+	/**
+	 * Llama a MSProducto y traduce los errores a {@link RecursoNoEncontradoException}, con los
+	 * mismos mensajes que la versión con RestTemplate.
+	 */
+	private <T> Mono<T> consultarProductos(Function<UriBuilder, URI> uri,
+	        ParameterizedTypeReference<T> tipo) {
+	    return productosWebClient.get()
+	        .uri(uri)
+	        .retrieve()
+	        .bodyToMono(tipo)
+	        .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Respuesta vacía del servicio de productos")))
+	        .onErrorMap(WebClientResponseException.class, e -> {
+	            String errorMessage = (e.getStatusCode().is4xxClientError() ? "Error del cliente" : "Error del servidor")
+	                    + " al consultar MSProducto (HTTP " + e.getStatusCode() + "): " + e.getResponseBodyAsString();
+	            logErroresProductos.emitir(omitidos -> log.error("{} [omitidos: {}]", errorMessage, omitidos));
+	            return new RecursoNoEncontradoException(e.getStatusCode().is4xxClientError()
+	                    ? "Error del servicio de productos: " + errorMessage
+	                    : "Error del servicio de productos (servidor): " + errorMessage);
+	        })
+	        .onErrorMap(WebClientRequestException.class, e -> {
+	            logErroresProductos.emitir(omitidos -> log.error(
+	                    "Error de conexión o comunicación con MSProducto: {} [omitidos: {}]", e.getMessage(), omitidos));
+	            return new RecursoNoEncontradoException("No se pudo conectar con el servicio de productos: " + e.getMessage());
+	        })
+	        .onErrorMap(CodecException.class,
+	            e -> new RecursoNoEncontradoException("Respuesta no válida del servicio de productos: " + e.getMessage()));
+	}
+}
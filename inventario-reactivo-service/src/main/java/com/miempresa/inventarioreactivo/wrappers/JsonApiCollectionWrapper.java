@@ -0,0 +1,10 @@
+package com.miempresa.inventarioreactivo.wrappers;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class JsonApiCollectionWrapper<T> {
+ private List<JsonApiData<T>> data;
+}
@@ -0,0 +1,10 @@
+package com.miempresa.inventarioreactivo.wrappers;
+
+import lombok.Data;
+
+@Data
+public class JsonApiData<T> {
+    private String type;
+    private String id;
+    private T attributes;
+}
\ No newline at end of file
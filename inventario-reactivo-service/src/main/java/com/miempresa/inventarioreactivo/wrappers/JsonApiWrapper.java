@@ -0,0 +1,8 @@
+package com.miempresa.inventarioreactivo.wrappers;
+
+import lombok.Data;
+
+@Data
+public class JsonApiWrapper<T> {
+ private JsonApiData<T> data;
+}
@@ -0,0 +1,131 @@
+package com.miempresa.inventarioreactivo.carga;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compara inventario-service (servlet) con inventario-reactivo-service a alta concurrencia
+ * lanzando la misma carga de GET /api/inventario/{productoId}/detalle contra ambos.
+ *
+ * <p>Necesita los dos servicios levantados (p. ej. con docker compose) y se ejecuta con:
+ * <pre>
+ * mvn -Pcarga test -Dcarga.url.servlet=http://localhost:8081 -Dcarga.url.reactivo=http://localhost:8082 \
+ *     -Dcarga.api-key=inventario -Dcarga.producto-id=1 -Dcarga.concurrencia=1000 -Dcarga.peticiones=20000
+ * </pre>
+ * El resultado se imprime y se guarda en {@code target/comparativa-carga.json}.
+ */
+@Tag("carga")
+class ComparativaCargaTest {
+
+    private final String urlServlet = System.getProperty("carga.url.servlet");
+    private final String urlReactivo = System.getProperty("carga.url.reactivo");
+    private final String apiKey = System.getProperty("carga.api-key", "inventario");
+    private final long productoId = Long.getLong("carga.producto-id", 1L);
+    private final int concurrencia = Integer.getInteger("carga.concurrencia", 1000);
+    private final int peticiones = Integer.getInteger("carga.peticiones", 20000);
+    private final int calentamiento = Integer.getInteger("carga.calentamiento", 2000);
+
+    @Test
+    @DisplayName("Servlet vs reactivo: rendimiento y latencias con la misma concurrencia")
+    void compararServletYReactivo() throws Exception {
+        assumeTrue(urlServlet != null && urlReactivo != null,
+                "Indique -Dcarga.url.servlet y -Dcarga.url.reactivo para ejecutar la comparativa");
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("concurrencia", concurrencia);
+        informe.put("peticiones", peticiones);
+        informe.put("servlet", medir(urlServlet));
+        informe.put("reactivo", medir(urlReactivo));
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = mapper.writeValueAsString(informe);
+        System.out.println(json);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "comparativa-carga.json"), json);
+    }
+
+    private Map<String, Object> medir(String baseUrl) throws InterruptedException, IOException {
+        URI uri = URI.create(baseUrl + "/api/inventario/" + productoId + "/detalle");
+        HttpClient cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest peticion = HttpRequest.newBuilder(uri)
+                .header("x-api-key", apiKey)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        ejecutar(cliente, peticion, calentamiento, new long[calentamiento], new AtomicInteger());
+
+        long[] latenciasNs = new long[peticiones];
+        AtomicInteger errores = new AtomicInteger();
+        long inicio = System.nanoTime();
+        ejecutar(cliente, peticion, peticiones, latenciasNs, errores);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(latenciasNs);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("url", uri.toString());
+        resultado.put("peticionesPorSegundo", Math.round(peticiones / segundos));
+        resultado.put("errores", errores.get());
+        resultado.put("p50Ms", percentilMs(latenciasNs, 0.50));
+        resultado.put("p95Ms", percentilMs(latenciasNs, 0.95));
+        resultado.put("p99Ms", percentilMs(latenciasNs, 0.99));
+        resultado.put("maxMs", percentilMs(latenciasNs, 1.0));
+        return resultado;
+    }
+
+    /** Lanza {@code total} peticiones con como mucho {@code concurrencia} en vuelo a la vez. */
+    private void ejecutar(HttpClient cliente, HttpRequest peticion, int total, long[] latenciasNs,
+            AtomicInteger errores) throws InterruptedException {
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                int indice = i;
+                enVuelo.acquire();
+                ejecutor.execute(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        if (respuesta.statusCode() != 200) {
+                            errores.incrementAndGet();
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errores.incrementAndGet();
+                    } finally {
+                        latenciasNs[indice] = System.nanoTime() - t0;
+                        enVuelo.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+}
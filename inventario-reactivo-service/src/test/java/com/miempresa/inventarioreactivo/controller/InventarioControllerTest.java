@@ -0,0 +1,128 @@
+package com.miempresa.inventarioreactivo.controller;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.miempresa.inventarioreactivo.dtos.DisponibilidadDto;
+import com.miempresa.inventarioreactivo.dtos.InventarioDto;
+import com.miempresa.inventarioreactivo.exceptions.GlobalExceptionHandler;
+import com.miempresa.inventarioreactivo.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventarioreactivo.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventarioreactivo.services.InventarioService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class InventarioControllerTest {
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @InjectMocks
+    private InventarioController inventarioController;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(inventarioController)
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debe devolver el inventario actualizado con el mismo formato JSON:API que inventario-service")
+    void actualizarCantidadInventario_shouldReturnJsonApi() {
+        // GIVEN
+        when(inventarioService.actualizarCantidadInventario(123L, 50)).thenReturn(Mono.just(
+                InventarioDto.builder().id(1L).productoId(123L).cantidad(50).reservado(0).build()));
+
+        // WHEN & THEN
+        webTestClient.post().uri("/api/inventario/123?cantidad=50")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.type").isEqualTo("inventario")
+                .jsonPath("$.data.id").isEqualTo("123")
+                .jsonPath("$.data.attributes.cantidad").isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Debe devolver 404 con el cuerpo de errores JSON:API si el recurso no existe")
+    void consultarInventario_shouldReturnNotFound() {
+        // GIVEN
+        when(inventarioService.consultarInventarioPorProductoId(999L))
+                .thenReturn(Mono.error(new RecursoNoEncontradoException("Producto no encontrado")));
+
+        // WHEN & THEN
+        webTestClient.get().uri("/api/inventario/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.errors[0].status").isEqualTo("404")
+                .jsonPath("$.errors[0].detail").isEqualTo("Producto no encontrado");
+    }
+
+    @Test
+    @DisplayName("Debe devolver 409 con código de error si el inventario es insuficiente, igual que inventario-service")
+    void comprarProducto_shouldReturnConflictWhenInsufficient() {
+        // GIVEN
+        when(inventarioService.comprarProducto(123L, 200))
+                .thenReturn(Mono.error(new InventarioInsuficienteException("Inventario insuficiente")));
+
+        // WHEN & THEN
+        webTestClient.post().uri("/api/inventario/compra?productoId=123&cantidad=200")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.errors[0].status").isEqualTo("409")
+                .jsonPath("$.errors[0].code").isEqualTo("INVENTARIO_INSUFICIENTE")
+                .jsonPath("$.errors[0].title").isEqualTo("Inventario insuficiente")
+                .jsonPath("$.errors[0].detail").isEqualTo("Inventario insuficiente")
+                .jsonPath("$.errors[0].timestamp").exists();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar Idempotency-Key en lugar de ignorarla")
+    void comprarProducto_shouldRejectIdempotencyKey() {
+        // WHEN & THEN
+        webTestClient.post().uri("/api/inventario/compra?productoId=123&cantidad=1")
+                .header("Idempotency-Key", "abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(inventarioService, never()).comprarProducto(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe devolver la disponibilidad de varios productos como colección JSON:API")
+    void consultarDisponibilidad_shouldReturnCollection() {
+        // GIVEN
+        when(inventarioService.consultarDisponibilidad(List.of(1L, 2L))).thenReturn(Flux.just(
+                DisponibilidadDto.builder().productoId(1L).cantidad(5).reservado(0).disponible(5).enStock(true).build(),
+                DisponibilidadDto.builder().productoId(2L).cantidad(0).reservado(0).disponible(0).enStock(false).build()));
+
+        // WHEN & THEN
+        webTestClient.get().uri(uri -> uri.path("/api/inventario").queryParam("filter[productoId]", "1,2").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(2)
+                .jsonPath("$.data[0].type").isEqualTo("disponibilidad")
+                .jsonPath("$.data[1].attributes.enStock").isEqualTo(false);
+    }
+}
@@ -0,0 +1,268 @@
+package com.miempresa.inventarioreactivo.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.miempresa.inventarioreactivo.entities.InventarioEntity;
+import com.miempresa.inventarioreactivo.entities.MovimientoInventarioEntity;
+import com.miempresa.inventarioreactivo.entities.TipoMovimiento;
+import com.miempresa.inventarioreactivo.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventarioreactivo.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventarioreactivo.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventarioreactivo.repositories.InventarioRepository;
+import com.miempresa.inventarioreactivo.repositories.MovimientoInventarioRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class InventarioServiceImplTest {
+
+    private static final String PRODUCTOS_API_URL = "http://productos/api";
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private MovimientoInventarioRepository movimientoInventarioRepository;
+
+    private InventarioServiceImpl inventarioService;
+
+    // Respuesta que devolverá el MSProducto simulado y número de llamadas recibidas
+    private HttpStatus estadoProductos;
+    private String cuerpoProductos;
+    private Duration latenciaProductos;
+    private final AtomicInteger llamadasProductos = new AtomicInteger();
+    private String ultimaUrlProductos;
+
+    @BeforeEach
+    void setUp() {
+        estadoProductos = HttpStatus.OK;
+        cuerpoProductos = productoJsonApi(101L);
+        latenciaProductos = Duration.ZERO;
+
+        // WebClient real con una ExchangeFunction en memoria en lugar de red
+        WebClient webClient = WebClient.builder()
+                .baseUrl(PRODUCTOS_API_URL)
+                .exchangeFunction(request -> {
+                    llamadasProductos.incrementAndGet();
+                    ultimaUrlProductos = request.url().toString();
+                    return Mono.just(ClientResponse.create(estadoProductos)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(cuerpoProductos)
+                            .build())
+                        .delayElement(latenciaProductos);
+                })
+                .build();
+        inventarioService = new InventarioServiceImpl(inventarioRepository, movimientoInventarioRepository, webClient);
+    }
+
+    @Test
+    @DisplayName("Debe devolver la respuesta de MSProducto al consultar el inventario")
+    void consultarInventarioPorProductoId_shouldReturnProductResponse() {
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.consultarInventarioPorProductoId(101L))
+                .expectNext(cuerpoProductos)
+                .verifyComplete();
+        assertEquals(PRODUCTOS_API_URL + "/productos/101", ultimaUrlProductos);
+    }
+
+    @Test
+    @DisplayName("Debe traducir un 404 de MSProducto en RecursoNoEncontradoException")
+    void consultarInventarioPorProductoId_shouldMapNotFound() {
+        // GIVEN
+        estadoProductos = HttpStatus.NOT_FOUND;
+        cuerpoProductos = "{\"errors\":[]}";
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.consultarInventarioPorProductoId(999L))
+                .expectErrorSatisfies(e -> {
+                    assertTrue(e instanceof RecursoNoEncontradoException);
+                    assertTrue(e.getMessage().startsWith("Error del servicio de productos: Error del cliente"));
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Debe consultar producto y stock a la vez: la latencia es la de la más lenta, no la suma")
+    void consultarDetalleInventario_shouldZipBothSourcesConcurrently() {
+        // GIVEN: cada fuente tarda 300 ms
+        latenciaProductos = Duration.ofMillis(300);
+        when(inventarioRepository.findByProductoId(101L))
+                .thenAnswer(invocation -> Mono.just(new InventarioEntity(1L, 101L, 40, 5)).delayElement(Duration.ofMillis(300)));
+
+        // WHEN & THEN: con tiempo virtual, el resultado llega a los 300 ms y no a los 600
+        StepVerifier.withVirtualTime(() -> inventarioService.consultarDetalleInventario(101L))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(299))
+                .thenAwait(Duration.ofMillis(1))
+                .assertNext(detalle -> {
+                    assertEquals("Producto Test", detalle.getProducto().getNombre());
+                    assertEquals(35, detalle.getDisponible());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Debe resolver la disponibilidad con una consulta IN y una llamada por lote a MSProducto")
+    void consultarDisponibilidad_shouldBatchBothLookups() {
+        // GIVEN: 102 no existe en MSProducto y 103 no tiene fila de inventario
+        cuerpoProductos = "[" + productoJsonApi(101L) + "," + productoJsonApi(103L) + "]";
+        when(inventarioRepository.findByProductoIdIn(List.of(101L, 102L, 103L)))
+                .thenReturn(Flux.just(new InventarioEntity(1L, 101L, 10, 0)));
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.consultarDisponibilidad(List.of(101L, 102L, 103L, 101L)))
+                .assertNext(d -> {
+                    assertEquals(101L, d.getProductoId());
+                    assertTrue(d.getEnStock());
+                })
+                .assertNext(d -> {
+                    assertEquals(103L, d.getProductoId());
+                    assertEquals(0, d.getCantidad());
+                })
+                .verifyComplete();
+        assertEquals(1, llamadasProductos.get());
+        assertTrue(ultimaUrlProductos.contains("/productos?filter"));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la consulta de disponibilidad sin ids")
+    void consultarDisponibilidad_shouldRejectEmptyIds() {
+        StepVerifier.create(inventarioService.consultarDisponibilidad(List.of()))
+                .expectError(SolicitudInvalidaException.class)
+                .verify();
+        assertEquals(0, llamadasProductos.get());
+    }
+
+    @Test
+    @DisplayName("Debe fijar la cantidad con el upsert y registrar un movimiento de ajuste")
+    void actualizarCantidadInventario_shouldUpsertAndRecordMovement() {
+        // GIVEN
+        when(inventarioRepository.upsertCantidad(101L, 25)).thenReturn(Mono.just(new InventarioEntity(1L, 101L, 25, 0)));
+        when(movimientoInventarioRepository.save(any(MovimientoInventarioEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.actualizarCantidadInventario(101L, 25))
+                .assertNext(dto -> assertEquals(25, dto.getCantidad()))
+                .verifyComplete();
+        ArgumentCaptor<MovimientoInventarioEntity> movimiento = ArgumentCaptor.forClass(MovimientoInventarioEntity.class);
+        verify(movimientoInventarioRepository).save(movimiento.capture());
+        assertEquals(TipoMovimiento.AJUSTE, movimiento.getValue().getTipo());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una cantidad que no cubre las unidades reservadas")
+    void actualizarCantidadInventario_shouldRejectQuantityBelowReserved() {
+        // GIVEN: el DO UPDATE no se aplica porque reservado > 2
+        when(inventarioRepository.upsertCantidad(101L, 2)).thenReturn(Mono.empty());
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.actualizarCantidadInventario(101L, 2))
+                .expectError(InventarioInsuficienteException.class)
+                .verify();
+        verify(movimientoInventarioRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("No debe tocar el inventario si el producto no existe en MSProducto")
+    void actualizarCantidadInventario_shouldNotUpsertWhenProductMissing() {
+        // GIVEN
+        estadoProductos = HttpStatus.NOT_FOUND;
+        when(inventarioRepository.upsertCantidad(anyLong(), anyInt())).thenReturn(Mono.never());
+
+        // WHEN & THEN: el Mono del upsert se construye, pero nunca se suscribe
+        StepVerifier.create(inventarioService.actualizarCantidadInventario(999L, 5))
+                .expectError(RecursoNoEncontradoException.class)
+                .verify(Duration.ofSeconds(2));
+        verify(movimientoInventarioRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una compra de cantidad no positiva sin tocar el inventario")
+    void comprarProducto_shouldRejectNonPositiveQuantity() {
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.comprarProducto(101L, -5))
+                .expectError(SolicitudInvalidaException.class)
+                .verify();
+        verify(inventarioRepository, never()).descontarCantidad(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe descontar con un UPDATE condicional y registrar la compra")
+    void comprarProducto_shouldDecrementAtomically() {
+        // GIVEN
+        when(inventarioRepository.descontarCantidad(101L, 3)).thenReturn(Mono.just(new InventarioEntity(1L, 101L, 7, 0)));
+        when(movimientoInventarioRepository.save(any(MovimientoInventarioEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.comprarProducto(101L, 3))
+                .assertNext(dto -> assertEquals(7, dto.getCantidad()))
+                .verifyComplete();
+        verify(inventarioRepository, never()).findByProductoId(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe fallar con InventarioInsuficienteException si no hay disponible suficiente")
+    void comprarProducto_shouldFailWhenInsufficient() {
+        // GIVEN
+        when(inventarioRepository.descontarCantidad(101L, 50)).thenReturn(Mono.empty());
+        when(inventarioRepository.findByProductoId(101L)).thenReturn(Mono.just(new InventarioEntity(1L, 101L, 10, 0)));
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.comprarProducto(101L, 50))
+                .expectErrorSatisfies(e -> {
+                    assertTrue(e instanceof InventarioInsuficienteException);
+                    assertEquals("Inventario insuficiente", e.getMessage());
+                })
+                .verify();
+        verify(movimientoInventarioRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe fallar con RecursoNoEncontradoException si no existe la fila de inventario")
+    void comprarProducto_shouldFailWhenNoInventarioRow() {
+        // GIVEN
+        when(inventarioRepository.descontarCantidad(101L, 1)).thenReturn(Mono.empty());
+        when(inventarioRepository.findByProductoId(101L)).thenReturn(Mono.empty());
+
+        // WHEN & THEN
+        StepVerifier.create(inventarioService.comprarProducto(101L, 1))
+                .expectErrorSatisfies(e -> {
+                    assertTrue(e instanceof RecursoNoEncontradoException);
+                    assertEquals("Inventario no encontrado", e.getMessage());
+                })
+                .verify();
+    }
+
+    private String productoJsonApi(Long id) {
+        return "{\"data\":{\"type\":\"producto\",\"id\":\"" + id + "\",\"attributes\":"
+                + "{\"id\":" + id + ",\"nombre\":\"Producto Test\",\"descripcion\":\"Desc\",\"precio\":10.0}}}";
+    }
+}
@@ -0,0 +1,80 @@
+package com.miempresa.inventario.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.miempresa.inventario.exceptions.ErrorDominioException;
+import com.miempresa.inventario.exceptions.GlobalExceptionHandler;
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+
+/**
+ * Un 404 de inventario: {@link ErrorDominioException} no captura la traza y
+ * {@link GlobalExceptionHandler} escribe el cuerpo desde una plantilla. {@code conTraza} lanza
+ * una excepción corriente a la misma profundidad, como referencia de lo que se ahorra.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManejoErroresBenchmark {
+
+    private final GlobalExceptionHandler manejador = new GlobalExceptionHandler();
+
+    /** Solo afecta a los benchmarks que lanzan la excepción. */
+    @State(Scope.Benchmark)
+    public static class Pila {
+
+        @Param({ "10", "100" })
+        public int profundidad;
+    }
+
+    @Benchmark
+    public RuntimeException lanzarSinTraza(Pila pila) {
+        try {
+            lanzarA(pila.profundidad, true);
+            throw new IllegalStateException();
+        } catch (RecursoNoEncontradoException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public RuntimeException lanzarConTraza(Pila pila) {
+        try {
+            lanzarA(pila.profundidad, false);
+            throw new IllegalStateException();
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object respuesta404(Pila pila) {
+        return manejador.manejarErrorDominio((ErrorDominioException) lanzarSinTraza(pila)).getBody();
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static void lanzarA(int profundidad, boolean dominio) {
+        if (profundidad > 0) {
+            lanzarA(profundidad - 1, dominio);
+            return;
+        }
+        if (dominio) {
+            throw new RecursoNoEncontradoException("No existe inventario para el producto 42");
+        }
+        throw new IllegalArgumentException("No existe inventario para el producto 42");
+    }
+}
@@ -0,0 +1,84 @@
+package com.miempresa.inventario.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.ProductoDto;
+import com.miempresa.inventario.wrappers.JsonApiData;
+import com.miempresa.inventario.wrappers.JsonApiWrapper;
+
+/**
+ * JSON:API en inventario: la respuesta de {@code POST /api/inventario/{productoId}} y la lectura
+ * de las respuestas de productos, de uno en uno y en lotes de 100 con {@code filter[id]}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionJsonApiBenchmark {
+
+    private static final TypeReference<JsonApiWrapper<ProductoDto>> TIPO_RESPUESTA_PRODUCTO = new TypeReference<>() {};
+    private static final TypeReference<List<JsonApiWrapper<ProductoDto>>> TIPO_RESPUESTA_PRODUCTOS = new TypeReference<>() {};
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private JsonApiWrapper<InventarioDto> inventario;
+    private byte[] producto;
+    private byte[] productos;
+
+    @Setup
+    public void preparar() {
+        JsonApiData<InventarioDto> data = new JsonApiData<>();
+        data.setType("inventario");
+        data.setId("42");
+        data.setAttributes(InventarioDto.builder().id(7L).productoId(42L).cantidad(120).reservado(3).build());
+        inventario = new JsonApiWrapper<>();
+        inventario.setData(data);
+
+        producto = productoJson(42).getBytes();
+        productos = LongStream.rangeClosed(1, 100)
+                .mapToObj(SerializacionJsonApiBenchmark::productoJson)
+                .collect(Collectors.joining(",", "[", "]"))
+                .getBytes();
+    }
+
+    @Benchmark
+    public byte[] escribirInventario() throws Exception {
+        return mapper.writeValueAsBytes(inventario);
+    }
+
+    @Benchmark
+    public JsonApiWrapper<ProductoDto> leerProducto() throws Exception {
+        return mapper.readValue(producto, TIPO_RESPUESTA_PRODUCTO);
+    }
+
+    @Benchmark
+    public List<JsonApiWrapper<ProductoDto>> leerProductos100() throws Exception {
+        return mapper.readValue(productos, TIPO_RESPUESTA_PRODUCTOS);
+    }
+
+    // Lo que devuelve GET /api/productos/{id}
+    private static String productoJson(long id) {
+        return "{\"data\":{\"type\":\"producto\",\"id\":\"" + id + "\",\"attributes\":{\"id\":" + id
+                + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Descripción " + id + "\",\"precio\":" + id + ".99}}}";
+    }
+}
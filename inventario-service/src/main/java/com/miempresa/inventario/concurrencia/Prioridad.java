@@ -0,0 +1,14 @@
+package com.miempresa.inventario.concurrencia;
+
+/**
+ * Clase de prioridad de una petición frente al {@link LimiteAdaptativo}: cuanto más baja, antes
+ * se rechaza cuando el servicio se acerca al límite.
+ */
+public enum Prioridad {
+
+    /** Compras y reservas: solo se rechazan con el límite lleno. */
+    CRITICA,
+    NORMAL,
+    /** Lecturas: lo primero que se descarta. */
+    BAJA
+}
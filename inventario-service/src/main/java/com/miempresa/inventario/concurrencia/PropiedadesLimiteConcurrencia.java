@@ -0,0 +1,42 @@
+package com.miempresa.inventario.concurrencia;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/** Configuración de {@code inventario.limite-concurrencia.*} (ver docs/limite-concurrencia.md). */
+@Data
+@ConfigurationProperties(prefix = "inventario.limite-concurrencia")
+public class PropiedadesLimiteConcurrencia {
+
+    private boolean enabled;
+
+    private int inicial = 20;
+    private int minimo = 4;
+
+    /** Como mucho los hilos de Tomcat: por encima, las peticiones esperarían en su cola igualmente. */
+    private int maximo = 200;
+
+    /** Cuánto puede crecer la latencia sobre la habitual antes de bajar el límite (1,5 = un 50 %). */
+    private double tolerancia = 1.5;
+
+    private double suavizado = 0.2;
+
+    /** Ventanas que abarca la media larga de latencia, lo que se considera «lo habitual». */
+    private int ventanaLarga = 600;
+
+    /** Parte del límite que pueden ocupar las peticiones de prioridad normal. */
+    private double fraccionNormal = 0.9;
+
+    /** Parte del límite que pueden ocupar las de prioridad baja: por encima, se descartan. */
+    private double fraccionBaja = 0.75;
+
+    /** Reglas {@code "MÉTODO /ruta/**"} de las peticiones críticas. */
+    private List<String> criticas = new ArrayList<>();
+
+    /** Reglas de las peticiones de prioridad baja. */
+    private List<String> bajas = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package com.miempresa.inventario.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Las consultas en paralelo pasan casi todo el tiempo esperando E/S: un hilo virtual por
+     * tarea. Cada tarea hereda el contexto de la petición (span de la traza y cuenta de
+     * sentencias SQL).
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService consultasExecutor() {
+        return ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(),
+                ContextSnapshotFactory.builder().build()::captureAll);
+    }
+}
@@ -0,0 +1,27 @@
+package com.miempresa.inventario.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.miempresa.inventario.jfr.JfrEndpoint;
+
+/**
+ * Grabaciones JFR bajo demanda en {@code /actuator/jfr} del puerto de gestión (ver
+ * docs/jfr.md). Desactivadas por defecto; al activarlas es obligatorio fijar su API key, que
+ * comprueba {@link JfrGestionConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventario.jfr.enabled", havingValue = "true")
+public class JfrConfig {
+
+    @Bean
+    public JfrEndpoint jfrEndpoint(@Value("${inventario.jfr.api-key:}") String apiKey,
+                                   @Value("${inventario.jfr.max-segundos:300}") int maxSegundos) {
+        if (apiKey.isBlank()) {
+            throw new IllegalStateException("inventario.jfr.enabled=true requiere inventario.jfr.api-key (JFR_API_KEY)");
+        }
+        return new JfrEndpoint(maxSegundos);
+    }
+}
@@ -0,0 +1,25 @@
+package com.miempresa.inventario.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Exige {@code x-api-key} en {@code /actuator/jfr}. El filtro tiene que vivir en el contexto
+ * del puerto de gestión, que no ve los filtros del API: por eso esta clase no lleva
+ * {@code @Configuration} (el escaneo de componentes no la recoge) y se importa desde
+ * {@code META-INF/spring/...ManagementContextConfiguration.imports}.
+ */
+public class JfrGestionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "inventario.jfr.enabled", havingValue = "true")
+    public FilterRegistrationBean<ApiKeyFilter> jfrApiKeyFilter(@Value("${inventario.jfr.api-key}") String apiKey) {
+        FilterRegistrationBean<ApiKeyFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new ApiKeyFilter(apiKey));
+        registrationBean.addUrlPatterns("/actuator/jfr", "/actuator/jfr/*");
+        registrationBean.setOrder(1);
+        return registrationBean;
+    }
+}
@@ -0,0 +1,47 @@
+package com.miempresa.inventario.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.miempresa.inventario.concurrencia.FiltroLimiteConcurrencia;
+import com.miempresa.inventario.concurrencia.LimiteAdaptativo;
+import com.miempresa.inventario.concurrencia.Prioridad;
+import com.miempresa.inventario.concurrencia.PropiedadesLimiteConcurrencia;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Límite adaptativo de peticiones en curso con descarte por prioridad (ver
+ * docs/limite-concurrencia.md). Va justo detrás de la API key: una petición sin clave válida no
+ * ocupa hueco, y los 503 se deciden antes de tocar la base de datos o MSProducto.
+ */
+@Configuration
+@EnableConfigurationProperties(PropiedadesLimiteConcurrencia.class)
+@ConditionalOnProperty(name = "inventario.limite-concurrencia.enabled", havingValue = "true")
+public class LimiteConcurrenciaConfig {
+
+    @Bean
+    public LimiteAdaptativo limiteAdaptativo(PropiedadesLimiteConcurrencia propiedades) {
+        return new LimiteAdaptativo(propiedades.getInicial(), propiedades.getMinimo(), propiedades.getMaximo(),
+                propiedades.getTolerancia(), propiedades.getSuavizado(), propiedades.getVentanaLarga(),
+                Map.of(Prioridad.NORMAL, propiedades.getFraccionNormal(), Prioridad.BAJA, propiedades.getFraccionBaja()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroLimiteConcurrencia> filtroLimiteConcurrencia(LimiteAdaptativo limite,
+                                                                                    PropiedadesLimiteConcurrencia propiedades,
+                                                                                    ObjectProvider<MeterRegistry> registry) {
+        FilterRegistrationBean<FiltroLimiteConcurrencia> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new FiltroLimiteConcurrencia(limite, propiedades.getCriticas(), propiedades.getBajas(),
+                registry.getIfAvailable()));
+        registrationBean.addUrlPatterns("/api/*");
+        registrationBean.setOrder(2);
+        return registrationBean;
+    }
+}
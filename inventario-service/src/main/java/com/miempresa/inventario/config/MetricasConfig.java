@@ -0,0 +1,48 @@
+package com.miempresa.inventario.config;
+
+import java.util.regex.Pattern;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+
+import io.micrometer.common.KeyValue;
+
+/**
+ * Métricas propias de inventario-service. El resto (peticiones HTTP, pool Hikari, repositorios,
+ * JVM) lo publica Actuator en el puerto de gestión; ver docs/metricas.md.
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Convención de {@code http.client.requests} para el RestTemplate de MSProducto.
+     * <p>
+     * Las llamadas construyen la URL concatenando el id o el filtro, así que la etiqueta
+     * {@code uri} por defecto sería distinta para cada producto y crearía una serie temporal por
+     * id. Aquí se descarta la query y los segmentos numéricos pasan a {@code {id}}: {@code /api/productos/{id}} agrupa todas las
+     * validaciones de existencia y {@code /api/productos} la consulta por lotes.
+     */
+    @Bean
+    public ClientRequestObservationConvention convencionPeticionesProductos() {
+        return new ConvencionPeticionesProductos();
+    }
+
+    static class ConvencionPeticionesProductos extends DefaultClientRequestObservationConvention {
+
+        private static final Pattern SEGMENTO_NUMERICO = Pattern.compile("/\\d+(?=/|$)");
+
+        @Override
+        protected KeyValue uri(ClientRequestObservationContext context) {
+            KeyValue uri = super.uri(context);
+            String ruta = uri.getValue();
+            int query = ruta.indexOf('?');
+            if (query >= 0) {
+                ruta = ruta.substring(0, query);
+            }
+            return KeyValue.of(uri.getKey(), SEGMENTO_NUMERICO.matcher(ruta).replaceAll("/{id}"));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.miempresa.inventario.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.miempresa.inventario.plazos.FiltroPlazo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Plazo de cada petición, recibido del cliente y propagado a MSProducto con el tiempo que
+ * le quede (ver docs/plazos.md).
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventario.plazos.enabled", havingValue = "true", matchIfMissing = true)
+public class PlazosConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroPlazo> filtroPlazo(@Value("${inventario.plazos.por-defecto-ms:0}") long porDefectoMs,
+                                                          ObjectProvider<MeterRegistry> registry) {
+        FilterRegistrationBean<FiltroPlazo> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new FiltroPlazo(porDefectoMs, registry.getIfAvailable()));
+        registrationBean.addUrlPatterns("/api/*");
+        // Antes que la API key: el plazo cuenta desde que llega la petición
+        registrationBean.setOrder(0);
+        return registrationBean;
+    }
+}
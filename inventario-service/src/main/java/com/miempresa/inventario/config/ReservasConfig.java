@@ -0,0 +1,33 @@
+package com.miempresa.inventario.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.miempresa.inventario.utils.HashedTimingWheel;
+
+@Configuration
+public class ReservasConfig {
+
+    @Value("${inventario.reservas.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${inventario.reservas.ranuras:512}")
+    private int ranuras;
+
+    @Value("${inventario.reservas.hilos-expiracion:2}")
+    private int hilosExpiracion;
+
+    @Bean(destroyMethod = "close")
+    public HashedTimingWheel ruedaExpiracionReservas() {
+        // Las expiraciones abren una transacción cada una; se ejecutan fuera del hilo de la rueda
+        return new HashedTimingWheel(tickMs, TimeUnit.MILLISECONDS, ranuras,
+                Executors.newFixedThreadPool(hilosExpiracion, Thread.ofPlatform()
+                        .name("expiracion-reservas-", 0)
+                        .daemon(true)
+                        .factory()));
+    }
+}
@@ -1,14 +1,44 @@
 package com.miempresa.inventario.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import com.miempresa.inventario.plazos.FabricaPeticionesConPlazo;
+
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    @Value("${productos.cliente.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${productos.cliente.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    /**
+     * RestTemplate sobre java.net.http.HttpClient con timeouts explícitos: sin ellos un
+     * MSProducto colgado retiene el hilo de la petición indefinidamente. En modo de hilos
+     * virtuales el cliente también usa hilos virtuales para su trabajo interno. Si la petición
+     * entrante trae plazo, el timeout de lectura se recorta a lo que le quede (ver docs/plazos.md).
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+        HttpClient.Builder cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (hilosVirtuales) {
+            cliente.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+
+        FabricaPeticionesConPlazo requestFactory = new FabricaPeticionesConPlazo(cliente.build(), Duration.ofMillis(readTimeoutMs));
+        return builder.requestFactory(() -> requestFactory).build();
     }
 }
@@ -0,0 +1,155 @@
+package com.miempresa.inventario.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.sharding.DataSourceEnrutadoPorShard;
+import com.miempresa.inventario.sharding.EnrutadorShards;
+import com.miempresa.inventario.sharding.InicializadorEsquemaShards;
+import com.miempresa.inventario.sharding.PropiedadesSharding;
+import com.miempresa.inventario.sharding.RebalanceoShards;
+import com.miempresa.inventario.sharding.RegistroShards;
+import com.miempresa.inventario.sharding.TodosLosShards;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Reparto de inventarios entre varias bases de datos por {@code productoId}
+ * (ver docs/sharding.md). Sin {@code inventario.sharding.enabled=true} el servicio usa el
+ * data source de siempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventario.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(PropiedadesSharding.class)
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maxPoolPorDefecto;
+
+    @Bean
+    public RegistroShards registroShards(PropiedadesSharding propiedades, DataSourceProperties base) {
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        for (PropiedadesSharding.Shard shard : propiedades.getShards()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("inventario-" + shard.getNombre());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setDriverClassName(base.getDriverClassName());
+            dataSource.setMaximumPoolSize(shard.getMaxPool() != null ? shard.getMaxPool() : maxPoolPorDefecto);
+            if (dataSources.put(shard.getNombre(), dataSource) != null) {
+                throw new IllegalStateException("Shard duplicado en inventario.sharding.shards: " + shard.getNombre());
+            }
+        }
+        return new RegistroShards(dataSources, propiedades.getNodosVirtuales());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RegistroShards registro) {
+        DataSourceEnrutadoPorShard enrutado = new DataSourceEnrutadoPorShard(registro);
+        enrutado.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutado);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer inicializadorEsquemaShards(RegistroShards registro,
+                                                                    ObjectProvider<SqlInitializationProperties> propiedadesSql) {
+        InicializadorEsquemaShards inicializador = new InicializadorEsquemaShards(registro, propiedadesSql.getIfAvailable());
+        return propiedades -> propiedades.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(inicializador));
+    }
+
+    /**
+     * Los pools de los shards no son beans, así que Actuator no los ve: se registran aquí y
+     * aparecen como {@code hikaricp.connections.*{pool="inventario-<shard>"}}.
+     */
+    @Bean
+    @ConditionalOnClass(MeterRegistry.class)
+    public MeterBinder metricasPoolsShards(RegistroShards registro) {
+        return registry -> registro.nombres().forEach(nombre -> ((HikariDataSource) registro.dataSource(nombre))
+                .setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+    }
+
+    /**
+     * Aplica {@link EnrutadorShards} a repositorios, servicios y tareas {@link TodosLosShards}.
+     * Va por delante de {@code @Transactional} para fijar el shard antes de abrir la transacción.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor enrutadorShardsAdvisor(ObjectProvider<RegistroShards> registro) {
+        String paqueteServicios = InventarioService.class.getPackageName();
+        ClassFilter repositoriosYServicios = clase -> Repository.class.isAssignableFrom(clase)
+                || clase.getPackageName().startsWith(paqueteServicios);
+
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(repositoriosYServicios)
+                        .union(AnnotationMatchingPointcut.forMethodAnnotation(TodosLosShards.class)),
+                new EnrutadorShards(registro::getObject));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    /**
+     * Modo herramienta: con {@code inventario.sharding.rebalanceo.ejecutar=true} el proceso
+     * rebalancea los shards al arrancar y termina. Con {@code simulacion=true} solo informa de
+     * lo que movería. Termina con código 1, sin mover nada, si algún producto que cambia de
+     * shard tiene reservas pendientes: las instancias no deben arrancar con la lista nueva.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "inventario.sharding.rebalanceo.ejecutar", havingValue = "true")
+    public ApplicationRunner rebalanceoShards(RegistroShards registro, ConfigurableApplicationContext contexto,
+                                              @Value("${inventario.sharding.rebalanceo.simulacion:false}") boolean simulacion) {
+        return argumentos -> {
+            RebalanceoShards.ResultadoRebalanceo resultado = new RebalanceoShards(registro).rebalancear(simulacion);
+            if (resultado.completo()) {
+                log.info("Rebalanceo de shards terminado{}: {} productos movidos",
+                        simulacion ? " (simulación)" : "", resultado.productosMovidos());
+            } else {
+                log.error("Rebalanceo de shards cancelado{}: {} productos con reservas pendientes. No se ha movido nada;"
+                        + " hay que resolverlas con la lista de shards anterior y repetir",
+                        simulacion ? " (simulación)" : "", resultado.productosBloqueados());
+            }
+            int codigo = resultado.completo() ? 0 : 1;
+            System.exit(SpringApplication.exit(contexto, () -> codigo));
+        };
+    }
+}
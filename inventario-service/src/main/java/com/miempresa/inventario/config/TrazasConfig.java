@@ -0,0 +1,53 @@
+package com.miempresa.inventario.config;
+
+import java.nio.file.Path;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+
+import com.miempresa.inventario.trazas.ExportadorTrazasFichero;
+import com.miempresa.inventario.trazas.TrazadoRepositorios;
+
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Trazas distribuidas (ver docs/trazas.md). Spring Boot ya abre el span de cada petición
+ * entrante, propaga {@code traceparent} en las llamadas del RestTemplate a MSProducto y añade
+ * el {@code traceId} al log; aquí se añaden los spans de repositorio y el exportador a fichero.
+ */
+@Configuration
+public class TrazasConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "inventario.trazas.fichero.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter exportadorTrazasFichero(@Value("${inventario.trazas.fichero.ruta:trazas/inventario.jsonl}") String ruta,
+                                                @Value("${inventario.trazas.fichero.max-mb:50}") long maxMb) {
+        return new ExportadorTrazasFichero(Path.of(ruta), maxMb * 1024 * 1024);
+    }
+
+    /**
+     * Va por detrás de {@code EnrutadorShards}: con sharding el span se abre ya dentro del
+     * shard elegido, uno por shard en las consultas repartidas.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor trazadoRepositoriosAdvisor(ObjectProvider<Tracer> tracer) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(Repository.class)),
+                new TrazadoRepositorios(() -> tracer.getIfAvailable(() -> Tracer.NOOP)));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return advisor;
+    }
+}
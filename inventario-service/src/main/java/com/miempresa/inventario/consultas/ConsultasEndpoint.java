@@ -0,0 +1,99 @@
+package com.miempresa.inventario.consultas;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/consultas} en el puerto de gestión: las sentencias SQL que más tiempo
+ * acumulan, las sospechas de N+1 y las estadísticas de Hibernate. {@code DELETE} pone todo
+ * a cero, por ejemplo antes de una prueba de carga.
+ */
+@Endpoint(id = "consultas")
+public class ConsultasEndpoint {
+
+    private static final int MAX_ENTRADAS = 20;
+
+    private final InstrumentacionConsultas instrumentacion;
+    private final Statistics estadisticas;
+
+    public ConsultasEndpoint(InstrumentacionConsultas instrumentacion, Statistics estadisticas) {
+        this.instrumentacion = instrumentacion;
+        this.estadisticas = estadisticas;
+    }
+
+    @ReadOperation
+    public InformeConsultas consultas() {
+        return new InformeConsultas(instrumentacion.sentencias(MAX_ENTRADAS), instrumentacion.sospechasNMasUno(),
+                hibernate());
+    }
+
+    @DeleteOperation
+    public void reiniciar() {
+        instrumentacion.reiniciar();
+        estadisticas.clear();
+    }
+
+    private Map<String, Object> hibernate() {
+        Map<String, Object> hibernate = new LinkedHashMap<>();
+        hibernate.put("activas", estadisticas.isStatisticsEnabled());
+        if (!estadisticas.isStatisticsEnabled()) {
+            return hibernate;
+        }
+        hibernate.put("desde", estadisticas.getStart());
+        hibernate.put("sesiones", estadisticas.getSessionOpenCount());
+        hibernate.put("transacciones", estadisticas.getTransactionCount());
+        hibernate.put("conexiones", estadisticas.getConnectCount());
+        hibernate.put("sentenciasPreparadas", estadisticas.getPrepareStatementCount());
+        hibernate.put("flushes", estadisticas.getFlushCount());
+        hibernate.put("entidades", Map.of(
+                "cargadas", estadisticas.getEntityLoadCount(),
+                "obtenidasPorSeparado", estadisticas.getEntityFetchCount(),
+                "insertadas", estadisticas.getEntityInsertCount(),
+                "actualizadas", estadisticas.getEntityUpdateCount(),
+                "borradas", estadisticas.getEntityDeleteCount()));
+        hibernate.put("colecciones", Map.of(
+                "cargadas", estadisticas.getCollectionLoadCount(),
+                "obtenidasPorSeparado", estadisticas.getCollectionFetchCount()));
+        hibernate.put("conflictosOptimistas", estadisticas.getOptimisticFailureCount());
+        hibernate.put("cachePlanConsultas", Map.of(
+                "aciertos", estadisticas.getQueryPlanCacheHitCount(),
+                "fallos", estadisticas.getQueryPlanCacheMissCount()));
+        hibernate.put("consultas", consultasHql());
+        return hibernate;
+    }
+
+    // Tiempos por consulta HQL/JPQL, incluidas las derivadas de los métodos de repositorio
+    private List<Map<String, Object>> consultasHql() {
+        return Arrays.stream(estadisticas.getQueries())
+                .map(hql -> Map.entry(hql, estadisticas.getQueryStatistics(hql)))
+                .sorted(Comparator.comparingLong((Map.Entry<String, QueryStatistics> consulta) ->
+                        consulta.getValue().getExecutionTotalTime()).reversed())
+                .limit(MAX_ENTRADAS)
+                .map(consulta -> {
+                    QueryStatistics datos = consulta.getValue();
+                    Map<String, Object> vista = new LinkedHashMap<>();
+                    vista.put("consulta", consulta.getKey());
+                    vista.put("ejecuciones", datos.getExecutionCount());
+                    vista.put("filas", datos.getExecutionRowCount());
+                    vista.put("totalMs", datos.getExecutionTotalTime());
+                    vista.put("mediaMs", datos.getExecutionAvgTimeAsDouble());
+                    vista.put("maxMs", datos.getExecutionMaxTime());
+                    return vista;
+                })
+                .toList();
+    }
+
+    public record InformeConsultas(List<InstrumentacionConsultas.Sentencia> sentencias,
+                                   List<InstrumentacionConsultas.SospechaNMasUno> nMasUno,
+                                   Map<String, Object> hibernate) {
+    }
+}
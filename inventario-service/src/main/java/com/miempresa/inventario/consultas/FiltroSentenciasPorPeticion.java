@@ -0,0 +1,50 @@
+package com.miempresa.inventario.consultas;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cuenta las sentencias SQL de cada petición. Publica la distribución por endpoint como
+ * {@code consultas_sentencias_peticion} y deja a {@link InstrumentacionConsultas} los avisos
+ * de N+1.
+ */
+public class FiltroSentenciasPorPeticion extends OncePerRequestFilter {
+
+    private final InstrumentacionConsultas instrumentacion;
+    private final MeterRegistry registry;
+
+    public FiltroSentenciasPorPeticion(InstrumentacionConsultas instrumentacion, MeterRegistry registry) {
+        this.instrumentacion = instrumentacion;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        instrumentacion.iniciarPeticion();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // La plantilla de la ruta (/api/inventario/{productoId}) solo existe tras resolver el controlador
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = patron != null ? patron.toString() : "UNKNOWN";
+            int sentencias = instrumentacion.terminarPeticion(request.getMethod() + " " + uri);
+            if (registry != null) {
+                DistributionSummary.builder("consultas.sentencias.peticion")
+                        .description("Sentencias SQL ejecutadas por petición")
+                        .tags("method", request.getMethod(), "uri", uri)
+                        .register(registry)
+                        .record(sentencias);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.miempresa.inventario.consultas;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miempresa.inventario.utils.LogLimitado;
+
+import io.micrometer.context.ContextRegistry;
+
+/**
+ * Mide cada sentencia SQL que pasa por el data source (ver {@link JdbcInstrumentado} y
+ * docs/consultas.md).
+ * <ul>
+ * <li>Acumula ejecuciones y tiempos por forma de la sentencia: el SQL con {@code ?} en lugar
+ * de valores y las listas {@code IN (?, ?, ...)} reducidas a {@code IN (?...)}, para que un
+ * lote de 3 ids y otro de 40 cuenten como la misma consulta.</li>
+ * <li>Escribe en el log las que superan {@code lenta-ms}, con la forma y los tipos de sus
+ * parámetros, nunca los valores.</li>
+ * <li>Cuenta las sentencias de cada petición HTTP ({@link FiltroSentenciasPorPeticion}) y
+ * avisa cuando una misma forma se repite {@code n-mas-uno.repeticiones} veces: el patrón de
+ * una consulta por elemento de una lista.</li>
+ * </ul>
+ * La cuenta de la petición viaja con el contexto de Micrometer ({@code ContextRegistry}), así
+ * que incluye las consultas lanzadas en {@code consultasExecutor}; las de otros hilos solo
+ * aparecen en los acumulados.
+ */
+public class InstrumentacionConsultas {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentacionConsultas.class);
+
+    private static final String CLAVE_CONTEXTO = "inventario.consultas.peticion";
+    private static final int MAX_FORMAS = 500;
+    private static final int MAX_SOSPECHAS = 200;
+    private static final String OTRAS_FORMAS = "(otras sentencias)";
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern LISTA_IN = Pattern.compile("(?i)\\b(in)\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final long umbralLentaNanos;
+    private final int maxSentenciasPeticion;
+    private final int repeticionesNMasUno;
+
+    private final Map<String, String> formas = new ConcurrentHashMap<>();
+    private final Map<String, Acumulado> porForma = new ConcurrentHashMap<>();
+    private final Map<String, Sospecha> sospechas = new ConcurrentHashMap<>();
+    private final ThreadLocal<SentenciasPeticion> peticionActual = new ThreadLocal<>();
+
+    private final LogLimitado logLentas = new LogLimitado(20, 10, TimeUnit.SECONDS);
+    private final LogLimitado logPeticionesCostosas = new LogLimitado(10, 10, TimeUnit.SECONDS);
+
+    public InstrumentacionConsultas(long umbralLentaMs, int maxSentenciasPeticion, int repeticionesNMasUno) {
+        this.umbralLentaNanos = TimeUnit.MILLISECONDS.toNanos(umbralLentaMs);
+        this.maxSentenciasPeticion = maxSentenciasPeticion;
+        this.repeticionesNMasUno = repeticionesNMasUno;
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CLAVE_CONTEXTO, peticionActual);
+    }
+
+    /** Una sentencia ejecutada; {@code tiposParametros} son los setters usados, en orden. */
+    void registrar(String sql, List<String> tiposParametros, long nanos, int filasLote) {
+        String forma = sql != null ? forma(sql) : "(sin SQL)";
+        Acumulado acumulado = porForma.get(forma);
+        if (acumulado == null) {
+            acumulado = porForma.size() < MAX_FORMAS
+                    ? porForma.computeIfAbsent(forma, clave -> new Acumulado())
+                    : porForma.computeIfAbsent(OTRAS_FORMAS, clave -> new Acumulado());
+        }
+        acumulado.registrar(nanos, nanos >= umbralLentaNanos);
+
+        if (nanos >= umbralLentaNanos) {
+            logLentas.emitir(omitidas -> log.warn("Consulta lenta: {} ms{}, parámetros {}: {}{}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), filasLote > 0 ? " (lote de " + filasLote + ")" : "",
+                    formaParametros(tiposParametros), forma,
+                    omitidas > 0 ? " (" + omitidas + " consultas lentas más sin registrar)" : ""));
+        }
+
+        SentenciasPeticion peticion = peticionActual.get();
+        if (peticion != null) {
+            peticion.registrar(forma);
+        }
+    }
+
+    void iniciarPeticion() {
+        peticionActual.set(new SentenciasPeticion());
+    }
+
+    /**
+     * Cierra la cuenta de la petición en curso, avisa si parece un N+1 o ejecutó demasiadas
+     * sentencias y devuelve cuántas ejecutó.
+     */
+    int terminarPeticion(String ruta) {
+        SentenciasPeticion peticion = peticionActual.get();
+        peticionActual.remove();
+        if (peticion == null) {
+            return 0;
+        }
+        // Se avisa sobre una copia, sin el cerrojo de la petición: el log puede bloquear
+        ResumenPeticion resumen = peticion.resumen();
+        resumen.porForma().forEach((forma, repeticiones) -> {
+            if (repeticiones >= repeticionesNMasUno) {
+                sospechar(ruta, forma, repeticiones);
+            }
+        });
+        int total = resumen.total();
+        int formasDistintas = resumen.porForma().size();
+        if (total > maxSentenciasPeticion) {
+            logPeticionesCostosas.emitir(omitidas -> log.warn("{} ejecutó {} sentencias SQL ({} formas distintas){}",
+                    ruta, total, formasDistintas, omitidas > 0 ? " (" + omitidas + " avisos más sin registrar)" : ""));
+        }
+        return total;
+    }
+
+    // Un aviso por ruta y forma: las repeticiones siguientes solo se cuentan en /actuator/consultas
+    private void sospechar(String ruta, String forma, int repeticiones) {
+        String clave = ruta + "\n" + forma;
+        Sospecha sospecha = sospechas.get(clave);
+        if (sospecha == null) {
+            if (sospechas.size() >= MAX_SOSPECHAS) {
+                return;
+            }
+            Sospecha nueva = new Sospecha(ruta, forma);
+            sospecha = sospechas.putIfAbsent(clave, nueva);
+            if (sospecha == null) {
+                sospecha = nueva;
+                log.warn("Posible N+1 en {}: la misma consulta se ejecutó {} veces en una petición: {}",
+                        ruta, repeticiones, forma);
+            }
+        }
+        sospecha.peticiones.increment();
+        sospecha.maxRepeticiones.accumulateAndGet(repeticiones, Math::max);
+    }
+
+    public List<Sentencia> sentencias(int maximo) {
+        return porForma.entrySet().stream()
+                .map(entrada -> entrada.getValue().vista(entrada.getKey()))
+                .sorted(Comparator.comparingDouble(Sentencia::totalMs).reversed())
+                .limit(maximo)
+                .toList();
+    }
+
+    public List<SospechaNMasUno> sospechasNMasUno() {
+        return sospechas.values().stream()
+                .map(sospecha -> new SospechaNMasUno(sospecha.ruta, sospecha.forma,
+                        sospecha.peticiones.sum(), sospecha.maxRepeticiones.get()))
+                .sorted(Comparator.comparingLong(SospechaNMasUno::peticiones).reversed())
+                .toList();
+    }
+
+    public void reiniciar() {
+        porForma.clear();
+        sospechas.clear();
+    }
+
+    String forma(String sql) {
+        String forma = formas.get(sql);
+        if (forma == null) {
+            forma = LISTA_IN.matcher(ESPACIOS.matcher(sql.strip()).replaceAll(" ")).replaceAll("$1 (?...)");
+            // SQL montado con literales no tiene límite de variantes: a partir de aquí no se guarda
+            if (formas.size() < MAX_FORMAS * 4) {
+                formas.put(sql, forma);
+            }
+        }
+        return forma;
+    }
+
+    /** {@code [Long, Int]}, con las repeticiones seguidas abreviadas: {@code [Long x40]}. */
+    static String formaParametros(List<String> setters) {
+        if (setters == null || setters.isEmpty()) {
+            return "[]";
+        }
+        StringBuilder forma = new StringBuilder("[");
+        int i = 0;
+        while (i < setters.size()) {
+            String tipo = setters.get(i);
+            int j = i;
+            while (j < setters.size() && setters.get(j).equals(tipo)) {
+                j++;
+            }
+            if (i > 0) {
+                forma.append(", ");
+            }
+            forma.append(tipo.startsWith("set") ? tipo.substring(3) : tipo);
+            if (j - i > 1) {
+                forma.append(" x").append(j - i);
+            }
+            i = j;
+        }
+        return forma.append(']').toString();
+    }
+
+    public record Sentencia(String forma, long ejecuciones, double totalMs, double mediaMs, double maxMs, long lentas) {
+    }
+
+    public record SospechaNMasUno(String ruta, String forma, long peticiones, int maxRepeticiones) {
+    }
+
+    // Con cerrojo: las consultas en paralelo de una misma petición la comparten. ReentrantLock
+    // y no synchronized, que en JDK 21 deja al hilo virtual fijado a su portador
+    private static final class SentenciasPeticion {
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private int total;
+        private final Map<String, int[]> porForma = new HashMap<>();
+
+        void registrar(String forma) {
+            cerrojo.lock();
+            try {
+                total++;
+                porForma.computeIfAbsent(forma, clave -> new int[1])[0]++;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        ResumenPeticion resumen() {
+            cerrojo.lock();
+            try {
+                Map<String, Integer> repeticiones = new HashMap<>(porForma.size());
+                porForma.forEach((forma, cuenta) -> repeticiones.put(forma, cuenta[0]));
+                return new ResumenPeticion(total, repeticiones);
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    private record ResumenPeticion(int total, Map<String, Integer> porForma) {
+    }
+
+    private static final class Acumulado {
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder lentas = new LongAdder();
+
+        void registrar(long nanos, boolean lenta) {
+            ejecuciones.increment();
+            totalNanos.add(nanos);
+            if (nanos > maxNanos.get()) {
+                maxNanos.accumulateAndGet(nanos, Math::max);
+            }
+            if (lenta) {
+                lentas.increment();
+            }
+        }
+
+        Sentencia vista(String forma) {
+            long n = ejecuciones.sum();
+            long total = totalNanos.sum();
+            return new Sentencia(forma, n, milisegundos(total), n == 0 ? 0 : milisegundos(total / n),
+                    milisegundos(maxNanos.get()), lentas.sum());
+        }
+
+        private static double milisegundos(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+
+    private static final class Sospecha {
+        private final String ruta;
+        private final String forma;
+        private final LongAdder peticiones = new LongAdder();
+        private final AtomicInteger maxRepeticiones = new AtomicInteger();
+
+        Sospecha(String ruta, String forma) {
+            this.ruta = ruta;
+            this.forma = forma;
+        }
+    }
+}
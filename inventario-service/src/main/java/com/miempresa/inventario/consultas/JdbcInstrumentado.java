@@ -0,0 +1,133 @@
+package com.miempresa.inventario.consultas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source que mide las sentencias de sus conexiones y se las pasa a
+ * {@link InstrumentacionConsultas}. Cubre tanto a Hibernate como a {@code JdbcTemplate}.
+ * <p>
+ * Hereda de {@link DelegatingDataSource} para que Actuator siga encontrando el pool Hikari
+ * que hay debajo (métricas {@code hikaricp_*} y health).
+ */
+public class JdbcInstrumentado extends DelegatingDataSource {
+
+    private final InstrumentacionConsultas instrumentacion;
+
+    public JdbcInstrumentado(DataSource destino, InstrumentacionConsultas instrumentacion) {
+        super(destino);
+        this.instrumentacion = instrumentacion;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conexion(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection conexion(Connection destino) {
+        return (Connection) Proxy.newProxyInstance(JdbcInstrumentado.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Conexion(destino));
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(destino, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class Conexion implements InvocationHandler {
+
+        private final Connection destino;
+
+        Conexion(Connection destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+            switch (metodo.getName()) {
+                case "equals":
+                    return proxy == argumentos[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement", "prepareCall", "createStatement": {
+                    Statement sentencia = (Statement) invocar(destino, metodo, argumentos);
+                    String sql = argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String texto
+                            ? texto : null;
+                    // El proxy implementa la interfaz que devuelve el método: Statement, PreparedStatement o CallableStatement
+                    return Proxy.newProxyInstance(JdbcInstrumentado.class.getClassLoader(),
+                            new Class<?>[] { metodo.getReturnType() }, new Sentencia(sentencia, sql));
+                }
+                default:
+                    return invocar(destino, metodo, argumentos);
+            }
+        }
+    }
+
+    private final class Sentencia implements InvocationHandler {
+
+        private final Statement destino;
+        private final String sql;
+        private final List<String> setters = new ArrayList<>();
+        private int filasLote;
+
+        Sentencia(Statement destino, String sql) {
+            this.destino = destino;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.equals("equals")) {
+                return proxy == argumentos[0];
+            }
+            if (nombre.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (nombre.startsWith("execute")) {
+                // En un Statement simple el SQL llega con execute(sql)
+                String texto = sql != null ? sql
+                        : argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String s ? s : null;
+                long inicio = System.nanoTime();
+                try {
+                    return invocar(destino, metodo, argumentos);
+                } finally {
+                    instrumentacion.registrar(texto, setters, System.nanoTime() - inicio, filasLote);
+                    // La sentencia puede reutilizarse con otros parámetros
+                    setters.clear();
+                    filasLote = 0;
+                }
+            }
+            if (nombre.startsWith("set") && argumentos != null && argumentos.length >= 2 && argumentos[0] instanceof Integer) {
+                // Parámetros de la primera fila del lote; en las demás se repiten
+                if (filasLote == 0) {
+                    setters.add(nombre);
+                }
+            } else if (nombre.equals("addBatch")) {
+                filasLote++;
+            } else if (nombre.equals("clearParameters") && filasLote == 0) {
+                setters.clear();
+            }
+            return invocar(destino, metodo, argumentos);
+        }
+    }
+}
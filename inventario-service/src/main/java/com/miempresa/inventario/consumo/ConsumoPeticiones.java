@@ -0,0 +1,175 @@
+package com.miempresa.inventario.consumo;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Memoria asignada y tiempo de CPU de cada petición, medidos en el hilo que la atiende con
+ * {@link ThreadMXBean} y acumulados por ruta en histogramas (ver docs/consumo.md).
+ * <p>
+ * Solo cuenta el hilo de la petición: el trabajo lanzado en paralelo en otros hilos
+ * ({@code consultasExecutor}) queda fuera. La JVM no da estos contadores para hilos
+ * virtuales, así que con {@code spring.threads.virtual.enabled=true} no se mide nada.
+ */
+public class ConsumoPeticiones {
+
+    private static final int MAX_RUTAS = 200;
+    private static final String OTRAS_RUTAS = "(otras rutas)";
+
+    private final ThreadMXBean hilos = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final boolean memoriaMedible;
+    private final boolean cpuMedible;
+    private final Map<String, Acumulado> porRuta = new ConcurrentHashMap<>();
+
+    public ConsumoPeticiones() {
+        memoriaMedible = hilos.isThreadAllocatedMemorySupported();
+        if (memoriaMedible && !hilos.isThreadAllocatedMemoryEnabled()) {
+            hilos.setThreadAllocatedMemoryEnabled(true);
+        }
+        cpuMedible = hilos.isCurrentThreadCpuTimeSupported();
+        if (cpuMedible && !hilos.isThreadCpuTimeEnabled()) {
+            hilos.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /** Si el hilo actual se puede medir: la JVM lo permite y no es un hilo virtual. */
+    boolean medible() {
+        return memoriaMedible && cpuMedible && !Thread.currentThread().isVirtual();
+    }
+
+    /** Bytes asignados por el hilo actual desde que arrancó. */
+    long bytesAsignados() {
+        return hilos.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Tiempo de CPU del hilo actual desde que arrancó, en nanosegundos. */
+    long cpuNanos() {
+        return hilos.getCurrentThreadCpuTime();
+    }
+
+    void registrar(String ruta, long bytes, long cpuNanos) {
+        Acumulado acumulado = porRuta.get(ruta);
+        if (acumulado == null) {
+            acumulado = porRuta.size() < MAX_RUTAS
+                    ? porRuta.computeIfAbsent(ruta, clave -> new Acumulado())
+                    : porRuta.computeIfAbsent(OTRAS_RUTAS, clave -> new Acumulado());
+        }
+        acumulado.bytes.registrar(Math.max(0, bytes));
+        acumulado.cpuNanos.registrar(Math.max(0, cpuNanos));
+    }
+
+    /** Rutas ordenadas por memoria asignada en total, de más a menos. */
+    public List<Ruta> rutas() {
+        return porRuta.entrySet().stream()
+                .map(entrada -> entrada.getValue().vista(entrada.getKey()))
+                .sorted(Comparator.comparingLong(Ruta::bytesTotal).reversed())
+                .toList();
+    }
+
+    public boolean isMemoriaMedible() {
+        return memoriaMedible;
+    }
+
+    public boolean isCpuMedible() {
+        return cpuMedible;
+    }
+
+    public void reiniciar() {
+        porRuta.clear();
+    }
+
+    private static final class Acumulado {
+
+        private final Histograma bytes = new Histograma();
+        private final Histograma cpuNanos = new Histograma();
+
+        private Ruta vista(String ruta) {
+            long peticiones = bytes.cantidad.sum();
+            return new Ruta(ruta, peticiones,
+                    bytes.total.sum(),
+                    peticiones == 0 ? 0 : bytes.total.sum() / peticiones,
+                    bytes.percentil(0.50),
+                    bytes.percentil(0.99),
+                    bytes.maximo.get(),
+                    peticiones == 0 ? 0 : milis(cpuNanos.total.sum() / peticiones),
+                    milis(cpuNanos.percentil(0.50)),
+                    milis(cpuNanos.percentil(0.99)),
+                    milis(cpuNanos.maximo.get()));
+        }
+
+        private static double milis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    /**
+     * Histograma logarítmico sin bloqueos: cuatro cubetas por cada potencia de dos, así que un
+     * percentil se desvía como mucho un 25 % del valor real. Devuelve el límite superior de la
+     * cubeta.
+     */
+    static final class Histograma {
+
+        private static final int CUBETAS = 4 * 62 + 4;
+
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong maximo = new AtomicLong();
+
+        void registrar(long valor) {
+            cubetas.incrementAndGet(cubeta(valor));
+            cantidad.increment();
+            total.add(valor);
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+
+        long percentil(double p) {
+            long cantidadTotal = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                cantidadTotal += cubetas.get(i);
+            }
+            if (cantidadTotal == 0) {
+                return 0;
+            }
+            long posicion = Math.max(1, (long) Math.ceil(p * cantidadTotal));
+            long acumulada = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                acumulada += cubetas.get(i);
+                if (acumulada >= posicion) {
+                    return Math.min(limiteSuperior(i), maximo.get());
+                }
+            }
+            return maximo.get();
+        }
+
+        static int cubeta(long valor) {
+            if (valor < 4) {
+                return (int) valor;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(valor);
+            int fraccion = (int) ((valor >>> (exponente - 2)) & 3);
+            return 4 * (exponente - 1) + fraccion;
+        }
+
+        static long limiteSuperior(int cubeta) {
+            if (cubeta < 4) {
+                return cubeta;
+            }
+            int exponente = cubeta / 4 + 1;
+            long siguiente = (4L + cubeta % 4 + 1) << (exponente - 2);
+            return siguiente - 1;
+        }
+    }
+
+    public record Ruta(String ruta, long peticiones, long bytesTotal, long bytesMedia, long bytesP50, long bytesP99,
+                       long bytesMax, double cpuMediaMs, double cpuP50Ms, double cpuP99Ms, double cpuMaxMs) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.miempresa.inventario.consumo;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Mide la memoria asignada y el tiempo de CPU del hilo que atiende cada petición. Los acumula
+ * por ruta en {@link ConsumoPeticiones} y los publica como {@code peticiones_memoria_asignada_bytes}
+ * y {@code peticiones_cpu_seconds}.
+ * <p>
+ * Con {@code cabeceras} la respuesta lleva además {@code X-Bytes-Asignados} y
+ * {@code Server-Timing: cpu;dur=<ms>}, medidos hasta que empieza a escribirse el cuerpo: las
+ * cabeceras ya no se pueden cambiar después.
+ */
+public class FiltroConsumoPorPeticion extends OncePerRequestFilter {
+
+    static final String CABECERA_BYTES = "X-Bytes-Asignados";
+    static final String CABECERA_TIEMPOS = "Server-Timing";
+
+    private final ConsumoPeticiones consumo;
+    private final MeterRegistry registry;
+    private final boolean cabeceras;
+
+    public FiltroConsumoPorPeticion(ConsumoPeticiones consumo, MeterRegistry registry, boolean cabeceras) {
+        this.consumo = consumo;
+        this.registry = registry;
+        this.cabeceras = cabeceras;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!consumo.medible()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long bytesInicio = consumo.bytesAsignados();
+        long cpuInicio = consumo.cpuNanos();
+        RespuestaConConsumo conCabeceras = cabeceras ? new RespuestaConConsumo(response, bytesInicio, cpuInicio) : null;
+        try {
+            filterChain.doFilter(request, conCabeceras != null ? conCabeceras : response);
+        } finally {
+            long bytes = consumo.bytesAsignados() - bytesInicio;
+            long cpuNanos = consumo.cpuNanos() - cpuInicio;
+            if (conCabeceras != null) {
+                // Respuestas sin cuerpo: las cabeceras aún se pueden poner
+                conCabeceras.anotar();
+            }
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = patron != null ? patron.toString() : "UNKNOWN";
+            consumo.registrar(request.getMethod() + " " + uri, bytes, cpuNanos);
+            if (registry != null) {
+                DistributionSummary.builder("peticiones.memoria.asignada")
+                        .description("Bytes asignados en el hilo de la petición")
+                        .baseUnit("bytes")
+                        .tags("method", request.getMethod(), "uri", uri)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(1024.0)
+                        .maximumExpectedValue(256.0 * 1024 * 1024)
+                        .register(registry)
+                        .record(bytes);
+                Timer.builder("peticiones.cpu")
+                        .description("Tiempo de CPU del hilo de la petición")
+                        .tags("method", request.getMethod(), "uri", uri)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(cpuNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /** Pone las cabeceras de consumo justo antes de que la respuesta empiece a enviarse. */
+    private final class RespuestaConConsumo extends HttpServletResponseWrapper {
+
+        private final long bytesInicio;
+        private final long cpuInicio;
+        private boolean anotada;
+        private ServletOutputStream salida;
+        private PrintWriter escritor;
+
+        private RespuestaConConsumo(HttpServletResponse response, long bytesInicio, long cpuInicio) {
+            super(response);
+            this.bytesInicio = bytesInicio;
+            this.cpuInicio = cpuInicio;
+        }
+
+        private void anotar() {
+            if (anotada || isCommitted()) {
+                return;
+            }
+            anotada = true;
+            long bytes = consumo.bytesAsignados() - bytesInicio;
+            long cpuNanos = consumo.cpuNanos() - cpuInicio;
+            setHeader(CABECERA_BYTES, Long.toString(bytes));
+            setHeader(CABECERA_TIEMPOS, String.format(Locale.ROOT, "cpu;dur=%.3f", cpuNanos / 1e6));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (salida == null) {
+                ServletOutputStream original = super.getOutputStream();
+                salida = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        anotar();
+                        original.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        anotar();
+                        original.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        anotar();
+                        original.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        anotar();
+                        original.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return original.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        original.setWriteListener(listener);
+                    }
+                };
+            }
+            return salida;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (escritor == null) {
+                escritor = new PrintWriter(super.getWriter()) {
+                    @Override
+                    public void write(int c) {
+                        anotar();
+                        super.write(c);
+                    }
+
+                    @Override
+                    public void write(char[] buf, int off, int len) {
+                        anotar();
+                        super.write(buf, off, len);
+                    }
+
+                    @Override
+                    public void write(String s, int off, int len) {
+                        anotar();
+                        super.write(s, off, len);
+                    }
+
+                    @Override
+                    public void flush() {
+                        anotar();
+                        super.flush();
+                    }
+                };
+            }
+            return escritor;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            anotar();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            anotar();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            anotar();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            anotar();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -1,16 +1,42 @@
 package com.miempresa.inventario.controller;
 
 
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.miempresa.inventario.dtos.DisponibilidadDto;
+import com.miempresa.inventario.dtos.InventarioDetalleDto;
 import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.MovimientoInventarioDto;
+import com.miempresa.inventario.dtos.NivelInventarioDto;
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+import com.miempresa.inventario.dtos.ReservaDto;
+import com.miempresa.inventario.services.CompraAsincronaService;
+import com.miempresa.inventario.services.IdempotenciaService;
 import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.services.ReservaService;
+import com.miempresa.inventario.wrappers.JsonApiCollectionWrapper;
 import com.miempresa.inventario.wrappers.JsonApiData;
 import com.miempresa.inventario.wrappers.JsonApiWrapper;
 
@@ -22,6 +48,35 @@ import lombok.RequiredArgsConstructor;
 public class InventarioController {
 
     private final InventarioService inventarioService;
+    private final ReservaService reservaService;
+    private final MovimientoInventarioService movimientoInventarioService;
+    private final IdempotenciaService idempotenciaService;
+    private final CompraAsincronaService compraAsincronaService;
+
+    @Value("${inventario.compras-async.eventos-timeout-ms:30000}")
+    private long eventosTimeoutMs;
+
+    private static final String TYPE_DISPONIBILIDAD = "disponibilidad";
+    private static final String TYPE_INVENTARIO_DETALLE = "inventario-detalle";
+    private static final String TYPE_RESERVA = "reserva";
+    private static final String TYPE_MOVIMIENTO = "movimiento-inventario";
+    private static final String TYPE_NIVEL = "nivel-inventario";
+    private static final String TYPE_OPERACION_COMPRA = "operacion-compra";
+    private static final String PREFERENCIA_ASINCRONA = "respond-async";
+    private static final Duration VENTANA_MOVIMIENTOS_POR_DEFECTO = Duration.ofDays(30);
+
+    @GetMapping
+    public ResponseEntity<JsonApiCollectionWrapper<DisponibilidadDto>> consultarDisponibilidad(
+            @RequestParam(name = "filter[productoId]", required = false) List<Long> productoIds
+    ) {
+        List<DisponibilidadDto> disponibilidad = inventarioService.consultarDisponibilidad(productoIds);
+
+        JsonApiCollectionWrapper<DisponibilidadDto> wrapper = new JsonApiCollectionWrapper<>();
+        wrapper.setData(disponibilidad.stream()
+                .map(item -> wrapData(TYPE_DISPONIBILIDAD, item.getProductoId().toString(), item))
+                .toList());
+        return ResponseEntity.ok(wrapper);
+    }
 
     @GetMapping("/{productoId}")
     public ResponseEntity<String> consultarInventarioPorProductoId(@PathVariable Long productoId) {
@@ -29,6 +84,12 @@ public class InventarioController {
         return ResponseEntity.ok(inventario);
     }
 
+    @GetMapping("/{productoId}/detalle")
+    public ResponseEntity<JsonApiWrapper<InventarioDetalleDto>> consultarDetalleInventario(@PathVariable Long productoId) {
+        InventarioDetalleDto detalle = inventarioService.consultarDetalleInventario(productoId);
+        return ResponseEntity.ok(wrapResponse(TYPE_INVENTARIO_DETALLE, productoId.toString(), detalle));
+    }
+
     @PostMapping("/{productoId}")
     public ResponseEntity<JsonApiWrapper<InventarioDto>> actualizarCantidadInventario(
             @PathVariable Long productoId,
@@ -39,23 +100,120 @@ public class InventarioController {
     }
 
     @PostMapping("/compra")
-    public ResponseEntity<JsonApiWrapper<InventarioDto>> comprarProducto(
+    public ResponseEntity<JsonApiWrapper<?>> comprarProducto(
             @RequestParam Long productoId,
-            @RequestParam int cantidad
+            @RequestParam int cantidad,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer
     ) {
-        InventarioDto inventarioActualizado = inventarioService.comprarProducto(productoId, cantidad);
+        // Con Prefer: respond-async la compra se acepta con 202 y se resuelve en segundo plano
+        if (prefer != null && prefer.toLowerCase(Locale.ROOT).contains(PREFERENCIA_ASINCRONA)) {
+            OperacionCompraDto operacion = compraAsincronaService.encolarCompra(productoId, cantidad, idempotencyKey);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/inventario/compras/" + operacion.getId()))
+                    .header("Preference-Applied", PREFERENCIA_ASINCRONA)
+                    .body(wrapResponse(TYPE_OPERACION_COMPRA, operacion.getId(), operacion));
+        }
+
+        // Con Idempotency-Key los reintentos devuelven la respuesta guardada sin volver a
+        // llamar a MSProducto ni tocar la fila de inventario
+        InventarioDto inventarioActualizado = idempotencyKey == null
+                ? inventarioService.comprarProducto(productoId, cantidad)
+                : idempotenciaService.ejecutar(idempotencyKey, productoId, cantidad,
+                        () -> inventarioService.comprarProducto(productoId, cantidad, idempotencyKey));
         return ResponseEntity.ok(wrapResponse("inventario", productoId.toString(), inventarioActualizado));
     }
 
+    @GetMapping("/compras/{operacionId}")
+    public ResponseEntity<JsonApiWrapper<OperacionCompraDto>> consultarOperacionCompra(@PathVariable String operacionId) {
+        OperacionCompraDto operacion = compraAsincronaService.consultarOperacion(operacionId);
+        return ResponseEntity.ok(wrapResponse(TYPE_OPERACION_COMPRA, operacionId, operacion));
+    }
+
+    /** Emite un único evento con la operación cuando se resuelve y cierra el flujo. */
+    @GetMapping(value = "/compras/{operacionId}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirOperacionCompra(@PathVariable String operacionId) {
+        SseEmitter emitter = new SseEmitter(eventosTimeoutMs);
+        compraAsincronaService.esperarResolucion(operacionId).whenComplete((operacion, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(TYPE_OPERACION_COMPRA)
+                        .id(operacionId)
+                        .data(wrapResponse(TYPE_OPERACION_COMPRA, operacionId, operacion), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    @GetMapping("/{productoId}/movimientos")
+    public ResponseEntity<JsonApiCollectionWrapper<MovimientoInventarioDto>> listarMovimientos(
+            @PathVariable Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant hasta
+    ) {
+        // La ventana siempre queda acotada para que la consulta pode particiones
+        Instant fin = hasta != null ? hasta : Instant.now();
+        Instant inicio = desde != null ? desde : fin.minus(VENTANA_MOVIMIENTOS_POR_DEFECTO);
+        List<MovimientoInventarioDto> movimientos = movimientoInventarioService.listarMovimientos(productoId, inicio, fin);
+
+        JsonApiCollectionWrapper<MovimientoInventarioDto> wrapper = new JsonApiCollectionWrapper<>();
+        wrapper.setData(movimientos.stream()
+                .map(movimiento -> wrapData(TYPE_MOVIMIENTO, movimiento.getId().toString(), movimiento))
+                .toList());
+        return ResponseEntity.ok(wrapper);
+    }
+
+    @GetMapping("/{productoId}/nivel")
+    public ResponseEntity<JsonApiWrapper<NivelInventarioDto>> consultarNivel(
+            @PathVariable Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant en
+    ) {
+        NivelInventarioDto nivel = movimientoInventarioService.consultarNivel(productoId, en != null ? en : Instant.now());
+        return ResponseEntity.ok(wrapResponse(TYPE_NIVEL, productoId.toString(), nivel));
+    }
+
+    @PostMapping("/reservas")
+    public ResponseEntity<JsonApiWrapper<ReservaDto>> reservarProducto(
+            @RequestParam Long productoId,
+            @RequestParam int cantidad,
+            @RequestParam(required = false) Long ttlSegundos
+    ) {
+        ReservaDto reserva = reservaService.reservarProducto(productoId, cantidad, ttlSegundos);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(wrapResponse(TYPE_RESERVA, reserva.getId().toString(), reserva));
+    }
+
+    @PostMapping("/reservas/{reservaId}/confirmacion")
+    public ResponseEntity<JsonApiWrapper<ReservaDto>> confirmarReserva(@PathVariable Long reservaId) {
+        ReservaDto reserva = reservaService.confirmarReserva(reservaId);
+        return ResponseEntity.ok(wrapResponse(TYPE_RESERVA, reservaId.toString(), reserva));
+    }
+
+    @DeleteMapping("/reservas/{reservaId}")
+    public ResponseEntity<JsonApiWrapper<ReservaDto>> liberarReserva(@PathVariable Long reservaId) {
+        ReservaDto reserva = reservaService.liberarReserva(reservaId);
+        return ResponseEntity.ok(wrapResponse(TYPE_RESERVA, reservaId.toString(), reserva));
+    }
+
     private <T> JsonApiWrapper<T> wrapResponse(String type, String id, T attributes) {
+        JsonApiWrapper<T> wrapper = new JsonApiWrapper<>();
+        wrapper.setData(wrapData(type, id, attributes));
+
+        return wrapper;
+    }
+
+    private <T> JsonApiData<T> wrapData(String type, String id, T attributes) {
         JsonApiData<T> data = new JsonApiData<>();
         data.setType(type);
         data.setId(id);
         data.setAttributes(attributes);
-
-        JsonApiWrapper<T> wrapper = new JsonApiWrapper<>();
-        wrapper.setData(data);
-
-        return wrapper;
+        return data;
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.miempresa.inventario.dtos;
+
+public enum EstadoOperacionCompra {
+    PENDIENTE,
+    COMPLETADA,
+    RECHAZADA
+}
@@ -9,4 +9,5 @@ public class InventarioDto {
     private Long id;
     private Long productoId;
     private Integer cantidad;
+    private Integer reservado;
 }
\ No newline at end of file
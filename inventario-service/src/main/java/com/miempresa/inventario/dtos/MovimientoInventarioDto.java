@@ -0,0 +1,20 @@
+package com.miempresa.inventario.dtos;
+
+import java.time.Instant;
+
+import com.miempresa.inventario.entities.TipoMovimiento;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MovimientoInventarioDto {
+    private Long id;
+    private Long productoId;
+    private TipoMovimiento tipo;
+    private Integer variacion;
+    private Integer cantidadResultante;
+    private String referencia;
+    private Instant creadoEn;
+}
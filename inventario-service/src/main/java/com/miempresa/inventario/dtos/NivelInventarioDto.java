@@ -0,0 +1,14 @@
+package com.miempresa.inventario.dtos;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class NivelInventarioDto {
+    private Long productoId;
+    private Integer cantidad;
+    private Instant instante;
+}
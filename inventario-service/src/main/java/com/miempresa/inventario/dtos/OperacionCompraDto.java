@@ -0,0 +1,21 @@
+package com.miempresa.inventario.dtos;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder(toBuilder = true)
+public class OperacionCompraDto {
+    private String id;
+    private Long productoId;
+    private Integer cantidad;
+    private EstadoOperacionCompra estado;
+    private Instant aceptadaEn;
+    private Instant resueltaEn;
+    /** Inventario resultante cuando la compra se completó. */
+    private InventarioDto inventario;
+    /** Motivo del rechazo, con el mismo texto que devolvería la compra síncrona. */
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.miempresa.inventario.dtos;
+
+import java.time.Instant;
+
+import com.miempresa.inventario.entities.EstadoReserva;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReservaDto {
+    private Long id;
+    private Long productoId;
+    private Integer cantidad;
+    private EstadoReserva estado;
+    private Instant expiraEn;
+}
@@ -0,0 +1,63 @@
+package com.miempresa.inventario.entities;
+
+import java.time.Instant;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta almacenada de una compra hecha con cabecera Idempotency-Key. La clave primaria
+ * es la propia clave, así que dos reintentos concurrentes no pueden confirmar ambos.
+ * <p>
+ * Es {@link Persistable} y siempre nueva para que {@code save} haga {@code persist}: con la
+ * clave asignada, Spring Data haría {@code merge}, que primero consulta la fila y, si otro
+ * reintento ya la confirmó, la actualiza en lugar de fallar por clave duplicada.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "compras_idempotentes", indexes = @Index(name = "idx_compras_idempotentes_expira", columnList = "expira_en"))
+public class CompraIdempotenteEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "cantidad_solicitada", nullable = false)
+    private Integer cantidadSolicitada;
+
+    @Column(name = "inventario_id", nullable = false)
+    private Long inventarioId;
+
+    @Column(name = "cantidad_resultante", nullable = false)
+    private Integer cantidadResultante;
+
+    @Column(name = "reservado_resultante", nullable = false)
+    private Integer reservadoResultante;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    @Override
+    public String getId() {
+        return clave;
+    }
+
+    /** Solo se insertan: las filas caducadas se borran con una sentencia, nunca se modifican. */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package com.miempresa.inventario.entities;
+
+public enum EstadoReserva {
+    PENDIENTE,
+    CONFIRMADA,
+    LIBERADA,
+    EXPIRADA
+}
@@ -1,5 +1,6 @@
 package com.miempresa.inventario.entities;
 
+import org.hibernate.annotations.ColumnDefault;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -22,4 +23,19 @@ public class InventarioEntity {
 
     @Column(name = "cantidad", nullable = false)
     private Integer cantidad;
-}
\ No newline at end of file
+
+    // Unidades retenidas por reservas pendientes; siguen contando en cantidad hasta confirmarse.
+    // @ColumnDefault en lugar de columnDefinition: Hibernate reutiliza columnDefinition como
+    // tipo en los cast de parámetros y genera "cast(? as integer default 0)"
+    @Column(name = "reservado", nullable = false)
+    @ColumnDefault("0")
+    private Integer reservado = 0;
+
+    public InventarioEntity(Long id, Long productoId, Integer cantidad) {
+        this(id, productoId, cantidad, 0);
+    }
+
+    public int getDisponible() {
+        return cantidad - reservado;
+    }
+}
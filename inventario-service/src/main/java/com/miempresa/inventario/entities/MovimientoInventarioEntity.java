@@ -0,0 +1,51 @@
+package com.miempresa.inventario.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimiento del libro de inventario. La tabla es de solo inserción y en PostgreSQL está
+ * particionada por rango de {@code creado_en} (ver schema-postgresql.sql).
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "movimientos_inventario")
+public class MovimientoInventarioEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false, updatable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, updatable = false, length = 30)
+    private TipoMovimiento tipo;
+
+    // Variación con signo; nula en los ajustes, que fijan la cantidad de forma absoluta
+    @Column(name = "variacion", updatable = false)
+    private Integer variacion;
+
+    @Column(name = "cantidad_resultante", nullable = false, updatable = false)
+    private Integer cantidadResultante;
+
+    @Column(name = "referencia", updatable = false, length = 100)
+    private String referencia;
+
+    @Column(name = "creado_en", nullable = false, updatable = false)
+    private Instant creadoEn;
+}
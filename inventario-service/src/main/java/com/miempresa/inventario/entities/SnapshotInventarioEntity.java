@@ -0,0 +1,42 @@
+package com.miempresa.inventario.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nivel compactado de un producto en un corte: la cantidad tras el último movimiento
+ * anterior o igual a {@code tomadoEn}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "snapshots_inventario", indexes = {
+        @Index(name = "idx_snapshots_producto_corte", columnList = "producto_id, tomado_en", unique = true),
+        @Index(name = "idx_snapshots_corte", columnList = "tomado_en")
+})
+public class SnapshotInventarioEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "tomado_en", nullable = false)
+    private Instant tomadoEn;
+}
@@ -0,0 +1,17 @@
+package com.miempresa.inventario.exceptions;
+
+public class ColaComprasLlenaException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long reintentarEnSegundos;
+
+	public ColaComprasLlenaException(String mensaje, long reintentarEnSegundos) {
+        super(CodigoError.COLA_COMPRAS_LLENA, mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+	public long getReintentarEnSegundos() {
+		return reintentarEnSegundos;
+	}
+}
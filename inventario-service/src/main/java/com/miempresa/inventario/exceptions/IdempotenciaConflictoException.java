@@ -0,0 +1,10 @@
+package com.miempresa.inventario.exceptions;
+
+public class IdempotenciaConflictoException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public IdempotenciaConflictoException(String mensaje) {
+        super(CodigoError.IDEMPOTENCIA_CONFLICTO, mensaje);
+    }
+}
@@ -1,10 +1,10 @@
 package com.miempresa.inventario.exceptions;
 
-public class RecursoNoEncontradoException extends RuntimeException {
+public class RecursoNoEncontradoException extends ErrorDominioException {
 
 	private static final long serialVersionUID = 1L;
 
 	public RecursoNoEncontradoException(String mensaje) {
-        super(mensaje);
+        super(CodigoError.RECURSO_NO_ENCONTRADO, mensaje);
     }
 }
\ No newline at end of file
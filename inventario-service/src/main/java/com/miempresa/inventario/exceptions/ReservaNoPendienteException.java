@@ -0,0 +1,10 @@
+package com.miempresa.inventario.exceptions;
+
+public class ReservaNoPendienteException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ReservaNoPendienteException(String mensaje) {
+        super(CodigoError.RESERVA_NO_PENDIENTE, mensaje);
+    }
+}
@@ -0,0 +1,10 @@
+package com.miempresa.inventario.exceptions;
+
+public class SolicitudInvalidaException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public SolicitudInvalidaException(String mensaje) {
+        super(CodigoError.SOLICITUD_INVALIDA, mensaje);
+    }
+}
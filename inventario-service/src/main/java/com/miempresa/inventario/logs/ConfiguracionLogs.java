@@ -0,0 +1,115 @@
+package com.miempresa.inventario.logs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.logging.LoggingApplicationListener;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.StringUtils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+
+/**
+ * Ajusta el log que monta Spring Boot (consola y, con {@code logging.file.name}, fichero) en
+ * cuanto se inicializa, antes de crear ningún bean:
+ * <ul>
+ * <li>{@code inventario.logs.formato=json} cambia el patrón de texto por {@link EncoderJson}.
+ * Un appender con el patrón vacío ({@code logging.pattern.console=}) se deja como está.</li>
+ * <li>{@code inventario.logs.asincrono=true} pone los appenders del logger raíz detrás de un
+ * {@link AppenderAsincrono}.</li>
+ * <li>{@code inventario.logs.muestreo} registra las reglas de {@link MuestreoLogs}.</li>
+ * </ul>
+ * Se registra en {@code META-INF/spring.factories} porque el log se inicializa antes que el
+ * contexto. Ver docs/logs.md.
+ */
+public class ConfiguracionLogs implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+
+    private static final String PREFIJO = "inventario.logs.";
+    private static final String NOMBRE_ASINCRONO = "ASINCRONO";
+
+    @Override
+    public int getOrder() {
+        // Justo después de que Spring Boot configure Logback
+        return LoggingApplicationListener.DEFAULT_ORDER + 1;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent evento) {
+        ILoggerFactory fabrica = LoggerFactory.getILoggerFactory();
+        if (!(fabrica instanceof LoggerContext contexto)) {
+            return;
+        }
+        ConfigurableEnvironment entorno = evento.getEnvironment();
+        Logger raiz = contexto.getLogger(Logger.ROOT_LOGGER_NAME);
+
+        // Cada paso es idempotente: si Logback sigue configurado por un arranque anterior en la
+        // misma JVM, Spring Boot no lo reinicia y lo que ya está puesto se respeta
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        for (Iterator<Appender<ILoggingEvent>> it = raiz.iteratorForAppenders(); it.hasNext(); ) {
+            appenders.add(it.next());
+        }
+
+        if ("json".equalsIgnoreCase(entorno.getProperty(PREFIJO + "formato", "texto"))) {
+            String servicio = entorno.getProperty("spring.application.name");
+            appenders.forEach(appender -> aJson(contexto, appender, servicio));
+        }
+
+        if (entorno.getProperty(PREFIJO + "asincrono", Boolean.class, false) && !appenders.isEmpty()
+                && raiz.getAppender(NOMBRE_ASINCRONO) == null) {
+            AppenderAsincrono asincrono = new AppenderAsincrono();
+            asincrono.setContext(contexto);
+            asincrono.setName(NOMBRE_ASINCRONO);
+            asincrono.setCapacidad(entorno.getProperty(PREFIJO + "capacidad-cola", Integer.class, 8192));
+            asincrono.setUmbralDescarte(entorno.getProperty(PREFIJO + "umbral-descarte", Double.class, 0.8));
+            for (Appender<ILoggingEvent> appender : appenders) {
+                raiz.detachAppender(appender);
+                asincrono.addAppender(appender);
+            }
+            asincrono.start();
+            raiz.addAppender(asincrono);
+        }
+
+        String[] reglas = entorno.getProperty(PREFIJO + "muestreo", String[].class, new String[0]);
+        contexto.getTurboFilterList().removeIf(MuestreoLogs.class::isInstance);
+        if (Arrays.stream(reglas).anyMatch(regla -> !regla.isBlank())) {
+            MuestreoLogs muestreo = new MuestreoLogs();
+            muestreo.setContext(contexto);
+            muestreo.setName("MUESTREO");
+            Arrays.stream(reglas).filter(regla -> !regla.isBlank()).forEach(muestreo::addRegla);
+            muestreo.start();
+            contexto.addTurboFilter(muestreo);
+        }
+    }
+
+    private static void aJson(LoggerContext contexto, Appender<ILoggingEvent> appender, String servicio) {
+        if (!(appender instanceof OutputStreamAppender<ILoggingEvent> salida)) {
+            return;
+        }
+        Encoder<ILoggingEvent> actual = salida.getEncoder();
+        if (actual instanceof EncoderJson
+                || actual instanceof PatternLayoutEncoder patron && !StringUtils.hasLength(patron.getPattern())) {
+            return;
+        }
+        EncoderJson json = new EncoderJson();
+        json.setContext(contexto);
+        json.setServicio(servicio);
+        json.start();
+        salida.setEncoder(json);
+        if (actual != null) {
+            actual.stop();
+        }
+    }
+}
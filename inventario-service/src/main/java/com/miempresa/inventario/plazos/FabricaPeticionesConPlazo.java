@@ -0,0 +1,58 @@
+package com.miempresa.inventario.plazos;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+/**
+ * Peticiones a MSProducto que respetan el {@link Plazo} de la petición en curso: el timeout de
+ * lectura es lo que le quede, si es menos que el configurado, y el tiempo restante viaja en
+ * {@value Plazo#CABECERA} para que MSProducto no trabaje para una respuesta que ya nadie
+ * espera. Con el plazo agotado la llamada no se hace.
+ */
+public class FabricaPeticionesConPlazo implements ClientHttpRequestFactory {
+
+    private final HttpClient cliente;
+    private final Executor executor;
+    private final Duration readTimeout;
+    private final JdkClientHttpRequestFactory sinPlazo;
+
+    public FabricaPeticionesConPlazo(HttpClient cliente, Duration readTimeout) {
+        this.cliente = cliente;
+        this.executor = cliente.executor().orElseGet(SimpleAsyncTaskExecutor::new);
+        this.readTimeout = readTimeout;
+        this.sinPlazo = fabrica(readTimeout);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        Plazo plazo = Plazo.actual();
+        if (plazo == null) {
+            return sinPlazo.createRequest(uri, httpMethod);
+        }
+        long restanteMs = plazo.restanteMs();
+        if (restanteMs <= 0) {
+            throw plazo.excedido("productos");
+        }
+        // El timeout es por petición en el cliente del JDK: basta una fábrica ligera sobre el mismo HttpClient
+        ClientHttpRequest request = restanteMs < readTimeout.toMillis()
+                ? fabrica(Duration.ofMillis(restanteMs)).createRequest(uri, httpMethod)
+                : sinPlazo.createRequest(uri, httpMethod);
+        request.getHeaders().set(Plazo.CABECERA, String.valueOf(restanteMs));
+        return request;
+    }
+
+    private JdkClientHttpRequestFactory fabrica(Duration timeout) {
+        JdkClientHttpRequestFactory fabrica = new JdkClientHttpRequestFactory(cliente, executor);
+        fabrica.setReadTimeout(timeout);
+        return fabrica;
+    }
+}
@@ -0,0 +1,83 @@
+package com.miempresa.inventario.plazos;
+
+import java.util.concurrent.TimeUnit;
+
+import com.miempresa.inventario.exceptions.PlazoExcedidoException;
+
+import io.micrometer.context.ContextRegistry;
+
+/**
+ * Momento a partir del cual la respuesta ya no le sirve al cliente. Llega en la cabecera
+ * {@value #CABECERA} como milisegundos restantes, no como hora absoluta, para no depender de
+ * que los relojes de las máquinas coincidan.
+ * <p>
+ * El plazo de la petición en curso viaja con el contexto de Micrometer ({@code ContextRegistry}),
+ * así que también lo ven las tareas de {@code consultasExecutor}.
+ */
+public final class Plazo {
+
+    public static final String CABECERA = "X-Request-Deadline-Ms";
+
+    private static final ThreadLocal<Plazo> ACTUAL = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor("inventario.plazos.actual", ACTUAL);
+    }
+
+    private final long limiteNanos;
+    private volatile String faseExcedida;
+
+    private Plazo(long limiteNanos) {
+        this.limiteNanos = limiteNanos;
+    }
+
+    /** Plazo que vence dentro de {@code milisegundos}, contados desde ahora. */
+    public static Plazo dentroDe(long milisegundos) {
+        return new Plazo(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milisegundos));
+    }
+
+    /** El plazo de la petición en curso, o {@code null} si no tiene. */
+    public static Plazo actual() {
+        return ACTUAL.get();
+    }
+
+    /** Lanza {@link PlazoExcedidoException} si la petición en curso tiene plazo y ha vencido. */
+    public static void comprobar(String fase) {
+        Plazo plazo = ACTUAL.get();
+        if (plazo != null && plazo.vencido()) {
+            throw plazo.excedido(fase);
+        }
+    }
+
+    static void establecer(Plazo plazo) {
+        ACTUAL.set(plazo);
+    }
+
+    static void limpiar() {
+        ACTUAL.remove();
+    }
+
+    /** Milisegundos que quedan; cero o negativo si ya ha vencido. */
+    public long restanteMs() {
+        return TimeUnit.NANOSECONDS.toMillis(limiteNanos - System.nanoTime());
+    }
+
+    public boolean vencido() {
+        return limiteNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Anota en qué fase se agotó el plazo, para la métrica de {@link FiltroPlazo}, y devuelve
+     * la excepción que lo comunica al cliente con un 504.
+     */
+    public PlazoExcedidoException excedido(String fase) {
+        if (faseExcedida == null) {
+            faseExcedida = fase;
+        }
+        return new PlazoExcedidoException("Plazo de la petición agotado (" + fase + ")");
+    }
+
+    String faseExcedida() {
+        return faseExcedida;
+    }
+}
@@ -0,0 +1,38 @@
+package com.miempresa.inventario.repositories;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.inventario.entities.CompraIdempotenteEntity;
+
+public interface CompraIdempotenteRepository extends JpaRepository<CompraIdempotenteEntity, String> {
+
+    /**
+     * Siempre en la primaria, no en la réplica de lectura: una réplica retrasada no vería la
+     * respuesta de una compra ya confirmada y el reintento la repetiría.
+     */
+    @Override
+    @Transactional
+    Optional<CompraIdempotenteEntity> findById(String clave);
+
+    /**
+     * Borra la fila de {@code clave} solo si ya expiró. La purga periódica puede tardar en
+     * llegar, y hasta entonces la fila caducada haría fallar por clave duplicada una compra
+     * legítima que reutiliza la clave.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CompraIdempotenteEntity c WHERE c.clave = :clave AND c.expiraEn < :instante")
+    int eliminarSiExpirada(@Param("clave") String clave, @Param("instante") Instant instante);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CompraIdempotenteEntity c WHERE c.expiraEn < :instante")
+    int eliminarExpiradas(@Param("instante") Instant instante);
+}
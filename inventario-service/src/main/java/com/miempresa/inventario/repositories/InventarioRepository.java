@@ -2,11 +2,83 @@ package com.miempresa.inventario.repositories;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.miempresa.inventario.entities.InventarioEntity;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Las consultas son de solo lectura: fuera de una transacción de escritura van a la réplica si
+ * está configurada (ver docs/replica-lectura.md). Dentro de la compra o de una reserva se unen
+ * a su transacción y leen de la primaria.
+ */
+@Transactional(readOnly = true)
 public interface InventarioRepository extends JpaRepository<InventarioEntity, Long> {
     Optional<InventarioEntity> findByProductoId(Long productoId);
+
+    /** Filas de inventario de varios productos en una sola consulta {@code IN}. */
+    List<InventarioEntity> findByProductoIdIn(Collection<Long> productoIds);
+
+    /**
+     * Fija la cantidad de un producto en una sola sentencia: inserta la fila si no existe
+     * o actualiza la existente (producto_id es único), devolviendo la fila almacenada. Vacío si
+     * la nueva cantidad no cubre las unidades reservadas: el disponible quedaría negativo y la
+     * confirmación de esas reservas dejaría la cantidad por debajo de cero.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO inventarios (producto_id, cantidad)
+            VALUES (:productoId, :cantidad)
+            ON CONFLICT (producto_id) DO UPDATE SET cantidad = EXCLUDED.cantidad
+            WHERE inventarios.reservado <= EXCLUDED.cantidad
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<InventarioEntity> upsertCantidad(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /**
+     * Descuenta {@code cantidad} unidades si hay suficiente disponible (cantidad - reservado),
+     * en una sola sentencia: dos compras concurrentes no pueden vender las mismas unidades ni
+     * pisar las reservas tomadas entre medias. Devuelve 0 si no existe la fila o no alcanza.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE InventarioEntity i SET i.cantidad = i.cantidad - :cantidad
+            WHERE i.productoId = :productoId AND i.cantidad - i.reservado >= :cantidad
+            """)
+    int descontarCantidad(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /** Retiene {@code cantidad} unidades si hay suficiente disponible (cantidad - reservado). */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE InventarioEntity i SET i.reservado = i.reservado + :cantidad
+            WHERE i.productoId = :productoId AND i.cantidad - i.reservado >= :cantidad
+            """)
+    int reservarCantidad(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /** Descuenta definitivamente unidades previamente reservadas. */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE InventarioEntity i
+            SET i.cantidad = i.cantidad - :cantidad, i.reservado = i.reservado - :cantidad
+            WHERE i.productoId = :productoId AND i.reservado >= :cantidad
+            """)
+    int confirmarReserva(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
+
+    /** Devuelve al disponible unidades reservadas que no llegaron a confirmarse. */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE InventarioEntity i SET i.reservado = i.reservado - :cantidad
+            WHERE i.productoId = :productoId AND i.reservado >= :cantidad
+            """)
+    int liberarReserva(@Param("productoId") Long productoId, @Param("cantidad") int cantidad);
 }
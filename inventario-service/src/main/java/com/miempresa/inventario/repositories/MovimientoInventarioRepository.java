@@ -0,0 +1,23 @@
+package com.miempresa.inventario.repositories;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.miempresa.inventario.entities.MovimientoInventarioEntity;
+
+// Todas las consultas acotan creado_en para que PostgreSQL pode particiones
+public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventarioEntity, Long> {
+
+    Optional<MovimientoInventarioEntity> findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+            Long productoId, Instant desde, Instant hasta);
+
+    Optional<MovimientoInventarioEntity> findFirstByProductoIdAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+            Long productoId, Instant hasta);
+
+    List<MovimientoInventarioEntity> findByProductoIdAndCreadoEnGreaterThanEqualAndCreadoEnLessThanOrderByCreadoEnAscIdAsc(
+            Long productoId, Instant desde, Instant hasta, Limit limite);
+}
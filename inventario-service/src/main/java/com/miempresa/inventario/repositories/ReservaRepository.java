@@ -0,0 +1,37 @@
+package com.miempresa.inventario.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.inventario.entities.EstadoReserva;
+import com.miempresa.inventario.entities.ReservaEntity;
+
+public interface ReservaRepository extends JpaRepository<ReservaEntity, Long> {
+
+    List<ReservaEntity> findByEstado(EstadoReserva estado);
+
+    /**
+     * Siempre en la primaria, no en la réplica de lectura: la expiración de una reserva recién
+     * creada la buscaría en una réplica que aún no la tiene.
+     */
+    @Override
+    @Transactional
+    Optional<ReservaEntity> findById(Long id);
+
+    /**
+     * Cambia el estado solo si la reserva sigue en {@code esperado}; devuelve las filas afectadas,
+     * de modo que confirmar, liberar y expirar compiten por la misma transición sin bloqueos previos.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReservaEntity r SET r.estado = :nuevo WHERE r.id = :id AND r.estado = :esperado")
+    int cambiarEstado(@Param("id") Long id,
+                      @Param("esperado") EstadoReserva esperado,
+                      @Param("nuevo") EstadoReserva nuevo);
+}
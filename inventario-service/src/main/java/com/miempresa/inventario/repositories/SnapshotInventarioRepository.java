@@ -0,0 +1,37 @@
+package com.miempresa.inventario.repositories;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.inventario.entities.SnapshotInventarioEntity;
+
+public interface SnapshotInventarioRepository extends JpaRepository<SnapshotInventarioEntity, Long> {
+
+    Optional<SnapshotInventarioEntity> findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(
+            Long productoId, Instant instante);
+
+    @Query("SELECT MAX(s.tomadoEn) FROM SnapshotInventarioEntity s WHERE s.tomadoEn <= :instante")
+    Optional<Instant> findUltimoCorte(@Param("instante") Instant instante);
+
+    /**
+     * Compacta la ventana (desde, corte]: una fila por producto con la cantidad tras su último
+     * movimiento. Acotar ambos extremos permite a PostgreSQL leer solo las particiones de la ventana.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO snapshots_inventario (producto_id, cantidad, tomado_en)
+            SELECT DISTINCT ON (m.producto_id) m.producto_id, m.cantidad_resultante, :corte
+            FROM movimientos_inventario m
+            WHERE m.creado_en > :desde AND m.creado_en <= :corte
+            ORDER BY m.producto_id, m.creado_en DESC, m.id DESC
+            ON CONFLICT (producto_id, tomado_en) DO NOTHING
+            """, nativeQuery = true)
+    int compactar(@Param("desde") Instant desde, @Param("corte") Instant corte);
+}
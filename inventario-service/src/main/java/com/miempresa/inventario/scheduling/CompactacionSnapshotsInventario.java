@@ -0,0 +1,29 @@
+package com.miempresa.inventario.scheduling;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.miempresa.inventario.services.MovimientoInventarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class CompactacionSnapshotsInventario {
+
+    private final MovimientoInventarioService movimientoInventarioService;
+
+    // Margen para que las transacciones en curso con creado_en anterior al corte terminen antes de compactar
+    @Value("${inventario.movimientos.margen-compactacion-segundos:300}")
+    private long margenSegundos;
+
+    @Scheduled(cron = "${inventario.movimientos.compactacion-cron:0 0 * * * *}", zone = "UTC")
+    public void compactar() {
+        Instant corte = Instant.now().minusSeconds(margenSegundos).truncatedTo(ChronoUnit.SECONDS);
+        movimientoInventarioService.compactarSnapshots(corte);
+    }
+}
@@ -0,0 +1,63 @@
+package com.miempresa.inventario.scheduling;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.miempresa.inventario.sharding.TodosLosShards;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Crea por adelantado las particiones mensuales de movimientos_inventario, para que las
+ * inserciones nunca caigan en la partición DEFAULT.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventario.movimientos.particionado", havingValue = "true", matchIfMissing = true)
+public class MantenimientoParticionesMovimientos {
+
+    private static final Logger log = LoggerFactory.getLogger(MantenimientoParticionesMovimientos.class);
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${inventario.movimientos.meses-adelantados:2}")
+    private int mesesAdelantados;
+
+    @TodosLosShards
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 0 * * *", zone = "UTC")
+    public void crearParticiones() {
+        LocalDate mes = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= mesesAdelantados; i++) {
+            crearParticion(mes.plusMonths(i));
+        }
+    }
+
+    private void crearParticion(LocalDate inicioMes) {
+        String tabla = "movimientos_inventario_" + SUFIJO.format(inicioMes);
+        String sql = "CREATE TABLE IF NOT EXISTS " + tabla
+                + " PARTITION OF movimientos_inventario FOR VALUES FROM ('"
+                + inicioMes.atStartOfDay(ZoneOffset.UTC).toOffsetDateTime() + "') TO ('"
+                + inicioMes.plusMonths(1).atStartOfDay(ZoneOffset.UTC).toOffsetDateTime() + "')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            // Pasa si la DEFAULT ya tiene filas de ese mes; hay que moverlas a mano antes de reintentar
+            log.warn("No se pudo crear la partición {}: {}", tabla, e.getMostSpecificCause().getMessage());
+        }
+    }
+}
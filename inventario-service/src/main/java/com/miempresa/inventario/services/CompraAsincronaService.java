@@ -0,0 +1,19 @@
+package com.miempresa.inventario.services;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+
+public interface CompraAsincronaService {
+
+    /**
+     * Acepta la compra sin ejecutarla y devuelve la operación en estado PENDIENTE.
+     * Lanza {@code ColaComprasLlenaException} si la partición del producto no tiene hueco.
+     */
+    OperacionCompraDto encolarCompra(Long productoId, int cantidad, String idempotencyKey);
+
+    OperacionCompraDto consultarOperacion(String operacionId);
+
+    /** Se completa con la operación ya resuelta (COMPLETADA o RECHAZADA). */
+    CompletableFuture<OperacionCompraDto> esperarResolucion(String operacionId);
+}
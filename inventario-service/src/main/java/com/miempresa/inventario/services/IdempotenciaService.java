@@ -0,0 +1,21 @@
+package com.miempresa.inventario.services;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.miempresa.inventario.dtos.InventarioDto;
+
+public interface IdempotenciaService {
+
+    /**
+     * Devuelve la respuesta guardada para {@code clave} o, si no existe, ejecuta {@code compra},
+     * que debe registrar su respuesta con {@link #registrarRespuesta} dentro de su transacción.
+     */
+    InventarioDto ejecutar(String clave, Long productoId, int cantidad, Supplier<InventarioDto> compra);
+
+    Optional<InventarioDto> buscarRespuesta(String clave, Long productoId, int cantidad);
+
+    void registrarRespuesta(String clave, Long productoId, int cantidad, InventarioDto respuesta);
+
+    int purgarExpiradas();
+}
@@ -1,13 +1,24 @@
 package com.miempresa.inventario.services;
 
+import java.util.List;
 
+import com.miempresa.inventario.dtos.DisponibilidadDto;
+import com.miempresa.inventario.dtos.InventarioDetalleDto;
 import com.miempresa.inventario.dtos.InventarioDto;
 
 public interface InventarioService {
    
 	String consultarInventarioPorProductoId(Long productoId);
+
+    InventarioDetalleDto consultarDetalleInventario(Long productoId);
+
+    /** Disponibilidad de varios productos; los ids que no existen en MSProducto se omiten. */
+    List<DisponibilidadDto> consultarDisponibilidad(List<Long> productoIds);
     
     InventarioDto actualizarCantidadInventario(Long productoId, int nuevaCantidad);
    
     InventarioDto comprarProducto(Long productoId, int cantidad);
+
+    /** Compra que, si {@code idempotencyKey} no es nulo, guarda su respuesta en la misma transacción. */
+    InventarioDto comprarProducto(Long productoId, int cantidad, String idempotencyKey);
 }
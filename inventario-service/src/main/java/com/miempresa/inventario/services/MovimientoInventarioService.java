@@ -0,0 +1,19 @@
+package com.miempresa.inventario.services;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.miempresa.inventario.dtos.MovimientoInventarioDto;
+import com.miempresa.inventario.dtos.NivelInventarioDto;
+import com.miempresa.inventario.entities.TipoMovimiento;
+
+public interface MovimientoInventarioService {
+
+    void registrarMovimiento(Long productoId, TipoMovimiento tipo, Integer variacion, int cantidadResultante, String referencia);
+
+    List<MovimientoInventarioDto> listarMovimientos(Long productoId, Instant desde, Instant hasta);
+
+    NivelInventarioDto consultarNivel(Long productoId, Instant instante);
+
+    int compactarSnapshots(Instant corte);
+}
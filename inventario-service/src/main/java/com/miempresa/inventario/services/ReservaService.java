@@ -0,0 +1,12 @@
+package com.miempresa.inventario.services;
+
+import com.miempresa.inventario.dtos.ReservaDto;
+
+public interface ReservaService {
+
+    ReservaDto reservarProducto(Long productoId, int cantidad, Long ttlSegundos);
+
+    ReservaDto confirmarReserva(Long reservaId);
+
+    ReservaDto liberarReserva(Long reservaId);
+}
@@ -0,0 +1,286 @@
+package com.miempresa.inventario.services.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.miempresa.inventario.dtos.EstadoOperacionCompra;
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+import com.miempresa.inventario.exceptions.ColaComprasLlenaException;
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventario.services.CompraAsincronaService;
+import com.miempresa.inventario.services.IdempotenciaService;
+import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.utils.MpscRingBuffer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Compras aceptadas con 202 y resueltas poco después.
+ * <p>
+ * Cada compra va a la partición de su {@code productoId}: una cola circular acotada con un
+ * único hilo consumidor que ejecuta la compra síncrona de siempre. Así las compras de un mismo
+ * producto nunca compiten entre sí por la fila de inventario, y la petición HTTP termina sin
+ * esperar a MSProducto ni a la base de datos. Si la cola de la partición está llena se rechaza
+ * la compra en lugar de encolar sin límite. Con las compras síncronas y las reservas del mismo
+ * producto sí compiten; el descuento con UPDATE condicional mantiene el stock correcto igualmente.
+ * <p>
+ * Las operaciones se guardan solo en memoria: si el servicio se detiene, las que sigan en cola
+ * se rechazan y, tras un reinicio, sus ids dejan de existir.
+ */
+@Service
+public class CompraAsincronaServiceImpl implements CompraAsincronaService, MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(CompraAsincronaServiceImpl.class);
+
+	/** Espera máxima de un consumidor sin trabajo; los productores lo despiertan antes. */
+	private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final InventarioService inventarioService;
+	private final IdempotenciaService idempotenciaService;
+	private final Executor consultasExecutor;
+	private final Cache<String, Operacion> operaciones;
+	private final Particion[] particiones;
+	private final long reintentarEnSegundos;
+	private volatile boolean activo;
+	/** Se cierra antes que {@code activo}: desde entonces no entra nada en las colas. */
+	private volatile boolean aceptando;
+	/** Productores entre la comprobación de {@code aceptando} y el fin de su {@code offer}. */
+	private final AtomicInteger encolando = new AtomicInteger();
+
+	public CompraAsincronaServiceImpl(InventarioService inventarioService,
+	                                  IdempotenciaService idempotenciaService,
+	                                  Executor consultasExecutor,
+	                                  @Value("${inventario.compras-async.particiones:4}") int particiones,
+	                                  @Value("${inventario.compras-async.capacidad-por-particion:1024}") int capacidad,
+	                                  @Value("${inventario.compras-async.retencion-minutos:10}") long retencionMinutos,
+	                                  @Value("${inventario.compras-async.max-operaciones:100000}") long maxOperaciones,
+	                                  @Value("${inventario.compras-async.reintentar-en-segundos:1}") long reintentarEnSegundos) {
+	    if (particiones <= 0) {
+	        throw new IllegalArgumentException("Debe haber al menos una partición de compras");
+	    }
+	    this.inventarioService = inventarioService;
+	    this.idempotenciaService = idempotenciaService;
+	    this.consultasExecutor = consultasExecutor;
+	    this.reintentarEnSegundos = reintentarEnSegundos;
+	    this.operaciones = Caffeine.newBuilder()
+	            .maximumSize(maxOperaciones)
+	            .expireAfterWrite(Duration.ofMinutes(retencionMinutos))
+	            .recordStats()
+	            .build();
+	    this.particiones = new Particion[particiones];
+	    for (int i = 0; i < particiones; i++) {
+	        this.particiones[i] = new Particion(i, new MpscRingBuffer<>(capacidad));
+	    }
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+	    CaffeineCacheMetrics.monitor(registry, operaciones, "compras-async");
+	}
+
+	@PostConstruct
+	public void iniciar() {
+	    activo = true;
+	    aceptando = true;
+	    for (Particion particion : particiones) {
+	        particion.consumidor = Thread.ofPlatform()
+	                .name("compras-async-" + particion.indice)
+	                .daemon(true)
+	                .start(() -> consumir(particion));
+	    }
+	    log.info("Compras asíncronas: {} particiones de {} posiciones",
+	            particiones.length, particiones[0].cola.capacidad());
+	}
+
+	@PreDestroy
+	public void detener() {
+	    // Primero se deja de aceptar y se espera a los productores en curso; solo entonces paran
+	    // los consumidores, así su vaciado final ve todas las operaciones encoladas
+	    aceptando = false;
+	    while (encolando.get() > 0) {
+	        Thread.onSpinWait();
+	    }
+	    activo = false;
+	    for (Particion particion : particiones) {
+	        if (particion.consumidor == null) {
+	            continue;
+	        }
+	        LockSupport.unpark(particion.consumidor);
+	        try {
+	            particion.consumidor.join(TimeUnit.SECONDS.toMillis(10));
+	        } catch (InterruptedException e) {
+	            Thread.currentThread().interrupt();
+	            return;
+	        }
+	    }
+	}
+
+	@Override
+	public OperacionCompraDto encolarCompra(Long productoId, int cantidad, String idempotencyKey) {
+	    if (cantidad <= 0) {
+	        throw new SolicitudInvalidaException("La cantidad a comprar debe ser positiva");
+	    }
+	    Operacion operacion = new Operacion(UUID.randomUUID().toString(), productoId, cantidad, idempotencyKey);
+	    OperacionCompraDto aceptada = operacion.estado;
+	    Particion particion = particionDe(productoId);
+
+	    encolando.incrementAndGet();
+	    try {
+	        if (!aceptando) {
+	            throw new ColaComprasLlenaException("El servicio de compras asíncronas no está activo", reintentarEnSegundos);
+	        }
+	        operaciones.put(operacion.id, operacion);
+	        if (!particion.cola.offer(operacion)) {
+	            operaciones.invalidate(operacion.id);
+	            log.warn("Cola de compras {} llena; se rechaza la compra de productoId: {}", particion.indice, productoId);
+	            throw new ColaComprasLlenaException(
+	                    "Hay demasiadas compras en curso para el producto " + productoId, reintentarEnSegundos);
+	        }
+	    } finally {
+	        encolando.decrementAndGet();
+	    }
+	    particion.despertar();
+
+	    log.info("Compra {} aceptada para productoId: {}, cantidad: {}", operacion.id, productoId, cantidad);
+	    return aceptada;
+	}
+
+	@Override
+	public OperacionCompraDto consultarOperacion(String operacionId) {
+	    return buscar(operacionId).estado;
+	}
+
+	@Override
+	public CompletableFuture<OperacionCompraDto> esperarResolucion(String operacionId) {
+	    // Los suscriptores continúan en otro hilo: el consumidor de la partición no debe
+	    // escribir respuestas en la red
+	    return buscar(operacionId).resolucion.thenApplyAsync(Function.identity(), consultasExecutor);
+	}
+
+	private Operacion buscar(String operacionId) {
+	    Operacion operacion = operacionId == null ? null : operaciones.getIfPresent(operacionId);
+	    if (operacion == null) {
+	        throw new RecursoNoEncontradoException("Operación de compra no encontrada: " + operacionId);
+	    }
+	    return operacion;
+	}
+
+	private Particion particionDe(Long productoId) {
+	    return particiones[Math.floorMod(Long.hashCode(productoId), particiones.length)];
+	}
+
+	private void consumir(Particion particion) {
+	    while (activo) {
+	        Operacion operacion = particion.cola.poll();
+	        if (operacion == null) {
+	            particion.esperar();
+	            continue;
+	        }
+	        procesar(operacion);
+	    }
+
+	    // Lo que quede en cola no llega a ejecutarse: se rechaza para no dejarlo pendiente
+	    Operacion restante;
+	    while ((restante = particion.cola.poll()) != null) {
+	        restante.resolver(EstadoOperacionCompra.RECHAZADA, null,
+	                "El servicio se detuvo antes de procesar la compra");
+	    }
+	}
+
+	private void procesar(Operacion operacion) {
+	    try {
+	        InventarioDto inventario = operacion.idempotencyKey == null
+	                ? inventarioService.comprarProducto(operacion.productoId, operacion.cantidad)
+	                : idempotenciaService.ejecutar(operacion.idempotencyKey, operacion.productoId, operacion.cantidad,
+	                        () -> inventarioService.comprarProducto(
+	                                operacion.productoId, operacion.cantidad, operacion.idempotencyKey));
+	        operacion.resolver(EstadoOperacionCompra.COMPLETADA, inventario, null);
+	    } catch (RuntimeException e) {
+	        log.warn("Compra {} rechazada para productoId: {}: {}", operacion.id, operacion.productoId, e.getMessage());
+	        operacion.resolver(EstadoOperacionCompra.RECHAZADA, null, e.getMessage());
+	    }
+	}
+
+	private static final class Operacion {
+
+	    private final String id;
+	    private final Long productoId;
+	    private final int cantidad;
+	    private final String idempotencyKey;
+	    private final CompletableFuture<OperacionCompraDto> resolucion = new CompletableFuture<>();
+	    private volatile OperacionCompraDto estado;
+
+	    private Operacion(String id, Long productoId, int cantidad, String idempotencyKey) {
+	        this.id = id;
+	        this.productoId = productoId;
+	        this.cantidad = cantidad;
+	        this.idempotencyKey = idempotencyKey;
+	        this.estado = OperacionCompraDto.builder()
+	                .id(id)
+	                .productoId(productoId)
+	                .cantidad(cantidad)
+	                .estado(EstadoOperacionCompra.PENDIENTE)
+	                .aceptadaEn(Instant.now())
+	                .build();
+	    }
+
+	    private void resolver(EstadoOperacionCompra resultado, InventarioDto inventario, String error) {
+	        estado = estado.toBuilder()
+	                .estado(resultado)
+	                .resueltaEn(Instant.now())
+	                .inventario(inventario)
+	                .error(error)
+	                .build();
+	        resolucion.complete(estado);
+	    }
+	}
+
+	private static final class Particion {
+
+	    private final int indice;
+	    private final MpscRingBuffer<Operacion> cola;
+	    private volatile boolean durmiendo;
+	    private volatile Thread consumidor;
+
+	    private Particion(int indice, MpscRingBuffer<Operacion> cola) {
+	        this.indice = indice;
+	        this.cola = cola;
+	    }
+
+	    private void esperar() {
+	        durmiendo = true;
+	        // Se vuelve a mirar la cola tras publicar la marca: un productor que encoló justo
+	        // antes no vio "durmiendo" y no va a despertar a nadie
+	        if (cola.isEmpty()) {
+	            LockSupport.parkNanos(this, ESPERA_MAXIMA_NANOS);
+	        }
+	        durmiendo = false;
+	    }
+
+	    private void despertar() {
+	        if (durmiendo) {
+	            LockSupport.unpark(consumidor);
+	        }
+	    }
+	}
+}
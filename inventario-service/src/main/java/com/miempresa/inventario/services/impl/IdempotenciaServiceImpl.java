@@ -0,0 +1,147 @@
+package com.miempresa.inventario.services.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.entities.CompraIdempotenteEntity;
+import com.miempresa.inventario.exceptions.IdempotenciaConflictoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventario.repositories.CompraIdempotenteRepository;
+import com.miempresa.inventario.services.IdempotenciaService;
+import com.miempresa.inventario.sharding.TodosLosShards;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Service
+public class IdempotenciaServiceImpl implements IdempotenciaService, MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(IdempotenciaServiceImpl.class);
+
+	private static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+	private final CompraIdempotenteRepository compraIdempotenteRepository;
+	private final Cache<String, CompraIdempotenteEntity> respuestas;
+	private final Duration ttl;
+
+	public IdempotenciaServiceImpl(CompraIdempotenteRepository compraIdempotenteRepository,
+	                               @Value("${inventario.idempotencia.max-entradas:10000}") long maxEntradas,
+	                               @Value("${inventario.idempotencia.ttl-horas:24}") long ttlHoras) {
+	    this.compraIdempotenteRepository = compraIdempotenteRepository;
+	    this.ttl = Duration.ofHours(ttlHoras);
+	    this.respuestas = Caffeine.newBuilder()
+	            .maximumSize(maxEntradas)
+	            .expireAfterWrite(ttl)
+	            .recordStats()
+	            .build();
+	}
+
+	/** Aciertos, fallos y desalojos de la caché de respuestas, como {@code cache.*{cache="idempotencia"}}. */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+	    CaffeineCacheMetrics.monitor(registry, respuestas, "idempotencia");
+	}
+
+	@Override
+	public InventarioDto ejecutar(String clave, Long productoId, int cantidad, Supplier<InventarioDto> compra) {
+	    Optional<InventarioDto> previa = buscarRespuesta(clave, productoId, cantidad);
+	    if (previa.isPresent()) {
+	        log.info("Reintento con Idempotency-Key {}: se devuelve la respuesta almacenada", clave);
+	        return previa.get();
+	    }
+	    try {
+	        return compra.get();
+	    } catch (DataIntegrityViolationException e) {
+	        // Otro reintento concurrente con la misma clave confirmó primero; esta transacción
+	        // ya se deshizo entera, así que el stock no se descontó dos veces.
+	        return buscarRespuesta(clave, productoId, cantidad).orElseThrow(() -> e);
+	    }
+	}
+
+	@Override
+	public Optional<InventarioDto> buscarRespuesta(String clave, Long productoId, int cantidad) {
+	    validarClave(clave);
+	    CompraIdempotenteEntity guardada = respuestas.getIfPresent(clave);
+	    if (guardada == null) {
+	        guardada = compraIdempotenteRepository.findById(clave)
+	                .filter(compra -> compra.getExpiraEn().isAfter(Instant.now()))
+	                .orElse(null);
+	        if (guardada == null) {
+	            return Optional.empty();
+	        }
+	        respuestas.put(clave, guardada);
+	    }
+
+	    if (!guardada.getProductoId().equals(productoId) || guardada.getCantidadSolicitada() != cantidad) {
+	        throw new IdempotenciaConflictoException(
+	                "La Idempotency-Key " + clave + " ya se usó con otro productoId o cantidad");
+	    }
+	    return Optional.of(toDto(guardada));
+	}
+
+	@Override
+	public void registrarRespuesta(String clave, Long productoId, int cantidad, InventarioDto respuesta) {
+	    validarClave(clave);
+	    Instant ahora = Instant.now();
+	    CompraIdempotenteEntity compra = new CompraIdempotenteEntity(clave, productoId, cantidad,
+	            respuesta.getId(), respuesta.getCantidad(), respuesta.getReservado(), ahora.plus(ttl));
+	    // Una fila expirada pero aún sin purgar no cuenta como duplicado: se borra en la misma
+	    // transacción que la compra, así que se restaura si la compra se deshace
+	    compraIdempotenteRepository.eliminarSiExpirada(clave, ahora);
+	    // El flush detecta aquí la clave duplicada, antes de que la transacción siga trabajando
+	    compraIdempotenteRepository.saveAndFlush(compra);
+
+	    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+	        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+	            @Override
+	            public void afterCommit() {
+	                respuestas.put(clave, compra);
+	            }
+	        });
+	    } else {
+	        respuestas.put(clave, compra);
+	    }
+	}
+
+	@Override
+	@TodosLosShards
+	@Scheduled(fixedDelayString = "${inventario.idempotencia.purga-ms:600000}")
+	public int purgarExpiradas() {
+	    int eliminadas = compraIdempotenteRepository.eliminarExpiradas(Instant.now());
+	    if (eliminadas > 0) {
+	        log.info("Eliminadas {} claves de idempotencia expiradas", eliminadas);
+	    }
+	    return eliminadas;
+	}
+
+	private void validarClave(String clave) {
+	    if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+	        throw new SolicitudInvalidaException(
+	                "Idempotency-Key debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+	    }
+	}
+
+	private InventarioDto toDto(CompraIdempotenteEntity compra) {
+	    return InventarioDto.builder()
+	            .id(compra.getInventarioId())
+	            .productoId(compra.getProductoId())
+	            .cantidad(compra.getCantidadResultante())
+	            .reservado(compra.getReservadoResultante())
+	            .build();
+	}
+}
@@ -1,5 +1,16 @@
 package com.miempresa.inventario.services.impl;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -11,11 +22,26 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.inventario.dtos.DisponibilidadDto;
+import com.miempresa.inventario.dtos.InventarioDetalleDto;
 import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.ProductoDto;
 import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventario.exceptions.PlazoExcedidoException;
 import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventario.plazos.Plazo;
 import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.services.IdempotenciaService;
 import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.utils.LogLimitado;
+import com.miempresa.inventario.wrappers.JsonApiWrapper;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +56,17 @@ public class InventarioServiceImpl implements InventarioService {
 	
 	private final InventarioRepository inventarioRepository;
 	private final RestTemplate restTemplate;
+	private final MovimientoInventarioService movimientoInventarioService;
+	private final IdempotenciaService idempotenciaService;
+	private final Executor consultasExecutor;
+	private final ObjectMapper objectMapper;
+
+	// Fallos de MSProducto y stock agotado se repiten con el tráfico: como mucho 10 avisos por segundo de cada tipo
+	private final LogLimitado logErroresProductos = new LogLimitado(10, 1, TimeUnit.SECONDS);
+	private final LogLimitado logInventarioInsuficiente = new LogLimitado(10, 1, TimeUnit.SECONDS);
+
+	private static final TypeReference<JsonApiWrapper<ProductoDto>> TIPO_RESPUESTA_PRODUCTO = new TypeReference<>() {};
+	private static final TypeReference<List<JsonApiWrapper<ProductoDto>>> TIPO_RESPUESTA_PRODUCTOS = new TypeReference<>() {};
 
 	@Value("${productos.api.url}")
 	private String PRODUCTOS_API_URL;
@@ -37,26 +74,147 @@ public class InventarioServiceImpl implements InventarioService {
 	@Value("${productos.service.api.key}")
 	private String API_KEY_PRODUCTO;
 
+	@Value("${inventario.disponibilidad.max-ids:200}")
+	private int maxIdsDisponibilidad = 200;
+
 	@Override
 	public String consultarInventarioPorProductoId(Long productoId) {
-	    log.info("Consultando inventario para productoId: {}", productoId);
-	    String resultado = validarExistenciaProducto(productoId);
-	    log.info("Resultado de la validación de existencia del producto: {}", resultado);
-	    return resultado;
+	    log.debug("Consultando inventario para productoId: {}", productoId);
+	    return validarExistenciaProducto(productoId);
+	}
+
+	/**
+	 * Consulta MSProducto y la fila local de inventario en paralelo, de modo que la latencia
+	 * es la de la más lenta de las dos y no su suma.
+	 */
+	@Override
+	public InventarioDetalleDto consultarDetalleInventario(Long productoId) {
+	    log.debug("Consultando detalle de inventario para productoId: {}", productoId);
+
+	    CompletableFuture<ProductoDto> producto = CompletableFuture.supplyAsync(
+	            () -> obtenerProducto(productoId), consultasExecutor);
+	    CompletableFuture<Optional<InventarioEntity>> inventario = CompletableFuture.supplyAsync(
+	            () -> inventarioRepository.findByProductoId(productoId), consultasExecutor);
+
+	    return esperar(producto.thenCombine(inventario, (prod, inv) -> {
+	        // Un producto sin fila de inventario simplemente no tiene stock
+	        int cantidad = inv.map(InventarioEntity::getCantidad).orElse(0);
+	        int reservado = inv.map(InventarioEntity::getReservado).orElse(0);
+	        return InventarioDetalleDto.builder()
+	                .productoId(productoId)
+	                .producto(prod)
+	                .cantidad(cantidad)
+	                .reservado(reservado)
+	                .disponible(cantidad - reservado)
+	                .build();
+	    }));
+	}
+
+	/**
+	 * Resuelve la disponibilidad de una página de productos con una única consulta {@code IN}
+	 * sobre inventarios y una única llamada por lote a MSProducto, ambas en paralelo.
+	 */
+	@Override
+	public List<DisponibilidadDto> consultarDisponibilidad(List<Long> productoIds) {
+	    List<Long> ids = productoIds == null ? List.of() : productoIds.stream().distinct().toList();
+	    if (ids.isEmpty()) {
+	        throw new SolicitudInvalidaException("Debe indicar al menos un productoId en filter[productoId]");
+	    }
+	    if (ids.size() > maxIdsDisponibilidad) {
+	        throw new SolicitudInvalidaException("Se admiten como máximo " + maxIdsDisponibilidad + " productoIds por consulta");
+	    }
+	    log.debug("Consultando disponibilidad de {} productos", ids.size());
+
+	    CompletableFuture<Set<Long>> existentes = CompletableFuture.supplyAsync(
+	            () -> obtenerIdsProductosExistentes(ids), consultasExecutor);
+	    CompletableFuture<Map<Long, InventarioEntity>> inventarios = CompletableFuture.supplyAsync(
+	            () -> inventarioRepository.findByProductoIdIn(ids).stream()
+	                    .collect(Collectors.toMap(InventarioEntity::getProductoId, Function.identity())),
+	            consultasExecutor);
+
+	    return esperar(existentes.thenCombine(inventarios, (productos, filas) -> ids.stream()
+	            .filter(productos::contains)
+	            .map(id -> {
+	                InventarioEntity inv = filas.get(id);
+	                int cantidad = inv != null ? inv.getCantidad() : 0;
+	                int reservado = inv != null ? inv.getReservado() : 0;
+	                return DisponibilidadDto.builder()
+	                        .productoId(id)
+	                        .cantidad(cantidad)
+	                        .reservado(reservado)
+	                        .disponible(cantidad - reservado)
+	                        .enStock(cantidad - reservado > 0)
+	                        .build();
+	            })
+	            .toList()));
+	}
+
+	private static <T> T esperar(CompletableFuture<T> futuro) {
+	    try {
+	        return futuro.join();
+	    } catch (CompletionException e) {
+	        // Se relanza la excepción original para que GlobalExceptionHandler la traduzca igual que en la ruta síncrona
+	        if (e.getCause() instanceof RuntimeException causa) {
+	            throw causa;
+	        }
+	        throw e;
+	    }
+	}
+
+	private Set<Long> obtenerIdsProductosExistentes(List<Long> productoIds) {
+	    String url = PRODUCTOS_API_URL + "/productos?filter[id]="
+	            + productoIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+	    HttpHeaders headers = new HttpHeaders();
+	    headers.set("X-API-KEY", API_KEY_PRODUCTO);
+
+	    log.debug("Consultando existencia de {} productos en: {}", productoIds.size(), url);
+
+	    try {
+	        ResponseEntity<String> response = restTemplate.exchange(
+	                url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	        List<JsonApiWrapper<ProductoDto>> productos = objectMapper.readValue(response.getBody(), TIPO_RESPUESTA_PRODUCTOS);
+	        return productos.stream()
+	                .map(wrapper -> Long.valueOf(wrapper.getData().getId()))
+	                .collect(Collectors.toSet());
+	    } catch (RestClientException e) {
+	        // Un timeout por falta de plazo no es un fallo de MSProducto: se responde 504
+	        Plazo.comprobar("productos");
+	        logErroresProductos.emitir(omitidos -> log.error(
+	                "Error al consultar productos por lote en MSProducto: {} [omitidos: {}]", e.getMessage(), omitidos));
+	        throw new RecursoNoEncontradoException("No se pudo consultar el servicio de productos: " + e.getMessage());
+	    } catch (JsonProcessingException | IllegalArgumentException e) {
+	        throw new RecursoNoEncontradoException("Respuesta no válida del servicio de productos: " + e.getMessage());
+	    }
+	}
+
+	private ProductoDto obtenerProducto(Long productoId) {
+	    String respuesta = validarExistenciaProducto(productoId);
+	    try {
+	        JsonApiWrapper<ProductoDto> wrapper = objectMapper.readValue(respuesta, TIPO_RESPUESTA_PRODUCTO);
+	        if (wrapper == null || wrapper.getData() == null || wrapper.getData().getAttributes() == null) {
+	            throw new RecursoNoEncontradoException("Respuesta sin datos del servicio de productos para ID: " + productoId);
+	        }
+	        return wrapper.getData().getAttributes();
+	    } catch (JsonProcessingException e) {
+	        throw new RecursoNoEncontradoException("Respuesta no válida del servicio de productos para ID: " + productoId);
+	    }
 	}
 
 	@Transactional
 	@Override
 	public InventarioDto actualizarCantidadInventario(Long productoId, int nuevaCantidad) {
-	    log.info("Actualizando cantidad de inventario. productoId: {}, nuevaCantidad: {}", productoId, nuevaCantidad);
+	    log.debug("Actualizando cantidad de inventario. productoId: {}, nuevaCantidad: {}", productoId, nuevaCantidad);
 
 	    validarExistenciaProducto(productoId);
 
-	    InventarioEntity entity = new InventarioEntity();
-	    entity.setProductoId(productoId);
-	    entity.setCantidad(nuevaCantidad);
-
-	    InventarioEntity guardado = inventarioRepository.save(entity);
+	    InventarioEntity guardado = inventarioRepository.upsertCantidad(productoId, nuevaCantidad)
+	            .orElseThrow(() -> {
+	                log.warn("Cantidad {} por debajo de lo reservado para productoId: {}", nuevaCantidad, productoId);
+	                return new InventarioInsuficienteException(
+	                        "La cantidad " + nuevaCantidad + " no cubre las unidades reservadas del producto " + productoId);
+	            });
+	    movimientoInventarioService.registrarMovimiento(
+	            productoId, TipoMovimiento.AJUSTE, null, guardado.getCantidad(), null);
 	    log.info("Inventario actualizado para productoId: {} con cantidad: {}", guardado.getProductoId(), guardado.getCantidad());
 
 	    return toDto(guardado);
@@ -65,27 +223,52 @@ public class InventarioServiceImpl implements InventarioService {
 	@Transactional
 	@Override
 	public InventarioDto comprarProducto(Long productoId, int cantidad) {
-	    log.info("Procesando compra de productoId: {}, cantidad: {}", productoId, cantidad);
+	    return comprarProducto(productoId, cantidad, null);
+	}
+
+	@Transactional
+	@Override
+	public InventarioDto comprarProducto(Long productoId, int cantidad, String idempotencyKey) {
+	    log.debug("Procesando compra de productoId: {}, cantidad: {}", productoId, cantidad);
+
+	    // Con una cantidad negativa el descuento condicional siempre se cumple y sumaría stock
+	    if (cantidad <= 0) {
+	        throw new SolicitudInvalidaException("La cantidad a comprar debe ser positiva");
+	    }
 
 	    validarExistenciaProducto(productoId);
 
+	    // UPDATE condicional en lugar de leer, restar y guardar: las unidades retenidas por
+	    // reservas pendientes no se pueden vender y no se pierden descuentos concurrentes
+	    if (inventarioRepository.descontarCantidad(productoId, cantidad) == 0) {
+	        throw compraRechazada(productoId, cantidad);
+	    }
 	    InventarioEntity inventario = inventarioRepository.findByProductoId(productoId)
-	            .orElseThrow(() -> {
-	                log.warn("Inventario no encontrado para productoId: {}", productoId);
-	                return new RecursoNoEncontradoException("Inventario no encontrado");
-	            });
+	            .orElseThrow(() -> new RecursoNoEncontradoException("Inventario no encontrado"));
+	    movimientoInventarioService.registrarMovimiento(
+	            productoId, TipoMovimiento.COMPRA, -cantidad, inventario.getCantidad(), null);
+	    log.info("Compra realizada. Nuevo inventario para productoId {}: {}", productoId, inventario.getCantidad());
 
-	    if (inventario.getCantidad() < cantidad) {
-	        log.warn("Inventario insuficiente para productoId: {}. Disponible: {}, Solicitado: {}",
-	                productoId, inventario.getCantidad(), cantidad);
-	        throw new IllegalArgumentException("Inventario insuficiente");
+	    InventarioDto respuesta = toDto(inventario);
+	    if (idempotencyKey != null) {
+	        idempotenciaService.registrarRespuesta(idempotencyKey, productoId, cantidad, respuesta);
 	    }
+	    return respuesta;
+	}
 
-	    inventario.setCantidad(inventario.getCantidad() - cantidad);
-	    inventarioRepository.save(inventario);
-	    log.info("Compra realizada. Nuevo inventario para productoId {}: {}", productoId, inventario.getCantidad());
-
-	    return toDto(inventario);
+	/** Distingue, tras un descuento que no afectó a ninguna fila, entre inventario inexistente e insuficiente. */
+	private RuntimeException compraRechazada(Long productoId, int cantidad) {
+	    return inventarioRepository.findByProductoId(productoId)
+	            .<RuntimeException>map(inventario -> {
+	                logInventarioInsuficiente.emitir(omitidos -> log.warn(
+	                        "Inventario insuficiente para productoId: {}. Disponible: {}, Solicitado: {} [omitidos: {}]",
+	                        productoId, inventario.getDisponible(), cantidad, omitidos));
+	                return new InventarioInsuficienteException("Inventario insuficiente");
+	            })
+	            .orElseGet(() -> {
+	                log.warn("Inventario no encontrado para productoId: {}", productoId);
+	                return new RecursoNoEncontradoException("Inventario no encontrado");
+	            });
 	}
 
 	private InventarioDto toDto(InventarioEntity entity) {
@@ -93,6 +276,7 @@ public class InventarioServiceImpl implements InventarioService {
 	    		.id(entity.getId())
 	            .productoId(entity.getProductoId())
 	            .cantidad(entity.getCantidad())
+	            .reservado(entity.getReservado())
 	            .build();
 	}
 
@@ -102,14 +286,15 @@ public class InventarioServiceImpl implements InventarioService {
         headers.set("X-API-KEY", API_KEY_PRODUCTO); 
         HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-        log.info("Consultando existencia de producto en: {}", url);
+        log.debug("Consultando existencia de producto en: {}", url);
 
         try {
             ResponseEntity<String> response = restTemplate.exchange(
                 url, HttpMethod.GET, requestEntity, String.class);
 
             if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Producto con ID {} encontrado exitosamente. Respuesta: {}", productoId, response.getBody());
+                // Sin el cuerpo: se escribía en cada compra y era la mayor parte del log
+                log.debug("Producto con ID {} encontrado en MSProducto", productoId);
                 return response.getBody();
             } else {
                 // Si llegamos aquí con un código no 2xx, ya se debería haber lanzado una excepción Http...Exception.
@@ -121,21 +306,30 @@ public class InventarioServiceImpl implements InventarioService {
 
         } catch (HttpClientErrorException e) {
             String errorMessage = "Error del cliente al consultar MSProducto (HTTP " + e.getStatusCode() + "): " + e.getResponseBodyAsString();
-            log.error(errorMessage, e);
+            // Un 404 de MSProducto es una respuesta esperada: sin traza, y limitado
+            logErroresProductos.emitir(omitidos -> log.warn("{} [omitidos: {}]", errorMessage, omitidos));
             // *** También lanzamos una excepción para otros errores 4xx ***
             throw new RecursoNoEncontradoException("Error del servicio de productos: " + errorMessage);
 
         } catch (HttpServerErrorException e) {
+            // MSProducto responde 504 cuando el plazo que le pasamos se agota allí
+            Plazo.comprobar("productos");
             String errorMessage = "Error del servidor al consultar MSProducto (HTTP " + e.getStatusCode() + "): " + e.getResponseBodyAsString();
-            log.error(errorMessage, e);
+            logErroresProductos.emitir(omitidos -> log.error("{} [omitidos: {}]", errorMessage, omitidos));
             // *** Lanzamos una excepción para errores 5xx ***
             throw new RecursoNoEncontradoException("Error del servicio de productos (servidor): " + errorMessage);
 
         } catch (RestClientException e) {
-            log.error("Error de conexión o comunicación con MSProducto: {}", e.getMessage(), e);
+            // Un timeout por falta de plazo no es un fallo de MSProducto: se responde 504
+            Plazo.comprobar("productos");
+            logErroresProductos.emitir(omitidos -> log.error(
+                    "Error de conexión o comunicación con MSProducto: {} [omitidos: {}]", e.getMessage(), omitidos));
             // *** Lanzamos una excepción para problemas de conexión ***
             throw new RecursoNoEncontradoException("No se pudo conectar con el servicio de productos: " + e.getMessage());
 
+        } catch (PlazoExcedidoException e) {
+            throw e;
+
         } catch (Exception e) {
             log.error("Ocurrió un error inesperado al validar la existencia del producto: {}", e.getMessage(), e);
             // *** Lanzamos una excepción genérica para otros errores ***
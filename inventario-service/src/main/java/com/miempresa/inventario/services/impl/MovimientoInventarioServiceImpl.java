@@ -0,0 +1,116 @@
+package com.miempresa.inventario.services.impl;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.inventario.dtos.MovimientoInventarioDto;
+import com.miempresa.inventario.dtos.NivelInventarioDto;
+import com.miempresa.inventario.entities.MovimientoInventarioEntity;
+import com.miempresa.inventario.entities.SnapshotInventarioEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.repositories.MovimientoInventarioRepository;
+import com.miempresa.inventario.repositories.SnapshotInventarioRepository;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.sharding.TodosLosShards;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class MovimientoInventarioServiceImpl implements MovimientoInventarioService {
+
+	private static final Logger log = LoggerFactory.getLogger(MovimientoInventarioServiceImpl.class);
+
+	private final MovimientoInventarioRepository movimientoRepository;
+	private final SnapshotInventarioRepository snapshotRepository;
+
+	@Value("${inventario.movimientos.max-resultados:1000}")
+	private int maxResultados;
+
+	/**
+	 * Un único INSERT, dentro de la transacción de quien modificó el stock, de modo que el
+	 * movimiento y el cambio de cantidad se confirman o se deshacen juntos.
+	 */
+	@Override
+	public void registrarMovimiento(Long productoId, TipoMovimiento tipo, Integer variacion,
+	                                int cantidadResultante, String referencia) {
+	    movimientoRepository.save(new MovimientoInventarioEntity(
+	            null, productoId, tipo, variacion, cantidadResultante, referencia, Instant.now()));
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public List<MovimientoInventarioDto> listarMovimientos(Long productoId, Instant desde, Instant hasta) {
+	    if (!desde.isBefore(hasta)) {
+	        throw new IllegalArgumentException("El intervalo de movimientos es vacío o está invertido");
+	    }
+	    return movimientoRepository
+	            .findByProductoIdAndCreadoEnGreaterThanEqualAndCreadoEnLessThanOrderByCreadoEnAscIdAsc(
+	                    productoId, desde, hasta, Limit.of(maxResultados))
+	            .stream()
+	            .map(this::toDto)
+	            .toList();
+	}
+
+	/**
+	 * Nivel en {@code instante}: parte del último snapshot anterior del producto y solo mira los
+	 * movimientos posteriores al último corte global. Un producto sin movimientos en una ventana
+	 * no recibe snapshot en ese corte, así que el suyo puede ser muy antiguo; pero tampoco se movió
+	 * entre ese snapshot y el último corte, y su cantidad en el corte es la del snapshot (o 0 si
+	 * no tiene ninguno).
+	 */
+	@Transactional(readOnly = true)
+	@Override
+	public NivelInventarioDto consultarNivel(Long productoId, Instant instante) {
+	    SnapshotInventarioEntity snapshot = snapshotRepository
+	            .findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(productoId, instante)
+	            .orElse(null);
+	    Instant ultimoCorte = snapshotRepository.findUltimoCorte(instante).orElse(null);
+	    Instant desde = snapshot == null || (ultimoCorte != null && ultimoCorte.isAfter(snapshot.getTomadoEn()))
+	            ? ultimoCorte
+	            : snapshot.getTomadoEn();
+
+	    Integer cantidad = (desde != null
+	            ? movimientoRepository.findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+	                    productoId, desde, instante)
+	            : movimientoRepository.findFirstByProductoIdAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+	                    productoId, instante))
+	            .map(MovimientoInventarioEntity::getCantidadResultante)
+	            .orElse(snapshot != null ? snapshot.getCantidad() : 0);
+
+	    return NivelInventarioDto.builder()
+	            .productoId(productoId)
+	            .cantidad(cantidad)
+	            .instante(instante)
+	            .build();
+	}
+
+	// Cada shard compacta su propia ventana: el último corte puede no coincidir entre shards
+	@TodosLosShards
+	@Override
+	public int compactarSnapshots(Instant corte) {
+	    Instant desde = snapshotRepository.findUltimoCorte(corte).orElse(Instant.EPOCH);
+	    int productos = snapshotRepository.compactar(desde, corte);
+	    log.info("Snapshots de inventario compactados hasta {}: {} productos", corte, productos);
+	    return productos;
+	}
+
+	private MovimientoInventarioDto toDto(MovimientoInventarioEntity entity) {
+	    return MovimientoInventarioDto.builder()
+	            .id(entity.getId())
+	            .productoId(entity.getProductoId())
+	            .tipo(entity.getTipo())
+	            .variacion(entity.getVariacion())
+	            .cantidadResultante(entity.getCantidadResultante())
+	            .referencia(entity.getReferencia())
+	            .creadoEn(entity.getCreadoEn())
+	            .build();
+	}
+}
@@ -0,0 +1,202 @@
+package com.miempresa.inventario.services.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.miempresa.inventario.dtos.ReservaDto;
+import com.miempresa.inventario.entities.EstadoReserva;
+import com.miempresa.inventario.entities.ReservaEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.ReservaNoPendienteException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.repositories.ReservaRepository;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.services.ReservaService;
+import com.miempresa.inventario.sharding.TodosLosShards;
+import com.miempresa.inventario.utils.HashedTimingWheel;
+import com.miempresa.inventario.utils.LogLimitado;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class ReservaServiceImpl implements ReservaService {
+
+	private static final Logger log = LoggerFactory.getLogger(ReservaServiceImpl.class);
+
+	private final InventarioRepository inventarioRepository;
+	private final ReservaRepository reservaRepository;
+	private final HashedTimingWheel ruedaExpiracionReservas;
+	private final TransactionTemplate transactionTemplate;
+	private final MovimientoInventarioService movimientoInventarioService;
+
+	private final LogLimitado logInventarioInsuficiente = new LogLimitado(10, 1, TimeUnit.SECONDS);
+
+	// Temporizadores vivos por reserva, para cancelarlos al confirmar o liberar
+	private final Map<Long, HashedTimingWheel.Timeout> expiraciones = new ConcurrentHashMap<>();
+
+	@Value("${inventario.reservas.ttl-segundos:900}")
+	private long ttlPorDefectoSegundos;
+
+	@Transactional
+	@Override
+	public ReservaDto reservarProducto(Long productoId, int cantidad, Long ttlSegundos) {
+	    log.debug("Reservando productoId: {}, cantidad: {}", productoId, cantidad);
+
+	    if (cantidad <= 0) {
+	        throw new SolicitudInvalidaException("La cantidad a reservar debe ser positiva");
+	    }
+
+	    // La fila de inventario solo existe para productos ya validados contra MSProducto,
+	    // así que la reserva no repite la llamada remota.
+	    if (inventarioRepository.reservarCantidad(productoId, cantidad) == 0) {
+	        inventarioRepository.findByProductoId(productoId)
+	                .orElseThrow(() -> new RecursoNoEncontradoException("Inventario no encontrado"));
+	        logInventarioInsuficiente.emitir(omitidos -> log.warn(
+	                "Inventario insuficiente para reservar productoId: {}, solicitado: {} [omitidos: {}]",
+	                productoId, cantidad, omitidos));
+	        throw new InventarioInsuficienteException("Inventario insuficiente");
+	    }
+
+	    long ttl = ttlSegundos != null && ttlSegundos > 0 ? ttlSegundos : ttlPorDefectoSegundos;
+	    Instant expiraEn = Instant.now().plusSeconds(ttl);
+	    ReservaEntity reserva = reservaRepository.save(
+	            new ReservaEntity(null, productoId, cantidad, EstadoReserva.PENDIENTE, expiraEn));
+
+	    Long reservaId = reserva.getId();
+	    // Programar tras el commit: una expiración temprana no debe adelantarse a la fila
+	    despuesDelCommit(() -> programarExpiracion(reservaId, expiraEn));
+	    log.info("Reserva {} creada para productoId: {}, expira en: {}", reservaId, productoId, expiraEn);
+
+	    return toDto(reserva, reserva.getEstado());
+	}
+
+	@Transactional
+	@Override
+	public ReservaDto confirmarReserva(Long reservaId) {
+	    log.info("Confirmando reserva: {}", reservaId);
+	    ReservaEntity reserva = transicionarDesdePendiente(reservaId, EstadoReserva.CONFIRMADA);
+
+	    if (inventarioRepository.confirmarReserva(reserva.getProductoId(), reserva.getCantidad()) == 0) {
+	        throw new IllegalStateException("El inventario reservado no cubre la reserva " + reservaId);
+	    }
+	    inventarioRepository.findByProductoId(reserva.getProductoId()).ifPresent(inventario ->
+	            movimientoInventarioService.registrarMovimiento(reserva.getProductoId(),
+	                    TipoMovimiento.RESERVA_CONFIRMADA, -reserva.getCantidad(), inventario.getCantidad(),
+	                    "reserva:" + reservaId));
+
+	    despuesDelCommit(() -> cancelarExpiracion(reservaId));
+	    return toDto(reserva, EstadoReserva.CONFIRMADA);
+	}
+
+	@Transactional
+	@Override
+	public ReservaDto liberarReserva(Long reservaId) {
+	    log.info("Liberando reserva: {}", reservaId);
+	    ReservaEntity reserva = transicionarDesdePendiente(reservaId, EstadoReserva.LIBERADA);
+	    if (inventarioRepository.liberarReserva(reserva.getProductoId(), reserva.getCantidad()) == 0) {
+	        throw new IllegalStateException("El inventario reservado no cubre la reserva " + reservaId);
+	    }
+
+	    despuesDelCommit(() -> cancelarExpiracion(reservaId));
+	    return toDto(reserva, EstadoReserva.LIBERADA);
+	}
+
+	/**
+	 * Vuelve a cargar en la rueda las reservas pendientes tras un reinicio; las ya vencidas
+	 * expiran en el siguiente tick.
+	 */
+	@TodosLosShards
+	@EventListener(ApplicationReadyEvent.class)
+	public void reprogramarPendientes() {
+	    List<ReservaEntity> pendientes = reservaRepository.findByEstado(EstadoReserva.PENDIENTE);
+	    pendientes.forEach(reserva -> programarExpiracion(reserva.getId(), reserva.getExpiraEn()));
+	    if (!pendientes.isEmpty()) {
+	        log.info("Reprogramadas {} reservas pendientes", pendientes.size());
+	    }
+	}
+
+	protected void expirarReserva(Long reservaId) {
+	    expiraciones.remove(reservaId);
+	    transactionTemplate.executeWithoutResult(status ->
+	            reservaRepository.findById(reservaId).ifPresent(reserva -> {
+	                // Si ya se confirmó o liberó, la transición falla y no se devuelve nada
+	                if (reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.EXPIRADA) == 1) {
+	                    // Aquí no se lanza: deshacer dejaría la reserva pendiente y ya fuera de la rueda
+	                    if (inventarioRepository.liberarReserva(reserva.getProductoId(), reserva.getCantidad()) == 0) {
+	                        log.error("Reserva {} expirada, pero el inventario reservado de productoId: {} no cubría sus {} unidades",
+	                                reservaId, reserva.getProductoId(), reserva.getCantidad());
+	                        return;
+	                    }
+	                    log.info("Reserva {} expirada; liberadas {} unidades de productoId: {}",
+	                            reservaId, reserva.getCantidad(), reserva.getProductoId());
+	                }
+	            }));
+	}
+
+	private ReservaEntity transicionarDesdePendiente(Long reservaId, EstadoReserva nuevo) {
+	    ReservaEntity reserva = reservaRepository.findById(reservaId)
+	            .orElseThrow(() -> new RecursoNoEncontradoException("Reserva no encontrada con id " + reservaId));
+
+	    if (reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, nuevo) == 0) {
+	        throw new ReservaNoPendienteException("La reserva " + reservaId + " ya no está pendiente");
+	    }
+	    return reserva;
+	}
+
+	private void programarExpiracion(Long reservaId, Instant expiraEn) {
+	    long retrasoMs = Math.max(0, Duration.between(Instant.now(), expiraEn).toMillis());
+	    expiraciones.put(reservaId, ruedaExpiracionReservas.schedule(
+	            () -> expirarReserva(reservaId), retrasoMs, TimeUnit.MILLISECONDS));
+	}
+
+	private void cancelarExpiracion(Long reservaId) {
+	    HashedTimingWheel.Timeout timeout = expiraciones.remove(reservaId);
+	    if (timeout != null) {
+	        timeout.cancel();
+	    }
+	}
+
+	private void despuesDelCommit(Runnable accion) {
+	    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+	        accion.run();
+	        return;
+	    }
+	    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+	        @Override
+	        public void afterCommit() {
+	            accion.run();
+	        }
+	    });
+	}
+
+	// El estado se pasa aparte: las transiciones se hacen con UPDATE directo y la entidad
+	// gestionada no se modifica para no provocar una segunda escritura al hacer flush.
+	private ReservaDto toDto(ReservaEntity entity, EstadoReserva estado) {
+	    return ReservaDto.builder()
+	            .id(entity.getId())
+	            .productoId(entity.getProductoId())
+	            .cantidad(entity.getCantidad())
+	            .estado(estado)
+	            .expiraEn(entity.getExpiraEn())
+	            .build();
+	}
+}
@@ -0,0 +1,71 @@
+package com.miempresa.inventario.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Anillo de hash consistente que asigna cada {@code productoId} a un shard.
+ * <p>
+ * Cada shard ocupa {@code nodosVirtuales} posiciones del anillo y un producto pertenece al
+ * primer nodo que encuentra avanzando desde el hash de su id. Al añadir un shard solo cambian
+ * de dueño los productos que caen en los tramos que ocupan sus nodos, aproximadamente
+ * {@code 1/N} del total, y el resto sigue donde estaba. Los hashes no dependen de la JVM: todas
+ * las instancias, y la herramienta de rebalanceo, calculan el mismo reparto.
+ */
+public final class AnilloHashConsistente {
+
+    private final List<String> shards;
+    private final TreeMap<Long, String> anillo = new TreeMap<>();
+
+    public AnilloHashConsistente(List<String> shards, int nodosVirtuales) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("El anillo necesita al menos un shard");
+        }
+        if (nodosVirtuales <= 0) {
+            throw new IllegalArgumentException("El número de nodos virtuales debe ser positivo");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int i = 0; i < nodosVirtuales; i++) {
+                String anterior = anillo.put(hashNodo(shard + "#" + i), shard);
+                if (anterior != null && !anterior.equals(shard)) {
+                    throw new IllegalStateException("Colisión de nodos virtuales entre " + anterior + " y " + shard);
+                }
+            }
+        }
+    }
+
+    public String shardDe(long productoId) {
+        Map.Entry<Long, String> nodo = anillo.ceilingEntry(hashClave(productoId));
+        return (nodo != null ? nodo : anillo.firstEntry()).getValue();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    // Finalizador de MurmurHash3: reparte bien ids consecutivos, que es lo habitual
+    static long hashClave(long clave) {
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long hashNodo(String nodo) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("MD5").digest(nodo.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(resumen).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 no disponible", e);
+        }
+    }
+}
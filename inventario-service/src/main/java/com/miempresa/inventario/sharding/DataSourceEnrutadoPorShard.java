@@ -0,0 +1,27 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Entrega conexiones del shard fijado en {@link ShardContexto}. Se usa siempre detrás de un
+ * {@code LazyConnectionDataSourceProxy}: JPA pide la conexión al empezar la transacción, antes
+ * de que el primer repositorio haya resuelto el shard, y el proxy retrasa la elección hasta
+ * la primera sentencia.
+ */
+public class DataSourceEnrutadoPorShard extends AbstractRoutingDataSource {
+
+    public DataSourceEnrutadoPorShard(RegistroShards registro) {
+        setTargetDataSources(new LinkedHashMap<Object, Object>(Map.copyOf(registro.dataSources())));
+        setDefaultTargetDataSource(registro.dataSource(registro.principal()));
+        // Un shard fijado que no está configurado es un error de programación, no el principal
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContexto.actual();
+    }
+}
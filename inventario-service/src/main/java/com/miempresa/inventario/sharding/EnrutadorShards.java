@@ -0,0 +1,262 @@
+package com.miempresa.inventario.sharding;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+import com.miempresa.inventario.entities.ReservaEntity;
+import com.miempresa.inventario.repositories.ReservaRepository;
+
+import jakarta.persistence.Entity;
+
+/**
+ * Fija el shard de cada llamada a servicios y repositorios a partir de sus argumentos, de modo
+ * que el código de negocio no sabe que hay varias bases de datos.
+ * <p>
+ * La clave se busca, por este orden, en un parámetro {@code productoId}, en un parámetro
+ * {@code reservaId} (o el id de {@link ReservaRepository}), cuyo shard va codificado en el
+ * propio id, y en una entidad con {@code getProductoId()}. Un parámetro {@code productoIds} de
+ * un repositorio reparte la consulta: una llamada por shard con sus ids y los resultados
+ * concatenados. Un método de repositorio sin clave, o marcado con {@link TodosLosShards},
+ * se ejecuta en todos los shards.
+ * <p>
+ * Una transacción nunca cambia de shard: si empieza sin shard fijado, la primera clave que
+ * aparece lo fija hasta que termina, y una llamada que pertenece a otro shard falla con
+ * {@link IllegalStateException} en lugar de escribir en la base equivocada.
+ */
+public class EnrutadorShards implements MethodInterceptor {
+
+    private static final ParameterNameDiscoverer NOMBRES_PARAMETROS = new DefaultParameterNameDiscoverer();
+
+    private final Supplier<RegistroShards> registroShards;
+    private final Map<Class<?>, Optional<Method>> getterProductoId = new ConcurrentHashMap<>();
+    private RegistroShards registro;
+
+    /**
+     * El registro se resuelve en la primera llamada: el advisor se crea mientras se registran
+     * los post-procesadores y no debe arrastrar consigo la creación de los pools.
+     */
+    public EnrutadorShards(Supplier<RegistroShards> registroShards) {
+        this.registroShards = registroShards;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacion) throws Throwable {
+        if (registro == null) {
+            registro = registroShards.get();
+        }
+        Object destino = invocacion.getThis();
+        boolean repositorio = destino instanceof Repository<?, ?>;
+
+        if (marcadoParaTodosLosShards(invocacion)) {
+            return enTodos(invocacion);
+        }
+
+        String[] nombres = NOMBRES_PARAMETROS.getParameterNames(invocacion.getMethod());
+        Object[] argumentos = invocacion.getArguments();
+        for (int i = 0; i < argumentos.length; i++) {
+            String nombre = nombres != null ? nombres[i] : null;
+            if (repositorio && "productoIds".equals(nombre) && argumentos[i] instanceof Collection<?> ids) {
+                return repartir(invocacion, i, ids);
+            }
+            String shard = shardDe(destino, i, nombre, argumentos[i]);
+            if (shard != null) {
+                return enrutar(invocacion, shard);
+            }
+        }
+
+        if (!repositorio || ShardContexto.actual() != null) {
+            return invocacion.proceed();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("No se puede resolver el shard de " + descripcion(invocacion)
+                    + " dentro de una transacción que aún no tiene shard");
+        }
+        return enTodos(invocacion);
+    }
+
+    private String shardDe(Object destino, int posicion, String nombre, Object argumento) {
+        if (argumento instanceof Long id) {
+            if ("productoId".equals(nombre)) {
+                return registro.shardDeProducto(id);
+            }
+            if ("reservaId".equals(nombre) || (posicion == 0 && destino instanceof ReservaRepository)) {
+                return registro.shardDeReserva(id);
+            }
+            return null;
+        }
+        if (argumento instanceof ReservaEntity reserva && reserva.getId() != null) {
+            return registro.shardDeReserva(reserva.getId());
+        }
+        if (argumento != null && argumento.getClass().isAnnotationPresent(Entity.class)) {
+            Object productoId = getterProductoId
+                    .computeIfAbsent(argumento.getClass(), tipo -> Optional.ofNullable(
+                            ReflectionUtils.findMethod(tipo, "getProductoId")))
+                    .map(getter -> ReflectionUtils.invokeMethod(getter, argumento))
+                    .orElse(null);
+            if (productoId instanceof Long id) {
+                return registro.shardDeProducto(id);
+            }
+        }
+        return null;
+    }
+
+    private Object enrutar(MethodInvocation invocacion, String shard) throws Throwable {
+        String actual = ShardContexto.actual();
+        boolean enTransaccion = TransactionSynchronizationManager.isActualTransactionActive();
+
+        if (shard.equals(actual)) {
+            return invocacion.proceed();
+        }
+        if (enTransaccion && actual != null) {
+            throw new IllegalStateException(descripcion(invocacion) + " corresponde al shard " + shard
+                    + ", pero la transacción en curso trabaja con " + actual);
+        }
+        if (enTransaccion && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // La conexión de la transacción se abrirá (o ya se abrió) en este shard: queda fijado hasta el final
+            ShardContexto.fijar(shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    ShardContexto.fijar(null);
+                }
+            });
+            return invocacion.proceed();
+        }
+        return ejecutarEn(shard, invocacion);
+    }
+
+    private Object repartir(MethodInvocation invocacion, int posicion, Collection<?> ids) throws Throwable {
+        Map<String, List<Object>> idsPorShard = new LinkedHashMap<>();
+        for (Object id : ids) {
+            idsPorShard.computeIfAbsent(registro.shardDeProducto((Long) id), shard -> new ArrayList<>()).add(id);
+        }
+        if (idsPorShard.isEmpty()) {
+            return invocacion.proceed();
+        }
+        if (idsPorShard.size() == 1) {
+            return enrutar(invocacion, idsPorShard.keySet().iterator().next());
+        }
+        comprobarFueraDeTransaccion(invocacion);
+
+        List<Object> resultados = new ArrayList<>(idsPorShard.size());
+        for (Map.Entry<String, List<Object>> lote : idsPorShard.entrySet()) {
+            Object[] argumentos = invocacion.getArguments().clone();
+            argumentos[posicion] = lote.getValue();
+            resultados.add(ejecutarEn(lote.getKey(), ((ProxyMethodInvocation) invocacion).invocableClone(argumentos)));
+        }
+        return combinar(invocacion.getMethod().getReturnType(), resultados);
+    }
+
+    private Object enTodos(MethodInvocation invocacion) throws Throwable {
+        if (registro.nombres().size() == 1) {
+            return enrutar(invocacion, registro.principal());
+        }
+        comprobarFueraDeTransaccion(invocacion);
+
+        List<Object> resultados = new ArrayList<>(registro.nombres().size());
+        for (String shard : registro.nombres()) {
+            resultados.add(ejecutarEn(shard, ((ProxyMethodInvocation) invocacion).invocableClone()));
+        }
+        return combinar(invocacion.getMethod().getReturnType(), resultados);
+    }
+
+    private void comprobarFueraDeTransaccion(MethodInvocation invocacion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(descripcion(invocacion)
+                    + " abarca varios shards y no puede ejecutarse dentro de una transacción");
+        }
+    }
+
+    private static Object ejecutarEn(String shard, MethodInvocation invocacion) throws Throwable {
+        String anterior = ShardContexto.actual();
+        ShardContexto.fijar(shard);
+        try {
+            return invocacion.proceed();
+        } finally {
+            ShardContexto.fijar(anterior);
+        }
+    }
+
+    private static boolean marcadoParaTodosLosShards(MethodInvocation invocacion) {
+        Method metodo = invocacion.getMethod();
+        if (invocacion.getThis() != null) {
+            metodo = AopUtils.getMostSpecificMethod(metodo, AopUtils.getTargetClass(invocacion.getThis()));
+        }
+        return AnnotatedElementUtils.hasAnnotation(metodo, TodosLosShards.class);
+    }
+
+    /**
+     * Une los resultados de cada shard: colecciones concatenadas, contadores sumados, booleanos
+     * con OR y, en los {@code Optional}, el mayor valor (las consultas {@code MAX}) o el primero
+     * presente si no son comparables.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Object combinar(Class<?> tipo, List<Object> resultados) {
+        if (tipo == void.class || tipo == Void.class) {
+            return null;
+        }
+        if (Set.class.isAssignableFrom(tipo)) {
+            Set<Object> union = new LinkedHashSet<>();
+            resultados.forEach(resultado -> union.addAll((Collection<?>) resultado));
+            return union;
+        }
+        if (Iterable.class.isAssignableFrom(tipo)) {
+            List<Object> union = new ArrayList<>();
+            resultados.forEach(resultado -> ((Iterable<?>) resultado).forEach(union::add));
+            return union;
+        }
+        if (tipo == int.class || tipo == Integer.class) {
+            return resultados.stream().mapToInt(resultado -> ((Number) resultado).intValue()).sum();
+        }
+        if (tipo == long.class || tipo == Long.class) {
+            return resultados.stream().mapToLong(resultado -> ((Number) resultado).longValue()).sum();
+        }
+        if (tipo == boolean.class || tipo == Boolean.class) {
+            return resultados.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (tipo == Optional.class) {
+            Object elegido = null;
+            for (Object resultado : resultados) {
+                Object valor = ((Optional<?>) resultado).orElse(null);
+                if (valor == null) {
+                    continue;
+                }
+                if (elegido == null) {
+                    elegido = valor;
+                } else if (!(valor instanceof Comparable comparable)) {
+                    break;
+                } else if (comparable.compareTo(elegido) > 0) {
+                    elegido = valor;
+                }
+            }
+            return Optional.ofNullable(elegido);
+        }
+        return resultados.stream().filter(resultado -> resultado != null).findFirst().orElse(null);
+    }
+
+    private static String descripcion(MethodInvocation invocacion) {
+        Method metodo = invocacion.getMethod();
+        return metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName();
+    }
+}
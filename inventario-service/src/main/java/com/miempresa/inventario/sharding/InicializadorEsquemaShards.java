@@ -0,0 +1,95 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Prepara el esquema de los shards secundarios al arrancar JPA. Spring Boot ya ejecuta los
+ * scripts SQL y Hibernate ya aplica {@code ddl-auto} sobre el data source, pero ambos solo ven
+ * el shard principal; aquí se repite lo mismo en los demás y se coloca la identidad de
+ * {@code reservas} en el rango de ids de cada shard.
+ */
+public class InicializadorEsquemaShards implements Integrator {
+
+    private static final Logger log = LoggerFactory.getLogger(InicializadorEsquemaShards.class);
+
+    private final RegistroShards registro;
+    private final SqlInitializationProperties propiedadesSql;
+
+    public InicializadorEsquemaShards(RegistroShards registro, SqlInitializationProperties propiedadesSql) {
+        this.registro = registro;
+        this.propiedadesSql = propiedadesSql;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> ajustes = sessionFactory.getServiceRegistry()
+                .getService(ConfigurationService.class).getSettings();
+
+        List<String> shards = registro.nombres();
+        for (int indice = 1; indice < shards.size(); indice++) {
+            String shard = shards.get(indice);
+            DataSource dataSource = registro.dataSource(shard);
+            if (propiedadesSql != null) {
+                new SqlDataSourceScriptDatabaseInitializer(dataSource, propiedadesSql).initializeDatabase();
+            }
+            actualizarEsquema(metadata, ajustes, dataSource);
+            ajustarIdsReserva(shard, dataSource, RegistroShards.primerIdReserva(indice));
+        }
+    }
+
+    /**
+     * Aplica {@code ddl-auto} con un registro de servicios propio del shard: el de la sesión
+     * guarda el catálogo y el esquema del principal, y con ellos Hibernate buscaría las tablas
+     * existentes en la base equivocada. El data source del shard se entrega ya envuelto en un
+     * {@link ConnectionProvider}: como ajuste, Hibernate solo lo lee de la clave obsoleta
+     * {@code hibernate.connection.datasource}.
+     */
+    private static void actualizarEsquema(Metadata metadata, Map<String, Object> ajustes, DataSource dataSource) {
+        DatasourceConnectionProviderImpl conexiones = new DatasourceConnectionProviderImpl();
+        conexiones.setDataSource(dataSource);
+        conexiones.configure(ajustes);
+        StandardServiceRegistry servicios = new StandardServiceRegistryBuilder()
+                .applySettings(ajustes)
+                .addService(ConnectionProvider.class, conexiones)
+                .build();
+        try {
+            SchemaManagementToolCoordinator.process(metadata, servicios, ajustes, accion -> { });
+        } finally {
+            StandardServiceRegistryBuilder.destroy(servicios);
+        }
+    }
+
+    private void ajustarIdsReserva(String shard, DataSource dataSource, long primerId) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long maximo = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM reservas", Long.class);
+        if (maximo != null && maximo < primerId) {
+            jdbc.execute("ALTER TABLE reservas ALTER COLUMN id RESTART WITH " + primerId);
+            log.info("Ids de reserva del shard {} desde {}", shard, primerId);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // Nada que deshacer: el esquema se conserva al cerrar
+    }
+}
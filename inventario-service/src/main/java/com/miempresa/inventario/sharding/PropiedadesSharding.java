@@ -0,0 +1,35 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuración de {@code inventario.sharding.*}. El driver y el tamaño de pool por defecto
+ * son los de {@code spring.datasource}.
+ */
+@Data
+@ConfigurationProperties(prefix = "inventario.sharding")
+public class PropiedadesSharding {
+
+    private boolean enabled;
+
+    /** Posiciones de cada shard en el anillo; más nodos reparten más parejo. */
+    private int nodosVirtuales = 160;
+
+    /** Shards en orden fijo: los nuevos se añaden al final y el primero es la base existente. */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+
+        private String nombre;
+        private String url;
+        private String username;
+        private String password;
+        private Integer maxPool;
+    }
+}
@@ -0,0 +1,142 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Mueve cada producto al shard que le asigna el anillo actual. Se usa tras añadir shards al
+ * final de {@code inventario.sharding.shards}: el anillo nuevo solo reasigna una parte de los
+ * productos y el resto no se toca.
+ * <p>
+ * Por cada producto se copian sus filas de inventario, movimientos, snapshots y compras
+ * idempotentes al destino en una transacción y después se borran del origen en otra. Si el
+ * proceso se interrumpe entre ambas, la siguiente ejecución borra la copia parcial del destino
+ * y vuelve a copiar. Las reservas se quedan donde se crearon, porque su id indica el shard, y
+ * las ya resueltas solo se conservan como histórico. Si algún producto que cambia de shard
+ * tiene reservas pendientes no se mueve nada: con el anillo nuevo ese producto se buscaría en
+ * el destino y su reserva en el origen, así que hay que resolverlas antes con la lista de
+ * shards anterior.
+ * <p>
+ * Trabaja directamente sobre los pools de cada shard y debe ejecutarse sin otras instancias
+ * del servicio escribiendo; ver docs/sharding.md.
+ */
+public class RebalanceoShards {
+
+    private static final Logger log = LoggerFactory.getLogger(RebalanceoShards.class);
+
+    // Orden de copia: inventarios primero para poder reenlazar inventario_id de las compras
+    private static final List<String> TABLAS = List.of(
+            "inventarios", "movimientos_inventario", "snapshots_inventario", "compras_idempotentes");
+
+    private final RegistroShards registro;
+
+    public RebalanceoShards(RegistroShards registro) {
+        this.registro = registro;
+    }
+
+    public ResultadoRebalanceo rebalancear(boolean simulacion) {
+        List<Movimiento> plan = new ArrayList<>();
+        int bloqueados = 0;
+        for (String origen : registro.nombres()) {
+            JdbcTemplate jdbcOrigen = new JdbcTemplate(registro.dataSource(origen));
+            for (Long productoId : productosDe(jdbcOrigen)) {
+                String destino = registro.shardDeProducto(productoId);
+                if (destino.equals(origen)) {
+                    continue;
+                }
+                Integer pendientes = jdbcOrigen.queryForObject(
+                        "SELECT COUNT(*) FROM reservas WHERE producto_id = ? AND estado = 'PENDIENTE'",
+                        Integer.class, productoId);
+                if (pendientes != null && pendientes > 0) {
+                    log.error("productoId {} no puede pasar de {} a {}: tiene {} reservas pendientes",
+                            productoId, origen, destino, pendientes);
+                    bloqueados++;
+                }
+                plan.add(new Movimiento(productoId, origen, destino));
+            }
+        }
+        // Todo o nada: un movimiento parcial dejaría productos en un shard al que el anillo nuevo no apunta
+        if (bloqueados > 0) {
+            return new ResultadoRebalanceo(0, bloqueados, simulacion);
+        }
+
+        for (Movimiento movimiento : plan) {
+            if (!simulacion) {
+                mover(movimiento.productoId(), movimiento.origen(), movimiento.destino());
+            }
+            log.info("productoId {}: {} -> {}{}", movimiento.productoId(), movimiento.origen(), movimiento.destino(),
+                    simulacion ? " (simulación)" : "");
+        }
+        return new ResultadoRebalanceo(plan.size(), 0, simulacion);
+    }
+
+    private List<Long> productosDe(JdbcTemplate jdbc) {
+        String sql = String.join(" UNION ", TABLAS.stream()
+                .map(tabla -> "SELECT producto_id FROM " + tabla)
+                .toList());
+        return jdbc.queryForList(sql, Long.class);
+    }
+
+    private void mover(Long productoId, String origen, String destino) {
+        DataSource dataSourceOrigen = registro.dataSource(origen);
+        DataSource dataSourceDestino = registro.dataSource(destino);
+        JdbcTemplate jdbcOrigen = new JdbcTemplate(dataSourceOrigen);
+        JdbcTemplate jdbcDestino = new JdbcTemplate(dataSourceDestino);
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSourceDestino)).executeWithoutResult(estado -> {
+            // Restos de una ejecución interrumpida antes de borrar del origen
+            TABLAS.reversed().forEach(tabla ->
+                    jdbcDestino.update("DELETE FROM " + tabla + " WHERE producto_id = ?", productoId));
+            for (String tabla : TABLAS) {
+                copiar(jdbcOrigen, jdbcDestino, tabla, productoId);
+            }
+            jdbcDestino.update("""
+                    UPDATE compras_idempotentes
+                    SET inventario_id = (SELECT id FROM inventarios WHERE producto_id = ?)
+                    WHERE producto_id = ? AND EXISTS (SELECT 1 FROM inventarios WHERE producto_id = ?)
+                    """, productoId, productoId, productoId);
+        });
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSourceOrigen)).executeWithoutResult(estado ->
+                TABLAS.reversed().forEach(tabla ->
+                        jdbcOrigen.update("DELETE FROM " + tabla + " WHERE producto_id = ?", productoId)));
+    }
+
+    private static void copiar(JdbcTemplate origen, JdbcTemplate destino, String tabla, Long productoId) {
+        List<Map<String, Object>> filas = origen.queryForList("SELECT * FROM " + tabla + " WHERE producto_id = ?", productoId);
+        if (filas.isEmpty()) {
+            return;
+        }
+        // El id lo asigna la identidad del destino; las columnas son las mismas en todos los shards
+        List<String> columnas = new ArrayList<>(filas.get(0).keySet());
+        columnas.removeIf("id"::equalsIgnoreCase);
+        String sql = "INSERT INTO " + tabla + " (" + String.join(", ", columnas) + ") VALUES ("
+                + String.join(", ", columnas.stream().map(columna -> "?").toList()) + ")";
+        destino.batchUpdate(sql, filas.stream()
+                .map(fila -> columnas.stream().map(fila::get).toArray())
+                .toList());
+    }
+
+    private record Movimiento(Long productoId, String origen, String destino) {
+    }
+
+    /**
+     * {@code productosBloqueados} cuenta los productos que debían moverse y tienen reservas
+     * pendientes; si no es 0, no se ha movido nada.
+     */
+    public record ResultadoRebalanceo(int productosMovidos, int productosBloqueados, boolean simulacion) {
+
+        public boolean completo() {
+            return productosBloqueados == 0;
+        }
+    }
+}
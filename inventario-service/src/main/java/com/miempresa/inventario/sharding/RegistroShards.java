@@ -0,0 +1,90 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Shards configurados, en el orden de la configuración, con su pool y el anillo que reparte
+ * los productos entre ellos.
+ * <p>
+ * El orden importa: la posición de cada shard está codificada en los ids de reserva que
+ * genera ({@link #primerIdReserva}), así que los shards nuevos se añaden siempre al final.
+ * El primero recibe además las consultas sin shard fijado y, al activar el sharding sobre
+ * una base existente, debe ser esa base: sus ids de reserva ya empiezan por la posición 0.
+ */
+public class RegistroShards implements DisposableBean {
+
+    /** Bits bajos del id de reserva que numeran las reservas dentro de un shard. */
+    static final int BITS_ID_RESERVA = 40;
+
+    private final Map<String, DataSource> dataSources;
+    private final List<String> nombres;
+    private final AnilloHashConsistente anillo;
+
+    public RegistroShards(Map<String, ? extends DataSource> dataSources, int nodosVirtuales) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Debe configurarse al menos un shard en inventario.sharding.shards");
+        }
+        this.dataSources = new LinkedHashMap<>(dataSources);
+        this.nombres = List.copyOf(new ArrayList<>(dataSources.keySet()));
+        this.anillo = new AnilloHashConsistente(nombres, nodosVirtuales);
+    }
+
+    public List<String> nombres() {
+        return nombres;
+    }
+
+    public String principal() {
+        return nombres.get(0);
+    }
+
+    public DataSource dataSource(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Shard desconocido: " + shard);
+        }
+        return dataSource;
+    }
+
+    Map<String, DataSource> dataSources() {
+        return dataSources;
+    }
+
+    public AnilloHashConsistente anillo() {
+        return anillo;
+    }
+
+    public String shardDeProducto(long productoId) {
+        return anillo.shardDe(productoId);
+    }
+
+    /**
+     * Shard que generó la reserva. Un id fuera de rango no puede existir en ningún shard y se
+     * envía al principal, donde simplemente no se encuentra.
+     */
+    public String shardDeReserva(long reservaId) {
+        long indice = reservaId >>> BITS_ID_RESERVA;
+        return indice < nombres.size() ? nombres.get((int) indice) : principal();
+    }
+
+    public static long primerIdReserva(int indiceShard) {
+        return ((long) indiceShard << BITS_ID_RESERVA) + 1;
+    }
+
+    @Override
+    public void destroy() {
+        dataSources.values().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
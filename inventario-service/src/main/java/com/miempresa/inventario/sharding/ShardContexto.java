@@ -0,0 +1,38 @@
+package com.miempresa.inventario.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard con el que trabaja el hilo actual. {@link DataSourceEnrutadoPorShard} lo consulta al
+ * abrir cada conexión física; sin shard fijado se usa el primero de la configuración.
+ */
+public final class ShardContexto {
+
+    private static final ThreadLocal<String> ACTUAL = new ThreadLocal<>();
+
+    private ShardContexto() {
+    }
+
+    public static String actual() {
+        return ACTUAL.get();
+    }
+
+    static void fijar(String shard) {
+        if (shard == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(shard);
+        }
+    }
+
+    /** Ejecuta {@code accion} contra {@code shard} y restaura después el shard anterior. */
+    public static <T> T ejecutarEn(String shard, Supplier<T> accion) {
+        String anterior = ACTUAL.get();
+        fijar(shard);
+        try {
+            return accion.get();
+        } finally {
+            fijar(anterior);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.miempresa.inventario.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tarea de mantenimiento que, con sharding activo, se ejecuta una vez por shard y con ese
+ * shard fijado. Los resultados se combinan como en cualquier lectura repartida: listas
+ * concatenadas y contadores sumados.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TodosLosShards {
+}
@@ -0,0 +1,148 @@
+package com.miempresa.inventario.trazas;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Escribe cada span terminado como una línea JSON en un fichero local, para poder seguir una
+ * traza sin desplegar un colector. Las líneas de una traza comparten {@code traceId}, el mismo
+ * que aparece en el log, así que basta con {@code grep <traceId>} sobre los ficheros de ambos
+ * servicios.
+ * <p>
+ * Al superar {@code maxBytes} el fichero se renombra a {@code <fichero>.1}, sustituyendo al
+ * anterior, y se empieza otro: como mucho ocupa el doble de ese tamaño.
+ * <p>
+ * Las escrituras van bajo un {@link ReentrantLock} y no en métodos {@code synchronized}: un
+ * hilo virtual que escribe en el fichero no deja bloqueado su hilo portador.
+ */
+public class ExportadorTrazasFichero implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportadorTrazasFichero.class);
+
+    private final Path fichero;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private BufferedWriter escritor;
+    private long bytesEscritos;
+
+    public ExportadorTrazasFichero(Path fichero, long maxBytes) {
+        this.fichero = fichero;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        IOException error;
+        cerrojo.lock();
+        try {
+            escribir(spans);
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            cerrojo.unlock();
+        }
+        // Fuera del cerrojo: el log no debe retener a los demás exportadores
+        log.warn("No se pudieron escribir {} spans en {}: {}", spans.size(), fichero, error.getMessage());
+        return CompletableResultCode.ofFailure();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        cerrojo.lock();
+        try {
+            if (escritor != null) {
+                escritor.flush();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        cerrojo.lock();
+        try {
+            if (escritor != null) {
+                escritor.close();
+                escritor = null;
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void escribir(Collection<SpanData> spans) throws IOException {
+        for (SpanData span : spans) {
+            String linea = objectMapper.writeValueAsString(aMapa(span));
+            if (escritor == null || bytesEscritos + linea.length() + 1 > maxBytes) {
+                rotar();
+            }
+            escritor.write(linea);
+            escritor.newLine();
+            bytesEscritos += linea.length() + 1;
+        }
+        escritor.flush();
+    }
+
+    private void rotar() throws IOException {
+        if (escritor != null) {
+            escritor.close();
+            Files.move(fichero, fichero.resolveSibling(fichero.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else if (fichero.getParent() != null) {
+            Files.createDirectories(fichero.getParent());
+        }
+        escritor = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytesEscritos = Files.size(fichero);
+    }
+
+    private static Map<String, Object> aMapa(SpanData span) {
+        Map<String, Object> linea = new LinkedHashMap<>();
+        linea.put("traceId", span.getTraceId());
+        linea.put("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) {
+            linea.put("parentSpanId", span.getParentSpanId());
+        }
+        linea.put("servicio", span.getResource().getAttributes().asMap().entrySet().stream()
+                .filter(atributo -> atributo.getKey().getKey().equals("service.name"))
+                .map(atributo -> String.valueOf(atributo.getValue()))
+                .findFirst().orElse(null));
+        linea.put("nombre", span.getName());
+        linea.put("tipo", span.getKind().name());
+        linea.put("inicio", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+        linea.put("duracionMs", TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000.0);
+        linea.put("estado", span.getStatus().getStatusCode().name());
+        Map<String, Object> atributos = new LinkedHashMap<>();
+        span.getAttributes().forEach((clave, valor) -> atributos.put(clave.getKey(), valor));
+        linea.put("atributos", atributos);
+        return linea;
+    }
+}
@@ -0,0 +1,66 @@
+package com.miempresa.inventario.trazas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AopProxyUtils;
+
+import com.miempresa.inventario.sharding.ShardContexto;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+/**
+ * Abre un span hijo por cada llamada a un repositorio, con el nombre
+ * {@code <Repositorio>.<método>}. Así una traza separa el tiempo de base de datos del de
+ * MSProducto y del resto de la petición. Con sharding, cada shard consultado aparece como un
+ * span propio con la etiqueta {@code shard}.
+ */
+public class TrazadoRepositorios implements MethodInterceptor {
+
+    private final Supplier<Tracer> tracerProveedor;
+    private final Map<Class<?>, String> nombresRepositorios = new ConcurrentHashMap<>();
+    private Tracer tracer;
+
+    /** El tracer se resuelve en la primera llamada, como en {@code EnrutadorShards}. */
+    public TrazadoRepositorios(Supplier<Tracer> tracer) {
+        this.tracerProveedor = tracer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacion) throws Throwable {
+        if (tracer == null) {
+            tracer = tracerProveedor.get();
+        }
+        if (tracer.currentSpan() == null) {
+            // Sin traza en curso (arranque, consumidores de compras asíncronas): nada que colgar del span
+            return invocacion.proceed();
+        }
+        Span span = tracer.nextSpan()
+                .name(nombreRepositorio(invocacion.getThis()) + "." + invocacion.getMethod().getName())
+                .tag("db.system", "postgresql")
+                .start();
+        String shard = ShardContexto.actual();
+        if (shard != null) {
+            span.tag("shard", shard);
+        }
+        try (Tracer.SpanInScope ignorado = tracer.withSpan(span)) {
+            return invocacion.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private String nombreRepositorio(Object repositorio) {
+        return nombresRepositorios.computeIfAbsent(repositorio.getClass(), clase -> {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(repositorio);
+            return interfaces.length > 0 ? interfaces[0].getSimpleName() : clase.getSimpleName();
+        });
+    }
+}
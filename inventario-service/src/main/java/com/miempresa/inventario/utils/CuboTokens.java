@@ -0,0 +1,56 @@
+package com.miempresa.inventario.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cubo de tokens sin bloqueos: admite {@code peticionesPorSegundo} de media y ráfagas de hasta
+ * {@code rafaga} peticiones seguidas.
+ * <p>
+ * Se implementa como GCRA (algoritmo genérico de tasa de celdas): en lugar de contar tokens y
+ * reponerlos con el tiempo, guarda un único instante, el momento teórico en que el cubo vuelve
+ * a estar lleno. Cada petición lo adelanta un intervalo ({@code 1 / peticionesPorSegundo}) y
+ * se rechaza si quedaría más de {@code rafaga} intervalos por delante del reloj. Un solo
+ * {@link AtomicLong} y un {@code compareAndSet}: sin cerrojos ni hilos de reposición.
+ */
+public final class CuboTokens {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final LongSupplier reloj;
+    private final AtomicLong lleno;
+
+    public CuboTokens(double peticionesPorSegundo, int rafaga) {
+        this(peticionesPorSegundo, rafaga, System::nanoTime);
+    }
+
+    CuboTokens(double peticionesPorSegundo, int rafaga, LongSupplier reloj) {
+        if (peticionesPorSegundo <= 0 || rafaga <= 0) {
+            throw new IllegalArgumentException("La tasa y la ráfaga deben ser positivas");
+        }
+        this.intervaloNanos = Math.max(1, Math.round(1e9 / peticionesPorSegundo));
+        this.toleranciaNanos = intervaloNanos * rafaga;
+        this.reloj = reloj;
+        this.lleno = new AtomicLong(reloj.getAsLong());
+    }
+
+    /**
+     * Consume un token si hay. Devuelve 0 si la petición se admite o, si no, los nanosegundos
+     * que faltan para que haya uno.
+     */
+    public long consumir() {
+        long ahora = reloj.getAsLong();
+        while (true) {
+            long actual = lleno.get();
+            // Comparación por diferencia: nanoTime puede ser negativo
+            long siguiente = (actual - ahora > 0 ? actual : ahora) + intervaloNanos;
+            long espera = siguiente - ahora - toleranciaNanos;
+            if (espera > 0) {
+                return espera;
+            }
+            if (lleno.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.miempresa.inventario.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rueda de tiempo con hash (hashed timing wheel) para expirar tareas con coste O(1).
+ * <p>
+ * Programar y cancelar solo encolan la operación en colas sin bloqueo; un único hilo
+ * avanza la rueda cada {@code tick}, mueve los pendientes a su ranura y ejecuta los
+ * vencidos en el {@link ExecutorService} recibido. La precisión es de un tick, suficiente
+ * para expiraciones de reservas medidas en minutos.
+ */
+public final class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /** Máximo de altas trasladadas por tick, para no retrasar el avance de la rueda. */
+    private static final int MAX_TRASLADOS_POR_TICK = 100_000;
+
+    private static final int ESTADO_INICIAL = 0;
+    private static final int ESTADO_CANCELADO = 1;
+    private static final int ESTADO_EXPIRADO = 2;
+
+    private final long tickNanos;
+    private final Ranura[] rueda;
+    private final int mascara;
+    private final ExecutorService ejecutor;
+    private final Queue<Entrada> altas = new ConcurrentLinkedQueue<>();
+    private final Queue<Entrada> cancelaciones = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendientes = new AtomicLong();
+    private final Thread hiloRueda;
+    private final long inicioNanos;
+    private volatile boolean activa = true;
+
+    public HashedTimingWheel(long tick, TimeUnit unidad, int ranuras, ExecutorService ejecutor) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("El tick debe ser positivo");
+        }
+        if (ranuras <= 0 || ranuras > (1 << 30)) {
+            throw new IllegalArgumentException("Número de ranuras fuera de rango: " + ranuras);
+        }
+        this.tickNanos = unidad.toNanos(tick);
+        int tamanio = Integer.highestOneBit(ranuras - 1) << 1;
+        this.rueda = new Ranura[Math.max(tamanio, 1)];
+        for (int i = 0; i < rueda.length; i++) {
+            rueda[i] = new Ranura();
+        }
+        this.mascara = rueda.length - 1;
+        this.ejecutor = ejecutor;
+        this.inicioNanos = System.nanoTime();
+        this.hiloRueda = new Thread(this::avanzar, "hashed-timing-wheel");
+        this.hiloRueda.setDaemon(true);
+        this.hiloRueda.start();
+    }
+
+    /**
+     * Programa {@code tarea} para dentro de {@code retraso}. Un retraso cero o negativo
+     * la ejecuta en el siguiente tick.
+     */
+    public Timeout schedule(Runnable tarea, long retraso, TimeUnit unidad) {
+        if (!activa) {
+            throw new IllegalStateException("La rueda de tiempo está detenida");
+        }
+        long vencimiento = System.nanoTime() - inicioNanos + Math.max(0, unidad.toNanos(retraso));
+        Entrada entrada = new Entrada(tarea, vencimiento);
+        pendientes.incrementAndGet();
+        altas.add(entrada);
+        return entrada;
+    }
+
+    /** Tareas programadas que aún no han expirado ni se han cancelado. */
+    public long pendientes() {
+        return pendientes.get();
+    }
+
+    @Override
+    public void close() {
+        activa = false;
+        hiloRueda.interrupt();
+        try {
+            hiloRueda.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ejecutor.shutdown();
+    }
+
+    private void avanzar() {
+        long tick = 0;
+        while (activa) {
+            long limite = tickNanos * (tick + 1);
+            esperarHasta(limite);
+            if (!activa) {
+                return;
+            }
+            procesarCancelaciones();
+            trasladarAltas(tick);
+            rueda[(int) (tick & mascara)].expirar(limite);
+            tick++;
+        }
+    }
+
+    private void esperarHasta(long limite) {
+        long restante;
+        while (activa && (restante = limite - (System.nanoTime() - inicioNanos)) > 0) {
+            LockSupport.parkNanos(this, restante);
+        }
+    }
+
+    private void procesarCancelaciones() {
+        Entrada entrada;
+        while ((entrada = cancelaciones.poll()) != null) {
+            if (entrada.ranura != null) {
+                entrada.ranura.quitar(entrada);
+            }
+        }
+    }
+
+    private void trasladarAltas(long tickActual) {
+        for (int i = 0; i < MAX_TRASLADOS_POR_TICK; i++) {
+            Entrada entrada = altas.poll();
+            if (entrada == null) {
+                return;
+            }
+            if (entrada.estado.get() == ESTADO_CANCELADO) {
+                continue;
+            }
+            long ticksHastaVencer = entrada.vencimiento / tickNanos;
+            entrada.vueltasRestantes = (ticksHastaVencer - tickActual) / rueda.length;
+            // Si ya venció, se coloca en la ranura actual para expirar en este mismo tick
+            long tickDestino = Math.max(ticksHastaVencer, tickActual);
+            rueda[(int) (tickDestino & mascara)].agregar(entrada);
+        }
+    }
+
+    /** Manejador de una tarea programada. */
+    public interface Timeout {
+
+        /** Cancela la tarea; devuelve {@code false} si ya había expirado o estaba cancelada. */
+        boolean cancel();
+
+        boolean isExpired();
+
+        boolean isCancelled();
+    }
+
+    private final class Entrada implements Timeout {
+
+        private final Runnable tarea;
+        private final long vencimiento;
+        private final AtomicInteger estado = new AtomicInteger(ESTADO_INICIAL);
+        private long vueltasRestantes;
+        private Ranura ranura;
+        private Entrada siguiente;
+        private Entrada anterior;
+
+        private Entrada(Runnable tarea, long vencimiento) {
+            this.tarea = tarea;
+            this.vencimiento = vencimiento;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!estado.compareAndSet(ESTADO_INICIAL, ESTADO_CANCELADO)) {
+                return false;
+            }
+            pendientes.decrementAndGet();
+            // El hilo de la rueda es el único que toca las ranuras
+            cancelaciones.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return estado.get() == ESTADO_EXPIRADO;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return estado.get() == ESTADO_CANCELADO;
+        }
+
+        private void expirar() {
+            if (!estado.compareAndSet(ESTADO_INICIAL, ESTADO_EXPIRADO)) {
+                return;
+            }
+            pendientes.decrementAndGet();
+            try {
+                ejecutor.execute(tarea);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo ejecutar una tarea expirada de la rueda de tiempo: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Lista doblemente enlazada; solo la manipula el hilo de la rueda. */
+    private static final class Ranura {
+
+        private Entrada cabeza;
+        private Entrada cola;
+
+        private void agregar(Entrada entrada) {
+            entrada.ranura = this;
+            if (cabeza == null) {
+                cabeza = cola = entrada;
+            } else {
+                cola.siguiente = entrada;
+                entrada.anterior = cola;
+                cola = entrada;
+            }
+        }
+
+        private void expirar(long limite) {
+            Entrada entrada = cabeza;
+            while (entrada != null) {
+                Entrada siguiente = entrada.siguiente;
+                if (entrada.isCancelled()) {
+                    quitar(entrada);
+                } else if (entrada.vueltasRestantes > 0) {
+                    entrada.vueltasRestantes--;
+                } else if (entrada.vencimiento <= limite) {
+                    quitar(entrada);
+                    entrada.expirar();
+                }
+                entrada = siguiente;
+            }
+        }
+
+        private void quitar(Entrada entrada) {
+            if (entrada.ranura != this) {
+                return;
+            }
+            if (entrada.anterior != null) {
+                entrada.anterior.siguiente = entrada.siguiente;
+            }
+            if (entrada.siguiente != null) {
+                entrada.siguiente.anterior = entrada.anterior;
+            }
+            if (entrada == cabeza) {
+                cabeza = entrada.siguiente;
+            }
+            if (entrada == cola) {
+                cola = entrada.anterior;
+            }
+            entrada.siguiente = null;
+            entrada.anterior = null;
+            entrada.ranura = null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.miempresa.inventario.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Limita cuántas veces se escribe un mensaje de log repetitivo: como mucho {@code maximo}
+ * por intervalo. Las ocurrencias que se descartan se cuentan y se pasan a la siguiente
+ * emisión, para que el log diga cuántas se omitieron en lugar de perderlas sin rastro.
+ * <p>
+ * Pensado para errores que dependen del tráfico (un cliente que pide productos inexistentes
+ * en bucle, stock agotado en plena campaña), donde escribir cada ocurrencia cuesta más que
+ * atender la petición.
+ */
+public final class LogLimitado {
+
+    private final long intervaloNanos;
+    private final int maximo;
+    private final AtomicLong inicioVentana;
+    private final AtomicLong emitidosEnVentana = new AtomicLong();
+    private final AtomicLong omitidos = new AtomicLong();
+
+    public LogLimitado(int maximo, long intervalo, TimeUnit unidad) {
+        if (maximo <= 0 || intervalo <= 0) {
+            throw new IllegalArgumentException("El máximo y el intervalo deben ser positivos");
+        }
+        this.maximo = maximo;
+        this.intervaloNanos = unidad.toNanos(intervalo);
+        this.inicioVentana = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Llama a {@code log} con el número de ocurrencias omitidas desde la última emisión si la
+     * ventana actual aún admite mensajes; si no, solo cuenta la ocurrencia.
+     */
+    public void emitir(LongConsumer log) {
+        long ahora = System.nanoTime();
+        long inicio = inicioVentana.get();
+        if (ahora - inicio >= intervaloNanos && inicioVentana.compareAndSet(inicio, ahora)) {
+            emitidosEnVentana.set(0);
+        }
+        if (emitidosEnVentana.incrementAndGet() > maximo) {
+            omitidos.incrementAndGet();
+            return;
+        }
+        log.accept(omitidos.getAndSet(0));
+    }
+}
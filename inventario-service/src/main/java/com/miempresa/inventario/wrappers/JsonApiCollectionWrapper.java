@@ -0,0 +1,10 @@
+package com.miempresa.inventario.wrappers;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class JsonApiCollectionWrapper<T> {
+ private List<JsonApiData<T>> data;
+}
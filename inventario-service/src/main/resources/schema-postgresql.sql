@@ -0,0 +1,19 @@
+-- Libro de movimientos de inventario: solo inserción, particionado por mes en creado_en.
+-- Las particiones mensuales las crea MantenimientoParticionesMovimientos; la DEFAULT solo
+-- recoge filas fuera de rango.
+CREATE TABLE IF NOT EXISTS movimientos_inventario (
+    id                  BIGSERIAL    NOT NULL,
+    producto_id         BIGINT       NOT NULL,
+    tipo                VARCHAR(30)  NOT NULL,
+    variacion           INTEGER,
+    cantidad_resultante INTEGER      NOT NULL,
+    referencia          VARCHAR(100),
+    creado_en           TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, creado_en)
+) PARTITION BY RANGE (creado_en);
+
+CREATE TABLE IF NOT EXISTS movimientos_inventario_default
+    PARTITION OF movimientos_inventario DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_movimientos_producto_fecha
+    ON movimientos_inventario (producto_id, creado_en DESC, id DESC);
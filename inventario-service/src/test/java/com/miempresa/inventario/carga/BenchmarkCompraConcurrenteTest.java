@@ -0,0 +1,358 @@
+package com.miempresa.inventario.carga;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.h2.engine.Constants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.miempresa.inventario.dtos.EstadoOperacionCompra;
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.exceptions.ColaComprasLlenaException;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.services.CompraAsincronaService;
+import com.miempresa.inventario.services.IdempotenciaService;
+import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.services.ReservaService;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Compras concurrentes sobre unos pocos productos con mucha demanda, contra H2 en modo
+ * PostgreSQL, para cada forma de comprar que ofrece el servicio: compra síncrona, compra con
+ * Idempotency-Key, reserva + confirmación y compra asíncrona por particiones.
+ *
+ * <p>Por estrategia se mide rendimiento, percentiles de latencia, espera por bloqueos de fila
+ * (muestreando {@code INFORMATION_SCHEMA.SESSIONS.BLOCKER_ID}), espera por conexión del pool
+ * y, al terminar, si se vendieron más unidades de las que había (sobreventa) o si hubo ventas
+ * que no llegaron a descontarse del stock (descuadre).
+ *
+ * <pre>
+ * mvn -Pcarga test -Dtest=BenchmarkCompraConcurrenteTest -Dcompras.hilos=64 -Dcompras.stock-por-producto=1000
+ * </pre>
+ * El informe queda en {@code target/benchmark-compras.json}.
+ */
+@Tag("carga")
+class BenchmarkCompraConcurrenteTest {
+
+    private static final String URL_H2 = "jdbc:h2:mem:compras;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final String SIN_STOCK = "Inventario insuficiente";
+    private static final long INTERVALO_MUESTREO_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final int hilos = Integer.getInteger("compras.hilos", 64);
+    private final int intentosPorHilo = Integer.getInteger("compras.intentos-por-hilo", 50);
+    private final int productos = Integer.getInteger("compras.productos", 3);
+    private final int stockPorProducto = Integer.getInteger("compras.stock-por-producto", 1000);
+    private final long latenciaProductosMs = Long.getLong("compras.latencia-productos-ms", 2L);
+    private final int tamanioPool = Integer.getInteger("compras.pool", 10);
+    private final List<Estrategia> estrategias = Arrays.stream(
+                    System.getProperty("compras.estrategias", "SINCRONA,IDEMPOTENTE,RESERVA_CONFIRMACION,ASINCRONA")
+                            .split(","))
+            .map(String::trim).map(Estrategia::valueOf).toList();
+
+    @Test
+    @DisplayName("Compras concurrentes: rendimiento, latencia, bloqueos y sobreventa por estrategia")
+    void compararEstrategiasDeCompra() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("baseDeDatos", "H2 " + Constants.VERSION + " (MODE=PostgreSQL)");
+        informe.put("hilos", hilos);
+        informe.put("intentosPorHilo", intentosPorHilo);
+        informe.put("productos", productos);
+        informe.put("stockPorProducto", stockPorProducto);
+        informe.put("latenciaProductosMs", latenciaProductosMs);
+        informe.put("tamanioPool", tamanioPool);
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+
+        HttpServer productosSimulado = ServidorCarga.arrancarProductosSimulado(latenciaProductosMs);
+        try (ConfigurableApplicationContext contexto = ServidorCarga.arrancarInventario(
+                productosSimulado.getAddress().getPort(),
+                Map.of("spring.main.web-application-type", "none",
+                        "spring.datasource.url", URL_H2,
+                        "spring.datasource.hikari.maximum-pool-size", String.valueOf(tamanioPool)))) {
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (Estrategia estrategia : estrategias) {
+                // Calentamiento con la misma estrategia para que JIT y cachés no cuenten
+                medir(contexto, estrategia, Math.min(hilos, 8), 20);
+                resultados.add(medir(contexto, estrategia, hilos, intentosPorHilo));
+            }
+            informe.put("estrategias", resultados);
+        } finally {
+            productosSimulado.stop(0);
+        }
+
+        String json = new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(informe);
+        System.out.println(json);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "benchmark-compras.json"), json);
+    }
+
+    private Map<String, Object> medir(ConfigurableApplicationContext contexto, Estrategia estrategia,
+            int hilos, int intentosPorHilo) throws Exception {
+        InventarioRepository inventarioRepository = contexto.getBean(InventarioRepository.class);
+        reponerStock(inventarioRepository);
+
+        int total = hilos * intentosPorHilo;
+        long[] latenciasNs = new long[total];
+        AtomicInteger siguiente = new AtomicInteger();
+        Map<Long, AtomicInteger> vendidas = new ConcurrentHashMap<>();
+        AtomicInteger agotadas = new AtomicInteger();
+        AtomicInteger rechazosContrapresion = new AtomicInteger();
+        Map<String, AtomicInteger> errores = new ConcurrentHashMap<>();
+        // El data source del contexto es el envoltorio que mide las sentencias; el pool va dentro
+        Muestreo muestreo = new Muestreo(contexto.getBean(DataSource.class).unwrap(HikariDataSource.class));
+        CountDownLatch salida = new CountDownLatch(1);
+
+        long inicio;
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(hilos)) {
+            for (int h = 0; h < hilos; h++) {
+                ejecutor.execute(() -> {
+                    esperar(salida);
+                    for (int i = 0; i < intentosPorHilo; i++) {
+                        long productoId = 1 + ThreadLocalRandom.current().nextInt(productos);
+                        long t0 = System.nanoTime();
+                        try {
+                            rechazosContrapresion.addAndGet(estrategia.comprar(contexto, productoId));
+                            vendidas.computeIfAbsent(productoId, id -> new AtomicInteger()).incrementAndGet();
+                        } catch (Exception e) {
+                            if (SIN_STOCK.equals(e.getMessage())) {
+                                agotadas.incrementAndGet();
+                            } else {
+                                errores.computeIfAbsent(e.getClass().getSimpleName(), c -> new AtomicInteger())
+                                        .incrementAndGet();
+                            }
+                        } finally {
+                            latenciasNs[siguiente.getAndIncrement()] = System.nanoTime() - t0;
+                        }
+                    }
+                });
+            }
+            muestreo.iniciar();
+            inicio = System.nanoTime();
+            salida.countDown();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        muestreo.detener();
+
+        List<Map<String, Object>> porProducto = new ArrayList<>();
+        long sobreventa = 0;
+        long descuadre = 0;
+        int totalVendidas = 0;
+        for (long productoId = 1; productoId <= productos; productoId++) {
+            int vendidasProducto = vendidas.getOrDefault(productoId, new AtomicInteger()).get();
+            int stockFinal = inventarioRepository.findByProductoId(productoId).orElseThrow().getCantidad();
+            // Unidades vendidas por encima del stock inicial, y ventas que no restaron stock
+            int sobreventaProducto = Math.max(0, vendidasProducto - stockPorProducto);
+            int descuadreProducto = stockFinal - (stockPorProducto - vendidasProducto);
+            sobreventa += sobreventaProducto;
+            descuadre += Math.abs(descuadreProducto);
+            totalVendidas += vendidasProducto;
+
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("productoId", productoId);
+            fila.put("stockInicial", stockPorProducto);
+            fila.put("vendidas", vendidasProducto);
+            fila.put("stockFinal", stockFinal);
+            fila.put("sobreventa", sobreventaProducto);
+            fila.put("descuadre", descuadreProducto);
+            porProducto.add(fila);
+        }
+
+        Arrays.sort(latenciasNs);
+        Map<String, Integer> erroresPorCausa = new TreeMap<>();
+        errores.forEach((causa, contador) -> erroresPorCausa.put(causa, contador.get()));
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("estrategia", estrategia.nombre);
+        resultado.put("intentos", total);
+        resultado.put("vendidas", totalVendidas);
+        resultado.put("sinStock", agotadas.get());
+        resultado.put("errores", erroresPorCausa);
+        resultado.put("rechazosContrapresion", rechazosContrapresion.get());
+        resultado.put("duracionS", segundos);
+        resultado.put("intentosPorSegundo", Math.round(total / segundos));
+        resultado.put("ventasPorSegundo", Math.round(totalVendidas / segundos));
+        resultado.put("p50Ms", percentilMs(latenciasNs, 0.50));
+        resultado.put("p95Ms", percentilMs(latenciasNs, 0.95));
+        resultado.put("p99Ms", percentilMs(latenciasNs, 0.99));
+        resultado.put("maxMs", latenciasNs[latenciasNs.length - 1] / 1e6);
+        resultado.put("esperaBloqueosMs", muestreo.esperaBloqueosNs.get() / 1_000_000);
+        resultado.put("maxSesionesBloqueadas", muestreo.maxSesionesBloqueadas.get());
+        resultado.put("esperaPoolMs", muestreo.esperaPoolNs.get() / 1_000_000);
+        resultado.put("maxHilosEsperandoConexion", muestreo.maxHilosEsperandoConexion.get());
+        resultado.put("sobreventa", sobreventa);
+        resultado.put("descuadre", descuadre);
+        resultado.put("porProducto", porProducto);
+        return resultado;
+    }
+
+    private void reponerStock(InventarioRepository inventarioRepository) {
+        for (long productoId = 1; productoId <= productos; productoId++) {
+            InventarioEntity inventario = inventarioRepository.findByProductoId(productoId)
+                    .orElse(new InventarioEntity(null, productoId, 0, 0));
+            inventario.setCantidad(stockPorProducto);
+            inventario.setReservado(0);
+            inventarioRepository.save(inventario);
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+
+    /** Cada estrategia compra una unidad y devuelve cuántas veces tuvo que reintentar por contrapresión. */
+    private enum Estrategia {
+
+        SINCRONA("compra-sincrona") {
+            @Override
+            int comprar(ConfigurableApplicationContext contexto, long productoId) {
+                contexto.getBean(InventarioService.class).comprarProducto(productoId, 1);
+                return 0;
+            }
+        },
+        IDEMPOTENTE("compra-idempotente") {
+            @Override
+            int comprar(ConfigurableApplicationContext contexto, long productoId) {
+                String clave = UUID.randomUUID().toString();
+                InventarioService inventarioService = contexto.getBean(InventarioService.class);
+                contexto.getBean(IdempotenciaService.class).ejecutar(clave, productoId, 1,
+                        () -> inventarioService.comprarProducto(productoId, 1, clave));
+                return 0;
+            }
+        },
+        RESERVA_CONFIRMACION("reserva-confirmacion") {
+            @Override
+            int comprar(ConfigurableApplicationContext contexto, long productoId) {
+                ReservaService reservaService = contexto.getBean(ReservaService.class);
+                reservaService.confirmarReserva(reservaService.reservarProducto(productoId, 1, null).getId());
+                return 0;
+            }
+        },
+        ASINCRONA("compra-asincrona") {
+            @Override
+            int comprar(ConfigurableApplicationContext contexto, long productoId) throws Exception {
+                CompraAsincronaService compraAsincronaService = contexto.getBean(CompraAsincronaService.class);
+                int rechazos = 0;
+                while (true) {
+                    try {
+                        String id = compraAsincronaService.encolarCompra(productoId, 1, null).getId();
+                        OperacionCompraDto resuelta = compraAsincronaService.esperarResolucion(id)
+                                .get(30, TimeUnit.SECONDS);
+                        if (resuelta.getEstado() == EstadoOperacionCompra.RECHAZADA) {
+                            throw new IllegalStateException(resuelta.getError());
+                        }
+                        return rechazos;
+                    } catch (ColaComprasLlenaException e) {
+                        rechazos++;
+                        Thread.sleep(1);
+                    }
+                }
+            }
+        };
+
+        private final String nombre;
+
+        Estrategia(String nombre) {
+            this.nombre = nombre;
+        }
+
+        abstract int comprar(ConfigurableApplicationContext contexto, long productoId) throws Exception;
+    }
+
+    /**
+     * Muestrea cada 2 ms las sesiones de H2 bloqueadas por otra y los hilos esperando conexión
+     * de Hikari; la espera acumulada se estima como sesiones (o hilos) x intervalo.
+     */
+    private static final class Muestreo {
+
+        private final HikariDataSource dataSource;
+        private final AtomicLong esperaBloqueosNs = new AtomicLong();
+        private final AtomicLong esperaPoolNs = new AtomicLong();
+        private final AtomicInteger maxSesionesBloqueadas = new AtomicInteger();
+        private final AtomicInteger maxHilosEsperandoConexion = new AtomicInteger();
+        private volatile boolean activo;
+        private Thread hilo;
+
+        private Muestreo(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void iniciar() throws SQLException {
+            // Conexión propia, fuera del pool, para no competir con las compras
+            Connection conexion = DriverManager.getConnection(URL_H2, "sa", "");
+            activo = true;
+            hilo = Thread.ofPlatform().daemon(true).name("muestreo-bloqueos").start(() -> muestrear(conexion));
+        }
+
+        private void detener() throws InterruptedException {
+            activo = false;
+            hilo.join();
+        }
+
+        private void muestrear(Connection conexion) {
+            try (conexion; Statement consulta = conexion.createStatement()) {
+                long anterior = System.nanoTime();
+                while (activo) {
+                    int bloqueadas;
+                    try (ResultSet rs = consulta.executeQuery(
+                            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL")) {
+                        rs.next();
+                        bloqueadas = rs.getInt(1);
+                    }
+                    int esperandoConexion = dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection();
+
+                    long ahora = System.nanoTime();
+                    long intervalo = ahora - anterior;
+                    anterior = ahora;
+                    esperaBloqueosNs.addAndGet(bloqueadas * intervalo);
+                    esperaPoolNs.addAndGet(esperandoConexion * intervalo);
+                    maxSesionesBloqueadas.accumulateAndGet(bloqueadas, Math::max);
+                    maxHilosEsperandoConexion.accumulateAndGet(esperandoConexion, Math::max);
+                    TimeUnit.NANOSECONDS.sleep(INTERVALO_MUESTREO_NANOS);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("No se pudo muestrear H2", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.miempresa.inventario.carga;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tráfico en el que casi todas las peticiones acaban en error: consultas de productos que
+ * MSProducto no conoce (404) y compras de un producto sin stock (409). Levanta
+ * inventario-service en proceso sobre H2, con el MSProducto simulado de {@link ServidorCarga}
+ * y el log en un fichero, como en un despliegue real.
+ *
+ * <p>Por escenario se mide rendimiento, percentiles de latencia, códigos de estado, bytes
+ * asignados por petición en los hilos de Tomcat, recolecciones y bytes de log por petición.
+ *
+ * <pre>
+ * mvn -Pcarga test -Dtest=BenchmarkErroresTest -Derrores.clientes=32 -Derrores.segundos=10
+ * </pre>
+ * El informe queda en {@code target/benchmark-errores.json}.
+ */
+@Tag("carga")
+class BenchmarkErroresTest {
+
+    private static final Path FICHERO_LOG = Path.of("target", "benchmark-errores.log");
+
+    private final int clientes = Integer.getInteger("errores.clientes", 32);
+    private final int segundos = Integer.getInteger("errores.segundos", 10);
+    private final int segundosCalentamiento = Integer.getInteger("errores.calentamiento-segundos", 5);
+
+    @Test
+    @DisplayName("Tráfico de errores 404/409: rendimiento, asignación de memoria y volumen de log")
+    void medirRutaDeErrores() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("clientes", clientes);
+        informe.put("segundos", segundos);
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+
+        Files.createDirectories(FICHERO_LOG.getParent());
+        Files.deleteIfExists(FICHERO_LOG);
+
+        HttpServer productosSimulado = ServidorCarga.arrancarProductosSimulado(0);
+        try (ConfigurableApplicationContext contexto = ServidorCarga.arrancarInventario(
+                productosSimulado.getAddress().getPort(),
+                Map.of("spring.datasource.url", "jdbc:h2:mem:errores;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.file.name", FICHERO_LOG.toString(),
+                        // Sin consola: el coste que se mide es el de escribir el fichero
+                        "logging.pattern.console", ""))) {
+            contexto.getBean(InventarioRepository.class).save(new InventarioEntity(null, 1L, 0, 0));
+            String base = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port")
+                    + "/api/inventario";
+
+            Map<String, LongFunction<HttpRequest>> escenarios = new LinkedHashMap<>();
+            escenarios.put("producto-inexistente", i -> peticion(base + "/" + (ServidorCarga.PRIMER_ID_INEXISTENTE + i % 1000))
+                    .GET().build());
+            escenarios.put("compra-sin-stock", i -> peticion(base + "/compra?productoId=1&cantidad=1")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (Map.Entry<String, LongFunction<HttpRequest>> escenario : escenarios.entrySet()) {
+                medir(escenario.getKey(), escenario.getValue(), segundosCalentamiento);
+                resultados.add(medir(escenario.getKey(), escenario.getValue(), segundos));
+            }
+            informe.put("escenarios", resultados);
+        } finally {
+            productosSimulado.stop(0);
+        }
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(informe);
+        System.out.println(json);
+        Files.writeString(Path.of("target", "benchmark-errores.json"), json);
+    }
+
+    private Map<String, Object> medir(String nombre, LongFunction<HttpRequest> peticiones, int segundos) throws Exception {
+        Map<Long, Long> asignadosAntes = bytesAsignadosPorHiloTomcat();
+        long[] gcAntes = recolecciones();
+        long logAntes = Files.exists(FICHERO_LOG) ? Files.size(FICHERO_LOG) : 0;
+
+        Map<Integer, AtomicLong> codigos = new ConcurrentHashMap<>();
+        List<long[]> latenciasPorCliente = new ArrayList<>();
+        long[] atendidasPorCliente = new long[clientes];
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        long inicio = System.nanoTime();
+
+        try (HttpClient cliente = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build();
+             ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int indice = c;
+                long[] latencias = new long[1 << 16];
+                latenciasPorCliente.add(latencias);
+                ejecutor.execute(() -> {
+                    long[] propias = latencias;
+                    long n = 0;
+                    while (System.nanoTime() < fin) {
+                        long t0 = System.nanoTime();
+                        int estado;
+                        try {
+                            estado = cliente.send(peticiones.apply(indice * 1_000_000L + n),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            estado = -1;
+                        }
+                        if (n == propias.length) {
+                            propias = Arrays.copyOf(propias, propias.length * 2);
+                        }
+                        propias[(int) n++] = System.nanoTime() - t0;
+                        codigos.computeIfAbsent(estado, k -> new AtomicLong()).incrementAndGet();
+                    }
+                    latenciasPorCliente.set(indice, Arrays.copyOf(propias, (int) n));
+                    atendidasPorCliente[indice] = n;
+                });
+            }
+        }
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        long total = Arrays.stream(atendidasPorCliente).sum();
+        long[] latencias = latenciasPorCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        long[] gcDespues = recolecciones();
+        long asignados = bytesAsignadosDesde(asignadosAntes);
+        long logDespues = Files.exists(FICHERO_LOG) ? Files.size(FICHERO_LOG) : 0;
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("escenario", nombre);
+        resultado.put("peticiones", total);
+        resultado.put("peticionesPorSegundo", Math.round(total / duracion));
+        resultado.put("codigos", new TreeMap<>(codigos));
+        resultado.put("p50Ms", percentil(latencias, 0.50));
+        resultado.put("p99Ms", percentil(latencias, 0.99));
+        resultado.put("bytesAsignadosPorPeticion", total == 0 ? 0 : asignados / total);
+        resultado.put("recolecciones", gcDespues[0] - gcAntes[0]);
+        resultado.put("tiempoGcMs", gcDespues[1] - gcAntes[1]);
+        resultado.put("bytesLogPorPeticion", total == 0 ? 0 : (logDespues - logAntes) / total);
+        return resultado;
+    }
+
+    private static HttpRequest.Builder peticion(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("x-api-key", ServidorCarga.API_KEY)
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return Math.round(ordenadas[Math.max(0, posicion)] / 10_000.0) / 100.0;
+    }
+
+    // Solo los hilos de Tomcat: el generador de carga vive en la misma JVM
+    private static Map<Long, Long> bytesAsignadosPorHiloTomcat() {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> asignados = new HashMap<>();
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(hilo -> hilo.getName().startsWith("http-nio"))
+                .forEach(hilo -> asignados.put(hilo.threadId(), hilos.getThreadAllocatedBytes(hilo.threadId())));
+        return asignados;
+    }
+
+    private static long bytesAsignadosDesde(Map<Long, Long> antes) {
+        return bytesAsignadosPorHiloTomcat().entrySet().stream()
+                .mapToLong(hilo -> hilo.getValue() - antes.getOrDefault(hilo.getKey(), 0L))
+                .sum();
+    }
+
+    private static long[] recolecciones() {
+        long cantidad = 0;
+        long tiempoMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            cantidad += Math.max(0, gc.getCollectionCount());
+            tiempoMs += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { cantidad, tiempoMs };
+    }
+}
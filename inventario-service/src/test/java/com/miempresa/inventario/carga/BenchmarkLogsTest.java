@@ -0,0 +1,226 @@
+package com.miempresa.inventario.carga;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tráfico dominado por compras (nueve de cada diez peticiones; el resto, consultas) con el log
+ * a nivel INFO escrito en un fichero, para comparar cómo se escribe el log: síncrono, en texto
+ * y sin muestreo, frente al log asíncrono, en JSON y muestreado de docs/logs.md. Cada
+ * configuración arranca su propio inventario-service sobre H2 con el MSProducto simulado de
+ * {@link ServidorCarga}.
+ *
+ * <p>Por configuración y ronda se mide rendimiento, percentiles de latencia, códigos de estado,
+ * bytes asignados por petición en los hilos de Tomcat y bytes de log por petición.
+ *
+ * <pre>
+ * mvn -Pcarga test -Dtest=BenchmarkLogsTest -Dlogs.clientes=32 -Dlogs.segundos=10
+ * </pre>
+ * El informe queda en {@code target/benchmark-logs.json}.
+ */
+@Tag("carga")
+class BenchmarkLogsTest {
+
+    private final int clientes = Integer.getInteger("logs.clientes", 32);
+    private final int segundos = Integer.getInteger("logs.segundos", 10);
+    private final int segundosCalentamiento = Integer.getInteger("logs.calentamiento-segundos", 5);
+    private final int productos = Integer.getInteger("logs.productos", 200);
+    private final int rondas = Integer.getInteger("logs.rondas", 3);
+
+    @Test
+    @DisplayName("Compras con log INFO: síncrono en texto frente a asíncrono, JSON y muestreado")
+    void compararConfiguracionesDeLog() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("clientes", clientes);
+        informe.put("segundos", segundos);
+        informe.put("productos", productos);
+        informe.put("rondas", rondas);
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+
+        Map<String, Map<String, String>> configuraciones = new LinkedHashMap<>();
+        configuraciones.put("sincrono-texto", Map.of(
+                "inventario.logs.asincrono", "false",
+                "inventario.logs.formato", "texto",
+                "inventario.logs.muestreo", ""));
+        configuraciones.put("asincrono-json-muestreado", Map.of());
+
+        List<Map<String, Object>> resultados = new ArrayList<>();
+        HttpServer productosSimulado = ServidorCarga.arrancarProductosSimulado(0);
+        try {
+            // Por rondas: la primera configuración que arranca paga el calentamiento del JIT de
+            // todo el proceso, así que solo las rondas siguientes son comparables
+            for (int ronda = 1; ronda <= rondas; ronda++) {
+                for (Map.Entry<String, Map<String, String>> configuracion : configuraciones.entrySet()) {
+                    Map<String, Object> resultado = new LinkedHashMap<>();
+                    resultado.put("ronda", ronda);
+                    resultado.putAll(medirConfiguracion(productosSimulado.getAddress().getPort(),
+                            configuracion.getKey(), configuracion.getValue()));
+                    resultados.add(resultado);
+                }
+            }
+        } finally {
+            productosSimulado.stop(0);
+        }
+        informe.put("mediciones", resultados);
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(informe);
+        System.out.println(json);
+        Files.writeString(Path.of("target", "benchmark-logs.json"), json);
+    }
+
+    private Map<String, Object> medirConfiguracion(int puertoProductos, String nombre, Map<String, String> ajustes)
+            throws Exception {
+        Path ficheroLog = Path.of("target", "benchmark-logs-" + nombre + ".log");
+        Files.createDirectories(ficheroLog.getParent());
+        Files.deleteIfExists(ficheroLog);
+
+        Map<String, String> propiedades = new HashMap<>(ajustes);
+        propiedades.put("spring.datasource.url", "jdbc:h2:mem:logs-" + nombre + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        propiedades.put("logging.file.name", ficheroLog.toString());
+        // Sin consola: el coste que se mide es el de escribir el fichero
+        propiedades.put("logging.pattern.console", "");
+        propiedades.put("logging.level.root", "INFO");
+
+        try (ConfigurableApplicationContext contexto = ServidorCarga.arrancarInventario(puertoProductos, propiedades)) {
+            contexto.getBean(InventarioRepository.class).saveAll(LongStream.rangeClosed(1, productos)
+                    .mapToObj(id -> new InventarioEntity(null, id, 100_000_000, 0))
+                    .toList());
+            String base = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port")
+                    + "/api/inventario";
+
+            medir(base, ficheroLog, segundosCalentamiento);
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("configuracion", nombre);
+            resultado.putAll(medir(base, ficheroLog, segundos));
+            return resultado;
+        }
+    }
+
+    private Map<String, Object> medir(String base, Path ficheroLog, int segundos) throws Exception {
+        Map<Long, Long> asignadosAntes = bytesAsignadosPorHiloTomcat();
+        long logAntes = Files.exists(ficheroLog) ? Files.size(ficheroLog) : 0;
+
+        Map<Integer, AtomicLong> codigos = new ConcurrentHashMap<>();
+        List<long[]> latenciasPorCliente = new ArrayList<>();
+        long[] atendidasPorCliente = new long[clientes];
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        long inicio = System.nanoTime();
+
+        try (HttpClient cliente = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build();
+             ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int indice = c;
+                long[] latencias = new long[1 << 16];
+                latenciasPorCliente.add(latencias);
+                ejecutor.execute(() -> {
+                    long[] propias = latencias;
+                    long n = 0;
+                    while (System.nanoTime() < fin) {
+                        long t0 = System.nanoTime();
+                        int estado;
+                        try {
+                            estado = cliente.send(peticion(base), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            estado = -1;
+                        }
+                        if (n == propias.length) {
+                            propias = Arrays.copyOf(propias, propias.length * 2);
+                        }
+                        propias[(int) n++] = System.nanoTime() - t0;
+                        codigos.computeIfAbsent(estado, k -> new AtomicLong()).incrementAndGet();
+                    }
+                    latenciasPorCliente.set(indice, Arrays.copyOf(propias, (int) n));
+                    atendidasPorCliente[indice] = n;
+                });
+            }
+        }
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        long total = Arrays.stream(atendidasPorCliente).sum();
+        long[] latencias = latenciasPorCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        long asignados = bytesAsignadosDesde(asignadosAntes);
+        long logDespues = Files.exists(ficheroLog) ? Files.size(ficheroLog) : 0;
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("peticiones", total);
+        resultado.put("peticionesPorSegundo", Math.round(total / duracion));
+        resultado.put("codigos", new TreeMap<>(codigos));
+        resultado.put("p50Ms", percentil(latencias, 0.50));
+        resultado.put("p99Ms", percentil(latencias, 0.99));
+        resultado.put("bytesAsignadosPorPeticion", total == 0 ? 0 : asignados / total);
+        resultado.put("bytesLogPorPeticion", total == 0 ? 0 : (logDespues - logAntes) / total);
+        return resultado;
+    }
+
+    private HttpRequest peticion(String base) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long productoId = 1 + aleatorio.nextInt(productos);
+        HttpRequest.Builder peticion = HttpRequest.newBuilder()
+                .header("x-api-key", ServidorCarga.API_KEY)
+                .timeout(Duration.ofSeconds(30));
+        if (aleatorio.nextInt(10) == 0) {
+            return peticion.uri(URI.create(base + "/" + productoId)).GET().build();
+        }
+        return peticion.uri(URI.create(base + "/compra?productoId=" + productoId + "&cantidad=1"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return Math.round(ordenadas[Math.max(0, posicion)] / 10_000.0) / 100.0;
+    }
+
+    // Solo los hilos de Tomcat: el generador de carga vive en la misma JVM
+    private static Map<Long, Long> bytesAsignadosPorHiloTomcat() {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> asignados = new HashMap<>();
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(hilo -> hilo.getName().startsWith("http-nio"))
+                .forEach(hilo -> asignados.put(hilo.threadId(), hilos.getThreadAllocatedBytes(hilo.threadId())));
+        return asignados;
+    }
+
+    private static long bytesAsignadosDesde(Map<Long, Long> antes) {
+        return bytesAsignadosPorHiloTomcat().entrySet().stream()
+                .mapToLong(hilo -> hilo.getValue() - antes.getOrDefault(hilo.getKey(), 0L))
+                .sum();
+    }
+}
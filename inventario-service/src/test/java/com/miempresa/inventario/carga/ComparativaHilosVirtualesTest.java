@@ -0,0 +1,269 @@
+package com.miempresa.inventario.carga;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compara inventario-service con hilos de plataforma y con hilos virtuales a 1k-10k
+ * peticiones concurrentes. Por defecto usa GET /api/inventario/{productoId}, que pasa casi
+ * todo su tiempo esperando a MSProducto ({@code -Dcarga.ruta} permite medir otra ruta).
+ *
+ * <p>Cada modo se levanta en su propia JVM ({@link ServidorCarga}) con
+ * {@code -Djdk.tracePinnedThreads=short}; de ella se muestrean la memoria residente y los
+ * hilos del sistema operativo, y se recogen los avisos de pinning.
+ *
+ * <pre>
+ * mvn -Pcarga test -Dcarga.niveles=1000,5000,10000 -Dcarga.latencia-ms=1000
+ * </pre>
+ * El informe queda en {@code target/informe-hilos-virtuales.json}.
+ */
+@Tag("carga")
+class ComparativaHilosVirtualesTest {
+
+    private final int[] niveles = Arrays.stream(System.getProperty("carga.niveles", "1000,5000,10000").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private final int peticionesPorCliente = Integer.getInteger("carga.peticiones-por-cliente", 5);
+    private final long latenciaMs = Long.getLong("carga.latencia-ms", 1000L);
+    private final String ruta = System.getProperty("carga.ruta", "/api/inventario/1");
+    private final String heapServidor = System.getProperty("carga.heap", "1536m");
+
+    @Test
+    @DisplayName("Hilos de plataforma vs hilos virtuales: rendimiento, memoria e hilos del proceso")
+    void compararHilosDePlataformaYVirtuales() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("endpoint", "GET " + ruta);
+        informe.put("latenciaProductosMs", latenciaMs);
+        informe.put("peticionesPorCliente", peticionesPorCliente);
+        informe.put("heapServidor", heapServidor);
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+        informe.put("plataforma", medirModo(false));
+        informe.put("virtuales", medirModo(true));
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(informe);
+        System.out.println(json);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "informe-hilos-virtuales.json"), json);
+    }
+
+    private Map<String, Object> medirModo(boolean hilosVirtuales) throws Exception {
+        ServidorEnEjecucion servidor = arrancar(hilosVirtuales);
+        try {
+            HttpClient cliente = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            HttpRequest peticion = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + servidor.puerto + ruta))
+                    .header("x-api-key", ServidorCarga.API_KEY)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+
+            // Calentamiento para que JIT, pools y cachés no cuenten en la primera medición
+            lanzar(cliente, peticion, 200, 2_000, new long[2_000], new ConcurrentHashMap<>());
+
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (int concurrencia : niveles) {
+                resultados.add(medirNivel(cliente, peticion, servidor, concurrencia));
+            }
+
+            Map<String, Object> modo = new LinkedHashMap<>();
+            modo.put("hilosVirtuales", hilosVirtuales);
+            modo.put("niveles", resultados);
+            modo.put("avisosPinning", servidor.avisosPinning.get());
+            modo.put("marcosConMonitor", new ArrayList<>(servidor.marcosPinning));
+            return modo;
+        } finally {
+            servidor.proceso.destroy();
+            servidor.proceso.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Map<String, Object> medirNivel(HttpClient cliente, HttpRequest peticion, ServidorEnEjecucion servidor,
+            int concurrencia) throws InterruptedException {
+        int total = concurrencia * peticionesPorCliente;
+        long[] latenciasNs = new long[total];
+        Map<String, AtomicInteger> errores = new ConcurrentHashMap<>();
+        AtomicLong rssMaxKb = new AtomicLong();
+        AtomicLong hilosMax = new AtomicLong();
+
+        Thread muestreo = Thread.ofPlatform().daemon(true).start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                long[] estado = leerEstadoProceso(servidor.proceso.pid());
+                rssMaxKb.accumulateAndGet(estado[0], Math::max);
+                hilosMax.accumulateAndGet(estado[1], Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long inicio = System.nanoTime();
+        lanzar(cliente, peticion, concurrencia, total, latenciasNs, errores);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        muestreo.interrupt();
+        muestreo.join();
+
+        Arrays.sort(latenciasNs);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("concurrencia", concurrencia);
+        resultado.put("peticiones", total);
+        Map<String, Integer> erroresPorCausa = new TreeMap<>();
+        errores.forEach((causa, contador) -> erroresPorCausa.put(causa, contador.get()));
+        resultado.put("errores", erroresPorCausa.values().stream().mapToInt(Integer::intValue).sum());
+        resultado.put("erroresPorCausa", erroresPorCausa);
+        resultado.put("peticionesPorSegundo", Math.round(total / segundos));
+        resultado.put("p50Ms", percentilMs(latenciasNs, 0.50));
+        resultado.put("p99Ms", percentilMs(latenciasNs, 0.99));
+        resultado.put("rssMaxMb", rssMaxKb.get() / 1024);
+        resultado.put("hilosSistemaMax", hilosMax.get());
+        return resultado;
+    }
+
+    /** Lanza {@code total} peticiones manteniendo como mucho {@code concurrencia} en vuelo. */
+    private static void lanzar(HttpClient cliente, HttpRequest peticion, int concurrencia, int total,
+            long[] latenciasNs, Map<String, AtomicInteger> errores) throws InterruptedException {
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                int indice = i;
+                enVuelo.acquire();
+                ejecutor.execute(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        if (respuesta.statusCode() != 200) {
+                            contarError(errores, "HTTP " + respuesta.statusCode());
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        contarError(errores, e.getClass().getSimpleName());
+                    } finally {
+                        latenciasNs[indice] = System.nanoTime() - t0;
+                        enVuelo.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private static void contarError(Map<String, AtomicInteger> errores, String causa) {
+        errores.computeIfAbsent(causa, c -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private ServidorEnEjecucion arrancar(boolean hilosVirtuales) throws IOException, InterruptedException {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process proceso = new ProcessBuilder(
+                java.toString(),
+                "-Xmx" + heapServidor,
+                "-Djdk.tracePinnedThreads=short",
+                "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"),
+                ServidorCarga.class.getName(),
+                String.valueOf(hilosVirtuales),
+                String.valueOf(latenciaMs))
+                .redirectErrorStream(true)
+                .start();
+
+        ServidorEnEjecucion servidor = new ServidorEnEjecucion(proceso);
+        BufferedReader salida = new BufferedReader(new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8));
+        String linea;
+        while ((linea = salida.readLine()) != null && !linea.startsWith("LISTO ")) {
+            // Hasta que arranca se muestra su salida para poder diagnosticar fallos de arranque
+            System.out.println("[servidor] " + linea);
+            servidor.procesarLinea(linea);
+        }
+        assertNotNull(linea, "El servidor de carga terminó sin arrancar");
+        servidor.puerto = Integer.parseInt(linea.substring("LISTO ".length()).trim());
+
+        // El resto de la salida se sigue leyendo para contar los avisos de pinning
+        Thread.ofPlatform().daemon(true).start(() -> {
+            try {
+                String l;
+                while ((l = salida.readLine()) != null) {
+                    servidor.procesarLinea(l);
+                }
+            } catch (IOException e) {
+                // el proceso terminó
+            }
+        });
+        return servidor;
+    }
+
+    /** VmRSS (kB) e hilos del sistema de un proceso, leídos de /proc (solo Linux). */
+    private static long[] leerEstadoProceso(long pid) {
+        long rssKb = 0;
+        long hilos = 0;
+        try {
+            for (String linea : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (linea.startsWith("VmRSS:")) {
+                    rssKb = Long.parseLong(linea.replaceAll("\\D", ""));
+                } else if (linea.startsWith("Threads:")) {
+                    hilos = Long.parseLong(linea.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // proceso terminado o /proc no disponible
+        }
+        return new long[] { rssKb, hilos };
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+
+    private static final class ServidorEnEjecucion {
+        private final Process proceso;
+        private final AtomicInteger avisosPinning = new AtomicInteger();
+        private final Set<String> marcosPinning = Collections.synchronizedSet(new TreeSet<>());
+        private volatile int puerto;
+
+        private ServidorEnEjecucion(Process proceso) {
+            this.proceso = proceso;
+        }
+
+        // -Djdk.tracePinnedThreads=short imprime la pila y marca con "<== monitors" los marcos que retienen un monitor
+        private void procesarLinea(String linea) {
+            if (linea.contains("<== monitors")) {
+                avisosPinning.incrementAndGet();
+                marcosPinning.add(linea.trim());
+            }
+        }
+    }
+}
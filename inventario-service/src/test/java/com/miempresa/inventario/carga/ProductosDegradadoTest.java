@@ -0,0 +1,257 @@
+package com.miempresa.inventario.carga;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.miempresa.inventario.carga.ProductosSimulado.Escenario;
+import com.miempresa.inventario.carga.ProductosSimulado.Latencia;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * inventario-service frente a un MSProducto lento o que falla, con {@link ProductosSimulado}.
+ * Cada escenario lanza {@code clientes} clientes cerrados contra
+ * {@code GET /api/inventario/{productoId}}, que hace una llamada a MSProducto por petición, y
+ * comprueba lo que se espera de inventario: cuántos hilos de Tomcat se quedan esperando, que
+ * el timeout de lectura corta las llamadas colgadas y qué rendimiento queda.
+ *
+ * <pre>
+ * mvn -Pcarga test -Dtest=ProductosDegradadoTest -Ddegradado.clientes=32 -Ddegradado.segundos=5
+ * </pre>
+ * El informe queda en {@code target/productos-degradado.json} y se escribe aunque falle alguna
+ * comprobación. Ver docs/productos-degradado.md.
+ */
+@Tag("carga")
+class ProductosDegradadoTest {
+
+    private final int clientes = Integer.getInteger("degradado.clientes", 32);
+    private final int segundos = Integer.getInteger("degradado.segundos", 5);
+    private final int segundosCalentamiento = Integer.getInteger("degradado.calentamiento-segundos", 2);
+    private final int segundosCalentamientoInicial = Integer.getInteger("degradado.calentamiento-inicial-segundos", 15);
+    private final long timeoutMs = Long.getLong("degradado.read-timeout-ms", 1000);
+
+    @Test
+    @DisplayName("MSProducto lento, con 503, con conexiones cortadas o colgado: hilos, timeouts y rendimiento de inventario")
+    void medirInventarioConProductosDegradado() throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("clientes", clientes);
+        informe.put("segundos", segundos);
+        informe.put("readTimeoutMs", timeoutMs);
+        informe.put("cpus", Runtime.getRuntime().availableProcessors());
+        List<String> fallos = new ArrayList<>();
+
+        try (ProductosSimulado productos = ProductosSimulado.arrancar();
+             ConfigurableApplicationContext contexto = ServidorCarga.arrancarInventario(productos.puerto(),
+                     Map.of("spring.datasource.url", "jdbc:h2:mem:degradado;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                             "productos.cliente.read-timeout-ms", String.valueOf(timeoutMs),
+                             // Publica tomcat.threads.busy
+                             "server.tomcat.mbeanregistry.enabled", "true"))) {
+            String base = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port")
+                    + "/api/inventario/";
+            MeterRegistry registry = contexto.getBean(MeterRegistry.class);
+
+            // Sin esto el primer escenario mide sobre todo al JIT
+            productos.configurar(new Escenario("calentamiento", Latencia.fija(2), 0, 0));
+            medir(base, productos, registry, segundosCalentamientoInicial);
+
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (Escenario escenario : List.of(
+                    new Escenario("base", Latencia.fija(2), 0, 0),
+                    new Escenario("lento-500ms", Latencia.fija(500), 0, 0),
+                    new Escenario("cola-larga", Latencia.logNormal(20, 400), 0, 0),
+                    new Escenario("errores-503", Latencia.fija(2), 0.10, 0),
+                    new Escenario("conexiones-cortadas", Latencia.fija(2), 0, 0.05),
+                    // El último: las peticiones colgadas siguen ocupando el simulado tras el timeout
+                    new Escenario("colgado", Latencia.fija(3 * timeoutMs), 0, 0))) {
+                productos.configurar(escenario);
+                medir(base, productos, registry, segundosCalentamiento);
+                Map<String, Object> resultado = medir(base, productos, registry, segundos);
+                resultado.put("escenario", escenario.nombre());
+                comprobar(escenario, resultado, fallos);
+                resultados.add(resultado);
+            }
+            informe.put("escenarios", resultados);
+        }
+        informe.put("fallos", fallos);
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(informe);
+        System.out.println(json);
+        Files.writeString(Path.of("target", "productos-degradado.json"), json);
+        assertTrue(fallos.isEmpty(), String.join("\n", fallos));
+    }
+
+    /** Lo que inventario debe cumplir en cada escenario; las comprobaciones que no se cumplen van a {@code fallos}. */
+    private void comprobar(Escenario escenario, Map<String, Object> resultado, List<String> fallos) {
+        double fraccionErrores = (double) resultado.get("fraccionErrores");
+        double p50 = (double) resultado.get("p50Ms");
+        double p99 = (double) resultado.get("p99Ms");
+        double rps = ((Number) resultado.get("peticionesPorSegundo")).doubleValue();
+        int hilosOcupados = (int) resultado.get("hilosTomcatOcupadosMax");
+        String nombre = escenario.nombre();
+
+        switch (nombre) {
+            case "base", "cola-larga" -> {
+                exigir(fallos, nombre, "sin errores", fraccionErrores == 0, fraccionErrores);
+                exigir(fallos, nombre, "p99 por debajo del timeout", p99 < timeoutMs, p99);
+            }
+            case "lento-500ms" -> {
+                exigir(fallos, nombre, "sin errores", fraccionErrores == 0, fraccionErrores);
+                exigir(fallos, nombre, "p50 de al menos 500 ms", p50 >= 500, p50);
+                // Modelo cerrado: cada cliente completa como mucho dos peticiones por segundo
+                exigir(fallos, nombre, "rendimiento cercano a clientes / 0,5 s", rps >= 0.8 * clientes / 0.5, rps);
+                // Cada petición retiene su hilo de Tomcat mientras espera a MSProducto
+                exigir(fallos, nombre, "un hilo de Tomcat ocupado por cliente", hilosOcupados >= 0.9 * clientes, hilosOcupados);
+            }
+            case "errores-503" -> {
+                exigir(fallos, nombre, "errores cercanos al 10 %", fraccionErrores >= 0.05 && fraccionErrores <= 0.15,
+                        fraccionErrores);
+                exigir(fallos, nombre, "p99 por debajo del timeout", p99 < timeoutMs, p99);
+            }
+            case "conexiones-cortadas" -> {
+                exigir(fallos, nombre, "errores como mucho del 10 %", fraccionErrores <= 0.10, fraccionErrores);
+                // Un RST falla enseguida: nadie debería esperar al timeout
+                exigir(fallos, nombre, "p99 por debajo del timeout", p99 < timeoutMs, p99);
+            }
+            case "colgado" -> {
+                exigir(fallos, nombre, "todas las peticiones fallan", fraccionErrores == 1.0, fraccionErrores);
+                exigir(fallos, nombre, "p50 de al menos el timeout", p50 >= timeoutMs, p50);
+                exigir(fallos, nombre, "p99 de como mucho el timeout + 500 ms", p99 <= timeoutMs + 500, p99);
+                exigir(fallos, nombre, "rendimiento cercano a clientes / timeout",
+                        rps >= 0.7 * clientes * 1000.0 / timeoutMs, rps);
+                exigir(fallos, nombre, "un hilo de Tomcat ocupado por cliente", hilosOcupados >= 0.9 * clientes, hilosOcupados);
+            }
+            default -> throw new IllegalArgumentException("Escenario sin comprobaciones: " + nombre);
+        }
+    }
+
+    private static void exigir(List<String> fallos, String escenario, String condicion, boolean cumplida, Object valor) {
+        if (!cumplida) {
+            fallos.add(escenario + ": se esperaba " + condicion + " y se ha medido " + valor);
+        }
+    }
+
+    private Map<String, Object> medir(String base, ProductosSimulado productos, MeterRegistry registry, int segundos)
+            throws Exception {
+        productos.reiniciarContadores();
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        hilos.resetPeakThreadCount();
+        Gauge hilosOcupados = registry.find("tomcat.threads.busy").gauge();
+        if (hilosOcupados == null) {
+            throw new IllegalStateException("No se publica tomcat.threads.busy: falta server.tomcat.mbeanregistry.enabled");
+        }
+
+        Map<Integer, AtomicLong> codigos = new ConcurrentHashMap<>();
+        List<long[]> latenciasPorCliente = new ArrayList<>();
+        long[] atendidasPorCliente = new long[clientes];
+        long[] ocupadosMax = new long[1];
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        long inicio = System.nanoTime();
+
+        try (HttpClient cliente = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build();
+             ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ejecutor.execute(() -> {
+                while (System.nanoTime() < fin) {
+                    ocupadosMax[0] = Math.max(ocupadosMax[0], Math.round(hilosOcupados.value()));
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            for (int c = 0; c < clientes; c++) {
+                int indice = c;
+                long[] latencias = new long[1 << 14];
+                latenciasPorCliente.add(latencias);
+                ejecutor.execute(() -> {
+                    long[] propias = latencias;
+                    int n = 0;
+                    while (System.nanoTime() < fin) {
+                        HttpRequest peticion = HttpRequest.newBuilder(URI.create(base + (1 + (indice * 7919L + n) % 1000)))
+                                .header("x-api-key", ServidorCarga.API_KEY)
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long t0 = System.nanoTime();
+                        int estado;
+                        try {
+                            estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            estado = -1;
+                        }
+                        if (n == propias.length) {
+                            propias = Arrays.copyOf(propias, propias.length * 2);
+                        }
+                        propias[n++] = System.nanoTime() - t0;
+                        codigos.computeIfAbsent(estado, k -> new AtomicLong()).incrementAndGet();
+                    }
+                    latenciasPorCliente.set(indice, Arrays.copyOf(propias, n));
+                    atendidasPorCliente[indice] = n;
+                });
+            }
+        }
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        long total = Arrays.stream(atendidasPorCliente).sum();
+        long correctas = codigos.entrySet().stream()
+                .filter(codigo -> codigo.getKey() >= 200 && codigo.getKey() < 300)
+                .mapToLong(codigo -> codigo.getValue().get())
+                .sum();
+        long[] latencias = latenciasPorCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("peticiones", total);
+        resultado.put("peticionesPorSegundo", Math.round(total / duracion));
+        resultado.put("codigos", new TreeMap<>(codigos));
+        resultado.put("fraccionErrores", total == 0 ? 0.0 : Math.round((total - correctas) * 1000.0 / total) / 1000.0);
+        resultado.put("p50Ms", percentil(latencias, 0.50));
+        resultado.put("p99Ms", percentil(latencias, 0.99));
+        resultado.put("maxMs", percentil(latencias, 1.0));
+        resultado.put("hilosTomcatOcupadosMax", (int) ocupadosMax[0]);
+        resultado.put("hilosJvmMax", hilos.getPeakThreadCount());
+        resultado.put("productosRecibidas", productos.recibidas());
+        resultado.put("productosEnCursoMax", productos.maxEnCurso());
+        resultado.put("productosCodigos", productos.codigos());
+        resultado.put("productosConexionesCortadas", productos.reiniciadas());
+        return resultado;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return Math.round(ordenadas[Math.max(0, posicion)] / 10_000.0) / 100.0;
+    }
+}
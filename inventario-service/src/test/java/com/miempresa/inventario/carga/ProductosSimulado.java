@@ -0,0 +1,274 @@
+package com.miempresa.inventario.carga;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MSProducto simulado con fallos: cada petición a {@code /api/productos} tarda lo que diga la
+ * {@link Latencia} del escenario, responde 503 con probabilidad {@code errores503} o corta la
+ * conexión con un RST con probabilidad {@code reinicios}. El escenario se cambia en caliente
+ * con {@link #configurar(Escenario)}, así que un mismo inventario-service sirve para todos.
+ * <p>
+ * Es un servidor HTTP/1.1 mínimo sobre sockets, con un hilo virtual por conexión, porque
+ * {@code com.sun.net.httpserver} no deja cortar la conexión con un RST. Solo entiende
+ * peticiones GET sin cuerpo, que es lo único que inventario-service le manda. Los productos
+ * existen hasta {@link ServidorCarga#PRIMER_ID_INEXISTENTE}, como en {@link ServidorCarga}.
+ */
+final class ProductosSimulado implements AutoCloseable {
+
+    private final ServerSocket servidor;
+    private final ExecutorService conexiones = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> abiertas = ConcurrentHashMap.newKeySet();
+    private volatile Escenario escenario = new Escenario("sin fallos", Latencia.fija(0), 0, 0);
+
+    private final LongAdder recibidas = new LongAdder();
+    private final LongAdder reiniciadas = new LongAdder();
+    private final Map<Integer, LongAdder> codigos = new ConcurrentHashMap<>();
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicInteger maxEnCurso = new AtomicInteger();
+
+    private ProductosSimulado(ServerSocket servidor) {
+        this.servidor = servidor;
+    }
+
+    static ProductosSimulado arrancar() throws IOException {
+        ProductosSimulado simulado = new ProductosSimulado(new ServerSocket(0, 16_384, InetAddress.getLoopbackAddress()));
+        Thread.ofVirtual().name("productos-simulado").start(simulado::aceptar);
+        return simulado;
+    }
+
+    int puerto() {
+        return servidor.getLocalPort();
+    }
+
+    /** Cambia el comportamiento de las peticiones que lleguen a partir de ahora. */
+    void configurar(Escenario escenario) {
+        this.escenario = escenario;
+    }
+
+    Escenario escenario() {
+        return escenario;
+    }
+
+    /** Pone a cero los contadores, normalmente al empezar un escenario. */
+    void reiniciarContadores() {
+        recibidas.reset();
+        reiniciadas.reset();
+        codigos.clear();
+        maxEnCurso.set(enCurso.get());
+    }
+
+    long recibidas() {
+        return recibidas.sum();
+    }
+
+    long reiniciadas() {
+        return reiniciadas.sum();
+    }
+
+    Map<Integer, Long> codigos() {
+        Map<Integer, Long> vista = new TreeMap<>();
+        codigos.forEach((codigo, cuenta) -> vista.put(codigo, cuenta.sum()));
+        return vista;
+    }
+
+    /** Máximo de peticiones atendiéndose a la vez desde el último {@link #reiniciarContadores()}. */
+    int maxEnCurso() {
+        return maxEnCurso.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        for (Socket socket : abiertas) {
+            socket.close();
+        }
+        conexiones.shutdownNow();
+    }
+
+    private void aceptar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                abiertas.add(socket);
+                conexiones.execute(() -> atender(socket));
+            } catch (IOException e) {
+                if (!servidor.isClosed()) {
+                    e.printStackTrace(System.out);
+                }
+            }
+        }
+    }
+
+    /** Atiende las peticiones de una conexión persistente hasta que el cliente la cierra. */
+    private void atender(Socket socket) {
+        try (socket) {
+            InputStream entrada = new BufferedInputStream(socket.getInputStream());
+            OutputStream salida = socket.getOutputStream();
+            String ruta;
+            while ((ruta = leerPeticion(entrada)) != null) {
+                recibidas.increment();
+                maxEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                try {
+                    if (!responder(socket, salida, ruta)) {
+                        return;
+                    }
+                } finally {
+                    enCurso.decrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            // El cliente ha cerrado o cortado la conexión, por ejemplo al vencer su timeout
+        } finally {
+            abiertas.remove(socket);
+        }
+    }
+
+    /** Devuelve {@code false} si ha cortado la conexión. */
+    private boolean responder(Socket socket, OutputStream salida, String ruta) throws IOException {
+        Escenario actual = escenario;
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        if (aleatorio.nextDouble() < actual.reinicios()) {
+            reiniciadas.increment();
+            // SO_LINGER a cero: close() manda un RST en lugar del cierre ordenado
+            socket.setSoLinger(true, 0);
+            socket.close();
+            return false;
+        }
+        try {
+            Thread.sleep(actual.latencia().muestraMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (aleatorio.nextDouble() < actual.errores503()) {
+            escribir(salida, 503, "{\"errors\":[{\"status\":\"503\",\"title\":\"Servicio no disponible\"}]}");
+            return true;
+        }
+        if (ruta.startsWith("/api/productos?")) {
+            escribir(salida, 200, listado(ruta));
+            return true;
+        }
+        if (!ruta.startsWith("/api/productos/")) {
+            escribir(salida, 404, "{\"errors\":[{\"status\":\"404\",\"title\":\"Ruta no encontrada\"}]}");
+            return true;
+        }
+        String id = ruta.substring("/api/productos/".length());
+        if (Long.parseLong(id) >= ServidorCarga.PRIMER_ID_INEXISTENTE) {
+            escribir(salida, 404, "{\"errors\":[{\"status\":\"404\",\"title\":\"Recurso no encontrado\","
+                    + "\"detail\":\"Producto no encontrado con id " + id + "\"}]}");
+            return true;
+        }
+        escribir(salida, 200, "{\"data\":" + producto(id) + "}");
+        return true;
+    }
+
+    // GET /api/productos?filter[id]=1,2,3 con los corchetes codificados o sin codificar
+    private static String listado(String ruta) {
+        String consulta = ruta.substring(ruta.indexOf('?') + 1).replace("%5B", "[").replace("%5D", "]").replace("%2C", ",");
+        StringBuilder json = new StringBuilder("[");
+        for (String parametro : consulta.split("&")) {
+            if (!parametro.startsWith("filter[id]=")) {
+                continue;
+            }
+            for (String id : parametro.substring("filter[id]=".length()).split(",")) {
+                if (!id.isBlank() && Long.parseLong(id) < ServidorCarga.PRIMER_ID_INEXISTENTE) {
+                    json.append(json.length() > 1 ? "," : "").append("{\"data\":").append(producto(id)).append('}');
+                }
+            }
+        }
+        return json.append(']').toString();
+    }
+
+    private static String producto(String id) {
+        return "{\"type\":\"producto\",\"id\":\"" + id + "\",\"attributes\":{\"id\":" + id
+                + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Simulado\",\"precio\":10.0}}";
+    }
+
+    private void escribir(OutputStream salida, int estado, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        String cabeceras = "HTTP/1.1 " + estado + (estado == 200 ? " OK" : " Error") + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + cuerpo.length + "\r\n\r\n";
+        salida.write(cabeceras.getBytes(StandardCharsets.US_ASCII));
+        salida.write(cuerpo);
+        salida.flush();
+        codigos.computeIfAbsent(estado, clave -> new LongAdder()).increment();
+    }
+
+    /** Lee la línea de petición y las cabeceras; devuelve la ruta o {@code null} si la conexión se ha cerrado. */
+    private static String leerPeticion(InputStream entrada) throws IOException {
+        String lineaPeticion;
+        try {
+            lineaPeticion = leerLinea(entrada);
+        } catch (SocketException e) {
+            return null;
+        }
+        if (lineaPeticion == null) {
+            return null;
+        }
+        String linea;
+        while ((linea = leerLinea(entrada)) != null && !linea.isEmpty()) {
+            // Las cabeceras no se usan
+        }
+        String[] partes = lineaPeticion.split(" ");
+        return partes.length > 1 ? partes[1] : "/";
+    }
+
+    private static String leerLinea(InputStream entrada) throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = entrada.read()) != -1) {
+            if (b == '\n') {
+                int longitud = linea.size();
+                String texto = linea.toString(StandardCharsets.US_ASCII);
+                return longitud > 0 && texto.charAt(longitud - 1) == '\r' ? texto.substring(0, longitud - 1) : texto;
+            }
+            linea.write(b);
+        }
+        return linea.size() == 0 ? null : linea.toString(StandardCharsets.US_ASCII);
+    }
+
+    /** Comportamiento de MSProducto: latencia de cada respuesta y probabilidad de cada fallo. */
+    record Escenario(String nombre, Latencia latencia, double errores503, double reinicios) {
+    }
+
+    /** Distribución de la latencia de respuesta, en milisegundos. */
+    @FunctionalInterface
+    interface Latencia {
+
+        long muestraMs();
+
+        static Latencia fija(long ms) {
+            return () -> ms;
+        }
+
+        /**
+         * Log-normal con la mediana y el percentil 99 indicados: la forma habitual de la
+         * latencia de un servicio, con la mayoría de respuestas rápidas y una cola larga.
+         */
+        static Latencia logNormal(double medianaMs, double p99Ms) {
+            double mu = Math.log(medianaMs);
+            // 2,326 es el percentil 99 de la normal estándar
+            double sigma = (Math.log(p99Ms) - mu) / 2.326;
+            return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.miempresa.inventario.carga;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.miempresa.inventario.InventarioServiceApplication;
+import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Proceso servidor de las pruebas de carga: levanta inventario-service sobre H2 en memoria
+ * y un MSProducto simulado que responde tras una latencia fija. Se ejecuta en una JVM
+ * aparte para que memoria e hilos del proceso se midan sin el generador de carga; las pruebas
+ * que no miden el proceso reutilizan {@link #arrancarProductosSimulado} y
+ * {@link #arrancarInventario} en su propia JVM.
+ *
+ * <p>Argumentos: {@code <hilosVirtuales> <latenciaProductosMs>}. Al arrancar imprime
+ * {@code LISTO <puerto>} en la salida estándar.
+ */
+public final class ServidorCarga {
+
+    static final String API_KEY = "carga";
+
+    /** El MSProducto simulado responde 404 a partir de este id. */
+    static final long PRIMER_ID_INEXISTENTE = 1_000_000L;
+
+    private ServidorCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean hilosVirtuales = Boolean.parseBoolean(args[0]);
+        long latenciaMs = Long.parseLong(args[1]);
+
+        HttpServer productos = arrancarProductosSimulado(latenciaMs);
+
+        ConfigurableApplicationContext contexto;
+        try {
+            contexto = arrancarInventario(productos.getAddress().getPort(),
+                    Map.of("spring.threads.virtual.enabled", String.valueOf(hilosVirtuales)));
+        } catch (RuntimeException e) {
+            // Sin esto el servidor simulado mantendría viva la JVM y la prueba esperaría para siempre
+            e.printStackTrace(System.out);
+            System.exit(1);
+            return;
+        }
+
+        contexto.getBean(InventarioRepository.class).save(new InventarioEntity(null, 1L, 1_000_000, 0));
+
+        System.out.println("LISTO " + contexto.getEnvironment().getProperty("local.server.port"));
+        System.out.flush();
+    }
+
+    /**
+     * MSProducto simulado: responde a GET /api/productos/{id} tras {@code latenciaMs}, con 404
+     * desde {@link #PRIMER_ID_INEXISTENTE}.
+     */
+    static HttpServer arrancarProductosSimulado(long latenciaMs) throws IOException {
+        HttpServer productos = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16_384);
+        productos.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        productos.createContext("/api/productos/", exchange -> {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String id = exchange.getRequestURI().getPath().substring("/api/productos/".length());
+            if (Long.parseLong(id) >= PRIMER_ID_INEXISTENTE) {
+                responder(exchange, 404, "{\"errors\":[{\"status\":\"404\",\"title\":\"Recurso no encontrado\","
+                        + "\"detail\":\"Producto no encontrado con id " + id + "\"}]}");
+                return;
+            }
+            responder(exchange, 200, "{\"data\":{\"type\":\"producto\",\"id\":\"" + id + "\",\"attributes\":{\"id\":" + id
+                    + ",\"nombre\":\"Producto " + id + "\",\"descripcion\":\"Carga\",\"precio\":10.0}}}");
+        });
+        productos.start();
+        return productos;
+    }
+
+    private static void responder(HttpExchange exchange, int estado, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream salida = exchange.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    /**
+     * Arranca inventario-service sobre H2 en modo PostgreSQL apuntando al MSProducto simulado;
+     * {@code ajustes} sustituye o añade propiedades a las de carga.
+     */
+    static ConfigurableApplicationContext arrancarInventario(int puertoProductos, Map<String, String> ajustes) {
+        Map<String, String> propiedades = new LinkedHashMap<>();
+        propiedades.put("server.port", "0");
+        propiedades.put("management.server.port", "0");
+        propiedades.put("inventario.trazas.fichero.ruta", "target/trazas/inventario.jsonl");
+        propiedades.put("server.tomcat.max-connections", "20000");
+        propiedades.put("server.tomcat.accept-count", "4096");
+        propiedades.put("spring.datasource.url", "jdbc:h2:mem:carga;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        propiedades.put("spring.datasource.username", "sa");
+        propiedades.put("spring.datasource.password", "");
+        propiedades.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        propiedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        propiedades.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propiedades.put("spring.sql.init.mode", "never");
+        propiedades.put("spring.main.banner-mode", "off");
+        propiedades.put("logging.level.root", "WARN");
+        propiedades.put("inventario.movimientos.particionado", "false");
+        propiedades.put("api.key", API_KEY);
+        propiedades.put("productos.api.url", "http://127.0.0.1:" + puertoProductos + "/api");
+        propiedades.put("productos.service.api.key", "carga");
+        propiedades.putAll(ajustes);
+
+        // Como argumentos de línea de comandos para que prevalezcan sobre application.properties
+        String[] argumentos = propiedades.entrySet().stream()
+                .map(propiedad -> "--" + propiedad.getKey() + "=" + propiedad.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(InventarioServiceApplication.class).run(argumentos);
+    }
+}
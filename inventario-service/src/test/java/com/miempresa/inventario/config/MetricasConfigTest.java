@@ -0,0 +1,35 @@
+package com.miempresa.inventario.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+class MetricasConfigTest {
+
+    private final MetricasConfig.ConvencionPeticionesProductos convencion = new MetricasConfig.ConvencionPeticionesProductos();
+
+    @Test
+    @DisplayName("Debe agrupar las llamadas a MSProducto por ruta, sin ids ni query string en la etiqueta uri")
+    void uri_shouldReplaceIdsAndDropQuery() {
+        // GIVEN
+        ClientRequestObservationContext porId = contexto("http://productos-app:8080/api/productos/123");
+        ClientRequestObservationContext porLote = contexto("http://productos-app:8080/api/productos?filter[id]=1,2,3");
+
+        // WHEN & THEN
+        assertEquals("/api/productos/{id}", convencion.uri(porId).getValue());
+        assertEquals("/api/productos", convencion.uri(porLote).getValue());
+    }
+
+    private static ClientRequestObservationContext contexto(String url) {
+        ClientRequestObservationContext contexto = new ClientRequestObservationContext(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create(url.replace("[", "%5B").replace("]", "%5D"))));
+        contexto.setUriTemplate(url);
+        return contexto;
+    }
+}
@@ -0,0 +1,103 @@
+package com.miempresa.inventario.consumo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class FiltroConsumoPorPeticionTest {
+
+    private ConsumoPeticiones consumo;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        consumo = new ConsumoPeticiones();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Debe acumular por ruta la memoria asignada en el hilo de la petición y publicarla como métrica")
+    void doFilter_shouldRecordAllocatedBytesByRoute() throws Exception {
+        // GIVEN: un controlador que reserva 1 MiB
+        FiltroConsumoPorPeticion filtro = new FiltroConsumoPorPeticion(consumo, registry, false);
+        FilterChain cadena = (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/inventario/{productoId}");
+            byte[] bloque = new byte[1024 * 1024];
+            response.getWriter().write(Integer.toString(bloque.length));
+        };
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+
+        // WHEN
+        for (int i = 0; i < 3; i++) {
+            filtro.doFilter(new MockHttpServletRequest("GET", "/api/inventario/" + i), respuesta, cadena);
+        }
+
+        // THEN
+        ConsumoPeticiones.Ruta ruta = consumo.rutas().get(0);
+        assertEquals("GET /api/inventario/{productoId}", ruta.ruta());
+        assertEquals(3, ruta.peticiones());
+        assertTrue(ruta.bytesMedia() >= 1024 * 1024, "bytes por petición: " + ruta.bytesMedia());
+        assertTrue(ruta.bytesP99() >= ruta.bytesP50() && ruta.bytesMax() >= ruta.bytesP99());
+        assertEquals(3, registry.get("peticiones.memoria.asignada").tag("uri", "/api/inventario/{productoId}")
+                .summary().count());
+        assertEquals(3, registry.get("peticiones.cpu").timer().count());
+        assertNull(respuesta.getHeader(FiltroConsumoPorPeticion.CABECERA_BYTES));
+    }
+
+    @Test
+    @DisplayName("Debe poner las cabeceras de consumo antes de que se escriba el cuerpo")
+    void doFilter_shouldSetHeadersBeforeBodyIsCommitted() throws Exception {
+        // GIVEN: el cuerpo se envía (y la respuesta queda confirmada) dentro de la cadena
+        FiltroConsumoPorPeticion filtro = new FiltroConsumoPorPeticion(consumo, null, true);
+        FilterChain cadena = (request, response) -> {
+            response.getOutputStream().write("{}".getBytes());
+            response.flushBuffer();
+        };
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+
+        // WHEN
+        filtro.doFilter(new MockHttpServletRequest("POST", "/api/inventario/compra"), respuesta, cadena);
+
+        // THEN
+        assertTrue(respuesta.isCommitted());
+        assertEquals("{}", respuesta.getContentAsString());
+        assertNotNull(respuesta.getHeader(FiltroConsumoPorPeticion.CABECERA_BYTES));
+        assertTrue(respuesta.getHeader(FiltroConsumoPorPeticion.CABECERA_TIEMPOS).matches("cpu;dur=\\d+\\.\\d{3}"));
+        assertEquals("POST UNKNOWN", consumo.rutas().get(0).ruta());
+    }
+
+    @Test
+    @DisplayName("Debe dar percentiles con un error máximo del 25 % por el tamaño de cubeta")
+    void percentil_shouldBoundBucketError() {
+        // GIVEN
+        ConsumoPeticiones.Histograma histograma = new ConsumoPeticiones.Histograma();
+
+        // WHEN: 1..1000
+        for (long valor = 1; valor <= 1000; valor++) {
+            histograma.registrar(valor);
+        }
+
+        // THEN
+        long p50 = histograma.percentil(0.50);
+        long p99 = histograma.percentil(0.99);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.25, "p50: " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99: " + p99);
+        assertEquals(1000, histograma.percentil(1.0));
+        for (long valor : new long[] {0, 3, 4, 7, 8, 1_000_000, Long.MAX_VALUE}) {
+            int cubeta = ConsumoPeticiones.Histograma.cubeta(valor);
+            assertTrue(ConsumoPeticiones.Histograma.limiteSuperior(cubeta) >= valor, "valor " + valor);
+            assertTrue(cubeta == 0 || ConsumoPeticiones.Histograma.limiteSuperior(cubeta - 1) < valor, "valor " + valor);
+        }
+    }
+}
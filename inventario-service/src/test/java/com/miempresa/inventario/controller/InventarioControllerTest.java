@@ -1,14 +1,24 @@
 package com.miempresa.inventario.controller;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,8 +30,25 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.miempresa.inventario.dtos.DisponibilidadDto;
+import com.miempresa.inventario.dtos.EstadoOperacionCompra;
+import com.miempresa.inventario.dtos.InventarioDetalleDto;
 import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.ProductoDto;
+import com.miempresa.inventario.dtos.MovimientoInventarioDto;
+import com.miempresa.inventario.dtos.NivelInventarioDto;
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+import com.miempresa.inventario.dtos.ReservaDto;
+import com.miempresa.inventario.entities.EstadoReserva;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.exceptions.ColaComprasLlenaException;
+import com.miempresa.inventario.exceptions.GlobalExceptionHandler;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventario.services.CompraAsincronaService;
+import com.miempresa.inventario.services.IdempotenciaService;
 import com.miempresa.inventario.services.InventarioService;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.services.ReservaService;
 
 @ExtendWith(MockitoExtension.class) // Habilita la integración de Mockito con JUnit 5
 class InventarioControllerTest {
@@ -29,6 +56,18 @@ class InventarioControllerTest {
     @Mock // Crea un mock del InventarioService
     private InventarioService inventarioService;
 
+    @Mock
+    private ReservaService reservaService;
+
+    @Mock
+    private MovimientoInventarioService movimientoInventarioService;
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    @Mock
+    private CompraAsincronaService compraAsincronaService;
+
     @InjectMocks // Inyecta los mocks en el InventarioController
     private InventarioController inventarioController;
 
@@ -119,4 +158,229 @@ class InventarioControllerTest {
                 .andExpect(jsonPath("$.data.attributes.productoId").value(inventarioActualizadoPostCompra.getProductoId()))
                 .andExpect(jsonPath("$.data.attributes.cantidad").value(inventarioActualizadoPostCompra.getCantidad()));
     }
-}
\ No newline at end of file
+
+
+    @Test
+    @DisplayName("Debe crear una reserva y devolverla con estado 201 CREATED")
+    void reservarProducto_shouldReturnCreatedReserva() throws Exception {
+        // GIVEN
+        ReservaDto reserva = ReservaDto.builder()
+                .id(10L)
+                .productoId(789L)
+                .cantidad(2)
+                .estado(EstadoReserva.PENDIENTE)
+                .expiraEn(Instant.parse("2030-01-01T00:00:00Z"))
+                .build();
+        when(reservaService.reservarProducto(anyLong(), anyInt(), isNull())).thenReturn(reserva);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/inventario/reservas")
+                .param("productoId", "789")
+                .param("cantidad", "2"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.type").value("reserva"))
+                .andExpect(jsonPath("$.data.id").value("10"))
+                .andExpect(jsonPath("$.data.attributes.estado").value("PENDIENTE"));
+    }
+
+    @Test
+    @DisplayName("Debe confirmar y liberar reservas por id")
+    void confirmarYLiberarReserva_shouldReturnReservaWithNewState() throws Exception {
+        // GIVEN
+        when(reservaService.confirmarReserva(10L)).thenReturn(ReservaDto.builder()
+                .id(10L).productoId(789L).cantidad(2).estado(EstadoReserva.CONFIRMADA).build());
+        when(reservaService.liberarReserva(11L)).thenReturn(ReservaDto.builder()
+                .id(11L).productoId(789L).cantidad(2).estado(EstadoReserva.LIBERADA).build());
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/inventario/reservas/{reservaId}/confirmacion", 10L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.attributes.estado").value("CONFIRMADA"));
+        mockMvc.perform(delete("/api/inventario/reservas/{reservaId}", 11L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.attributes.estado").value("LIBERADA"));
+    }
+
+    @Test
+    @DisplayName("Debe listar los movimientos de un producto en una colección JSON:API acotada en el tiempo")
+    void listarMovimientos_shouldReturnJsonApiCollection() throws Exception {
+        // GIVEN
+        Instant desde = Instant.parse("2026-01-01T00:00:00Z");
+        Instant hasta = Instant.parse("2026-02-01T00:00:00Z");
+        when(movimientoInventarioService.listarMovimientos(789L, desde, hasta)).thenReturn(List.of(
+                MovimientoInventarioDto.builder().id(1L).productoId(789L).tipo(TipoMovimiento.AJUSTE)
+                        .cantidadResultante(100).creadoEn(desde.plusSeconds(60)).build(),
+                MovimientoInventarioDto.builder().id(2L).productoId(789L).tipo(TipoMovimiento.COMPRA)
+                        .variacion(-5).cantidadResultante(95).creadoEn(desde.plusSeconds(120)).build()));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/inventario/{productoId}/movimientos", 789L)
+                .param("desde", desde.toString())
+                .param("hasta", hasta.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].type").value("movimiento-inventario"))
+                .andExpect(jsonPath("$.data[1].attributes.tipo").value("COMPRA"))
+                .andExpect(jsonPath("$.data[1].attributes.cantidadResultante").value(95));
+    }
+
+    @Test
+    @DisplayName("Debe devolver el nivel de inventario en un instante dado")
+    void consultarNivel_shouldReturnLevelAtInstant() throws Exception {
+        // GIVEN
+        Instant instante = Instant.parse("2026-01-15T10:00:00Z");
+        when(movimientoInventarioService.consultarNivel(eq(789L), eq(instante))).thenReturn(
+                NivelInventarioDto.builder().productoId(789L).cantidad(42).instante(instante).build());
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/inventario/{productoId}/nivel", 789L).param("en", instante.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.type").value("nivel-inventario"))
+                .andExpect(jsonPath("$.data.attributes.cantidad").value(42));
+    }
+
+    @Test
+    @DisplayName("Debe delegar en el servicio de idempotencia cuando la compra trae Idempotency-Key")
+    void comprarProducto_shouldUseIdempotencyServiceWhenKeyPresent() throws Exception {
+        // GIVEN
+        InventarioDto almacenado = InventarioDto.builder().id(2L).productoId(789L).cantidad(95).build();
+        when(idempotenciaService.ejecutar(eq("clave-1"), eq(789L), eq(5), any())).thenReturn(almacenado);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/inventario/compra")
+                .header("Idempotency-Key", "clave-1")
+                .param("productoId", "789")
+                .param("cantidad", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.attributes.cantidad").value(95));
+        verify(inventarioService, never()).comprarProducto(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe aceptar la compra con 202 y Location cuando se pide Prefer: respond-async")
+    void comprarProducto_shouldReturnAcceptedWhenRespondAsyncPreferred() throws Exception {
+        // GIVEN
+        OperacionCompraDto operacion = OperacionCompraDto.builder()
+                .id("op-1")
+                .productoId(789L)
+                .cantidad(5)
+                .estado(EstadoOperacionCompra.PENDIENTE)
+                .build();
+        when(compraAsincronaService.encolarCompra(789L, 5, null)).thenReturn(operacion);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/inventario/compra")
+                .header("Prefer", "respond-async")
+                .param("productoId", "789")
+                .param("cantidad", "5"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/inventario/compras/op-1"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.data.type").value("operacion-compra"))
+                .andExpect(jsonPath("$.data.attributes.estado").value("PENDIENTE"));
+        verify(inventarioService, never()).comprarProducto(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe responder 429 con Retry-After cuando la cola de compras está llena")
+    void comprarProducto_shouldReturnTooManyRequestsWhenQueueIsFull() throws Exception {
+        // GIVEN
+        MockMvc mockMvcConErrores = MockMvcBuilders.standaloneSetup(inventarioController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(compraAsincronaService.encolarCompra(789L, 5, null))
+                .thenThrow(new ColaComprasLlenaException("Hay demasiadas compras en curso para el producto 789", 1));
+
+        // WHEN & THEN
+        mockMvcConErrores.perform(post("/api/inventario/compra")
+                .header("Prefer", "respond-async")
+                .param("productoId", "789")
+                .param("cantidad", "5"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.errors[0].status").value("429"));
+    }
+
+    @Test
+    @DisplayName("Debe responder 409 con el código de error cuando no hay inventario suficiente")
+    void comprarProducto_shouldReturnConflictWhenInsufficientInventario() throws Exception {
+        // GIVEN
+        MockMvc mockMvcConErrores = MockMvcBuilders.standaloneSetup(inventarioController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(inventarioService.comprarProducto(789L, 5))
+                .thenThrow(new InventarioInsuficienteException("Inventario insuficiente para \"789\""));
+
+        // WHEN & THEN: el detalle llega escapado dentro de la plantilla JSON:API
+        mockMvcConErrores.perform(post("/api/inventario/compra")
+                .param("productoId", "789")
+                .param("cantidad", "5"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errors[0].status").value("409"))
+                .andExpect(jsonPath("$.errors[0].code").value("INVENTARIO_INSUFICIENTE"))
+                .andExpect(jsonPath("$.errors[0].title").value("Inventario insuficiente"))
+                .andExpect(jsonPath("$.errors[0].detail").value("Inventario insuficiente para \"789\""))
+                .andExpect(jsonPath("$.errors[0].timestamp").isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe devolver el estado de una operación de compra asíncrona")
+    void consultarOperacionCompra_shouldReturnOperation() throws Exception {
+        // GIVEN
+        OperacionCompraDto operacion = OperacionCompraDto.builder()
+                .id("op-1")
+                .productoId(789L)
+                .cantidad(5)
+                .estado(EstadoOperacionCompra.COMPLETADA)
+                .inventario(InventarioDto.builder().id(2L).productoId(789L).cantidad(95).build())
+                .build();
+        when(compraAsincronaService.consultarOperacion("op-1")).thenReturn(operacion);
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/inventario/compras/{operacionId}", "op-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id").value("op-1"))
+                .andExpect(jsonPath("$.data.attributes.estado").value("COMPLETADA"))
+                .andExpect(jsonPath("$.data.attributes.inventario.cantidad").value(95));
+    }
+
+    @Test
+    @DisplayName("Debe devolver el recurso compuesto producto + stock")
+    void consultarDetalleInventario_shouldReturnCompositeResource() throws Exception {
+        // GIVEN
+        InventarioDetalleDto detalle = InventarioDetalleDto.builder()
+                .productoId(123L)
+                .producto(ProductoDto.builder().id(123L).nombre("ZAPATOS").build())
+                .cantidad(50)
+                .reservado(0)
+                .disponible(50)
+                .build();
+        when(inventarioService.consultarDetalleInventario(123L)).thenReturn(detalle);
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/inventario/{productoId}/detalle", 123L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.type").value("inventario-detalle"))
+                .andExpect(jsonPath("$.data.id").value("123"))
+                .andExpect(jsonPath("$.data.attributes.producto.nombre").value("ZAPATOS"))
+                .andExpect(jsonPath("$.data.attributes.disponible").value(50));
+    }
+
+    @Test
+    @DisplayName("Debe devolver la disponibilidad de varios productos como colección JSON:API")
+    void consultarDisponibilidad_shouldReturnCollection() throws Exception {
+        // GIVEN
+        when(inventarioService.consultarDisponibilidad(List.of(1L, 2L))).thenReturn(List.of(
+                DisponibilidadDto.builder().productoId(1L).cantidad(5).reservado(0).disponible(5).enStock(true).build(),
+                DisponibilidadDto.builder().productoId(2L).cantidad(0).reservado(0).disponible(0).enStock(false).build()));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/inventario").param("filter[productoId]", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].type").value("disponibilidad"))
+                .andExpect(jsonPath("$.data[0].id").value("1"))
+                .andExpect(jsonPath("$.data[0].attributes.enStock").value(true))
+                .andExpect(jsonPath("$.data[1].attributes.enStock").value(false));
+    }
+}
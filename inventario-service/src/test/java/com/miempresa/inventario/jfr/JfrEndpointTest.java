@@ -0,0 +1,89 @@
+package com.miempresa.inventario.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+
+class JfrEndpointTest {
+
+    private final JfrEndpoint endpoint = new JfrEndpoint(60);
+
+    @Test
+    @DisplayName("Debe rechazar un perfil desconocido o una duración fuera de rango sin grabar")
+    void grabar_shouldRejectInvalidParameters() {
+        // WHEN / THEN
+        assertThrows(SolicitudInvalidaException.class, () -> endpoint.grabar(1, "inexistente"));
+        assertThrows(SolicitudInvalidaException.class, () -> endpoint.grabar(61, null));
+        assertThrows(SolicitudInvalidaException.class, () -> endpoint.grabar(0, null));
+        assertThrows(RecursoNoEncontradoException.class, () -> endpoint.resumir("otra", 1, null));
+    }
+
+    @Test
+    @DisplayName("Debe resumir métodos calientes, sitios de asignación y recolecciones de la grabación")
+    void resumir_shouldSummarizeHotMethodsAllocationsAndGc() throws Exception {
+        // GIVEN: un hilo que consume CPU y asigna memoria mientras dura la grabación
+        AtomicBoolean activo = new AtomicBoolean(true);
+        Thread carga = Thread.ofPlatform().start(() -> {
+            long acumulado = 0;
+            while (activo.get()) {
+                acumulado += quemarCpu(acumulado);
+                acumulado += asignar().length;
+            }
+        });
+        Thread recolector = Thread.ofPlatform().start(() -> {
+            try {
+                Thread.sleep(300);
+                System.gc();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // WHEN
+        WebEndpointResponse<ResumenJfr> respuesta;
+        try {
+            respuesta = endpoint.resumir("resumen", 2, "profile");
+        } finally {
+            activo.set(false);
+            carga.join();
+            recolector.join();
+        }
+
+        // THEN
+        assertEquals(200, respuesta.getStatus());
+        ResumenJfr resumen = respuesta.getBody();
+        assertEquals("profile", resumen.perfil());
+        // Cuántas muestras de CPU hay depende de los núcleos libres: con pocas no se exige el método
+        assertTrue(resumen.metodosCalientes().stream().mapToLong(ResumenJfr.Entrada::valor).sum() <= resumen.muestrasCpu());
+        if (resumen.muestrasCpu() >= 50) {
+            assertTrue(resumen.metodosCalientes().stream().anyMatch(m -> m.sitio().endsWith("JfrEndpointTest.quemarCpu")),
+                    () -> "Métodos calientes: " + resumen.metodosCalientes());
+        }
+        assertTrue(resumen.sitiosAsignacion().stream().anyMatch(s -> s.sitio().contains("JfrEndpointTest.asignar")),
+                () -> "Sitios de asignación: " + resumen.sitiosAsignacion());
+        assertTrue(resumen.gc().recolecciones() >= 1);
+    }
+
+    private static long quemarCpu(long semilla) {
+        long x = semilla | 1;
+        for (int i = 0; i < 200_000; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x & 1;
+    }
+
+    private static byte[] asignar() {
+        return new byte[64 * 1024];
+    }
+}
@@ -0,0 +1,86 @@
+package com.miempresa.inventario.plazos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.miempresa.inventario.exceptions.PlazoExcedidoException;
+import com.sun.net.httpserver.HttpServer;
+
+class FabricaPeticionesConPlazoTest {
+
+    private HttpServer productos;
+    private final AtomicInteger recibidas = new AtomicInteger();
+    private final AtomicReference<String> cabecera = new AtomicReference<>();
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // MSProducto colgado: tarda 2 s en responder
+        productos = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        productos.createContext("/api/productos", intercambio -> {
+            recibidas.incrementAndGet();
+            cabecera.set(intercambio.getRequestHeaders().getFirst(Plazo.CABECERA));
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            intercambio.sendResponseHeaders(200, -1);
+            intercambio.close();
+        });
+        productos.start();
+        restTemplate = new RestTemplate(new FabricaPeticionesConPlazo(HttpClient.newHttpClient(), Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Plazo.limpiar();
+        productos.stop(0);
+    }
+
+    @Test
+    @DisplayName("Debe recortar el timeout al plazo restante y propagarlo en la cabecera")
+    void createRequest_shouldUseRemainingDeadline() {
+        // GIVEN
+        Plazo.establecer(Plazo.dentroDe(300));
+        long inicio = System.nanoTime();
+
+        // WHEN
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForEntity(url(), String.class));
+
+        // THEN: vence con el plazo, no con el timeout de lectura de 5 s
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        assertTrue(ms < 1500, "Tardó " + ms + " ms");
+        long propagado = Long.parseLong(cabecera.get());
+        assertTrue(propagado > 0 && propagado <= 300, "Cabecera: " + propagado);
+    }
+
+    @Test
+    @DisplayName("No debe llamar a MSProducto con el plazo agotado")
+    void createRequest_shouldSkipCallWhenExpired() {
+        // GIVEN
+        Plazo.establecer(Plazo.dentroDe(0));
+
+        // WHEN / THEN
+        assertThrows(PlazoExcedidoException.class, () -> restTemplate.getForEntity(url(), String.class));
+        assertEquals(0, recibidas.get());
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + productos.getAddress().getPort() + "/api/productos/1";
+    }
+}
@@ -0,0 +1,107 @@
+package com.miempresa.inventario.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** Dos bases H2 independientes hacen de primaria y de réplica; cada una sabe cuál es. */
+class DataSourceLecturaEscrituraTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private MonitorRetrasoReplica monitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource basePrimaria = base("primaria");
+        JdbcDataSource baseReplica = base("replica");
+        primaria = new JdbcTemplate(basePrimaria);
+        replica = new JdbcTemplate(baseReplica);
+        replica.execute("CREATE TABLE estado_replica (retraso_ms BIGINT)");
+        replica.update("INSERT INTO estado_replica VALUES (0)");
+
+        monitor = new MonitorRetrasoReplica(baseReplica, "SELECT retraso_ms FROM estado_replica", 1000, 60_000);
+        DataSourceLecturaEscritura enrutado = new DataSourceLecturaEscritura(basePrimaria, baseReplica,
+                monitor::disponible, registry);
+        enrutado.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(enrutado);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        escritura = new TransactionTemplate(transacciones);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        monitor.comprobar();
+    }
+
+    @Test
+    @DisplayName("Debe enviar las transacciones de solo lectura a la réplica y el resto a la primaria")
+    void determineCurrentLookupKey_shouldRouteReadOnlyToReplica() {
+        // WHEN
+        String enLectura = lectura.execute(estado -> baseActual());
+        String enEscritura = escritura.execute(estado -> {
+            jdbc.update("INSERT INTO productos VALUES (2)");
+            return baseActual();
+        });
+        String sinTransaccion = baseActual();
+
+        // THEN
+        assertEquals("replica", enLectura);
+        assertEquals("primaria", enEscritura);
+        assertEquals("primaria", sinTransaccion);
+        assertEquals(2, primaria.queryForObject("SELECT COUNT(*) FROM productos", Integer.class));
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM productos", Integer.class));
+        assertEquals(1.0, registry.get("replica.conexiones.lectura").tag("destino", "replica").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debe leer de la primaria mientras la réplica va retrasada y volver a ella al ponerse al día")
+    void determineCurrentLookupKey_shouldFallBackWhenReplicaLags() {
+        // GIVEN: la réplica va 5 s por detrás, más que el máximo de 1 s
+        replica.update("UPDATE estado_replica SET retraso_ms = 5000");
+        monitor.comprobar();
+
+        // WHEN / THEN
+        assertFalse(monitor.disponible());
+        assertEquals("primaria", lectura.execute(estado -> baseActual()));
+        assertEquals(1.0, registry.get("replica.conexiones.lectura").tag("destino", "primaria").counter().count());
+
+        // WHEN: se pone al día
+        replica.update("UPDATE estado_replica SET retraso_ms = 10");
+        monitor.comprobar();
+
+        // THEN
+        assertTrue(monitor.disponible());
+        assertEquals("replica", lectura.execute(estado -> baseActual()));
+    }
+
+    private String baseActual() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static JdbcDataSource base(String nombre) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + nombre + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(h2);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen VALUES (?)", nombre);
+        jdbc.execute("CREATE TABLE productos (id BIGINT PRIMARY KEY)");
+        jdbc.update("INSERT INTO productos VALUES (1)");
+        return h2;
+    }
+}
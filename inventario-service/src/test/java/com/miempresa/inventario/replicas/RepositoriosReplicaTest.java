@@ -0,0 +1,124 @@
+package com.miempresa.inventario.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.inventario.entities.EstadoReserva;
+import com.miempresa.inventario.repositories.CompraIdempotenteRepository;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.repositories.ReservaRepository;
+
+/**
+ * Los repositorios JPA sobre {@link DataSourceLecturaEscritura}, con dos bases H2 que tienen
+ * datos distintos: cada lectura dice de qué base salió. Hibernate crea el esquema en la
+ * primaria y se copia a la réplica.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "inventario.movimientos.particionado=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoriosReplicaTest {
+
+    private static final JdbcDataSource BASE_PRIMARIA = base("primaria");
+    private static final JdbcDataSource BASE_REPLICA = base("replica");
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private CompraIdempotenteRepository compraIdempotenteRepository;
+
+    private final JdbcTemplate primaria = new JdbcTemplate(BASE_PRIMARIA);
+    private final JdbcTemplate replica = new JdbcTemplate(BASE_REPLICA);
+
+    @TestConfiguration
+    static class Configuracion {
+
+        @Bean
+        DataSource dataSource() {
+            DataSourceLecturaEscritura enrutado = new DataSourceLecturaEscritura(BASE_PRIMARIA, BASE_REPLICA,
+                    () -> true, null);
+            enrutado.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(enrutado);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'INVENTARIOS'", Integer.class) == 0) {
+            primaria.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        }
+        for (JdbcTemplate base : new JdbcTemplate[] {primaria, replica}) {
+            base.update("DELETE FROM compras_idempotentes");
+            base.update("DELETE FROM reservas");
+            base.update("DELETE FROM inventarios");
+        }
+        Timestamp expira = Timestamp.from(Instant.now().plusSeconds(600));
+
+        // La réplica va por detrás: cantidades antiguas y sin la compra idempotente
+        primaria.update("INSERT INTO inventarios (id, producto_id, cantidad, reservado) VALUES (1, 7, 10, 2)");
+        replica.update("INSERT INTO inventarios (id, producto_id, cantidad, reservado) VALUES (1, 7, 5, 1)");
+        primaria.update("INSERT INTO reservas (id, producto_id, cantidad, estado, expira_en) VALUES (1, 7, 2, 'PENDIENTE', ?)", expira);
+        replica.update("INSERT INTO reservas (id, producto_id, cantidad, estado, expira_en) VALUES (1, 7, 1, 'PENDIENTE', ?)", expira);
+        primaria.update("""
+                INSERT INTO compras_idempotentes (clave, producto_id, cantidad_solicitada, inventario_id,
+                    cantidad_resultante, reservado_resultante, expira_en)
+                VALUES ('clave-1', 7, 1, 1, 10, 2, ?)
+                """, expira);
+    }
+
+    @Test
+    @DisplayName("Las consultas de solo lectura de los repositorios deben llegar a la réplica")
+    void repositorios_shouldReadFromReplica() {
+        // WHEN / THEN: las de InventarioRepository y las heredadas de Spring Data
+        assertEquals(5, inventarioRepository.findByProductoId(7L).orElseThrow().getCantidad());
+        assertEquals(5, inventarioRepository.findByProductoIdIn(List.of(7L)).get(0).getCantidad());
+        assertEquals(1, reservaRepository.findAll().get(0).getCantidad());
+        assertFalse(compraIdempotenteRepository.existsById("clave-1"));
+    }
+
+    @Test
+    @DisplayName("El findById redeclarado de reservas y compras idempotentes debe leer de la primaria")
+    void findById_shouldReadFromPrimary() {
+        // WHEN / THEN
+        assertEquals(2, reservaRepository.findById(1L).orElseThrow().getCantidad());
+        assertTrue(compraIdempotenteRepository.findById("clave-1").isPresent());
+        // Una consulta derivada sin @Transactional no abre transacción y también va a la primaria
+        assertEquals(2, reservaRepository.findByEstado(EstadoReserva.PENDIENTE).get(0).getCantidad());
+    }
+
+    private static JdbcDataSource base(String nombre) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:repositorios-" + nombre + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+}
@@ -0,0 +1,215 @@
+package com.miempresa.inventario.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.miempresa.inventario.dtos.EstadoOperacionCompra;
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.dtos.OperacionCompraDto;
+import com.miempresa.inventario.exceptions.ColaComprasLlenaException;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.services.IdempotenciaService;
+import com.miempresa.inventario.services.InventarioService;
+
+@ExtendWith(MockitoExtension.class)
+class CompraAsincronaServiceImplTest {
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    private CompraAsincronaServiceImpl compraAsincronaService;
+
+    private final Long productoId = 101L;
+
+    @BeforeEach
+    void setUp() {
+        // Dos particiones de 2 posiciones para poder llenar una cola en las pruebas
+        compraAsincronaService = new CompraAsincronaServiceImpl(inventarioService, idempotenciaService,
+                Runnable::run, 2, 2, 10, 1000, 3);
+        compraAsincronaService.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        compraAsincronaService.detener();
+    }
+
+    @Test
+    @DisplayName("Debe aceptar la compra como PENDIENTE y completarla en segundo plano")
+    void encolarCompra_shouldAcceptAndCompleteInBackground() throws Exception {
+        // GIVEN
+        when(inventarioService.comprarProducto(productoId, 2)).thenReturn(inventario(8));
+
+        // WHEN
+        OperacionCompraDto aceptada = compraAsincronaService.encolarCompra(productoId, 2, null);
+        OperacionCompraDto resuelta = compraAsincronaService.esperarResolucion(aceptada.getId()).get(2, TimeUnit.SECONDS);
+
+        // THEN
+        assertEquals(EstadoOperacionCompra.PENDIENTE, aceptada.getEstado());
+        assertEquals(EstadoOperacionCompra.COMPLETADA, resuelta.getEstado());
+        assertEquals(8, resuelta.getInventario().getCantidad());
+        assertNull(resuelta.getError());
+        assertEquals(resuelta, compraAsincronaService.consultarOperacion(aceptada.getId()));
+    }
+
+    @Test
+    @DisplayName("Debe marcar la operación como RECHAZADA con el motivo de la compra síncrona")
+    void encolarCompra_shouldRejectWhenPurchaseFails() throws Exception {
+        // GIVEN
+        when(inventarioService.comprarProducto(productoId, 50))
+                .thenThrow(new InventarioInsuficienteException("Inventario insuficiente"));
+
+        // WHEN
+        OperacionCompraDto aceptada = compraAsincronaService.encolarCompra(productoId, 50, null);
+        OperacionCompraDto resuelta = compraAsincronaService.esperarResolucion(aceptada.getId()).get(2, TimeUnit.SECONDS);
+
+        // THEN
+        assertEquals(EstadoOperacionCompra.RECHAZADA, resuelta.getEstado());
+        assertEquals("Inventario insuficiente", resuelta.getError());
+        assertNull(resuelta.getInventario());
+    }
+
+    @Test
+    @DisplayName("Debe procesar en orden y en un único hilo las compras de un mismo producto")
+    void encolarCompra_shouldSerializePurchasesOfSameProduct() throws Exception {
+        // GIVEN
+        List<Integer> cantidades = new CopyOnWriteArrayList<>();
+        List<String> hilos = new CopyOnWriteArrayList<>();
+        when(inventarioService.comprarProducto(eq(productoId), anyInt())).thenAnswer(invocacion -> {
+            cantidades.add(invocacion.getArgument(1));
+            hilos.add(Thread.currentThread().getName());
+            return inventario(0);
+        });
+
+        // WHEN: se espera cada una para no llenar la cola de 2 posiciones
+        for (int cantidad = 1; cantidad <= 5; cantidad++) {
+            String id = compraAsincronaService.encolarCompra(productoId, cantidad, null).getId();
+            compraAsincronaService.esperarResolucion(id).get(2, TimeUnit.SECONDS);
+        }
+
+        // THEN
+        assertEquals(List.of(1, 2, 3, 4, 5), cantidades);
+        assertEquals(1, hilos.stream().distinct().count());
+        assertTrue(hilos.get(0).startsWith("compras-async-"));
+    }
+
+    @Test
+    @DisplayName("Debe lanzar ColaComprasLlenaException cuando la partición no tiene hueco")
+    void encolarCompra_shouldApplyBackpressureWhenPartitionIsFull() throws Exception {
+        // GIVEN: el consumidor queda bloqueado en la primera compra
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(inventarioService.comprarProducto(eq(productoId), anyInt())).thenAnswer(invocacion -> {
+            enCurso.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return inventario(0);
+        });
+        compraAsincronaService.encolarCompra(productoId, 1, null);
+        assertTrue(enCurso.await(2, TimeUnit.SECONDS));
+        compraAsincronaService.encolarCompra(productoId, 1, null);
+        compraAsincronaService.encolarCompra(productoId, 1, null);
+
+        // WHEN & THEN
+        ColaComprasLlenaException ex = assertThrows(ColaComprasLlenaException.class,
+                () -> compraAsincronaService.encolarCompra(productoId, 1, null));
+        assertEquals(3, ex.getReintentarEnSegundos());
+        liberar.countDown();
+    }
+
+    @Test
+    @DisplayName("Al detenerse debe rechazar las compras nuevas y resolver las que quedaban en cola")
+    void detener_shouldRejectNewPurchasesAndResolveQueuedOnes() throws Exception {
+        // GIVEN: el consumidor está ocupado con una compra y hay otra en cola
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(inventarioService.comprarProducto(eq(productoId), anyInt())).thenAnswer(invocacion -> {
+            enCurso.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return inventario(0);
+        });
+        compraAsincronaService.encolarCompra(productoId, 1, null);
+        assertTrue(enCurso.await(2, TimeUnit.SECONDS));
+        String enCola = compraAsincronaService.encolarCompra(productoId, 1, null).getId();
+        // Las compras de sondeo van al otro producto (la otra partición), que sí se procesan
+        lenient().when(inventarioService.comprarProducto(eq(productoId + 1), anyInt())).thenReturn(inventario(0));
+
+        // WHEN: se detiene mientras el consumidor sigue ocupado
+        Thread deteniendo = Thread.ofVirtual().start(compraAsincronaService::detener);
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        ColaComprasLlenaException rechazo = null;
+        while (rechazo == null && System.nanoTime() < limite) {
+            try {
+                compraAsincronaService.encolarCompra(productoId + 1, 1, null);
+                Thread.sleep(1);
+            } catch (ColaComprasLlenaException e) {
+                rechazo = e;
+            }
+        }
+        liberar.countDown();
+        deteniendo.join(TimeUnit.SECONDS.toMillis(5));
+
+        // THEN: nada aceptado se queda sin resolver. Si el consumidor vuelve antes de que se
+        // paren los consumidores, procesa la compra en cola; si no, el vaciado final la rechaza
+        assertEquals("El servicio de compras asíncronas no está activo", rechazo == null ? null : rechazo.getMessage());
+        OperacionCompraDto resuelta = compraAsincronaService.esperarResolucion(enCola).get(2, TimeUnit.SECONDS);
+        assertNotEquals(EstadoOperacionCompra.PENDIENTE, resuelta.getEstado());
+        assertThrows(ColaComprasLlenaException.class, () -> compraAsincronaService.encolarCompra(productoId, 1, null));
+    }
+
+    @Test
+    @DisplayName("Debe pasar por el servicio de idempotencia cuando hay Idempotency-Key")
+    void encolarCompra_shouldUseIdempotencyKey() throws Exception {
+        // GIVEN
+        when(idempotenciaService.ejecutar(eq("clave-1"), eq(productoId), eq(2), any()))
+                .thenAnswer(invocacion -> invocacion.<Supplier<InventarioDto>>getArgument(3).get());
+        when(inventarioService.comprarProducto(productoId, 2, "clave-1")).thenReturn(inventario(8));
+
+        // WHEN
+        String id = compraAsincronaService.encolarCompra(productoId, 2, "clave-1").getId();
+        OperacionCompraDto resuelta = compraAsincronaService.esperarResolucion(id).get(2, TimeUnit.SECONDS);
+
+        // THEN
+        assertEquals(EstadoOperacionCompra.COMPLETADA, resuelta.getEstado());
+        verify(inventarioService, never()).comprarProducto(productoId, 2);
+    }
+
+    @Test
+    @DisplayName("Debe lanzar RecursoNoEncontradoException para una operación desconocida")
+    void consultarOperacion_shouldThrowWhenUnknown() {
+        // WHEN & THEN
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> compraAsincronaService.consultarOperacion("no-existe"));
+    }
+
+    private InventarioDto inventario(int cantidad) {
+        return InventarioDto.builder().id(1L).productoId(productoId).cantidad(cantidad).reservado(0).build();
+    }
+}
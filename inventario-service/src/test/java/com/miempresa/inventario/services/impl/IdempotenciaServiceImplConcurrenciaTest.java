@@ -0,0 +1,96 @@
+package com.miempresa.inventario.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.entities.CompraIdempotenteEntity;
+import com.miempresa.inventario.repositories.CompraIdempotenteRepository;
+
+/**
+ * Idempotency-Key contra una base real (H2): el reintento que registra su respuesta después de
+ * que otro haya confirmado debe fallar por clave duplicada, no sobrescribir la respuesta del
+ * primero; una fila expirada y aún sin purgar, en cambio, no debe bloquear la clave.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "inventario.movimientos.particionado=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotenciaServiceImplConcurrenciaTest {
+
+    @Autowired
+    private CompraIdempotenteRepository compraIdempotenteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String clave = "compra-concurrente";
+    private final Long productoId = 101L;
+
+    // Sin transacción de prueba nada se deshace solo. deleteAll no sirve: delete ignora las
+    // entidades que se declaran nuevas, y estas lo son siempre
+    @BeforeEach
+    void setUp() {
+        compraIdempotenteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Debe fallar por clave duplicada si otro reintento ya confirmó su respuesta")
+    void registrarRespuesta_shouldFailWhenWinnerAlreadyCommitted() {
+        // GIVEN: cada reintento en su instancia, con su propia caché, como en dos réplicas del servicio
+        IdempotenciaServiceImpl ganador = new IdempotenciaServiceImpl(compraIdempotenteRepository, 100, 24);
+        IdempotenciaServiceImpl perdedor = new IdempotenciaServiceImpl(compraIdempotenteRepository, 100, 24);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        // WHEN: el ganador confirma mientras el perdedor aún esperaba a MSProducto
+        transaccion.executeWithoutResult(estado -> ganador.registrarRespuesta(clave, productoId, 2, respuesta(8)));
+
+        // THEN: el perdedor no puede registrar la suya y su transacción (con su descuento) se deshace
+        assertThrows(DataIntegrityViolationException.class, () -> transaccion.executeWithoutResult(
+                estado -> perdedor.registrarRespuesta(clave, productoId, 2, respuesta(6))));
+        assertEquals(8, compraIdempotenteRepository.findById(clave).orElseThrow().getCantidadResultante());
+        assertEquals(8, perdedor.buscarRespuesta(clave, productoId, 2).orElseThrow().getCantidad());
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar la compra y sustituir la respuesta expirada que aún no se ha purgado")
+    void ejecutar_shouldReplaceExpiredRowNotYetPurged() {
+        // GIVEN: la clave se usó hace más de un TTL y la purga todavía no ha pasado
+        compraIdempotenteRepository.saveAndFlush(new CompraIdempotenteEntity(
+                clave, productoId, 2, 1L, 8, 0, Instant.now().minusSeconds(60)));
+        IdempotenciaServiceImpl servicio = new IdempotenciaServiceImpl(compraIdempotenteRepository, 100, 24);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        // WHEN: como el controlador, la compra y su registro van en una transacción
+        InventarioDto resultado = servicio.ejecutar(clave, productoId, 2, () -> transaccion.execute(estado -> {
+            servicio.registrarRespuesta(clave, productoId, 2, respuesta(5));
+            return respuesta(5);
+        }));
+
+        // THEN: la compra no se deshace por clave duplicada y queda la respuesta nueva
+        assertEquals(5, resultado.getCantidad());
+        CompraIdempotenteEntity guardada = compraIdempotenteRepository.findById(clave).orElseThrow();
+        assertEquals(5, guardada.getCantidadResultante());
+        assertTrue(guardada.getExpiraEn().isAfter(Instant.now()));
+    }
+
+    private InventarioDto respuesta(int cantidad) {
+        return InventarioDto.builder().id(1L).productoId(productoId).cantidad(cantidad).reservado(0).build();
+    }
+}
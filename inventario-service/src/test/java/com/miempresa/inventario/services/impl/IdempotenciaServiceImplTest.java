@@ -0,0 +1,152 @@
+package com.miempresa.inventario.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.miempresa.inventario.dtos.InventarioDto;
+import com.miempresa.inventario.entities.CompraIdempotenteEntity;
+import com.miempresa.inventario.exceptions.IdempotenciaConflictoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
+import com.miempresa.inventario.repositories.CompraIdempotenteRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceImplTest {
+
+    @Mock
+    private CompraIdempotenteRepository compraIdempotenteRepository;
+
+    private IdempotenciaServiceImpl idempotenciaService;
+
+    private final String clave = "compra-123";
+    private final Long productoId = 101L;
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaService = new IdempotenciaServiceImpl(compraIdempotenteRepository, 100, 24);
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar la compra y registrar su respuesta si la clave es nueva")
+    void ejecutar_shouldRunPurchaseWhenKeyIsNew() {
+        // GIVEN
+        when(compraIdempotenteRepository.findById(clave)).thenReturn(Optional.empty());
+        AtomicInteger compras = new AtomicInteger();
+
+        // WHEN
+        InventarioDto resultado = idempotenciaService.ejecutar(clave, productoId, 2, () -> {
+            compras.incrementAndGet();
+            return respuesta(8);
+        });
+
+        // THEN
+        assertEquals(1, compras.get());
+        assertEquals(8, resultado.getCantidad());
+    }
+
+    @Test
+    @DisplayName("Debe devolver la respuesta guardada sin ejecutar la compra y cachearla tras la primera lectura")
+    void ejecutar_shouldReplayStoredResponseFromCache() {
+        // GIVEN: la respuesta ya está en la tabla
+        when(compraIdempotenteRepository.findById(clave)).thenReturn(Optional.of(guardada(2, 8)));
+
+        // WHEN: dos reintentos
+        InventarioDto primera = idempotenciaService.ejecutar(clave, productoId, 2, () -> {
+            throw new AssertionError("No debe volver a comprar");
+        });
+        InventarioDto segunda = idempotenciaService.ejecutar(clave, productoId, 2, () -> {
+            throw new AssertionError("No debe volver a comprar");
+        });
+
+        // THEN: solo la primera consulta la base de datos
+        assertEquals(8, primera.getCantidad());
+        assertEquals(primera, segunda);
+        verify(compraIdempotenteRepository, times(1)).findById(clave);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una clave reutilizada con otros parámetros")
+    void ejecutar_shouldRejectKeyReusedWithDifferentParameters() {
+        // GIVEN
+        when(compraIdempotenteRepository.findById(clave)).thenReturn(Optional.of(guardada(2, 8)));
+
+        // WHEN & THEN
+        assertThrows(IdempotenciaConflictoException.class,
+                () -> idempotenciaService.ejecutar(clave, productoId, 5, () -> respuesta(5)));
+    }
+
+    @Test
+    @DisplayName("Debe devolver la respuesta del reintento concurrente que confirmó primero")
+    void ejecutar_shouldReturnWinnerResponseOnConcurrentDuplicate() {
+        // GIVEN: al empezar no hay respuesta; al fallar el insert ya la hay
+        when(compraIdempotenteRepository.findById(clave))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(guardada(2, 8)));
+
+        // WHEN
+        InventarioDto resultado = idempotenciaService.ejecutar(clave, productoId, 2, () -> {
+            throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+        });
+
+        // THEN
+        assertEquals(8, resultado.getCantidad());
+    }
+
+    @Test
+    @DisplayName("Debe ignorar respuestas expiradas que aún no se han purgado")
+    void buscarRespuesta_shouldIgnoreExpiredRows() {
+        // GIVEN
+        CompraIdempotenteEntity expirada = guardada(2, 8);
+        expirada.setExpiraEn(Instant.now().minusSeconds(1));
+        when(compraIdempotenteRepository.findById(clave)).thenReturn(Optional.of(expirada));
+
+        // WHEN & THEN
+        assertTrue(idempotenciaService.buscarRespuesta(clave, productoId, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar claves vacías o demasiado largas")
+    void buscarRespuesta_shouldRejectInvalidKeys() {
+        assertThrows(SolicitudInvalidaException.class, () -> idempotenciaService.buscarRespuesta(" ", productoId, 1));
+        assertThrows(SolicitudInvalidaException.class,
+                () -> idempotenciaService.buscarRespuesta("x".repeat(101), productoId, 1));
+    }
+
+    @Test
+    @DisplayName("Debe registrar la respuesta con flush inmediato para detectar claves duplicadas")
+    void registrarRespuesta_shouldSaveAndFlush() {
+        // WHEN
+        idempotenciaService.registrarRespuesta(clave, productoId, 2, respuesta(8));
+
+        // THEN: fuera de transacción queda en caché al instante
+        verify(compraIdempotenteRepository).eliminarSiExpirada(eq(clave), any(Instant.class));
+        verify(compraIdempotenteRepository).saveAndFlush(any(CompraIdempotenteEntity.class));
+        assertEquals(8, idempotenciaService.buscarRespuesta(clave, productoId, 2).orElseThrow().getCantidad());
+    }
+
+    private InventarioDto respuesta(int cantidad) {
+        return InventarioDto.builder().id(1L).productoId(productoId).cantidad(cantidad).reservado(0).build();
+    }
+
+    private CompraIdempotenteEntity guardada(int cantidadSolicitada, int cantidadResultante) {
+        return new CompraIdempotenteEntity(clave, productoId, cantidadSolicitada, 1L, cantidadResultante, 0,
+                Instant.now().plusSeconds(3600));
+    }
+}
@@ -5,8 +5,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
@@ -14,7 +17,12 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +30,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -33,10 +42,19 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.inventario.dtos.DisponibilidadDto;
+import com.miempresa.inventario.dtos.InventarioDetalleDto;
 import com.miempresa.inventario.dtos.InventarioDto;
 import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.exceptions.CodigoError;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
 import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.SolicitudInvalidaException;
 import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.services.IdempotenciaService;
+import com.miempresa.inventario.services.MovimientoInventarioService;
 
 @ExtendWith(MockitoExtension.class)
 class InventarioServiceImplTest {
@@ -47,6 +65,18 @@ class InventarioServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private MovimientoInventarioService movimientoInventarioService;
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    @Mock
+    private Executor consultasExecutor;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private InventarioServiceImpl inventarioService;
 
@@ -248,44 +278,73 @@ class InventarioServiceImplTest {
 
 
     @Test
-    @DisplayName("Debe crear una nueva entrada de inventario cuando el producto existe y no hay registro previo")
-    void actualizarCantidadInventario_shouldCreateNewEntryWhenProductExistsAndNoPriorRecord() {
+    @DisplayName("Debe fijar la cantidad con un upsert de una sola sentencia cuando el producto existe")
+    void actualizarCantidadInventario_shouldUpsertQuantityWhenProductExists() {
         // GIVEN: El producto existe en el servicio externo
         int nuevaCantidad = 70;
-        // La entidad que simula el retorno de la DB con un ID asignado
-        InventarioEntity savedInventarioEntity = new InventarioEntity(1L, productoIdExistente, nuevaCantidad);
+        // La fila que devuelve el INSERT ... ON CONFLICT ... RETURNING
+        InventarioEntity filaAlmacenada = new InventarioEntity(1L, productoIdExistente, nuevaCantidad);
 
-        // Mockear el servicio de productos externo como exitoso
         mockProductServiceSuccess(productoIdExistente, "Producto existe");
-
-        // --- ¡LÍNEA ELIMINADA! ---
-        // Tu servicio actualmente no llama a findByProductoId en este método,
-        // siempre crea una nueva entidad. Por lo tanto, este mock es innecesario.
-        // when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.empty());
-        // -------------------------
-        
-        // Mockear que save devuelve la entidad con el ID
-        when(inventarioRepository.save(any(InventarioEntity.class))).thenReturn(savedInventarioEntity);
+        when(inventarioRepository.upsertCantidad(productoIdExistente, nuevaCantidad)).thenReturn(Optional.of(filaAlmacenada));
 
         // WHEN
         InventarioDto result = inventarioService.actualizarCantidadInventario(productoIdExistente, nuevaCantidad);
 
         // THEN
         assertNotNull(result);
-        assertEquals(savedInventarioEntity.getId(), result.getId());
+        assertEquals(filaAlmacenada.getId(), result.getId());
         assertEquals(productoIdExistente, result.getProductoId());
         assertEquals(nuevaCantidad, result.getCantidad());
 
-        // Verificaciones
         verify(restTemplate, times(1)).exchange(
             eq(PRODUCTOS_API_URL + "/productos/" + productoIdExistente),
             eq(HttpMethod.GET),
             any(HttpEntity.class),
             eq(String.class)
         );
-        // Verifica explícitamente que findByProductoId *nunca* fue llamado
-        verify(inventarioRepository, never()).findByProductoId(anyLong()); 
-        verify(inventarioRepository, times(1)).save(any(InventarioEntity.class)); // Se llamó save para una nueva entidad
+        // Una sola sentencia: ni lectura previa ni save
+        verify(inventarioRepository, times(1)).upsertCantidad(productoIdExistente, nuevaCantidad);
+        verify(inventarioRepository, never()).findByProductoId(anyLong());
+        verify(inventarioRepository, never()).save(any(InventarioEntity.class));
+        // El ajuste queda en el libro de movimientos con la cantidad absoluta
+        verify(movimientoInventarioService, times(1)).registrarMovimiento(
+            productoIdExistente, TipoMovimiento.AJUSTE, null, nuevaCantidad, null);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar con 409 una cantidad que no cubre las unidades reservadas")
+    void actualizarCantidadInventario_shouldRejectQuantityBelowReserved() {
+        // GIVEN: 5 unidades reservadas; el DO UPDATE con WHERE reservado <= 2 no devuelve fila
+        mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.upsertCantidad(productoIdExistente, 2)).thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        InventarioInsuficienteException ex = assertThrows(InventarioInsuficienteException.class,
+                () -> inventarioService.actualizarCantidadInventario(productoIdExistente, 2));
+        assertEquals(CodigoError.INVENTARIO_INSUFICIENTE, ex.getCodigo());
+        verify(movimientoInventarioService, never()).registrarMovimiento(
+            anyLong(), any(TipoMovimiento.class), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Debe actualizar la cantidad en sucesivas llamadas para el mismo producto en lugar de fallar por producto_id único")
+    void actualizarCantidadInventario_shouldUpdateExistingRowOnSecondCall() {
+        // GIVEN: Ya existe una fila para el producto; el upsert devuelve siempre la misma fila actualizada
+        mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.upsertCantidad(productoIdExistente, 10))
+                .thenReturn(Optional.of(new InventarioEntity(1L, productoIdExistente, 10)));
+        when(inventarioRepository.upsertCantidad(productoIdExistente, 25))
+                .thenReturn(Optional.of(new InventarioEntity(1L, productoIdExistente, 25)));
+
+        // WHEN
+        InventarioDto primera = inventarioService.actualizarCantidadInventario(productoIdExistente, 10);
+        InventarioDto segunda = inventarioService.actualizarCantidadInventario(productoIdExistente, 25);
+
+        // THEN: Misma fila, cantidad reemplazada
+        assertEquals(primera.getId(), segunda.getId());
+        assertEquals(25, segunda.getCantidad());
+        verify(inventarioRepository, never()).save(any(InventarioEntity.class));
     }
 
 
@@ -316,7 +375,7 @@ class InventarioServiceImplTest {
         
         // Verificamos que el repositorio no fue llamado
         verify(inventarioRepository, never()).findByProductoId(anyLong()); // No se intentó buscar
-        verify(inventarioRepository, never()).save(any(InventarioEntity.class)); // Ni guardar
+        verify(inventarioRepository, never()).upsertCantidad(anyLong(), anyInt()); // Ni guardar
     }
     @Test
     @DisplayName("Debe lanzar RecursoNoEncontradoException (Client Error) si el MS de Productos devuelve otro 4xx al actualizar")
@@ -447,16 +506,14 @@ class InventarioServiceImplTest {
     @DisplayName("Debe procesar la compra y reducir la cantidad del inventario")
     void comprarProducto_shouldReduceInventarioQuantity() {
         // GIVEN: Inventario existente con suficiente cantidad
-        InventarioEntity inventarioInicial = new InventarioEntity(1L, productoIdExistente, 100);
         InventarioEntity inventarioDespuesCompra = new InventarioEntity(1L, productoIdExistente, 90); // 100 - 10
 
         // Mock de la validación de existencia del producto (exitosa)
         mockProductServiceSuccess(productoIdExistente, "Producto existe");
         
-        // Mock de findByProductoId para devolver el inventario inicial
-        when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.of(inventarioInicial));
-        // Mock de save para devolver el inventario después de la compra
-        when(inventarioRepository.save(any(InventarioEntity.class))).thenReturn(inventarioDespuesCompra);
+        // El UPDATE condicional descuenta la fila; después se lee su estado
+        when(inventarioRepository.descontarCantidad(productoIdExistente, 10)).thenReturn(1);
+        when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.of(inventarioDespuesCompra));
 
         // WHEN: Llamamos al método comprarProducto
         InventarioDto resultado = inventarioService.comprarProducto(productoIdExistente, 10);
@@ -474,8 +531,11 @@ class InventarioServiceImplTest {
             any(HttpEntity.class),
             eq(String.class)
         );
-        verify(inventarioRepository, times(1)).findByProductoId(productoIdExistente);
-        verify(inventarioRepository, times(1)).save(inventarioInicial);
+        verify(inventarioRepository, times(1)).descontarCantidad(productoIdExistente, 10);
+        verify(inventarioRepository, never()).save(any(InventarioEntity.class)); // Sin leer, restar y guardar
+        verify(movimientoInventarioService, times(1)).registrarMovimiento(
+            productoIdExistente, TipoMovimiento.COMPRA, -10, 90, null);
+        verify(idempotenciaService, never()).registrarRespuesta(any(), any(), anyInt(), any());
     }
 
     @Test
@@ -503,14 +563,14 @@ class InventarioServiceImplTest {
         assertEquals(expectedMessage, thrown.getMessage());
         
         // Verificamos que el repositorio no fue llamado
-        verify(inventarioRepository, never()).findByProductoId(anyLong());
-        verify(inventarioRepository, never()).save(any(InventarioEntity.class));
+        verify(inventarioRepository, never()).descontarCantidad(anyLong(), anyInt());
     }
     @Test
     @DisplayName("Debe lanzar RecursoNoEncontradoException si el inventario no existe para el producto al comprar")
     void comprarProducto_shouldThrowRecursoNoEncontradoExceptionWhenInventarioNotFound() {
         // GIVEN: El producto existe en el MS de Productos, pero no hay registro de inventario para él en la DB
         mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.descontarCantidad(productoIdExistente, 10)).thenReturn(0);
         when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.empty());
 
         // WHEN & THEN
@@ -520,31 +580,210 @@ class InventarioServiceImplTest {
 
         assertEquals("Inventario no encontrado", thrown.getMessage());
         verify(inventarioRepository, times(1)).findByProductoId(productoIdExistente);
-        verify(inventarioRepository, never()).save(any(InventarioEntity.class));
     }
 
     @Test
-    @DisplayName("Debe lanzar IllegalArgumentException si el inventario es insuficiente para la compra")
-    void comprarProducto_shouldThrowIllegalArgumentExceptionWhenInsufficientInventario() {
+    @DisplayName("Debe lanzar InventarioInsuficienteException si el inventario es insuficiente para la compra")
+    void comprarProducto_shouldThrowInventarioInsuficienteExceptionWhenInsufficientInventario() {
         // GIVEN: Inventario existente pero con cantidad insuficiente
         InventarioEntity inventarioInsuficiente = new InventarioEntity(1L, productoIdExistente, 5); // Solo 5 unidades
 
         // Mock de la validación de existencia del producto (exitosa)
         mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.descontarCantidad(productoIdExistente, 10)).thenReturn(0);
         when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.of(inventarioInsuficiente));
 
         // WHEN & THEN
-        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+        InventarioInsuficienteException thrown = assertThrows(InventarioInsuficienteException.class, () -> {
             inventarioService.comprarProducto(productoIdExistente, 10); // Intentar comprar 10, solo hay 5
         });
 
         assertEquals("Inventario insuficiente", thrown.getMessage());
+        assertEquals(CodigoError.INVENTARIO_INSUFICIENTE, thrown.getCodigo());
+        assertEquals(0, thrown.getStackTrace().length); // Error de negocio: sin traza
         verify(inventarioRepository, times(1)).findByProductoId(productoIdExistente);
-        verify(inventarioRepository, never()).save(any(InventarioEntity.class)); // No se debe guardar si hay error
+        verify(movimientoInventarioService, never()).registrarMovimiento(
+            anyLong(), any(TipoMovimiento.class), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Debe guardar la respuesta de la compra bajo su Idempotency-Key en la misma transacción")
+    void comprarProducto_shouldRegisterResponseWhenIdempotencyKeyPresent() {
+        // GIVEN
+        InventarioEntity inventario = new InventarioEntity(1L, productoIdExistente, 90);
+        mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.descontarCantidad(productoIdExistente, 10)).thenReturn(1);
+        when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.of(inventario));
+
+        // WHEN
+        InventarioDto resultado = inventarioService.comprarProducto(productoIdExistente, 10, "clave-1");
+
+        // THEN
+        verify(idempotenciaService, times(1)).registrarRespuesta("clave-1", productoIdExistente, 10, resultado);
+    }
+
+    @Test
+    @DisplayName("No debe vender las unidades retenidas por reservas pendientes")
+    void comprarProducto_shouldNotSellReservedUnits() {
+        // GIVEN: 10 unidades, 8 reservadas -> solo 2 disponibles: el UPDATE condicional no afecta a la fila
+        InventarioEntity inventario = new InventarioEntity(1L, productoIdExistente, 10, 8);
+        mockProductServiceSuccess(productoIdExistente, "Producto existe");
+        when(inventarioRepository.descontarCantidad(productoIdExistente, 3)).thenReturn(0);
+        when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.of(inventario));
+
+        // WHEN & THEN
+        assertThrows(InventarioInsuficienteException.class, () -> inventarioService.comprarProducto(productoIdExistente, 3));
+        verify(movimientoInventarioService, never()).registrarMovimiento(
+            anyLong(), any(TipoMovimiento.class), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una compra de cantidad no positiva sin tocar el inventario")
+    void comprarProducto_shouldRejectNonPositiveQuantity() {
+        // WHEN & THEN: con -5 el UPDATE condicional se cumpliría y sumaría 5 unidades
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.comprarProducto(productoIdExistente, -5));
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.comprarProducto(productoIdExistente, 0));
+        verify(inventarioRepository, never()).descontarCantidad(anyLong(), anyInt());
+        verify(movimientoInventarioService, never()).registrarMovimiento(
+            anyLong(), any(TipoMovimiento.class), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Debe devolver el producto y su stock en un único recurso compuesto")
+    void consultarDetalleInventario_shouldCombineProductAndStock() {
+        // GIVEN
+        ejecutarConsultasEnLinea();
+        mockProductServiceSuccess(productoIdExistente, productoJsonApi(productoIdExistente));
+        when(inventarioRepository.findByProductoId(productoIdExistente))
+                .thenReturn(Optional.of(new InventarioEntity(1L, productoIdExistente, 40, 5)));
+
+        // WHEN
+        InventarioDetalleDto detalle = inventarioService.consultarDetalleInventario(productoIdExistente);
+
+        // THEN
+        assertEquals(productoIdExistente, detalle.getProductoId());
+        assertEquals("Producto Test", detalle.getProducto().getNombre());
+        assertEquals(40, detalle.getCantidad());
+        assertEquals(5, detalle.getReservado());
+        assertEquals(35, detalle.getDisponible());
+    }
+
+    @Test
+    @DisplayName("Debe informar stock cero si el producto existe pero no tiene fila de inventario")
+    void consultarDetalleInventario_shouldReturnZeroStockWhenNoInventarioRow() {
+        // GIVEN
+        ejecutarConsultasEnLinea();
+        mockProductServiceSuccess(productoIdExistente, productoJsonApi(productoIdExistente));
+        when(inventarioRepository.findByProductoId(productoIdExistente)).thenReturn(Optional.empty());
+
+        // WHEN
+        InventarioDetalleDto detalle = inventarioService.consultarDetalleInventario(productoIdExistente);
+
+        // THEN
+        assertEquals(0, detalle.getCantidad());
+        assertEquals(0, detalle.getDisponible());
+    }
+
+    @Test
+    @DisplayName("Debe propagar RecursoNoEncontradoException si el producto no existe al consultar el detalle")
+    void consultarDetalleInventario_shouldPropagateNotFound() {
+        // GIVEN
+        ejecutarConsultasEnLinea();
+        doThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, "NOT_FOUND", "".getBytes(), null))
+            .when(restTemplate).exchange(
+                eq(PRODUCTOS_API_URL + "/productos/" + productoIdNoExistenteEnMsProductos),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(String.class)
+            );
+
+        // WHEN & THEN: la excepción llega sin envolver en CompletionException
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> inventarioService.consultarDetalleInventario(productoIdNoExistenteEnMsProductos));
+    }
+
+    @Test
+    @DisplayName("Debe consultar producto y stock en paralelo: la latencia es la de la más lenta, no la suma")
+    void consultarDetalleInventario_shouldFanOutConcurrently() throws Exception {
+        // GIVEN: cada fuente tarda 300 ms
+        ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        ReflectionTestUtils.setField(inventarioService, "consultasExecutor", ejecutor);
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return new ResponseEntity<>(productoJsonApi(productoIdExistente), HttpStatus.OK);
+        }).when(restTemplate).exchange(
+                eq(PRODUCTOS_API_URL + "/productos/" + productoIdExistente),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(String.class));
+        when(inventarioRepository.findByProductoId(productoIdExistente)).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return Optional.of(new InventarioEntity(1L, productoIdExistente, 10));
+        });
+
+        // WHEN
+        long inicio = System.nanoTime();
+        InventarioDetalleDto detalle = inventarioService.consultarDetalleInventario(productoIdExistente);
+        long transcurridoMs = (System.nanoTime() - inicio) / 1_000_000;
+        ejecutor.close();
+
+        // THEN
+        assertEquals(10, detalle.getCantidad());
+        assertTrue(transcurridoMs < 550, "La consulta tardó " + transcurridoMs + " ms; se esperaba ~300 ms");
+    }
+
+    @Test
+    @DisplayName("Debe resolver la disponibilidad de varios productos con una consulta IN y una llamada por lote")
+    void consultarDisponibilidad_shouldBatchBothLookups() {
+        // GIVEN: 102 no existe en MSProducto y 103 existe pero no tiene fila de inventario
+        ejecutarConsultasEnLinea();
+        String url = PRODUCTOS_API_URL + "/productos?filter[id]=101,102,103";
+        doReturn(new ResponseEntity<>("[" + productoJsonApi(101L) + "," + productoJsonApi(103L) + "]", HttpStatus.OK))
+            .when(restTemplate).exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        when(inventarioRepository.findByProductoIdIn(List.of(101L, 102L, 103L)))
+                .thenReturn(List.of(new InventarioEntity(1L, 101L, 10, 10)));
+
+        // WHEN: el id repetido se consulta una sola vez
+        List<DisponibilidadDto> resultado = inventarioService.consultarDisponibilidad(List.of(101L, 102L, 103L, 101L));
+
+        // THEN
+        assertEquals(2, resultado.size());
+        assertEquals(101L, resultado.get(0).getProductoId());
+        assertEquals(0, resultado.get(0).getDisponible());
+        assertEquals(false, resultado.get(0).getEnStock());
+        assertEquals(103L, resultado.get(1).getProductoId());
+        assertEquals(0, resultado.get(1).getCantidad());
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        verify(inventarioRepository, never()).findByProductoId(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la consulta de disponibilidad vacía o que supera el máximo de ids")
+    void consultarDisponibilidad_shouldRejectEmptyOrTooManyIds() {
+        // GIVEN
+        List<Long> demasiados = LongStream.rangeClosed(1, 201).boxed().toList();
+
+        // WHEN & THEN
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.consultarDisponibilidad(List.of()));
+        assertThrows(SolicitudInvalidaException.class, () -> inventarioService.consultarDisponibilidad(demasiados));
+        verify(restTemplate, never()).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+        verify(inventarioRepository, never()).findByProductoIdIn(any());
     }
 
     // --- Métodos de Ayuda para Mocks ---
 
+    private void ejecutarConsultasEnLinea() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(consultasExecutor).execute(any(Runnable.class));
+    }
+
+    private String productoJsonApi(Long id) {
+        return "{\"data\":{\"type\":\"producto\",\"id\":\"" + id + "\",\"attributes\":"
+                + "{\"id\":" + id + ",\"nombre\":\"Producto Test\",\"descripcion\":\"Desc\",\"precio\":10.0}}}";
+    }
+
     private void mockProductServiceSuccess(Long productId, String responseBody) {
         doReturn(new ResponseEntity<>(responseBody, HttpStatus.OK))
             .when(restTemplate).exchange(
@@ -0,0 +1,150 @@
+package com.miempresa.inventario.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.miempresa.inventario.dtos.NivelInventarioDto;
+import com.miempresa.inventario.entities.MovimientoInventarioEntity;
+import com.miempresa.inventario.entities.SnapshotInventarioEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.repositories.MovimientoInventarioRepository;
+import com.miempresa.inventario.repositories.SnapshotInventarioRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MovimientoInventarioServiceImplTest {
+
+    @Mock
+    private MovimientoInventarioRepository movimientoRepository;
+
+    @Mock
+    private SnapshotInventarioRepository snapshotRepository;
+
+    @InjectMocks
+    private MovimientoInventarioServiceImpl movimientoService;
+
+    private final Long productoId = 101L;
+    private final Instant corte = Instant.parse("2026-03-01T00:00:00Z");
+    private final Instant instante = Instant.parse("2026-03-10T12:00:00Z");
+
+    @Test
+    @DisplayName("Debe registrar cada movimiento con un único insert")
+    void registrarMovimiento_shouldInsertOneRow() {
+        // WHEN
+        movimientoService.registrarMovimiento(productoId, TipoMovimiento.COMPRA, -2, 8, null);
+
+        // THEN
+        ArgumentCaptor<MovimientoInventarioEntity> captor = ArgumentCaptor.forClass(MovimientoInventarioEntity.class);
+        verify(movimientoRepository).save(captor.capture());
+        assertEquals(TipoMovimiento.COMPRA, captor.getValue().getTipo());
+        assertEquals(-2, captor.getValue().getVariacion());
+        assertEquals(8, captor.getValue().getCantidadResultante());
+    }
+
+    @Test
+    @DisplayName("Debe calcular el nivel desde el snapshot y los movimientos posteriores a él")
+    void consultarNivel_shouldUseSnapshotAndLaterMovements() {
+        // GIVEN: snapshot a 50 y una compra posterior que deja 47
+        when(snapshotRepository.findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(productoId, instante))
+                .thenReturn(Optional.of(new SnapshotInventarioEntity(1L, productoId, 50, corte)));
+        when(snapshotRepository.findUltimoCorte(instante)).thenReturn(Optional.of(corte));
+        when(movimientoRepository.findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+                productoId, corte, instante))
+                .thenReturn(Optional.of(movimiento(47)));
+
+        // WHEN
+        NivelInventarioDto nivel = movimientoService.consultarNivel(productoId, instante);
+
+        // THEN
+        assertEquals(47, nivel.getCantidad());
+        verify(movimientoRepository, never())
+                .findFirstByProductoIdAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debe devolver la cantidad del snapshot si no hubo movimientos después del corte")
+    void consultarNivel_shouldReturnSnapshotWhenNoLaterMovements() {
+        // GIVEN
+        when(snapshotRepository.findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(productoId, instante))
+                .thenReturn(Optional.of(new SnapshotInventarioEntity(1L, productoId, 50, corte)));
+        when(snapshotRepository.findUltimoCorte(instante)).thenReturn(Optional.of(corte));
+        when(movimientoRepository.findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+                productoId, corte, instante))
+                .thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        assertEquals(50, movimientoService.consultarNivel(productoId, instante).getCantidad());
+    }
+
+    @Test
+    @DisplayName("Sin snapshot del producto debe acotar la búsqueda por el último corte global")
+    void consultarNivel_shouldBoundByGlobalCutWhenProductHasNoSnapshot() {
+        // GIVEN
+        when(snapshotRepository.findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(productoId, instante))
+                .thenReturn(Optional.empty());
+        when(snapshotRepository.findUltimoCorte(instante)).thenReturn(Optional.of(corte));
+        when(movimientoRepository.findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+                productoId, corte, instante))
+                .thenReturn(Optional.of(movimiento(12)));
+
+        // WHEN & THEN
+        assertEquals(12, movimientoService.consultarNivel(productoId, instante).getCantidad());
+    }
+
+    @Test
+    @DisplayName("Con un snapshot del producto anterior al último corte global debe acotar por el corte")
+    void consultarNivel_shouldBoundByGlobalCutWhenProductSnapshotIsOlder() {
+        // GIVEN: el producto no se movió en la última ventana compactada, así que su snapshot es de un corte anterior
+        Instant corteAnterior = Instant.parse("2026-01-01T00:00:00Z");
+        when(snapshotRepository.findFirstByProductoIdAndTomadoEnLessThanEqualOrderByTomadoEnDesc(productoId, instante))
+                .thenReturn(Optional.of(new SnapshotInventarioEntity(1L, productoId, 50, corteAnterior)));
+        when(snapshotRepository.findUltimoCorte(instante)).thenReturn(Optional.of(corte));
+        when(movimientoRepository.findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+                productoId, corte, instante))
+                .thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        assertEquals(50, movimientoService.consultarNivel(productoId, instante).getCantidad());
+        verify(movimientoRepository, never())
+                .findFirstByProductoIdAndCreadoEnGreaterThanAndCreadoEnLessThanEqualOrderByCreadoEnDescIdDesc(
+                        productoId, corteAnterior, instante);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un intervalo de movimientos invertido")
+    void listarMovimientos_shouldRejectInvertedInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> movimientoService.listarMovimientos(productoId, instante, corte));
+    }
+
+    @Test
+    @DisplayName("Debe compactar desde el último corte existente")
+    void compactarSnapshots_shouldStartFromLastCut() {
+        // GIVEN
+        Instant nuevoCorte = Instant.parse("2026-03-01T01:00:00Z");
+        when(snapshotRepository.findUltimoCorte(nuevoCorte)).thenReturn(Optional.of(corte));
+        when(snapshotRepository.compactar(corte, nuevoCorte)).thenReturn(3);
+
+        // WHEN & THEN
+        assertEquals(3, movimientoService.compactarSnapshots(nuevoCorte));
+    }
+
+    private MovimientoInventarioEntity movimiento(int cantidadResultante) {
+        return new MovimientoInventarioEntity(9L, productoId, TipoMovimiento.COMPRA, -3, cantidadResultante, null,
+                instante.minusSeconds(3600));
+    }
+}
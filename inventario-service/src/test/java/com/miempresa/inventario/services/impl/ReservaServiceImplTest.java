@@ -0,0 +1,250 @@
+package com.miempresa.inventario.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.miempresa.inventario.dtos.ReservaDto;
+import com.miempresa.inventario.entities.EstadoReserva;
+import com.miempresa.inventario.entities.InventarioEntity;
+import com.miempresa.inventario.entities.ReservaEntity;
+import com.miempresa.inventario.entities.TipoMovimiento;
+import com.miempresa.inventario.exceptions.InventarioInsuficienteException;
+import com.miempresa.inventario.exceptions.RecursoNoEncontradoException;
+import com.miempresa.inventario.exceptions.ReservaNoPendienteException;
+import com.miempresa.inventario.repositories.InventarioRepository;
+import com.miempresa.inventario.repositories.ReservaRepository;
+import com.miempresa.inventario.services.MovimientoInventarioService;
+import com.miempresa.inventario.utils.HashedTimingWheel;
+
+@ExtendWith(MockitoExtension.class)
+class ReservaServiceImplTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private HashedTimingWheel ruedaExpiracionReservas;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private MovimientoInventarioService movimientoInventarioService;
+
+    @Mock
+    private HashedTimingWheel.Timeout timeout;
+
+    @InjectMocks
+    private ReservaServiceImpl reservaService;
+
+    private final Long productoId = 101L;
+    private final Long reservaId = 7L;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reservaService, "ttlPorDefectoSegundos", 900L);
+    }
+
+    @Test
+    @DisplayName("Debe reservar unidades y programar su expiración en la rueda de tiempo")
+    void reservarProducto_shouldHoldStockAndScheduleExpiry() {
+        // GIVEN
+        when(inventarioRepository.reservarCantidad(productoId, 3)).thenReturn(1);
+        when(reservaRepository.save(any(ReservaEntity.class))).thenAnswer(invocation -> {
+            ReservaEntity reserva = invocation.getArgument(0);
+            reserva.setId(reservaId);
+            return reserva;
+        });
+        when(ruedaExpiracionReservas.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(timeout);
+
+        // WHEN
+        ReservaDto reserva = reservaService.reservarProducto(productoId, 3, 60L);
+
+        // THEN
+        assertNotNull(reserva);
+        assertEquals(reservaId, reserva.getId());
+        assertEquals(EstadoReserva.PENDIENTE, reserva.getEstado());
+        ArgumentCaptor<Long> retraso = ArgumentCaptor.forClass(Long.class);
+        verify(ruedaExpiracionReservas).schedule(any(Runnable.class), retraso.capture(), eq(TimeUnit.MILLISECONDS));
+        // El retraso corresponde al TTL solicitado (60 s), no al de por defecto
+        assertEquals(60_000L, retraso.getValue(), 1_000L);
+    }
+
+    @Test
+    @DisplayName("Debe lanzar InventarioInsuficienteException si no hay disponible suficiente para reservar")
+    void reservarProducto_shouldThrowWhenInsufficientStock() {
+        // GIVEN: la actualización condicional no afecta filas pero el inventario existe
+        when(inventarioRepository.reservarCantidad(productoId, 50)).thenReturn(0);
+        when(inventarioRepository.findByProductoId(productoId))
+                .thenReturn(Optional.of(new InventarioEntity(1L, productoId, 10)));
+
+        // WHEN & THEN
+        InventarioInsuficienteException thrown = assertThrows(InventarioInsuficienteException.class,
+                () -> reservaService.reservarProducto(productoId, 50, null));
+
+        assertEquals("Inventario insuficiente", thrown.getMessage());
+        verify(reservaRepository, never()).save(any(ReservaEntity.class));
+        verify(ruedaExpiracionReservas, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @DisplayName("Debe lanzar RecursoNoEncontradoException si no hay inventario para el producto")
+    void reservarProducto_shouldThrowWhenInventarioNotFound() {
+        // GIVEN
+        when(inventarioRepository.reservarCantidad(productoId, 1)).thenReturn(0);
+        when(inventarioRepository.findByProductoId(productoId)).thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        assertThrows(RecursoNoEncontradoException.class, () -> reservaService.reservarProducto(productoId, 1, null));
+    }
+
+    @Test
+    @DisplayName("Debe confirmar una reserva pendiente descontando el stock y cancelando su expiración")
+    void confirmarReserva_shouldDecrementStockAndCancelTimer() {
+        // GIVEN
+        programarReservaPendiente();
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.CONFIRMADA)).thenReturn(1);
+        when(inventarioRepository.confirmarReserva(productoId, 3)).thenReturn(1);
+        when(inventarioRepository.findByProductoId(productoId))
+                .thenReturn(Optional.of(new InventarioEntity(1L, productoId, 7)));
+
+        // WHEN
+        ReservaDto reserva = reservaService.confirmarReserva(reservaId);
+
+        // THEN
+        assertEquals(EstadoReserva.CONFIRMADA, reserva.getEstado());
+        verify(inventarioRepository).confirmarReserva(productoId, 3);
+        verify(movimientoInventarioService).registrarMovimiento(
+                productoId, TipoMovimiento.RESERVA_CONFIRMADA, -3, 7, "reserva:" + reservaId);
+        verify(timeout).cancel();
+    }
+
+    @Test
+    @DisplayName("Debe lanzar ReservaNoPendienteException al confirmar una reserva ya expirada")
+    void confirmarReserva_shouldThrowWhenNotPending() {
+        // GIVEN
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.EXPIRADA)));
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.CONFIRMADA)).thenReturn(0);
+
+        // WHEN & THEN
+        assertThrows(ReservaNoPendienteException.class, () -> reservaService.confirmarReserva(reservaId));
+        verify(inventarioRepository, never()).confirmarReserva(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe liberar una reserva pendiente devolviendo las unidades al disponible")
+    void liberarReserva_shouldReturnReservedUnits() {
+        // GIVEN
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.PENDIENTE)));
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.LIBERADA)).thenReturn(1);
+        when(inventarioRepository.liberarReserva(productoId, 3)).thenReturn(1);
+
+        // WHEN
+        ReservaDto reserva = reservaService.liberarReserva(reservaId);
+
+        // THEN
+        assertEquals(EstadoReserva.LIBERADA, reserva.getEstado());
+        verify(inventarioRepository).liberarReserva(productoId, 3);
+    }
+
+    @Test
+    @DisplayName("Debe fallar al liberar una reserva si el inventario reservado no la cubre")
+    void liberarReserva_shouldThrowWhenReservedStockDoesNotCoverIt() {
+        // GIVEN: la fila de inventario ya no tiene esas unidades reservadas
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.PENDIENTE)));
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.LIBERADA)).thenReturn(1);
+        when(inventarioRepository.liberarReserva(productoId, 3)).thenReturn(0);
+
+        // WHEN & THEN: la transacción se deshace y la reserva sigue pendiente
+        assertThrows(IllegalStateException.class, () -> reservaService.liberarReserva(reservaId));
+        verify(timeout, never()).cancel();
+    }
+
+    @Test
+    @DisplayName("Debe devolver las unidades al expirar una reserva que sigue pendiente")
+    void expirarReserva_shouldReleaseUnitsWhenStillPending() {
+        // GIVEN
+        ejecutarTransaccionesEnLinea();
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.PENDIENTE)));
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.EXPIRADA)).thenReturn(1);
+        when(inventarioRepository.liberarReserva(productoId, 3)).thenReturn(1);
+
+        // WHEN
+        reservaService.expirarReserva(reservaId);
+
+        // THEN
+        verify(inventarioRepository).liberarReserva(productoId, 3);
+    }
+
+    @Test
+    @DisplayName("No debe tocar el inventario al expirar una reserva que ya fue confirmada")
+    void expirarReserva_shouldNotReleaseWhenAlreadyConfirmed() {
+        // GIVEN
+        ejecutarTransaccionesEnLinea();
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.CONFIRMADA)));
+        when(reservaRepository.cambiarEstado(reservaId, EstadoReserva.PENDIENTE, EstadoReserva.EXPIRADA)).thenReturn(0);
+
+        // WHEN
+        reservaService.expirarReserva(reservaId);
+
+        // THEN
+        verify(inventarioRepository, never()).liberarReserva(anyLong(), anyInt());
+    }
+
+    // --- Métodos de Ayuda ---
+
+    private ReservaEntity reserva(EstadoReserva estado) {
+        return new ReservaEntity(reservaId, productoId, 3, estado, Instant.now().plusSeconds(60));
+    }
+
+    private void programarReservaPendiente() {
+        when(inventarioRepository.reservarCantidad(productoId, 3)).thenReturn(1);
+        when(reservaRepository.save(any(ReservaEntity.class))).thenAnswer(invocation -> {
+            ReservaEntity reserva = invocation.getArgument(0);
+            reserva.setId(reservaId);
+            return reserva;
+        });
+        when(ruedaExpiracionReservas.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(timeout);
+        reservaService.reservarProducto(productoId, 3, null);
+        when(reservaRepository.findById(reservaId)).thenReturn(Optional.of(reserva(EstadoReserva.PENDIENTE)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ejecutarTransaccionesEnLinea() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+}
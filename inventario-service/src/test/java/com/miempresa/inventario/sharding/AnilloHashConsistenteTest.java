@@ -0,0 +1,68 @@
+package com.miempresa.inventario.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AnilloHashConsistenteTest {
+
+    private static final int PRODUCTOS = 100_000;
+
+    @Test
+    @DisplayName("Debe repartir los productos de forma aproximadamente uniforme")
+    void shardDe_shouldSpreadProductsEvenly() {
+        // GIVEN
+        AnilloHashConsistente anillo = new AnilloHashConsistente(List.of("a", "b", "c", "d"), 160);
+
+        // WHEN
+        Map<String, Integer> porShard = new HashMap<>();
+        for (long productoId = 1; productoId <= PRODUCTOS; productoId++) {
+            porShard.merge(anillo.shardDe(productoId), 1, Integer::sum);
+        }
+
+        // THEN: ningún shard se aleja más de un 20 % del reparto ideal
+        assertEquals(4, porShard.size());
+        porShard.values().forEach(cantidad ->
+                assertTrue(Math.abs(cantidad - PRODUCTOS / 4) < PRODUCTOS / 4 * 0.2, "Reparto desigual: " + porShard));
+    }
+
+    @Test
+    @DisplayName("Al añadir un shard solo deben moverse productos hacia el nuevo, cerca de 1/N")
+    void shardDe_shouldOnlyMoveProductsToNewShard() {
+        // GIVEN
+        AnilloHashConsistente antes = new AnilloHashConsistente(List.of("a", "b", "c"), 160);
+        AnilloHashConsistente despues = new AnilloHashConsistente(List.of("a", "b", "c", "d"), 160);
+
+        // WHEN
+        int movidos = 0;
+        for (long productoId = 1; productoId <= PRODUCTOS; productoId++) {
+            String origen = antes.shardDe(productoId);
+            String destino = despues.shardDe(productoId);
+            if (!origen.equals(destino)) {
+                // THEN: nada cambia entre los shards que ya existían
+                assertEquals("d", destino);
+                movidos++;
+            }
+        }
+        assertTrue(movidos > PRODUCTOS * 0.15 && movidos < PRODUCTOS * 0.35, "Movidos: " + movidos);
+    }
+
+    @Test
+    @DisplayName("Debe asignar siempre el mismo shard con independencia del orden de construcción")
+    void shardDe_shouldBeStable() {
+        // GIVEN
+        AnilloHashConsistente anillo = new AnilloHashConsistente(List.of("a", "b"), 160);
+        AnilloHashConsistente otro = new AnilloHashConsistente(List.of("b", "a"), 160);
+
+        // WHEN / THEN
+        for (long productoId = 1; productoId <= 1_000; productoId++) {
+            assertEquals(anillo.shardDe(productoId), otro.shardDe(productoId));
+        }
+    }
+}
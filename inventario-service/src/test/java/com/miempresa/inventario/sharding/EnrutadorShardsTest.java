@@ -0,0 +1,147 @@
+package com.miempresa.inventario.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.miempresa.inventario.entities.InventarioEntity;
+
+class EnrutadorShardsTest {
+
+    private RegistroShards registro;
+    private RepositorioPrueba repositorio;
+    private long productoEnA;
+    private long productoEnB;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("a", mock(DataSource.class));
+        dataSources.put("b", mock(DataSource.class));
+        registro = new RegistroShards(dataSources, 160);
+
+        ProxyFactory fabrica = new ProxyFactory(new RepositorioEnMemoria());
+        fabrica.addInterface(RepositorioPrueba.class);
+        fabrica.addAdvice(new EnrutadorShards(() -> registro));
+        repositorio = (RepositorioPrueba) fabrica.getProxy();
+
+        productoEnA = primerProductoDe("a");
+        productoEnB = primerProductoDe("b");
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar la operación en el shard del productoId y restaurar el contexto")
+    void invoke_shouldRouteByProductoId() {
+        // WHEN
+        String shardA = repositorio.findByProductoId(productoEnA);
+        String shardB = repositorio.findByProductoId(productoEnB);
+
+        // THEN
+        assertEquals("a", shardA);
+        assertEquals("b", shardB);
+        assertNull(ShardContexto.actual());
+    }
+
+    @Test
+    @DisplayName("Debe repartir una consulta por lote entre shards y concatenar los resultados")
+    void invoke_shouldScatterGatherBatchReads() {
+        // GIVEN
+        List<Long> ids = LongStream.rangeClosed(1, 50).boxed().toList();
+
+        // WHEN
+        List<String> filas = repositorio.findByProductoIdIn(ids);
+
+        // THEN: cada id se consultó una sola vez y en su shard
+        assertEquals(ids.size(), filas.size());
+        ids.forEach(id -> assertEquals(1, filas.stream()
+                .filter(fila -> fila.equals(registro.shardDeProducto(id) + ":" + id))
+                .count()));
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar en todos los shards las operaciones sin clave y sumar los contadores")
+    void invoke_shouldFanOutUnkeyedOperations() {
+        // WHEN
+        int total = repositorio.contar();
+
+        // THEN
+        assertEquals(2, total);
+    }
+
+    @Test
+    @DisplayName("Debe fijar el shard de la transacción con la primera clave y rechazar otro shard")
+    void invoke_shouldPinTransactionToFirstShard() {
+        // GIVEN
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // WHEN
+            repositorio.findByProductoId(productoEnB);
+
+            // THEN
+            assertEquals("b", ShardContexto.actual());
+            assertEquals("b", repositorio.findByProductoId(productoEnB));
+            assertThrows(IllegalStateException.class, () -> repositorio.findByProductoId(productoEnA));
+            assertThrows(IllegalStateException.class, () -> repositorio.findByProductoIdIn(List.of(productoEnA, productoEnB)));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertNull(ShardContexto.actual());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+            ShardContexto.fijar(null);
+        }
+    }
+
+    private long primerProductoDe(String shard) {
+        return LongStream.iterate(1, id -> id + 1)
+                .filter(id -> registro.shardDeProducto(id).equals(shard))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    interface RepositorioPrueba extends Repository<InventarioEntity, Long> {
+
+        String findByProductoId(Long productoId);
+
+        List<String> findByProductoIdIn(Collection<Long> productoIds);
+
+        int contar();
+    }
+
+    static class RepositorioEnMemoria implements RepositorioPrueba {
+
+        @Override
+        public String findByProductoId(Long productoId) {
+            return ShardContexto.actual();
+        }
+
+        @Override
+        public List<String> findByProductoIdIn(Collection<Long> productoIds) {
+            return productoIds.stream().map(id -> ShardContexto.actual() + ":" + id).toList();
+        }
+
+        @Override
+        public int contar() {
+            return 1;
+        }
+    }
+}
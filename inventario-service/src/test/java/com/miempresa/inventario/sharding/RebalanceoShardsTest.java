@@ -0,0 +1,206 @@
+package com.miempresa.inventario.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Rebalanceo de dos a tres shards sobre bases H2 en modo PostgreSQL, con el esquema reducido
+ * a las columnas que usan las tablas reales.
+ */
+class RebalanceoShardsTest {
+
+    private static final int NODOS_VIRTUALES = 160;
+    private static final List<Long> PRODUCTOS = LongStream.rangeClosed(1, 20).boxed().toList();
+
+    private Map<String, DataSource> dosShards;
+    private RegistroShards tresShards;
+
+    @BeforeEach
+    void setUp() {
+        dosShards = new LinkedHashMap<>();
+        dosShards.put("s0", baseNueva());
+        dosShards.put("s1", baseNueva());
+        Map<String, DataSource> ampliados = new LinkedHashMap<>(dosShards);
+        ampliados.put("s2", baseNueva());
+        tresShards = new RegistroShards(ampliados, NODOS_VIRTUALES);
+
+        RegistroShards registroInicial = new RegistroShards(dosShards, NODOS_VIRTUALES);
+        for (Long productoId : PRODUCTOS) {
+            JdbcTemplate jdbc = jdbc(registroInicial.shardDeProducto(productoId));
+            // Ids explícitos para que el destino asigne otros y se note el reenlace de inventario_id
+            jdbc.update("INSERT INTO inventarios (id, producto_id, cantidad, reservado) VALUES (?, ?, ?, 0)",
+                    productoId + 500, productoId, productoId.intValue() * 10);
+            jdbc.update("""
+                    INSERT INTO movimientos_inventario (producto_id, tipo, variacion, cantidad_resultante, referencia, creado_en)
+                    VALUES (?, 'AJUSTE', ?, ?, 'alta', CURRENT_TIMESTAMP)
+                    """, productoId, productoId.intValue() * 10, productoId.intValue() * 10);
+            jdbc.update("INSERT INTO snapshots_inventario (producto_id, cantidad, tomado_en) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                    productoId, productoId.intValue() * 10);
+            jdbc.update("""
+                    INSERT INTO compras_idempotentes (clave, producto_id, cantidad_solicitada, inventario_id,
+                        cantidad_resultante, reservado_resultante, expira_en)
+                    VALUES (?, ?, 1, ?, ?, 0, CURRENT_TIMESTAMP)
+                    """, "clave-" + productoId, productoId, productoId + 500, productoId.intValue() * 10 - 1);
+            jdbc.update("INSERT INTO reservas (producto_id, cantidad, estado, expira_en) VALUES (?, 1, 'CONFIRMADA', CURRENT_TIMESTAMP)",
+                    productoId);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe dejar cada producto solo en el shard del anillo nuevo y reenlazar sus compras")
+    void rebalancear_shouldMoveProductsToRingShard() {
+        // GIVEN
+        long aMover = PRODUCTOS.stream().filter(id -> tresShards.shardDeProducto(id).equals("s2")).count();
+
+        // WHEN
+        RebalanceoShards.ResultadoRebalanceo resultado = new RebalanceoShards(tresShards).rebalancear(false);
+
+        // THEN
+        assertTrue(resultado.completo());
+        assertTrue(aMover > 0);
+        assertEquals(aMover, resultado.productosMovidos());
+        for (Long productoId : PRODUCTOS) {
+            String shard = tresShards.shardDeProducto(productoId);
+            for (String otro : tresShards.nombres()) {
+                int esperado = otro.equals(shard) ? 1 : 0;
+                assertEquals(esperado, contar(otro, "inventarios", productoId), "inventarios de " + productoId + " en " + otro);
+                assertEquals(esperado, contar(otro, "movimientos_inventario", productoId));
+                assertEquals(esperado, contar(otro, "snapshots_inventario", productoId));
+                assertEquals(esperado, contar(otro, "compras_idempotentes", productoId));
+            }
+            JdbcTemplate jdbc = jdbc(shard);
+            assertEquals(productoId.intValue() * 10, jdbc.queryForObject(
+                    "SELECT cantidad FROM inventarios WHERE producto_id = ?", Integer.class, productoId));
+            assertEquals(jdbc.queryForObject("SELECT id FROM inventarios WHERE producto_id = ?", Long.class, productoId),
+                    jdbc.queryForObject("SELECT inventario_id FROM compras_idempotentes WHERE producto_id = ?", Long.class, productoId));
+        }
+        // Las reservas resueltas se quedan en el origen como histórico
+        assertEquals(0, jdbc("s2").queryForObject("SELECT COUNT(*) FROM reservas", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Relanzar un rebalanceo terminado no debe mover nada")
+    void rebalancear_shouldMoveNothingOnRerun() {
+        // GIVEN
+        RebalanceoShards rebalanceo = new RebalanceoShards(tresShards);
+        rebalanceo.rebalancear(false);
+
+        // WHEN
+        RebalanceoShards.ResultadoRebalanceo resultado = rebalanceo.rebalancear(false);
+
+        // THEN
+        assertTrue(resultado.completo());
+        assertEquals(0, resultado.productosMovidos());
+        assertEquals(PRODUCTOS.size(), tresShards.nombres().stream()
+                .mapToInt(shard -> jdbc(shard).queryForObject("SELECT COUNT(*) FROM inventarios", Integer.class))
+                .sum());
+    }
+
+    @Test
+    @DisplayName("Tras una ejecución interrumpida debe descartar la copia parcial del destino y dejar una sola copia")
+    void rebalancear_shouldRecoverFromInterruptedRun() {
+        // GIVEN: el producto ya se copió a medias al destino pero sigue en el origen
+        Long productoId = PRODUCTOS.stream().filter(id -> tresShards.shardDeProducto(id).equals("s2")).findFirst().orElseThrow();
+        jdbc("s2").update("INSERT INTO inventarios (producto_id, cantidad, reservado) VALUES (?, 0, 0)", productoId);
+        jdbc("s2").update("""
+                INSERT INTO movimientos_inventario (producto_id, tipo, variacion, cantidad_resultante, referencia, creado_en)
+                VALUES (?, 'AJUSTE', 0, 0, 'parcial', CURRENT_TIMESTAMP)
+                """, productoId);
+
+        // WHEN
+        RebalanceoShards.ResultadoRebalanceo resultado = new RebalanceoShards(tresShards).rebalancear(false);
+
+        // THEN
+        assertTrue(resultado.completo());
+        assertEquals(1, contar("s2", "inventarios", productoId));
+        assertEquals(1, contar("s2", "movimientos_inventario", productoId));
+        assertEquals(productoId.intValue() * 10, jdbc("s2").queryForObject(
+                "SELECT cantidad FROM inventarios WHERE producto_id = ?", Integer.class, productoId));
+        assertEquals("alta", jdbc("s2").queryForObject(
+                "SELECT referencia FROM movimientos_inventario WHERE producto_id = ?", String.class, productoId));
+        assertEquals(0, contar("s0", "inventarios", productoId) + contar("s1", "inventarios", productoId));
+    }
+
+    @Test
+    @DisplayName("Con reservas pendientes en un producto que cambia de shard no debe mover ninguno")
+    void rebalancear_shouldMoveNothingWhenPendingReservations() {
+        // GIVEN
+        Long productoId = PRODUCTOS.stream().filter(id -> tresShards.shardDeProducto(id).equals("s2")).findFirst().orElseThrow();
+        String origen = new RegistroShards(dosShards, NODOS_VIRTUALES).shardDeProducto(productoId);
+        jdbc(origen).update("INSERT INTO reservas (producto_id, cantidad, estado, expira_en) VALUES (?, 1, 'PENDIENTE', CURRENT_TIMESTAMP)",
+                productoId);
+
+        // WHEN
+        RebalanceoShards.ResultadoRebalanceo resultado = new RebalanceoShards(tresShards).rebalancear(false);
+
+        // THEN
+        assertFalse(resultado.completo());
+        assertEquals(1, resultado.productosBloqueados());
+        assertEquals(0, resultado.productosMovidos());
+        assertEquals(0, jdbc("s2").queryForObject("SELECT COUNT(*) FROM inventarios", Integer.class));
+        assertEquals(1, contar(origen, "inventarios", productoId));
+    }
+
+    private int contar(String shard, String tabla, Long productoId) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM " + tabla + " WHERE producto_id = ?", Integer.class, productoId);
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(tresShards.dataSource(shard));
+    }
+
+    private static DataSource baseNueva() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute("""
+                CREATE TABLE inventarios (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    producto_id BIGINT NOT NULL UNIQUE,
+                    cantidad INTEGER NOT NULL,
+                    reservado INTEGER NOT NULL DEFAULT 0);
+                CREATE TABLE movimientos_inventario (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    producto_id BIGINT NOT NULL,
+                    tipo VARCHAR(20) NOT NULL,
+                    variacion INTEGER NOT NULL,
+                    cantidad_resultante INTEGER NOT NULL,
+                    referencia VARCHAR(100),
+                    creado_en TIMESTAMP NOT NULL);
+                CREATE TABLE snapshots_inventario (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    producto_id BIGINT NOT NULL,
+                    cantidad INTEGER NOT NULL,
+                    tomado_en TIMESTAMP NOT NULL);
+                CREATE TABLE reservas (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    producto_id BIGINT NOT NULL,
+                    cantidad INTEGER NOT NULL,
+                    estado VARCHAR(20) NOT NULL,
+                    expira_en TIMESTAMP NOT NULL);
+                CREATE TABLE compras_idempotentes (
+                    clave VARCHAR(255) PRIMARY KEY,
+                    producto_id BIGINT NOT NULL,
+                    cantidad_solicitada INTEGER NOT NULL,
+                    inventario_id BIGINT NOT NULL,
+                    cantidad_resultante INTEGER NOT NULL,
+                    reservado_resultante INTEGER NOT NULL,
+                    expira_en TIMESTAMP NOT NULL);
+                """);
+        return dataSource;
+    }
+}
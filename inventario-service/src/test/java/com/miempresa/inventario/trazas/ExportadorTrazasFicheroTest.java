@@ -0,0 +1,85 @@
+package com.miempresa.inventario.trazas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+class ExportadorTrazasFicheroTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    @DisplayName("Debe escribir una línea JSON por span, con la relación padre-hijo de la traza")
+    void export_shouldWriteOneJsonLinePerSpan() throws Exception {
+        // GIVEN
+        Path fichero = directorio.resolve("trazas/inventario.jsonl");
+        ExportadorTrazasFichero exportador = new ExportadorTrazasFichero(fichero, 1024 * 1024);
+        Tracer tracer = tracer(exportador);
+
+        // WHEN
+        Span peticion = tracer.spanBuilder("http post /api/inventario/compra").startSpan();
+        try (Scope ignorado = peticion.makeCurrent()) {
+            tracer.spanBuilder("InventarioRepository.findByProductoId").startSpan()
+                    .setAttribute("shard", "principal")
+                    .end();
+        } finally {
+            peticion.end();
+        }
+        exportador.shutdown();
+
+        // THEN: los spans se exportan al terminar, el hijo primero
+        List<String> lineas = Files.readAllLines(fichero);
+        assertEquals(2, lineas.size());
+        JsonNode hijo = new ObjectMapper().readTree(lineas.get(0));
+        JsonNode padre = new ObjectMapper().readTree(lineas.get(1));
+        assertEquals("InventarioRepository.findByProductoId", hijo.get("nombre").asText());
+        assertEquals(padre.get("traceId").asText(), hijo.get("traceId").asText());
+        assertEquals(padre.get("spanId").asText(), hijo.get("parentSpanId").asText());
+        assertEquals("principal", hijo.get("atributos").get("shard").asText());
+        assertTrue(hijo.get("duracionMs").isNumber());
+    }
+
+    @Test
+    @DisplayName("Debe rotar el fichero a .1 al superar el tamaño máximo")
+    void export_shouldRotateWhenMaxSizeExceeded() throws Exception {
+        // GIVEN: cabe aproximadamente un span por fichero
+        Path fichero = directorio.resolve("inventario.jsonl");
+        ExportadorTrazasFichero exportador = new ExportadorTrazasFichero(fichero, 400);
+        Tracer tracer = tracer(exportador);
+
+        // WHEN
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+        exportador.shutdown();
+
+        // THEN
+        assertTrue(Files.readString(fichero).contains("span-2"));
+        assertTrue(Files.readString(directorio.resolve("inventario.jsonl.1")).contains("span-1"));
+        assertTrue(Files.size(fichero) <= 400);
+    }
+
+    private static Tracer tracer(ExportadorTrazasFichero exportador) {
+        return SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exportador))
+                .build()
+                .get("test");
+    }
+}
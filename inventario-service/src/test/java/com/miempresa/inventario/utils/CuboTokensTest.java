@@ -0,0 +1,67 @@
+package com.miempresa.inventario.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CuboTokensTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    @DisplayName("Debe admitir la ráfaga completa, rechazar la siguiente con la espera exacta y reponer al ritmo fijado")
+    void consumir_shouldAllowBurstThenRefillAtRate() {
+        // GIVEN: 10 peticiones por segundo (una cada 100 ms) y ráfagas de 3, con un reloj manual
+        AtomicLong reloj = new AtomicLong(-5_000 * MS);
+        CuboTokens cubo = new CuboTokens(10, 3, reloj::get);
+
+        // WHEN / THEN: la ráfaga entra entera y la cuarta espera un intervalo
+        assertEquals(0, cubo.consumir());
+        assertEquals(0, cubo.consumir());
+        assertEquals(0, cubo.consumir());
+        assertEquals(100 * MS, cubo.consumir());
+
+        // Pasados 100 ms hay exactamente un token
+        reloj.addAndGet(100 * MS);
+        assertEquals(0, cubo.consumir());
+        assertEquals(100 * MS, cubo.consumir());
+
+        // Tras un rato largo sin tráfico el cubo se llena, pero no más que la ráfaga
+        reloj.addAndGet(10_000 * MS);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, cubo.consumir());
+        }
+        assertTrue(cubo.consumir() > 0);
+    }
+
+    @Test
+    @DisplayName("Con varios hilos a la vez no debe admitir más peticiones que la ráfaga")
+    void consumir_shouldNotOveradmitUnderContention() throws InterruptedException {
+        // GIVEN: reloj parado, así que solo cuenta la ráfaga
+        CuboTokens cubo = new CuboTokens(1, 100, () -> 0L);
+        AtomicInteger admitidas = new AtomicInteger();
+
+        // WHEN
+        try (ExecutorService hilos = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                hilos.execute(() -> {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (cubo.consumir() == 0) {
+                            admitidas.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        // THEN
+        assertEquals(100, admitidas.get());
+    }
+}
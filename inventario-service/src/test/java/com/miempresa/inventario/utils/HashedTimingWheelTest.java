@@ -0,0 +1,110 @@
+package com.miempresa.inventario.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel rueda;
+
+    @BeforeEach
+    void setUp() {
+        // Rueda pequeña (8 ranuras de 10 ms) para forzar varias vueltas en las pruebas
+        rueda = new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 8, Executors.newSingleThreadExecutor());
+    }
+
+    @AfterEach
+    void tearDown() {
+        rueda.close();
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar la tarea una vez vencido el retraso")
+    void schedule_shouldRunTaskAfterDelay() throws InterruptedException {
+        // GIVEN
+        CountDownLatch ejecutada = new CountDownLatch(1);
+        long inicio = System.nanoTime();
+
+        // WHEN
+        HashedTimingWheel.Timeout timeout = rueda.schedule(ejecutada::countDown, 50, TimeUnit.MILLISECONDS);
+
+        // THEN
+        assertTrue(ejecutada.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) >= 50);
+        assertTrue(timeout.isExpired());
+        assertEquals(0, rueda.pendientes());
+    }
+
+    @Test
+    @DisplayName("No debe ejecutar una tarea cancelada")
+    void cancel_shouldPreventExecution() throws InterruptedException {
+        // GIVEN
+        CountDownLatch ejecutada = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = rueda.schedule(ejecutada::countDown, 50, TimeUnit.MILLISECONDS);
+
+        // WHEN
+        boolean cancelada = timeout.cancel();
+
+        // THEN
+        assertTrue(cancelada);
+        assertFalse(ejecutada.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(0, rueda.pendientes());
+    }
+
+    @Test
+    @DisplayName("Debe respetar el orden de vencimiento aunque las tareas den varias vueltas a la rueda")
+    void schedule_shouldExpireInDeadlineOrderAcrossRounds() throws InterruptedException {
+        // GIVEN: retrasos mayores que una vuelta completa (8 x 10 ms)
+        List<Integer> orden = new CopyOnWriteArrayList<>();
+        CountDownLatch todas = new CountDownLatch(3);
+
+        // WHEN
+        rueda.schedule(() -> { orden.add(3); todas.countDown(); }, 250, TimeUnit.MILLISECONDS);
+        rueda.schedule(() -> { orden.add(1); todas.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        rueda.schedule(() -> { orden.add(2); todas.countDown(); }, 120, TimeUnit.MILLISECONDS);
+
+        // THEN
+        assertTrue(todas.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), orden);
+    }
+
+    @Test
+    @DisplayName("Debe expirar todas las tareas de un gran volumen programado desde varios hilos")
+    void schedule_shouldExpireLargeVolumeFromManyThreads() throws InterruptedException {
+        // GIVEN
+        int porHilo = 25_000;
+        int hilos = 4;
+        CountDownLatch todas = new CountDownLatch(porHilo * hilos);
+
+        // WHEN
+        Thread[] productores = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            productores[h] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < porHilo; i++) {
+                    rueda.schedule(todas::countDown, i % 100, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+        for (Thread productor : productores) {
+            productor.join();
+        }
+
+        // THEN
+        assertTrue(todas.await(5, TimeUnit.SECONDS));
+        assertEquals(0, rueda.pendientes());
+    }
+}
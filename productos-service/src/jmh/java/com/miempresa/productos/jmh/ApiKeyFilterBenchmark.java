@@ -0,0 +1,94 @@
+package com.miempresa.productos.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.miempresa.productos.config.ApiKeyFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+
+/**
+ * {@link ApiKeyFilter}, que atiende todas las peticiones a {@code /api/*}: con la clave correcta
+ * sin límite, con límite sin alcanzarlo, por encima del límite (429) y con una clave incorrecta
+ * (401). Sin trazas ({@code Tracer.NOOP}); con el muestreo del 10 % de producción, nueve de
+ * cada diez spans son igual de baratos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiKeyFilterBenchmark {
+
+    private final ApiKeyFilter filtro = new ApiKeyFilter(List.of(
+            new ApiKeyFilter.Cliente("principal", "8f2b6c1e-clave-de-prueba", 0, 1),
+            // Nunca se alcanza: mide el compareAndSet del cubo en cada petición
+            new ApiKeyFilter.Cliente("holgada", "3c9d0a7f-clave-holgada", 1e9, 1_000),
+            // Siempre por encima: una petición cada 1000 s
+            new ApiKeyFilter.Cliente("agotada", "71e4b5d2-clave-agotada", 0.001, 1)),
+            Tracer.NOOP, new SimpleMeterRegistry());
+    private final FilterChain cadena = (request, response) -> { };
+
+    private MockHttpServletRequest valida;
+    private MockHttpServletRequest conLimite;
+    private MockHttpServletRequest agotada;
+    private MockHttpServletRequest invalida;
+    private MockHttpServletResponse respuesta;
+
+    @Setup
+    public void preparar() {
+        valida = peticion("8f2b6c1e-clave-de-prueba");
+        conLimite = peticion("3c9d0a7f-clave-holgada");
+        agotada = peticion("71e4b5d2-clave-agotada");
+        invalida = peticion("otra-clave");
+        respuesta = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse claveValida() throws Exception {
+        filtro.doFilter(valida, respuesta, cadena);
+        return respuesta;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse claveConLimiteSinAlcanzar() throws Exception {
+        filtro.doFilter(conLimite, respuesta, cadena);
+        return respuesta;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse limiteSuperado() throws Exception {
+        MockHttpServletResponse rechazo = new MockHttpServletResponse();
+        filtro.doFilter(agotada, rechazo, cadena);
+        return rechazo;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse claveInvalida() throws Exception {
+        MockHttpServletResponse rechazo = new MockHttpServletResponse();
+        filtro.doFilter(invalida, rechazo, cadena);
+        return rechazo;
+    }
+
+    private static MockHttpServletRequest peticion(String clave) {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/productos/42");
+        peticion.addHeader("x-api-key", clave);
+        return peticion;
+    }
+}
@@ -0,0 +1,82 @@
+package com.miempresa.productos.jmh;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.entities.ProductoEntity;
+import com.miempresa.productos.mappers.ProductoMapper;
+
+/**
+ * Entidad ↔ DTO: {@code BeanUtils.copyProperties}, lo que usaba {@code crearProducto}, frente
+ * a {@link ProductoMapper}, que copia campo a campo como lo haría un mapper generado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapeoProductoBenchmark {
+
+    private ProductoDto dto;
+    private ProductoEntity entidad;
+    private List<ProductoEntity> catalogo;
+
+    @Setup
+    public void preparar() {
+        dto = ProductoDto.builder()
+                .nombre("Monitor Gaming")
+                .descripcion("Monitor de alta tasa de refresco para juegos")
+                .precio(new BigDecimal("450.99"))
+                .build();
+        entidad = new ProductoEntity(42L, dto.getNombre(), dto.getDescripcion(), dto.getPrecio());
+        catalogo = LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> new ProductoEntity(id, "Producto " + id, "Descripción " + id, BigDecimal.valueOf(id)))
+                .toList();
+    }
+
+    @Benchmark
+    public ProductoEntity aEntidadBeanUtils() {
+        ProductoEntity producto = new ProductoEntity();
+        BeanUtils.copyProperties(dto, producto);
+        return producto;
+    }
+
+    @Benchmark
+    public ProductoEntity aEntidadMapper() {
+        return ProductoMapper.toEntity(dto);
+    }
+
+    @Benchmark
+    public ProductoDto aDtoBeanUtils() {
+        ProductoDto producto = ProductoDto.builder().build();
+        BeanUtils.copyProperties(entidad, producto);
+        return producto;
+    }
+
+    @Benchmark
+    public ProductoDto aDtoMapper() {
+        return ProductoMapper.toDto(entidad);
+    }
+
+    /** Lo que hace {@code listarProductos} con 100 productos, sin la consulta. */
+    @Benchmark
+    public List<ProductoDto> listado100Mapper() {
+        return catalogo.stream().map(ProductoMapper::toDto).toList();
+    }
+}
@@ -0,0 +1,88 @@
+package com.miempresa.productos.jmh;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lanza los microbenchmarks de este paquete con {@code mvn test -Pjmh} y deja los resultados en
+ * {@code target/jmh-productos.json}, en el formato JSON de JMH (ver docs/microbenchmarks.md).
+ * <ul>
+ *   <li>{@code -Djmh.incluir=Mapeo}: solo los benchmarks cuyo nombre casa con la expresión.</li>
+ *   <li>{@code -Djmh.forks=0}: sin fork, más rápido y menos fiable; útil para probar cambios.</li>
+ *   <li>{@code -Djmh.base=ruta/anterior.json}: compara con una ejecución anterior.</li>
+ * </ul>
+ */
+@Tag("jmh")
+class MicrobenchmarksTest {
+
+    @Test
+    @DisplayName("Microbenchmarks de productos")
+    void ejecutar() throws Exception {
+        File resultado = new File(System.getProperty("jmh.resultado", "target/jmh-productos.json"));
+        resultado.getParentFile().mkdirs();
+        OptionsBuilder opciones = new OptionsBuilder();
+        opciones.include(getClass().getPackageName() + "\\..*" + System.getProperty("jmh.incluir", ""))
+                .addProfiler("gc")
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultado.getPath())
+                .shouldFailOnError(true);
+        if (System.getProperty("jmh.forks") != null) {
+            opciones.forks(Integer.getInteger("jmh.forks"));
+        }
+        Options construidas = opciones.build();
+        Collection<RunResult> resultados = new Runner(construidas).run();
+
+        String base = System.getProperty("jmh.base");
+        if (base != null && !base.isBlank() && !resultados.isEmpty()) {
+            comparar(new File(base), resultado);
+        }
+    }
+
+    /** Tabla con la diferencia de cada benchmark respecto a la ejecución base. */
+    static void comparar(File base, File actual) throws Exception {
+        Map<String, JsonNode> anteriores = porNombre(base);
+        Map<String, JsonNode> actuales = porNombre(actual);
+        StringBuilder tabla = new StringBuilder(String.format(Locale.ROOT, "%n%-70s %14s %14s %9s%n",
+                "Benchmark", "Base", "Actual", "Cambio"));
+        actuales.forEach((nombre, medicion) -> {
+            double ahora = medicion.path("primaryMetric").path("score").asDouble();
+            String unidad = medicion.path("primaryMetric").path("scoreUnit").asText();
+            JsonNode anterior = anteriores.get(nombre);
+            if (anterior == null) {
+                tabla.append(String.format(Locale.ROOT, "%-70s %14s %14.3f %9s %s%n", nombre, "-", ahora, "nuevo", unidad));
+                return;
+            }
+            double antes = anterior.path("primaryMetric").path("score").asDouble();
+            tabla.append(String.format(Locale.ROOT, "%-70s %14.3f %14.3f %+8.1f%% %s%n",
+                    nombre, antes, ahora, (ahora - antes) / antes * 100, unidad));
+        });
+        System.out.println(tabla);
+    }
+
+    /** Benchmark y parámetros, como los escribe JMH, a su resultado. */
+    private static Map<String, JsonNode> porNombre(File fichero) throws Exception {
+        Map<String, JsonNode> mediciones = new LinkedHashMap<>();
+        for (JsonNode medicion : new ObjectMapper().readTree(fichero)) {
+            StringBuilder nombre = new StringBuilder(medicion.path("benchmark").asText());
+            medicion.path("params").fields().forEachRemaining(parametro ->
+                    nombre.append(' ').append(parametro.getKey()).append('=').append(parametro.getValue().asText()));
+            mediciones.put(nombre.toString().replace("com.miempresa.", ""), medicion);
+        }
+        return mediciones;
+    }
+}
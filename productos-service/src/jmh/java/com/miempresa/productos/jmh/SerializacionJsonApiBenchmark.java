@@ -0,0 +1,89 @@
+package com.miempresa.productos.jmh;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.wrappers.JsonApiData;
+import com.miempresa.productos.wrappers.JsonApiWrapper;
+
+/**
+ * Cuerpos JSON:API de productos: la respuesta de {@code GET /api/productos/{id}}, la de un
+ * listado de 100 y la lectura del cuerpo de {@code POST /api/productos}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionJsonApiBenchmark {
+
+    // Como el de Spring Boot, sin sus personalizaciones por propiedades
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private JsonApiWrapper<ProductoDto> producto;
+    private List<JsonApiWrapper<ProductoDto>> listado;
+    private byte[] alta;
+
+    @Setup
+    public void preparar() throws Exception {
+        producto = envolver(ProductoDto.builder()
+                .id(42L)
+                .nombre("Monitor Gaming")
+                .descripcion("Monitor de alta tasa de refresco para juegos")
+                .precio(new BigDecimal("450.99"))
+                .build());
+        listado = LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> envolver(ProductoDto.builder()
+                        .id(id)
+                        .nombre("Producto " + id)
+                        .descripcion("Descripción " + id)
+                        .precio(BigDecimal.valueOf(id))
+                        .build()))
+                .toList();
+        alta = "{\"nombre\":\"Monitor Gaming\",\"descripcion\":\"Monitor de alta tasa de refresco para juegos\",\"precio\":450.99}"
+                .getBytes();
+    }
+
+    @Benchmark
+    public byte[] escribirProducto() throws Exception {
+        return mapper.writeValueAsBytes(producto);
+    }
+
+    @Benchmark
+    public byte[] escribirListado100() throws Exception {
+        return mapper.writeValueAsBytes(listado);
+    }
+
+    @Benchmark
+    public ProductoDto leerAlta() throws Exception {
+        return mapper.readValue(alta, ProductoDto.class);
+    }
+
+    // Lo mismo que ProductoController.toJsonApi
+    private static JsonApiWrapper<ProductoDto> envolver(ProductoDto dto) {
+        JsonApiData<ProductoDto> data = new JsonApiData<>();
+        data.setType("producto");
+        data.setId(dto.getId().toString());
+        data.setAttributes(dto);
+        JsonApiWrapper<ProductoDto> wrapper = new JsonApiWrapper<>();
+        wrapper.setData(data);
+        return wrapper;
+    }
+}
@@ -0,0 +1,110 @@
+package com.miempresa.productos.concurrencia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Aplica el {@link LimiteAdaptativo} a las peticiones a {@code /api/*}: las que no caben se
+ * rechazan enseguida con 503 y {@code Retry-After: 1}, sin llegar a ocupar un hilo más que
+ * el tiempo de escribir la respuesta (ver docs/limite-concurrencia.md).
+ * <p>
+ * La prioridad sale de reglas {@code "MÉTODO /ruta/**"}, comprobadas en orden: primero las
+ * críticas, luego las de baja prioridad. Lo que no casa con ninguna es {@link Prioridad#NORMAL}.
+ */
+public class FiltroLimiteConcurrencia extends OncePerRequestFilter {
+
+    static final String CUERPO_503 = "{\"errors\":[{\"status\":\"503\",\"code\":\"SOBRECARGA\","
+            + "\"title\":\"Servicio sobrecargado\",\"detail\":\"Demasiadas peticiones en curso, reintente en unos segundos\"}]}";
+
+    private static final AntPathMatcher RUTAS = new AntPathMatcher();
+
+    private final LimiteAdaptativo limite;
+    private final List<Regla> reglas;
+    private final Map<Prioridad, Counter> rechazadas = new EnumMap<>(Prioridad.class);
+
+    /** {@code registry} puede ser nulo: entonces no se publican métricas. */
+    public FiltroLimiteConcurrencia(LimiteAdaptativo limite, List<String> criticas, List<String> bajas,
+                                    MeterRegistry registry) {
+        this.limite = limite;
+        this.reglas = new ArrayList<>();
+        criticas.forEach(regla -> reglas.add(Regla.de(regla, Prioridad.CRITICA)));
+        bajas.forEach(regla -> reglas.add(Regla.de(regla, Prioridad.BAJA)));
+        if (registry != null) {
+            Gauge.builder("concurrencia.limite", limite, LimiteAdaptativo::getLimite)
+                    .description("Límite adaptativo de peticiones en curso")
+                    .register(registry);
+            Gauge.builder("concurrencia.en.curso", limite, LimiteAdaptativo::getEnCurso)
+                    .description("Peticiones en curso bajo el límite adaptativo")
+                    .register(registry);
+            for (Prioridad prioridad : Prioridad.values()) {
+                rechazadas.put(prioridad, Counter.builder("concurrencia.rechazadas")
+                        .description("Peticiones rechazadas con 503 por el límite de concurrencia")
+                        .tag("prioridad", prioridad.name().toLowerCase())
+                        .register(registry));
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Prioridad prioridad = prioridad(request);
+        if (!limite.adquirir(prioridad)) {
+            rechazar(response, prioridad);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limite.liberar(System.nanoTime() - inicio);
+        }
+    }
+
+    Prioridad prioridad(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        String ruta = request.getRequestURI();
+        for (Regla regla : reglas) {
+            if ((regla.metodo() == null || regla.metodo().equals(metodo)) && RUTAS.match(regla.patron(), ruta)) {
+                return regla.prioridad();
+            }
+        }
+        return Prioridad.NORMAL;
+    }
+
+    private void rechazar(HttpServletResponse response, Prioridad prioridad) throws IOException {
+        Counter contador = rechazadas.get(prioridad);
+        if (contador != null) {
+            contador.increment();
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("application/json");
+        response.getWriter().write(CUERPO_503);
+    }
+
+    /** {@code "POST /api/productos"} o solo {@code "/api/**"} para cualquier método. */
+    private record Regla(String metodo, String patron, Prioridad prioridad) {
+
+        static Regla de(String texto, Prioridad prioridad) {
+            String[] partes = texto.trim().split("\\s+", 2);
+            return partes.length == 2
+                    ? new Regla(partes[0].toUpperCase(), partes[1], prioridad)
+                    : new Regla(null, partes[0], prioridad);
+        }
+    }
+}
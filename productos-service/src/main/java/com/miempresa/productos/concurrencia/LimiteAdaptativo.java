@@ -0,0 +1,166 @@
+package com.miempresa.productos.concurrencia;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de peticiones en curso que se ajusta solo a partir de la latencia observada, al estilo
+ * de Gradient2 (Netflix concurrency-limits) y TCP Vegas.
+ * <p>
+ * Compara una media larga de la latencia, lo que tarda el servicio cuando va bien, con una media
+ * corta, lo que tarda ahora. Si la corta crece, la base de datos se está atascando
+ * y las peticiones de más solo esperan en cola: el límite baja en proporción. Si no, sube poco a
+ * poco, con margen para una cola de {@code √límite} peticiones. Las peticiones que superan el
+ * límite se rechazan al momento en lugar de esperar en la cola de Tomcat.
+ * <p>
+ * Como en TCP Vegas, el límite no se recalcula con cada petición sino una vez por ventana de
+ * tantas muestras como el propio límite (al menos 10), con su latencia media: así la media
+ * larga abarca cientos de «vueltas» completas y no se adapta a una degradación en segundos.
+ * <p>
+ * Cada {@link Prioridad} puede usar solo una fracción del límite, así que al acercarse a él se
+ * descartan primero las lecturas y las altas siguen entrando.
+ */
+public class LimiteAdaptativo {
+
+    private static final int VENTANA_CORTA = 10;
+    private static final int MUESTRAS_MINIMAS = 10;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+    private final double suavizado;
+    private final Map<Prioridad, Double> fracciones;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private volatile int limite;
+
+    // Estado del cálculo: solo lo toca quien tiene el cerrojo
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Media rttLargo;
+    private final Media rttCorto = new Media(VENTANA_CORTA);
+    private double limiteEstimado;
+    private long sumaRtt;
+    private int muestras;
+    private int maxEnCurso;
+
+    /**
+     * @param tolerancia cuánto puede crecer la latencia respecto a la media larga antes de bajar el límite (1,5 = un 50 %)
+     * @param suavizado  peso de cada nueva estimación en el límite, entre 0 y 1
+     * @param ventanaLarga ventanas que abarca la media larga de latencia
+     * @param fracciones parte del límite que puede usar cada prioridad; las que falten usan el límite entero
+     */
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia, double suavizado, int ventanaLarga,
+                            Map<Prioridad, Double> fracciones) {
+        if (minimo < 1 || maximo < minimo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Se necesita 1 <= mínimo <= inicial <= máximo");
+        }
+        if (tolerancia < 1 || suavizado <= 0 || suavizado > 1 || ventanaLarga < VENTANA_CORTA) {
+            throw new IllegalArgumentException("Tolerancia, suavizado o ventana fuera de rango");
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.suavizado = suavizado;
+        this.rttLargo = new Media(ventanaLarga);
+        this.fracciones = new EnumMap<>(Prioridad.class);
+        for (Prioridad prioridad : Prioridad.values()) {
+            this.fracciones.put(prioridad, Math.min(1.0, fracciones.getOrDefault(prioridad, 1.0)));
+        }
+        this.limite = inicial;
+        this.limiteEstimado = inicial;
+    }
+
+    /** Reserva un hueco para una petición; {@code false} si con esta prioridad no cabe. */
+    public boolean adquirir(Prioridad prioridad) {
+        int permitidas = Math.max(1, (int) (limite * fracciones.get(prioridad)));
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= permitidas) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Libera el hueco de una petición admitida que ha tardado {@code rttNanos}. */
+    public void liberar(long rttNanos) {
+        int enCursoAlTerminar = enCurso.getAndDecrement();
+        // Si otra petición está recalculando, esta muestra se pierde: mejor que hacer esperar al hilo
+        if (rttNanos > 0 && cerrojo.tryLock()) {
+            try {
+                actualizar(rttNanos, enCursoAlTerminar);
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    private void actualizar(long rttNanos, int enCursoAlTerminar) {
+        sumaRtt += rttNanos;
+        maxEnCurso = Math.max(maxEnCurso, enCursoAlTerminar);
+        if (++muestras < Math.max(MUESTRAS_MINIMAS, limite)) {
+            return;
+        }
+        double rtt = (double) sumaRtt / muestras;
+        int maxEnVentana = maxEnCurso;
+        sumaRtt = 0;
+        muestras = 0;
+        maxEnCurso = 0;
+
+        double corto = rttCorto.anadir(rtt);
+        double largo = rttLargo.anadir(rtt);
+
+        // Tras una degradación larga la media larga se queda alta y el límite no bajaría más:
+        // se acerca a la corta para que la nueva situación pase a ser la de referencia
+        if (largo / corto > 2) {
+            rttLargo.escalar(0.95);
+        }
+
+        // Con el límite lejos de llenarse la latencia no dice nada de él
+        if (maxEnVentana < limiteEstimado / 2) {
+            return;
+        }
+
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * largo / corto));
+        double nuevo = limiteEstimado * gradiente + Math.sqrt(limiteEstimado);
+        limiteEstimado = Math.max(minimo, Math.min(maximo, limiteEstimado * (1 - suavizado) + nuevo * suavizado));
+        limite = (int) limiteEstimado;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    /** Media exponencial que, hasta tener {@code ventana} muestras, es la media aritmética. */
+    private static final class Media {
+
+        private final int ventana;
+        private double valor;
+        private int muestras;
+
+        private Media(int ventana) {
+            this.ventana = ventana;
+        }
+
+        private double anadir(double muestra) {
+            if (muestras < ventana) {
+                muestras++;
+                valor += (muestra - valor) / muestras;
+            } else {
+                valor += (muestra - valor) * 2 / (ventana + 1);
+            }
+            return valor;
+        }
+
+        private void escalar(double factor) {
+            valor *= factor;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.miempresa.productos.concurrencia;
+
+/**
+ * Clase de prioridad de una petición frente al {@link LimiteAdaptativo}: cuanto más baja, antes
+ * se rechaza cuando el servicio se acerca al límite.
+ */
+public enum Prioridad {
+
+    /** Altas de productos: solo se rechazan con el límite lleno. */
+    CRITICA,
+    NORMAL,
+    /** Lecturas: lo primero que se descarta. */
+    BAJA
+}
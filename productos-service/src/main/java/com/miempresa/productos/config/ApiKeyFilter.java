@@ -1,21 +1,66 @@
 package com.miempresa.productos.config;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.miempresa.productos.utils.CuboTokens;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-
+/**
+ * Exige una API key válida en {@code x-api-key} y aplica el límite de peticiones de su
+ * cliente con un {@link CuboTokens} por clave. Por encima del límite responde 429 con
+ * {@code Retry-After}; sin límite, o por debajo, solo cuesta buscar la clave y un
+ * {@code compareAndSet} (ver docs/limites-api-key.md).
+ */
 public class ApiKeyFilter extends OncePerRequestFilter {
 
-    private final String apiKey;
+    static final String CUERPO_401 = "{\"errors\":[{\"status\":\"401\",\"detail\":\"API Key inválida\"}]}";
+    static final String CUERPO_429 = "{\"errors\":[{\"status\":\"429\",\"code\":\"LIMITE_API_KEY\","
+            + "\"title\":\"Demasiadas solicitudes\",\"detail\":\"Límite de peticiones de la API key superado\"}]}";
+
+    private final Map<String, ClienteApi> clientes;
+    private final Tracer tracer;
 
     public ApiKeyFilter(String apiKey) {
-        this.apiKey = apiKey;
+        this(apiKey, Tracer.NOOP);
+    }
+
+    public ApiKeyFilter(String apiKey, Tracer tracer) {
+        this(List.of(new Cliente("principal", apiKey, 0, 1)), tracer, null);
+    }
+
+    /** {@code registry} puede ser nulo: entonces no se cuentan las peticiones rechazadas. */
+    public ApiKeyFilter(List<Cliente> clientes, Tracer tracer, MeterRegistry registry) {
+        Map<String, ClienteApi> porClave = new HashMap<>();
+        for (Cliente cliente : clientes) {
+            if (cliente.clave() == null || cliente.clave().isEmpty()) {
+                throw new IllegalArgumentException("La API key del cliente '" + cliente.nombre() + "' está vacía");
+            }
+            Counter limitadas = registry == null ? null : Counter.builder("api.peticiones.limitadas")
+                    .description("Peticiones rechazadas con 429 por superar el límite de su API key")
+                    .tag("cliente", cliente.nombre())
+                    .register(registry);
+            CuboTokens cubo = cliente.peticionesPorSegundo() > 0
+                    ? new CuboTokens(cliente.peticionesPorSegundo(), Math.max(1, cliente.rafaga()))
+                    : null;
+            if (porClave.put(cliente.clave(), new ClienteApi(cliente.nombre(), cubo, limitadas)) != null) {
+                throw new IllegalArgumentException("API key repetida en el cliente '" + cliente.nombre() + "'");
+            }
+        }
+        this.clientes = Map.copyOf(porClave);
+        this.tracer = tracer;
     }
 
     @Override
@@ -31,14 +76,48 @@ public class ApiKeyFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String requestApiKey = request.getHeader("x-api-key");
-
-        if (!apiKey.equals(requestApiKey)) {
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.getWriter().write("{\"errors\":[{\"status\":\"401\",\"detail\":\"API Key inválida\"}]}");
+        // Span propio para distinguir en la traza las peticiones rechazadas aquí
+        Span span = tracer.nextSpan().name("api-key").start();
+        String clave = request.getHeader("x-api-key");
+        ClienteApi cliente = clave == null ? null : clientes.get(clave);
+        if (cliente == null) {
+            span.tag("api_key.valida", "false").end();
+            rechazar(response);
+            return;
+        }
+        long esperaNanos = cliente.cubo() == null ? 0 : cliente.cubo().consumir();
+        span.tag("api_key.valida", "true").tag("api_key.cliente", cliente.nombre());
+        if (esperaNanos > 0) {
+            span.tag("api_key.limitada", "true").end();
+            limitar(response, cliente, esperaNanos);
             return;
         }
+        span.end();
 
         filterChain.doFilter(request, response);
     }
+
+    // Los rechazos van aparte para que doFilterInternal siga siendo corto y el JIT lo integre entero
+    private static void rechazar(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.getWriter().write(CUERPO_401);
+    }
+
+    private static void limitar(HttpServletResponse response, ClienteApi cliente, long esperaNanos) throws IOException {
+        if (cliente.limitadas() != null) {
+            cliente.limitadas().increment();
+        }
+        response.setStatus(429);
+        // En segundos enteros, redondeando hacia arriba: antes no habría token
+        response.setHeader("Retry-After", String.valueOf((esperaNanos + 999_999_999L) / 1_000_000_000L));
+        response.setContentType("application/json");
+        response.getWriter().write(CUERPO_429);
+    }
+
+    /** Un cliente de la API: su clave y su límite. Una tasa de 0 o negativa es sin límite. */
+    public record Cliente(String nombre, String clave, double peticionesPorSegundo, int rafaga) {
+    }
+
+    private record ClienteApi(String nombre, CuboTokens cubo, Counter limitadas) {
+    }
 }
@@ -1,23 +1,42 @@
 package com.miempresa.productos.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+
 @Configuration
+@EnableConfigurationProperties(PropiedadesApiKeys.class)
 public class ApiKeyFilterConfig {
 
     @Value("${api.key}")
     private String apiKey;
 
     @Bean
-    public FilterRegistrationBean<ApiKeyFilter> apiKeyFilter() {
+    public FilterRegistrationBean<ApiKeyFilter> apiKeyFilter(PropiedadesApiKeys propiedades, ObjectProvider<Tracer> tracer,
+            ObjectProvider<MeterRegistry> registry) {
+        PropiedadesApiKeys.Limite limite = propiedades.getLimite();
+        List<ApiKeyFilter.Cliente> clientes = new ArrayList<>();
+        clientes.add(new ApiKeyFilter.Cliente("principal", apiKey, limite.getPeticionesPorSegundo(), limite.getRafaga()));
+        for (PropiedadesApiKeys.Clave clave : propiedades.getClaves()) {
+            clientes.add(new ApiKeyFilter.Cliente(clave.getNombre(), clave.getClave(),
+                    clave.getPeticionesPorSegundo() != null ? clave.getPeticionesPorSegundo() : limite.getPeticionesPorSegundo(),
+                    clave.getRafaga() != null ? clave.getRafaga() : limite.getRafaga()));
+        }
+
         FilterRegistrationBean<ApiKeyFilter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new ApiKeyFilter(apiKey));
+        registrationBean.setFilter(new ApiKeyFilter(clientes, tracer.getIfAvailable(() -> Tracer.NOOP),
+                registry.getIfAvailable()));
         registrationBean.addUrlPatterns("/api/*"); // Protege solo las rutas de tus controladores
         registrationBean.setOrder(1);
         return registrationBean;
     }
 }
-
@@ -0,0 +1,68 @@
+package com.miempresa.productos.config;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import com.miempresa.productos.consultas.ConsultasEndpoint;
+import com.miempresa.productos.consultas.FiltroSentenciasPorPeticion;
+import com.miempresa.productos.consultas.InstrumentacionConsultas;
+import com.miempresa.productos.consultas.JdbcInstrumentado;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Instrumentación de las consultas SQL: tiempo por sentencia, log de consultas lentas,
+ * sentencias por petición con aviso de N+1 y {@code /actuator/consultas} (ver
+ * docs/consultas.md). Sustituye a {@code spring.jpa.show-sql}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.consultas.enabled", havingValue = "true", matchIfMissing = true)
+public class ConsultasConfig {
+
+    @Bean
+    public static InstrumentacionConsultas instrumentacionConsultas(@Value("${productos.consultas.lenta-ms:200}") long lentaMs,
+                                                                    @Value("${productos.consultas.max-sentencias-peticion:25}") int maxSentencias,
+                                                                    @Value("${productos.consultas.n-mas-uno.repeticiones:10}") int repeticiones) {
+        return new InstrumentacionConsultas(lentaMs, maxSentencias, repeticiones);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static BeanPostProcessor instrumentadorDataSource(ObjectProvider<InstrumentacionConsultas> instrumentacion) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof JdbcInstrumentado)
+                        ? new JdbcInstrumentado(dataSource, instrumentacion.getObject())
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroSentenciasPorPeticion> filtroSentenciasPorPeticion(InstrumentacionConsultas instrumentacion,
+                                                                                          ObjectProvider<MeterRegistry> registry) {
+        FilterRegistrationBean<FiltroSentenciasPorPeticion> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new FiltroSentenciasPorPeticion(instrumentacion, registry.getIfAvailable()));
+        registrationBean.addUrlPatterns("/api/*");
+        // Detrás de la API key: las peticiones rechazadas no ejecutan SQL y no interesan
+        registrationBean.setOrder(3);
+        return registrationBean;
+    }
+
+    @Bean
+    public ConsultasEndpoint consultasEndpoint(InstrumentacionConsultas instrumentacion, EntityManagerFactory entityManagerFactory) {
+        return new ConsultasEndpoint(instrumentacion, entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+}
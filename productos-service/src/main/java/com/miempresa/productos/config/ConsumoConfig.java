@@ -0,0 +1,54 @@
+package com.miempresa.productos.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.miempresa.productos.consumo.ConsumoEndpoint;
+import com.miempresa.productos.consumo.ConsumoPeticiones;
+import com.miempresa.productos.consumo.FiltroConsumoPorPeticion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Memoria asignada y tiempo de CPU por petición y por ruta, en métricas y en
+ * {@code /actuator/consumo} (ver docs/consumo.md).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "productos.consumo.enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumoConfig {
+
+    @Bean
+    public ConsumoPeticiones consumoPeticiones() {
+        return new ConsumoPeticiones();
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroConsumoPorPeticion> filtroConsumoPorPeticion(ConsumoPeticiones consumo,
+                                                                                    ObjectProvider<MeterRegistry> registry,
+                                                                                    Environment environment,
+                                                                                    @Value("${productos.consumo.cabeceras:false}") boolean cabeceras) {
+        if (cabeceras && environment.matchesProfiles("prod", "produccion")) {
+            // Las cabeceras enseñan a cualquier cliente cuánto cuesta cada petición
+            log.warn("productos.consumo.cabeceras se ignora con el perfil de producción");
+            cabeceras = false;
+        }
+        FilterRegistrationBean<FiltroConsumoPorPeticion> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new FiltroConsumoPorPeticion(consumo, registry.getIfAvailable(), cabeceras));
+        registrationBean.addUrlPatterns("/api/*");
+        // Detrás de la API key y del contador de sentencias: mide lo que hace la aplicación
+        registrationBean.setOrder(4);
+        return registrationBean;
+    }
+
+    @Bean
+    public ConsumoEndpoint consumoEndpoint(ConsumoPeticiones consumo) {
+        return new ConsumoEndpoint(consumo);
+    }
+}
@@ -0,0 +1,32 @@
+package com.miempresa.productos.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.miempresa.productos.plazos.FiltroPlazo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Plazo de cada petición, normalmente el que le queda a MSInventario: pasado el plazo no se
+ * consulta la base de datos (ver docs/plazos.md).
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.plazos.enabled", havingValue = "true", matchIfMissing = true)
+public class PlazosConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroPlazo> filtroPlazo(@Value("${productos.plazos.por-defecto-ms:0}") long porDefectoMs,
+                                                          ObjectProvider<MeterRegistry> registry) {
+        FilterRegistrationBean<FiltroPlazo> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new FiltroPlazo(porDefectoMs, registry.getIfAvailable()));
+        registrationBean.addUrlPatterns("/api/*");
+        // Antes que la API key: el plazo cuenta desde que llega la petición
+        registrationBean.setOrder(0);
+        return registrationBean;
+    }
+}
@@ -0,0 +1,42 @@
+package com.miempresa.productos.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Límites de {@code api.*}: el de la clave de siempre ({@code api.key}, que se sigue leyendo
+ * en {@link ApiKeyFilterConfig}) y las claves de cada cliente en {@code api.claves}, cada una
+ * con el suyo (ver docs/limites-api-key.md). Una tasa de 0 deja la clave sin límite.
+ */
+@Data
+@ConfigurationProperties(prefix = "api")
+public class PropiedadesApiKeys {
+
+    /** Límite de {@code api.key} y de las claves de {@code api.claves} que no fijan el suyo. */
+    private Limite limite = new Limite();
+
+    private List<Clave> claves = new ArrayList<>();
+
+    @Data
+    public static class Limite {
+
+        private double peticionesPorSegundo;
+
+        /** Peticiones seguidas que se admiten por encima de la tasa tras un rato sin tráfico. */
+        private int rafaga = 1;
+    }
+
+    @Data
+    public static class Clave {
+
+        /** Nombre del cliente para métricas y trazas; la clave nunca se publica. */
+        private String nombre;
+        private String clave;
+        private Double peticionesPorSegundo;
+        private Integer rafaga;
+    }
+}
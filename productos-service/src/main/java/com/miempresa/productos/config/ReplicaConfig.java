@@ -0,0 +1,103 @@
+package com.miempresa.productos.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.miempresa.productos.replicas.DataSourceLecturaEscritura;
+import com.miempresa.productos.replicas.MonitorRetrasoReplica;
+import com.miempresa.productos.replicas.PropiedadesReplica;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Réplica de lectura (ver docs/replica-lectura.md): las transacciones de solo lectura van a
+ * {@code productos.replica.url} y el resto a {@code spring.datasource}. Sin
+ * {@code productos.replica.enabled=true} el servicio usa el data source de siempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.replica.enabled", havingValue = "true")
+@EnableConfigurationProperties(PropiedadesReplica.class)
+public class ReplicaConfig {
+
+    /**
+     * Los dos pools no son beans: así la instrumentación de consultas envuelve solo el data
+     * source enrutado y no cuenta cada sentencia dos veces.
+     */
+    @Bean
+    public PoolsLecturaEscritura poolsLecturaEscritura(DataSourceProperties base, PropiedadesReplica propiedades,
+                                                       Environment environment) {
+        if (!StringUtils.hasText(propiedades.getUrl())) {
+            throw new IllegalStateException("Falta productos.replica.url");
+        }
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primaria = base.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primaria));
+
+        HikariDataSource replica = base.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName((primaria.getPoolName() != null ? primaria.getPoolName() : "productos") + "-replica");
+        replica.setJdbcUrl(propiedades.getUrl());
+        if (StringUtils.hasText(propiedades.getUsername())) {
+            replica.setUsername(propiedades.getUsername());
+            replica.setPassword(propiedades.getPassword());
+        }
+        if (propiedades.getMaxPool() != null) {
+            replica.setMaximumPoolSize(propiedades.getMaxPool());
+        }
+        // Una escritura que llegue a la réplica por error falla en lugar de intentarse
+        replica.setReadOnly(true);
+        return new PoolsLecturaEscritura(primaria, replica);
+    }
+
+    @Bean(destroyMethod = "close")
+    public MonitorRetrasoReplica monitorRetrasoReplica(PoolsLecturaEscritura pools, PropiedadesReplica propiedades) {
+        MonitorRetrasoReplica monitor = new MonitorRetrasoReplica(pools.replica(), propiedades.getConsultaRetraso(),
+                propiedades.getRetrasoMaximoMs(), propiedades.getComprobacionMs());
+        monitor.iniciar();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(PoolsLecturaEscritura pools, MonitorRetrasoReplica monitor,
+                                 ObjectProvider<MeterRegistry> registry) {
+        DataSourceLecturaEscritura enrutado = new DataSourceLecturaEscritura(pools.primaria(), pools.replica(),
+                monitor::disponible, registry.getIfAvailable());
+        enrutado.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutado);
+    }
+
+    /** Los pools no son beans, así que Actuator no los ve: aparecen aquí como {@code hikaricp.connections.*}. */
+    @Bean
+    public MeterBinder metricasPoolsReplica(PoolsLecturaEscritura pools) {
+        return registry -> {
+            pools.primaria().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            pools.replica().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        };
+    }
+
+    public record PoolsLecturaEscritura(HikariDataSource primaria, HikariDataSource replica) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            replica.close();
+            primaria.close();
+        }
+    }
+}
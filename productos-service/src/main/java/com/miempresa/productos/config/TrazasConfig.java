@@ -0,0 +1,49 @@
+package com.miempresa.productos.config;
+
+import java.nio.file.Path;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+
+import com.miempresa.productos.trazas.ExportadorTrazasFichero;
+import com.miempresa.productos.trazas.TrazadoRepositorios;
+
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Trazas distribuidas (ver docs/trazas.md). Spring Boot ya abre el span de cada petición
+ * entrante, continuando el {@code traceparent} que envía inventario-service, y añade el
+ * {@code traceId} al log; aquí se añaden los spans de repositorio y el exportador a fichero.
+ */
+@Configuration
+public class TrazasConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "productos.trazas.fichero.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter exportadorTrazasFichero(@Value("${productos.trazas.fichero.ruta:trazas/productos.jsonl}") String ruta,
+                                                @Value("${productos.trazas.fichero.max-mb:50}") long maxMb) {
+        return new ExportadorTrazasFichero(Path.of(ruta), maxMb * 1024 * 1024);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor trazadoRepositoriosAdvisor(ObjectProvider<Tracer> tracer) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(Repository.class)),
+                new TrazadoRepositorios(() -> tracer.getIfAvailable(() -> Tracer.NOOP)));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return advisor;
+    }
+}
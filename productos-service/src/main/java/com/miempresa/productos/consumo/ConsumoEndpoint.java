@@ -0,0 +1,34 @@
+package com.miempresa.productos.consumo;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/consumo} en el puerto de gestión: memoria asignada y CPU por ruta, de la
+ * que más memoria acumula a la que menos. {@code DELETE} pone todo a cero.
+ */
+@Endpoint(id = "consumo")
+public class ConsumoEndpoint {
+
+    private final ConsumoPeticiones consumo;
+
+    public ConsumoEndpoint(ConsumoPeticiones consumo) {
+        this.consumo = consumo;
+    }
+
+    @ReadOperation
+    public InformeConsumo consumo() {
+        return new InformeConsumo(consumo.isMemoriaMedible(), consumo.isCpuMedible(), consumo.rutas());
+    }
+
+    @DeleteOperation
+    public void reiniciar() {
+        consumo.reiniciar();
+    }
+
+    public record InformeConsumo(boolean memoriaMedida, boolean cpuMedida, List<ConsumoPeticiones.Ruta> rutas) {
+    }
+}
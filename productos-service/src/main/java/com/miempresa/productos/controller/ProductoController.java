@@ -9,9 +9,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.plazos.Plazo;
 import com.miempresa.productos.services.ProductoService;
 import com.miempresa.productos.wrappers.JsonApiData;
 import com.miempresa.productos.wrappers.JsonApiWrapper;
@@ -32,19 +34,28 @@ public class ProductoController {
     
     @PostMapping
     public ResponseEntity<JsonApiWrapper<ProductoDto>> crearProducto(@RequestBody ProductoDto dto) {
+        Plazo.comprobar("base-datos");
         ProductoDto creado = productoService.crearProducto(dto);
         return ResponseEntity.status(HttpStatus.CREATED).body(toJsonApi(creado, TYPE_PRODUCTO));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<JsonApiWrapper<ProductoDto>> obtenerProducto(@PathVariable Long id) {
+        // Si MSInventario ya no espera la respuesta, no se consulta la base de datos. Se comprueba
+        // aquí y no en el servicio porque al entrar en su @Transactional ya se ha tomado conexión
+        Plazo.comprobar("base-datos");
         ProductoDto dto = productoService.obtenerProductoPorId(id);
         return ResponseEntity.ok(toJsonApi(dto, TYPE_PRODUCTO));
     }
 
     @GetMapping
-    public ResponseEntity<List<JsonApiWrapper<ProductoDto>>> listarProductos() {
-        List<ProductoDto> productos = productoService.listarProductos();
+    public ResponseEntity<List<JsonApiWrapper<ProductoDto>>> listarProductos(
+            @RequestParam(name = "filter[id]", required = false) List<Long> ids) {
+        Plazo.comprobar("base-datos");
+        // Con filter[id] se resuelven varios productos en una sola consulta (usado por MSInventario)
+        List<ProductoDto> productos = ids == null
+                ? productoService.listarProductos()
+                : productoService.listarProductosPorIds(ids);
         List<JsonApiWrapper<ProductoDto>> respuesta = productos.stream()
             .map(dto -> toJsonApi(dto, TYPE_PRODUCTO))
             .collect(Collectors.toList());
@@ -0,0 +1,30 @@
+package com.miempresa.productos.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Errores de negocio que el servicio devuelve al cliente. Cada código fija el estado HTTP y
+ * el título del error JSON:API; el detalle lo aporta el mensaje de la excepción.
+ */
+public enum CodigoError {
+
+    RECURSO_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "Recurso no encontrado"),
+    SOLICITUD_INVALIDA(HttpStatus.BAD_REQUEST, "Solicitud inválida"),
+    PLAZO_EXCEDIDO(HttpStatus.GATEWAY_TIMEOUT, "Plazo agotado");
+
+    private final HttpStatus estado;
+    private final String titulo;
+
+    CodigoError(HttpStatus estado, String titulo) {
+        this.estado = estado;
+        this.titulo = titulo;
+    }
+
+    public HttpStatus getEstado() {
+        return estado;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+}
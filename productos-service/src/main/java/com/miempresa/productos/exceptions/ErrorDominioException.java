@@ -0,0 +1,23 @@
+package com.miempresa.productos.exceptions;
+
+/**
+ * Base de los errores de negocio. Son resultados esperados (un producto que no existe, una
+ * consulta con demasiados ids) y no fallos del programa, así que no capturan la traza:
+ * rellenarla es lo más caro de lanzar una excepción y nadie la lee. {@link GlobalExceptionHandler}
+ * los traduce según su {@link CodigoError}.
+ */
+public abstract class ErrorDominioException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final CodigoError codigo;
+
+	protected ErrorDominioException(CodigoError codigo, String mensaje) {
+        super(mensaje, null, false, false);
+        this.codigo = codigo;
+    }
+
+	public CodigoError getCodigo() {
+		return codigo;
+	}
+}
@@ -1,36 +1,54 @@
 package com.miempresa.productos.exceptions;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
 import jakarta.validation.ConstraintViolationException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
-    @ExceptionHandler(RecursoNoEncontradoException.class)
-    public ResponseEntity<Object> manejarRecursoNoEncontrado(RecursoNoEncontradoException ex) {
-        return new ResponseEntity<>(
-                Map.of(
-                        "errors", List.of(
-                                Map.of(
-                                        "status", "404",
-                                        "title", "Recurso no encontrado",
-                                        "detail", ex.getMessage(),
-                                        "timestamp", LocalDateTime.now().toString()
-                                )
-                        )
-                ),
-                HttpStatus.NOT_FOUND
-        );
+    private static final JsonStringEncoder JSON = JsonStringEncoder.getInstance();
+
+    // Todo lo que precede al detalle en {"errors":[{...}]}, fijo para cada código
+    private static final Map<CodigoError, String> PLANTILLAS = new EnumMap<>(CodigoError.class);
+
+    static {
+        for (CodigoError codigo : CodigoError.values()) {
+            PLANTILLAS.put(codigo, "{\"errors\":[{\"status\":\"" + codigo.getEstado().value()
+                    + "\",\"code\":\"" + codigo.name()
+                    + "\",\"title\":\"" + new String(JSON.quoteAsString(codigo.getTitulo()))
+                    + "\",\"detail\":\"");
+        }
+    }
+
+    private static volatile MarcaDeTiempo ultimaMarca = new MarcaDeTiempo(-1, "");
+
+    /**
+     * Errores de negocio, como el 404 de un producto inexistente que MSInventario provoca en
+     * cada compra de un id desconocido. Se escriben desde una plantilla precalculada por
+     * {@link CodigoError}: solo se escapan el detalle y la marca de tiempo, sin montar mapas ni
+     * pasar por Jackson.
+     */
+    @ExceptionHandler(ErrorDominioException.class)
+    public ResponseEntity<Object> manejarErrorDominio(ErrorDominioException ex) {
+        return ResponseEntity.status(ex.getCodigo().getEstado())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpoError(ex));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -79,4 +97,30 @@ public class GlobalExceptionHandler {
                 HttpStatus.INTERNAL_SERVER_ERROR
         );
     }
+
+    private static String cuerpoError(ErrorDominioException ex) {
+        String plantilla = PLANTILLAS.get(ex.getCodigo());
+        String detalle = ex.getMessage() == null ? "" : new String(JSON.quoteAsString(ex.getMessage()));
+        return new StringBuilder(plantilla.length() + detalle.length() + 48)
+                .append(plantilla)
+                .append(detalle)
+                .append("\",\"timestamp\":\"")
+                .append(marcaDeTiempo())
+                .append("\"}]}")
+                .toString();
+    }
+
+    // Varias respuestas en el mismo milisegundo comparten el texto de la marca de tiempo
+    private static String marcaDeTiempo() {
+        MarcaDeTiempo actual = ultimaMarca;
+        long ahora = System.currentTimeMillis();
+        if (actual.milis() != ahora) {
+            actual = new MarcaDeTiempo(ahora, LocalDateTime.ofInstant(Instant.ofEpochMilli(ahora), ZoneId.systemDefault()).toString());
+            ultimaMarca = actual;
+        }
+        return actual.texto();
+    }
+
+    private record MarcaDeTiempo(long milis, String texto) {
+    }
 }
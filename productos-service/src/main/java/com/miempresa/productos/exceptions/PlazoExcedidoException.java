@@ -0,0 +1,10 @@
+package com.miempresa.productos.exceptions;
+
+public class PlazoExcedidoException extends ErrorDominioException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PlazoExcedidoException(String mensaje) {
+        super(CodigoError.PLAZO_EXCEDIDO, mensaje);
+    }
+}
@@ -0,0 +1,129 @@
+package com.miempresa.productos.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import com.miempresa.productos.exceptions.RecursoNoEncontradoException;
+import com.miempresa.productos.exceptions.SolicitudInvalidaException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Grabaciones de Java Flight Recorder bajo demanda, en el puerto de gestión (ver docs/jfr.md).
+ * <ul>
+ * <li>{@code POST /actuator/jfr}: graba y devuelve el fichero {@code .jfr}.</li>
+ * <li>{@code POST /actuator/jfr/resumen}: graba y devuelve un {@link ResumenJfr}.</li>
+ * </ul>
+ * El cuerpo JSON admite {@code segundos} (30 por defecto) y {@code perfil}: {@code default},
+ * con una sobrecarga mínima, o {@code profile}, que muestrea con más frecuencia. La petición
+ * espera a que termine la grabación. Solo hay una a la vez: mientras tanto se responde 429,
+ * como hace Actuator con {@code /heapdump}.
+ */
+@Endpoint(id = "jfr")
+public class JfrEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrEndpoint.class);
+
+    private static final int SEGUNDOS_POR_DEFECTO = 30;
+    private static final String PERFIL_POR_DEFECTO = "profile";
+    private static final int ENTRADAS_RESUMEN = 15;
+
+    private final int maxSegundos;
+    private final AtomicBoolean grabando = new AtomicBoolean();
+
+    public JfrEndpoint(int maxSegundos) {
+        this.maxSegundos = maxSegundos;
+    }
+
+    // application/json para que los errores de validación lleguen como siempre
+    @WriteOperation(produces = { "application/octet-stream", "application/json" })
+    public WebEndpointResponse<Resource> grabar(@Nullable Integer segundos, @Nullable String perfil) throws IOException {
+        Path fichero = grabar(duracion(segundos), configuracion(perfil));
+        if (fichero == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        // El fichero temporal se borra al cerrar el flujo, cuando termina la respuesta
+        return new WebEndpointResponse<>(new InputStreamResource(
+                Files.newInputStream(fichero, StandardOpenOption.DELETE_ON_CLOSE)), WebEndpointResponse.STATUS_OK);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<ResumenJfr> resumir(@Selector String resumen, @Nullable Integer segundos,
+                                                   @Nullable String perfil) throws IOException {
+        if (!"resumen".equals(resumen)) {
+            throw new RecursoNoEncontradoException("No existe /actuator/jfr/" + resumen);
+        }
+        int duracion = duracion(segundos);
+        Configuration configuracion = configuracion(perfil);
+        Path fichero = grabar(duracion, configuracion);
+        if (fichero == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        try {
+            return new WebEndpointResponse<>(ResumenJfr.leer(fichero, configuracion.getName(), duracion, ENTRADAS_RESUMEN),
+                    WebEndpointResponse.STATUS_OK);
+        } finally {
+            Files.deleteIfExists(fichero);
+        }
+    }
+
+    private int duracion(Integer segundos) {
+        int duracion = segundos != null ? segundos : SEGUNDOS_POR_DEFECTO;
+        if (duracion <= 0 || duracion > maxSegundos) {
+            throw new SolicitudInvalidaException("segundos debe estar entre 1 y " + maxSegundos);
+        }
+        return duracion;
+    }
+
+    private static Configuration configuracion(String perfil) {
+        String nombre = perfil != null ? perfil : PERFIL_POR_DEFECTO;
+        try {
+            return Configuration.getConfiguration(nombre);
+        } catch (IOException | ParseException e) {
+            throw new SolicitudInvalidaException("Perfil JFR desconocido: " + nombre + ". Disponibles: "
+                    + Configuration.getConfigurations().stream().map(Configuration::getName).toList());
+        }
+    }
+
+    /** Graba y devuelve el fichero temporal, o {@code null} si ya había una grabación en curso. */
+    private Path grabar(int segundos, Configuration configuracion) throws IOException {
+        if (!grabando.compareAndSet(false, true)) {
+            return null;
+        }
+        Path fichero = Files.createTempFile("jfr-", ".jfr");
+        try (Recording grabacion = new Recording(configuracion)) {
+            grabacion.setName("actuator-jfr");
+            log.info("Grabación JFR iniciada: {} s con el perfil {}", segundos, configuracion.getName());
+            grabacion.start();
+            Thread.sleep(segundos * 1000L);
+            grabacion.stop();
+            grabacion.dump(fichero);
+            log.info("Grabación JFR terminada: {} KB", Files.size(fichero) / 1024);
+            return fichero;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Files.deleteIfExists(fichero);
+            throw new IOException("Grabación JFR interrumpida", e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(fichero);
+            throw e;
+        } finally {
+            grabando.set(false);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.miempresa.productos.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Resumen de una grabación JFR para diagnosticar sin abrir JDK Mission Control: métodos que
+ * más CPU consumen, sitios que más memoria asignan y pausas de GC.
+ * <p>
+ * Los métodos calientes se cuentan por el marco superior de cada muestra de CPU (tiempo
+ * propio). Las asignaciones se atribuyen al primer marco fuera del JDK, que es el que se puede
+ * cambiar: un {@code StringBuilder} que crece dentro de un mapper cuenta para el mapper. Los
+ * porcentajes son sobre el total de muestras o de bytes, sin contar lo que causa la propia
+ * grabación.
+ */
+public record ResumenJfr(String perfil,
+                         int segundos,
+                         long muestrasCpu,
+                         List<Entrada> metodosCalientes,
+                         long bytesAsignadosMuestreados,
+                         List<Entrada> sitiosAsignacion,
+                         Gc gc) {
+
+    /** Un método o sitio de asignación con su peso (muestras o bytes) y porcentaje del total. */
+    public record Entrada(String sitio, long valor, double porcentaje) {
+    }
+
+    public record Gc(long recolecciones, double pausaTotalMs, double pausaMaximaMs, Map<String, Long> porRecolector) {
+    }
+
+    public static ResumenJfr leer(Path fichero, String perfil, int segundos, int maxEntradas) throws IOException {
+        Map<String, Long> cpu = new HashMap<>();
+        Map<String, Long> asignaciones = new HashMap<>();
+        Map<String, Long> porRecolector = new TreeMap<>();
+        long muestrasCpu = 0;
+        long bytesAsignados = 0;
+        Duration pausaTotal = Duration.ZERO;
+        Duration pausaMaxima = Duration.ZERO;
+
+        try (RecordingFile grabacion = new RecordingFile(fichero)) {
+            while (grabacion.hasMoreEvents()) {
+                RecordedEvent evento = grabacion.readEvent();
+                switch (evento.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        RecordedFrame marco = primerMarco(evento.getStackTrace(), false);
+                        if (marco != null) {
+                            muestrasCpu++;
+                            cpu.merge(metodo(marco), 1L, Long::sum);
+                        }
+                    }
+                    case "jdk.ObjectAllocationSample" -> {
+                        RecordedFrame marco = primerMarco(evento.getStackTrace(), true);
+                        if (marco != null) {
+                            long peso = evento.getLong("weight");
+                            bytesAsignados += peso;
+                            asignaciones.merge(metodo(marco) + ":" + marco.getLineNumber()
+                                    + " (" + evento.getClass("objectClass").getName() + ")", peso, Long::sum);
+                        }
+                    }
+                    case "jdk.GarbageCollection" -> {
+                        porRecolector.merge(evento.getString("name"), 1L, Long::sum);
+                        pausaTotal = pausaTotal.plus(evento.getDuration("sumOfPauses"));
+                        Duration pausa = evento.getDuration("longestPause");
+                        if (pausa.compareTo(pausaMaxima) > 0) {
+                            pausaMaxima = pausa;
+                        }
+                    }
+                    default -> {
+                        // Otros eventos de la grabación: disponibles en el .jfr completo
+                    }
+                }
+            }
+        }
+
+        long recolecciones = porRecolector.values().stream().mapToLong(Long::longValue).sum();
+        return new ResumenJfr(perfil, segundos,
+                muestrasCpu, mayores(cpu, muestrasCpu, maxEntradas),
+                bytesAsignados, mayores(asignaciones, bytesAsignados, maxEntradas),
+                new Gc(recolecciones, pausaTotal.toNanos() / 1e6, pausaMaxima.toNanos() / 1e6, porRecolector));
+    }
+
+    /**
+     * Marco al que se atribuye el evento, o {@code null} si lo causó la propia grabación
+     * (arrancarla asigna varios MB que no interesan a nadie).
+     */
+    private static RecordedFrame primerMarco(RecordedStackTrace pila, boolean fueraDelJdk) {
+        if (pila == null || pila.getFrames().isEmpty()) {
+            return null;
+        }
+        RecordedFrame elegido = null;
+        for (RecordedFrame marco : pila.getFrames()) {
+            String clase = marco.getMethod().getType().getName();
+            if (clase.equals(JfrEndpoint.class.getName())) {
+                return null;
+            }
+            if (elegido == null && (!fueraDelJdk || (marco.isJavaFrame() && !delJdk(clase)))) {
+                elegido = marco;
+            }
+        }
+        return elegido != null ? elegido : pila.getFrames().get(0);
+    }
+
+    private static boolean delJdk(String clase) {
+        return clase.startsWith("java.") || clase.startsWith("javax.") || clase.startsWith("jdk.")
+                || clase.startsWith("sun.") || clase.startsWith("com.sun.");
+    }
+
+    private static String metodo(RecordedFrame marco) {
+        return marco.getMethod().getType().getName() + "." + marco.getMethod().getName();
+    }
+
+    private static List<Entrada> mayores(Map<String, Long> pesos, long total, int maxEntradas) {
+        return pesos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(maxEntradas)
+                .map(peso -> new Entrada(peso.getKey(), peso.getValue(),
+                        total == 0 ? 0 : Math.round(peso.getValue() * 1000.0 / total) / 10.0))
+                .toList();
+    }
+}
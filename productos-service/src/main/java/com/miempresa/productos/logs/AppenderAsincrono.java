@@ -0,0 +1,201 @@
+package com.miempresa.productos.logs;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.miempresa.productos.utils.MpscRingBuffer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Desacopla la escritura del log de los hilos que atienden peticiones: cada evento se deja
+ * en una {@link MpscRingBuffer} acotada y un único hilo lo entrega a los appenders de
+ * siempre (consola, fichero). Un hilo de petición nunca espera por el disco ni por la
+ * consola.
+ * <p>
+ * Si la cola se llena no se bloquea a nadie; se descarta, por este orden:
+ * <ul>
+ * <li>a partir de {@code umbralDescarte} de ocupación, los eventos INFO, DEBUG y TRACE;</li>
+ * <li>con la cola llena, cualquier evento.</li>
+ * </ul>
+ * Los descartes se cuentan y, cada {@value #INTERVALO_AVISO_SEGUNDOS} segundos como mucho,
+ * se escribe un WARN con cuántos se perdieron. Al detenerse se vacía la cola antes de
+ * detener los appenders.
+ */
+public class AppenderAsincrono extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    static final int INTERVALO_AVISO_SEGUNDOS = 10;
+
+    /** Espera máxima del consumidor sin trabajo; los productores lo despiertan antes. */
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long ESPERA_CIERRE_MILIS = 5_000;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final AtomicLong descartados = new AtomicLong();
+    private int capacidad = 8192;
+    private double umbralDescarte = 0.8;
+
+    private MpscRingBuffer<ILoggingEvent> cola;
+    private int ocupacionDescarte;
+    private volatile boolean durmiendo;
+    private Thread consumidor;
+
+    public void setCapacidad(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public void setUmbralDescarte(double umbralDescarte) {
+        this.umbralDescarte = umbralDescarte;
+    }
+
+    /** Eventos descartados desde el arranque. */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (umbralDescarte <= 0 || umbralDescarte > 1) {
+            addError("umbralDescarte debe estar en (0, 1]: " + umbralDescarte);
+            return;
+        }
+        cola = new MpscRingBuffer<>(capacidad);
+        ocupacionDescarte = (int) (cola.capacidad() * umbralDescarte);
+        consumidor = new Thread(this::consumir, "log-asincrono-" + getName());
+        consumidor.setDaemon(true);
+        super.start();
+        consumidor.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent evento) {
+        if (evento.getLevel().toInt() < Level.WARN_INT && cola.size() >= ocupacionDescarte) {
+            descartados.incrementAndGet();
+            return;
+        }
+        // Mensaje, MDC y nombre del hilo se fijan ahora: el consumidor los lee desde otro hilo
+        evento.prepareForDeferredProcessing();
+        if (!cola.offer(evento)) {
+            descartados.incrementAndGet();
+            return;
+        }
+        if (durmiendo) {
+            LockSupport.unpark(consumidor);
+        }
+    }
+
+    private void consumir() {
+        long intervaloAviso = TimeUnit.SECONDS.toNanos(INTERVALO_AVISO_SEGUNDOS);
+        long proximoAviso = System.nanoTime() + intervaloAviso;
+        long avisados = 0;
+        while (isStarted()) {
+            ILoggingEvent evento = cola.poll();
+            if (evento == null) {
+                esperar();
+            } else {
+                appenders.appendLoopOnAppenders(evento);
+            }
+            long ahora = System.nanoTime();
+            if (ahora - proximoAviso >= 0) {
+                long total = descartados.get();
+                if (total > avisados) {
+                    avisarDescartes(total - avisados);
+                    avisados = total;
+                }
+                proximoAviso = ahora + intervaloAviso;
+            }
+        }
+
+        ILoggingEvent restante;
+        while ((restante = cola.poll()) != null) {
+            appenders.appendLoopOnAppenders(restante);
+        }
+        if (descartados.get() > avisados) {
+            avisarDescartes(descartados.get() - avisados);
+        }
+    }
+
+    private void esperar() {
+        durmiendo = true;
+        // Se vuelve a mirar la cola tras publicar la marca: un productor que encoló justo
+        // antes no vio "durmiendo" y no va a despertar a nadie
+        if (cola.isEmpty()) {
+            LockSupport.parkNanos(this, ESPERA_MAXIMA_NANOS);
+        }
+        durmiendo = false;
+    }
+
+    private void avisarDescartes(long cantidad) {
+        LoggingEvent aviso = new LoggingEvent(AppenderAsincrono.class.getName(),
+                ((LoggerContext) getContext()).getLogger(AppenderAsincrono.class), Level.WARN,
+                "Cola de log llena: se descartaron {} eventos", null, new Object[] { cantidad });
+        appenders.appendLoopOnAppenders(aviso);
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(consumidor);
+        try {
+            consumidor.join(ESPERA_CIERRE_MILIS);
+            if (consumidor.isAlive()) {
+                addWarn("El hilo " + consumidor.getName() + " no terminó de vaciar la cola en "
+                        + ESPERA_CIERRE_MILIS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String nombre) {
+        return appenders.getAppender(nombre);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String nombre) {
+        return appenders.detachAppender(nombre);
+    }
+}
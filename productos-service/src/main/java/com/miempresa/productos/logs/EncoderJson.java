@@ -0,0 +1,93 @@
+package com.miempresa.productos.logs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+/**
+ * Una línea JSON por evento, con los mismos nombres que el fichero de trazas para poder cruzar
+ * ambos por {@code traceId}:
+ *
+ * <pre>
+ * {"instante":"...","nivel":"INFO","servicio":"productos-service","logger":"...","hilo":"...",
+ *  "mensaje":"...","traceId":"...","spanId":"...","mdc":{...},"excepcion":"..."}
+ * </pre>
+ * {@code traceId} y {@code spanId} salen del MDC; el resto del MDC va en {@code mdc}. Los
+ * campos vacíos se omiten.
+ */
+public class EncoderJson extends EncoderBase<ILoggingEvent> {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] VACIO = new byte[0];
+
+    private String servicio;
+
+    public void setServicio(String servicio) {
+        this.servicio = servicio;
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return VACIO;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent evento) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = JSON.createGenerator(salida, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("instante", evento.getInstant().toString());
+            json.writeStringField("nivel", evento.getLevel().toString());
+            if (servicio != null) {
+                json.writeStringField("servicio", servicio);
+            }
+            json.writeStringField("logger", evento.getLoggerName());
+            json.writeStringField("hilo", evento.getThreadName());
+            json.writeStringField("mensaje", evento.getFormattedMessage());
+
+            Map<String, String> mdc = evento.getMDCPropertyMap();
+            escribirSiHay(json, "traceId", mdc.get("traceId"));
+            escribirSiHay(json, "spanId", mdc.get("spanId"));
+            if (mdc.size() > (mdc.containsKey("traceId") ? 1 : 0) + (mdc.containsKey("spanId") ? 1 : 0)) {
+                json.writeObjectFieldStart("mdc");
+                for (Map.Entry<String, String> entrada : mdc.entrySet()) {
+                    if (!"traceId".equals(entrada.getKey()) && !"spanId".equals(entrada.getKey())) {
+                        json.writeStringField(entrada.getKey(), entrada.getValue());
+                    }
+                }
+                json.writeEndObject();
+            }
+
+            IThrowableProxy excepcion = evento.getThrowableProxy();
+            if (excepcion != null) {
+                json.writeStringField("excepcion", ThrowableProxyUtil.asString(excepcion));
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        salida.write('\n');
+        return salida.toByteArray();
+    }
+
+    private static void escribirSiHay(JsonGenerator json, String campo, String valor) throws IOException {
+        if (valor != null && !valor.isEmpty()) {
+            json.writeStringField(campo, valor);
+        }
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return VACIO;
+    }
+}
@@ -0,0 +1,114 @@
+package com.miempresa.productos.logs;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Muestreo y límite de ritmo por logger para los mensajes que se escriben en cada petición.
+ * <p>
+ * Cada regla tiene la forma {@code <prefijo>:<1 de cada N>:<máximo por segundo>} y se aplica
+ * a los loggers cuyo nombre empieza por el prefijo (gana el prefijo más largo). De los
+ * eventos INFO, DEBUG y TRACE que el logger iba a escribir pasa uno de cada {@code N}, y como
+ * mucho {@code máximo por segundo} de ellos; un máximo de 0 deja solo el muestreo. WARN y
+ * ERROR pasan siempre.
+ * <p>
+ * Se decide antes de construir el evento, así que lo que se descarta no cuesta ni el formato
+ * del mensaje.
+ */
+public class MuestreoLogs extends TurboFilter {
+
+    private static final long SEGUNDO_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<Regla> reglas = new ArrayList<>();
+    private final Map<String, Optional<Regla>> reglaPorLogger = new ConcurrentHashMap<>();
+
+    /** Añade una regla {@code <prefijo>:<1 de cada N>:<máximo por segundo>}. */
+    public void addRegla(String definicion) {
+        String[] partes = definicion.trim().split(":");
+        if (partes.length != 3 || partes[0].isBlank()) {
+            throw new IllegalArgumentException("Regla de muestreo inválida, se esperaba "
+                    + "<prefijo>:<1 de cada N>:<máximo por segundo>: " + definicion);
+        }
+        int cadaN = Integer.parseInt(partes[1].trim());
+        int maximoPorSegundo = Integer.parseInt(partes[2].trim());
+        if (cadaN < 1 || maximoPorSegundo < 0) {
+            throw new IllegalArgumentException("Regla de muestreo fuera de rango: " + definicion);
+        }
+        reglas.add(new Regla(partes[0].trim(), cadaN, maximoPorSegundo));
+        reglas.sort(Comparator.comparingInt((Regla regla) -> regla.prefijo.length()).reversed());
+        reglaPorLogger.clear();
+    }
+
+    public List<String> getReglas() {
+        return reglas.stream().map(Regla::toString).toList();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format == null: es una consulta isXxxEnabled(), no un evento que muestrear
+        if (format == null || level.toInt() >= Level.WARN_INT
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Optional<Regla> regla = reglaPorLogger.computeIfAbsent(logger.getName(), this::buscarRegla);
+        if (regla.isEmpty() || regla.get().admite()) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private Optional<Regla> buscarRegla(String nombreLogger) {
+        return reglas.stream()
+                .filter(regla -> nombreLogger.startsWith(regla.prefijo))
+                .findFirst();
+    }
+
+    private static final class Regla {
+
+        private final String prefijo;
+        private final int cadaN;
+        private final int maximoPorSegundo;
+        private final AtomicLong vistos = new AtomicLong();
+        private final AtomicLong inicioVentana = new AtomicLong(System.nanoTime());
+        private final AtomicLong emitidosEnVentana = new AtomicLong();
+
+        private Regla(String prefijo, int cadaN, int maximoPorSegundo) {
+            this.prefijo = prefijo;
+            this.cadaN = cadaN;
+            this.maximoPorSegundo = maximoPorSegundo;
+        }
+
+        private boolean admite() {
+            if (cadaN > 1 && vistos.getAndIncrement() % cadaN != 0) {
+                return false;
+            }
+            if (maximoPorSegundo == 0) {
+                return true;
+            }
+            long ahora = System.nanoTime();
+            long inicio = inicioVentana.get();
+            if (ahora - inicio >= SEGUNDO_NANOS && inicioVentana.compareAndSet(inicio, ahora)) {
+                emitidosEnVentana.set(0);
+            }
+            return emitidosEnVentana.incrementAndGet() <= maximoPorSegundo;
+        }
+
+        @Override
+        public String toString() {
+            return prefijo + ":" + cadaN + ":" + maximoPorSegundo;
+        }
+    }
+}
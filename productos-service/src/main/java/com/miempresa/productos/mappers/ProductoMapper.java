@@ -0,0 +1,28 @@
+package com.miempresa.productos.mappers;
+
+import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.entities.ProductoEntity;
+
+/**
+ * Conversión entre {@link ProductoEntity} y {@link ProductoDto}, campo a campo. Sustituye a
+ * {@code BeanUtils.copyProperties}, que resuelve los getters y setters por reflexión en cada
+ * llamada (ver docs/microbenchmarks.md). Un campo nuevo hay que añadirlo aquí.
+ */
+public final class ProductoMapper {
+
+    private ProductoMapper() {
+    }
+
+    public static ProductoEntity toEntity(ProductoDto dto) {
+        return new ProductoEntity(dto.getId(), dto.getNombre(), dto.getDescripcion(), dto.getPrecio());
+    }
+
+    public static ProductoDto toDto(ProductoEntity entity) {
+        return ProductoDto.builder()
+                .id(entity.getId())
+                .nombre(entity.getNombre())
+                .descripcion(entity.getDescripcion())
+                .precio(entity.getPrecio())
+                .build();
+    }
+}
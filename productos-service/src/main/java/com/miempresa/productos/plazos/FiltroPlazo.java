@@ -0,0 +1,87 @@
+package com.miempresa.productos.plazos;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Fija el {@link Plazo} de cada petición a {@code /api/*} a partir de la cabecera
+ * {@value Plazo#CABECERA}, o de {@code porDefectoMs} si no la trae. Una petición que llega con
+ * el plazo ya agotado se rechaza con 504 sin hacer nada más.
+ * <p>
+ * Cuenta en {@code plazo.excedido} las peticiones que agotan su plazo: a la entrada, en la fase
+ * que lo detectó ({@link Plazo#excedido(String)}) o, si nadie lo hizo, al responder tarde.
+ */
+public class FiltroPlazo extends OncePerRequestFilter {
+
+    static final String CUERPO_504 = "{\"errors\":[{\"status\":\"504\",\"code\":\"PLAZO_EXCEDIDO\","
+            + "\"title\":\"Plazo agotado\",\"detail\":\"La petición llegó con el plazo agotado\"}]}";
+
+    private final long porDefectoMs;
+    private final MeterRegistry registry;
+
+    /**
+     * @param porDefectoMs plazo de las peticiones sin cabecera; 0 o negativo, sin plazo
+     * @param registry     puede ser nulo: entonces no se cuentan los plazos agotados
+     */
+    public FiltroPlazo(long porDefectoMs, MeterRegistry registry) {
+        this.porDefectoMs = porDefectoMs;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Plazo plazo = plazo(request.getHeader(Plazo.CABECERA));
+        if (plazo == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (plazo.vencido()) {
+            contar("entrada");
+            response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+            response.setContentType("application/json");
+            response.getWriter().write(CUERPO_504);
+            return;
+        }
+        Plazo.establecer(plazo);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Plazo.limpiar();
+            if (plazo.faseExcedida() != null) {
+                contar(plazo.faseExcedida());
+            } else if (plazo.vencido()) {
+                contar("respuesta");
+            }
+        }
+    }
+
+    private Plazo plazo(String cabecera) {
+        if (cabecera != null) {
+            try {
+                return Plazo.dentroDe(Long.parseLong(cabecera.trim()));
+            } catch (NumberFormatException e) {
+                // Una cabecera mal formada se trata como si no viniera
+            }
+        }
+        return porDefectoMs > 0 ? Plazo.dentroDe(porDefectoMs) : null;
+    }
+
+    private void contar(String fase) {
+        if (registry != null) {
+            Counter.builder("plazo.excedido")
+                    .description("Peticiones que agotaron su plazo, por la fase en que se detectó")
+                    .tag("fase", fase)
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.miempresa.productos.replicas;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Entrega conexiones de la réplica a las transacciones {@code @Transactional(readOnly = true)}
+ * y de la primaria a todo lo demás. Si la réplica no está disponible (se ha quedado atrás o no
+ * responde, según {@link MonitorRetrasoReplica}), las lecturas también van a la primaria.
+ * <p>
+ * Se usa siempre detrás de un {@code LazyConnectionDataSourceProxy}: el gestor de transacciones pide la conexión antes de
+ * marcar la transacción como de solo lectura, y el proxy retrasa la elección hasta la primera
+ * sentencia.
+ */
+public class DataSourceLecturaEscritura extends AbstractRoutingDataSource {
+
+    static final String PRIMARIA = "primaria";
+    static final String REPLICA = "replica";
+
+    private final BooleanSupplier replicaDisponible;
+    private final Counter lecturasEnReplica;
+    private final Counter lecturasEnPrimaria;
+
+    /** {@code registry} puede ser nulo: entonces no se cuentan las conexiones. */
+    public DataSourceLecturaEscritura(DataSource primaria, DataSource replica, BooleanSupplier replicaDisponible,
+                                      MeterRegistry registry) {
+        setTargetDataSources(Map.of(PRIMARIA, primaria, REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        setLenientFallback(false);
+        this.replicaDisponible = replicaDisponible;
+        this.lecturasEnReplica = contador(registry, REPLICA);
+        this.lecturasEnPrimaria = contador(registry, PRIMARIA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+        if (replicaDisponible.getAsBoolean()) {
+            incrementar(lecturasEnReplica);
+            return REPLICA;
+        }
+        incrementar(lecturasEnPrimaria);
+        return PRIMARIA;
+    }
+
+    private static Counter contador(MeterRegistry registry, String destino) {
+        return registry == null ? null : Counter.builder("replica.conexiones.lectura")
+                .description("Conexiones de transacciones de solo lectura, por base a la que se enviaron")
+                .tag("destino", destino)
+                .register(registry);
+    }
+
+    private static void incrementar(Counter contador) {
+        if (contador != null) {
+            contador.increment();
+        }
+    }
+}
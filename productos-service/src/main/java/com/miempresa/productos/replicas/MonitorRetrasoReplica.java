@@ -0,0 +1,107 @@
+package com.miempresa.productos.replicas;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.miempresa.productos.utils.LogLimitado;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Mide periódicamente el retraso de replicación y decide si la réplica puede atender lecturas.
+ * Una réplica que no responde a la consulta se da por no disponible hasta la siguiente medida
+ * correcta. Con {@code retrasoMaximoMs} a 0 no mide nada y la réplica siempre está disponible.
+ */
+public class MonitorRetrasoReplica implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorRetrasoReplica.class);
+
+    private final DataSource replica;
+    private final String consulta;
+    private final long retrasoMaximoMs;
+    private final long periodoMs;
+    private final LogLimitado logFallos = new LogLimitado(1, 1, TimeUnit.MINUTES);
+    private ScheduledExecutorService planificador;
+
+    private volatile long retrasoMs = -1;
+    private volatile boolean disponible;
+
+    public MonitorRetrasoReplica(DataSource replica, String consulta, long retrasoMaximoMs, long periodoMs) {
+        this.replica = replica;
+        this.consulta = consulta;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+        this.periodoMs = periodoMs;
+        this.disponible = retrasoMaximoMs <= 0;
+    }
+
+    /** Hace la primera medida antes de volver, para no enviar lecturas a una réplica sin comprobar. */
+    public void iniciar() {
+        if (retrasoMaximoMs <= 0) {
+            return;
+        }
+        comprobar();
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "replica-retraso");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::comprobar, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    void comprobar() {
+        try (Connection conexion = replica.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consulta)) {
+            long medido = resultado.next() ? resultado.getLong(1) : Long.MAX_VALUE;
+            boolean estabaDisponible = disponible;
+            retrasoMs = medido;
+            disponible = medido <= retrasoMaximoMs;
+            if (estabaDisponible != disponible) {
+                log.warn("Réplica de lectura {}: retraso de {} ms (máximo {} ms)",
+                        disponible ? "disponible de nuevo" : "retrasada, las lecturas van a la primaria", medido, retrasoMaximoMs);
+            }
+        } catch (SQLException | RuntimeException e) {
+            retrasoMs = -1;
+            disponible = false;
+            logFallos.emitir(omitidos -> log.warn("No se pudo medir el retraso de la réplica, las lecturas van a la primaria: {}{}",
+                    e.getMessage(), omitidos > 0 ? " (" + omitidos + " fallos más sin registrar)" : ""));
+        }
+    }
+
+    public boolean disponible() {
+        return disponible;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (retrasoMaximoMs <= 0) {
+            return;
+        }
+        Gauge.builder("replica.retraso", this, monitor -> monitor.retrasoMs)
+                .description("Retraso de replicación medido en la réplica de lectura; -1 si no responde")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("replica.disponible", this, monitor -> monitor.disponible ? 1 : 0)
+                .description("1 si las lecturas van a la réplica, 0 si vuelven a la primaria")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+    }
+}
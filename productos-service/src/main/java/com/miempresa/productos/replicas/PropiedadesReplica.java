@@ -0,0 +1,40 @@
+package com.miempresa.productos.replicas;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuración de {@code productos.replica.*}. El usuario, la contraseña, el driver y el
+ * resto de ajustes del pool son los de {@code spring.datasource} si no se indican aquí.
+ */
+@Data
+@ConfigurationProperties(prefix = "productos.replica")
+public class PropiedadesReplica {
+
+    private boolean enabled;
+
+    private String url;
+    private String username;
+    private String password;
+    private Integer maxPool;
+
+    /**
+     * Retraso de replicación a partir del cual las lecturas vuelven a la primaria. Con 0 no se
+     * mide: las lecturas van siempre a la réplica.
+     */
+    private long retrasoMaximoMs;
+
+    /** Cada cuánto se mide el retraso. */
+    private long comprobacionMs = 1000;
+
+    /**
+     * Consulta que devuelve el retraso en milisegundos. La de PostgreSQL cuenta 0 cuando la
+     * réplica ha aplicado todo lo recibido, porque sin escrituras en la primaria la hora de la
+     * última transacción aplicada envejece aunque no falte nada.
+     */
+    private String consultaRetraso = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END""";
+}
@@ -1,5 +1,6 @@
 package com.miempresa.productos.services;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.miempresa.productos.dtos.ProductoDto;
@@ -8,4 +9,5 @@ public interface ProductoService {
     ProductoDto crearProducto(ProductoDto dto);
     ProductoDto obtenerProductoPorId(Long id);
     List<ProductoDto> listarProductos();
+    List<ProductoDto> listarProductosPorIds(Collection<Long> ids);
 }
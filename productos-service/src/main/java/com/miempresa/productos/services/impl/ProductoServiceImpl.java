@@ -1,20 +1,25 @@
 package com.miempresa.productos.services.impl;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.miempresa.productos.dtos.ProductoDto;
 import com.miempresa.productos.entities.ProductoEntity;
 import com.miempresa.productos.exceptions.RecursoNoEncontradoException;
+import com.miempresa.productos.exceptions.SolicitudInvalidaException;
+import com.miempresa.productos.mappers.ProductoMapper;
 import com.miempresa.productos.repositories.ProductoRepository;
 import com.miempresa.productos.services.ProductoService;
+import com.miempresa.productos.utils.LogLimitado;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -25,56 +30,59 @@ public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoRepository productoRepository;
 
+    // Un cliente que pide ids inexistentes en bucle no debe inundar el log
+    private final LogLimitado logNoEncontrados = new LogLimitado(10, 1, TimeUnit.SECONDS);
+
+    @Value("${productos.consulta.max-ids:200}")
+    private int maxIdsPorConsulta = 200;
+
     @Override
     @Transactional
     public ProductoDto crearProducto(ProductoDto productoDto) {
-        log.info("Creando producto: {}", productoDto);
-        ProductoEntity producto = new ProductoEntity();
-        BeanUtils.copyProperties(productoDto, producto);
-
-        ProductoEntity guardado = productoRepository.save(producto);
+        log.debug("Creando producto: {}", productoDto);
+        ProductoEntity guardado = productoRepository.save(ProductoMapper.toEntity(productoDto));
         log.info("Producto guardado con ID: {}", guardado.getId());
 
-        return ProductoDto.builder()
-                .id(guardado.getId())
-                .nombre(guardado.getNombre())
-                .descripcion(guardado.getDescripcion())
-                .precio(guardado.getPrecio())
-                .build();
+        return ProductoMapper.toDto(guardado);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductoDto obtenerProductoPorId(Long id) {
-        log.info("Buscando producto con ID: {}", id);
+        log.debug("Buscando producto con ID: {}", id);
         ProductoEntity producto = productoRepository.findById(id)
                 .orElseThrow(() -> {
-                    log.warn("Producto no encontrado con ID: {}", id);
+                    logNoEncontrados.emitir(omitidos -> log.warn(
+                            "Producto no encontrado con ID: {} [omitidos: {}]", id, omitidos));
                     return new RecursoNoEncontradoException("Producto no encontrado con id " + id);
                 });
 
-        log.info("Producto encontrado: {}", producto.getNombre());
+        log.debug("Producto encontrado: {}", producto.getNombre());
 
-        return ProductoDto.builder()
-                .id(producto.getId())
-                .nombre(producto.getNombre())
-                .descripcion(producto.getDescripcion())
-                .precio(producto.getPrecio())
-                .build();
+        return ProductoMapper.toDto(producto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductoDto> listarProductos() {
-        log.info("Listando todos los productos");
+        log.debug("Listando todos los productos");
         List<ProductoEntity> productos = productoRepository.findAll();
-        log.info("Total productos encontrados: {}", productos.size());
-
-        return productos.stream().map(prod ->
-                ProductoDto.builder()
-                        .id(prod.getId())
-                        .nombre(prod.getNombre())
-                        .descripcion(prod.getDescripcion())
-                        .precio(prod.getPrecio())
-                        .build()
-        ).collect(Collectors.toList());
+        log.debug("Total productos encontrados: {}", productos.size());
+
+        return productos.stream().map(ProductoMapper::toDto).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoDto> listarProductosPorIds(Collection<Long> ids) {
+        if (ids.size() > maxIdsPorConsulta) {
+            throw new SolicitudInvalidaException("Se admiten como máximo " + maxIdsPorConsulta + " ids por consulta");
+        }
+        log.debug("Listando {} productos por id", ids.size());
+        // Los ids inexistentes simplemente no aparecen en el resultado
+        List<ProductoEntity> productos = productoRepository.findAllById(ids);
+        log.debug("Total productos encontrados: {}", productos.size());
+
+        return productos.stream().map(ProductoMapper::toDto).collect(Collectors.toList());
     }
 }
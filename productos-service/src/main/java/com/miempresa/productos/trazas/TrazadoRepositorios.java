@@ -0,0 +1,59 @@
+package com.miempresa.productos.trazas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AopProxyUtils;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+/**
+ * Abre un span hijo por cada llamada a un repositorio, con el nombre
+ * {@code <Repositorio>.<método>}. Así una traza separa el tiempo de base de datos del de
+ * la serialización y del resto de la petición.
+ */
+public class TrazadoRepositorios implements MethodInterceptor {
+
+    private final Supplier<Tracer> tracerProveedor;
+    private final Map<Class<?>, String> nombresRepositorios = new ConcurrentHashMap<>();
+    private Tracer tracer;
+
+    /** El tracer se resuelve en la primera llamada: el advisor se crea antes que él. */
+    public TrazadoRepositorios(Supplier<Tracer> tracer) {
+        this.tracerProveedor = tracer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacion) throws Throwable {
+        if (tracer == null) {
+            tracer = tracerProveedor.get();
+        }
+        if (tracer.currentSpan() == null) {
+            // Sin traza en curso (arranque, consumidores de compras asíncronas): nada que colgar del span
+            return invocacion.proceed();
+        }
+        Span span = tracer.nextSpan()
+                .name(nombreRepositorio(invocacion.getThis()) + "." + invocacion.getMethod().getName())
+                .tag("db.system", "postgresql")
+                .start();
+        try (Tracer.SpanInScope ignorado = tracer.withSpan(span)) {
+            return invocacion.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private String nombreRepositorio(Object repositorio) {
+        return nombresRepositorios.computeIfAbsent(repositorio.getClass(), clase -> {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(repositorio);
+            return interfaces.length > 0 ? interfaces[0].getSimpleName() : clase.getSimpleName();
+        });
+    }
+}
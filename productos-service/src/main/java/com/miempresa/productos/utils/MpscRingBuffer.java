@@ -0,0 +1,89 @@
+package com.miempresa.productos.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola circular acotada y sin bloqueo para varios productores y un único consumidor.
+ * <p>
+ * Cada ranura lleva un número de secuencia (esquema de D. Vyukov): un productor reserva
+ * posición con un CAS sobre la cola y publica el elemento avanzando la secuencia de su
+ * ranura; el consumidor solo lee ranuras ya publicadas. {@link #offer} nunca espera: si
+ * no hay hueco devuelve {@code false} y el llamador decide cómo aplicar contrapresión.
+ * <p>
+ * {@link #poll} solo puede llamarlo un hilo a la vez.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> elementos;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong cola = new AtomicLong();
+    private volatile long cabeza;
+
+    public MpscRingBuffer(int capacidad) {
+        if (capacidad <= 0 || capacidad > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidad fuera de rango: " + capacidad);
+        }
+        int tamanio = capacidad == 1 ? 1 : Integer.highestOneBit(capacidad - 1) << 1;
+        this.elementos = new AtomicReferenceArray<>(tamanio);
+        this.secuencias = new AtomicLongArray(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            secuencias.set(i, i);
+        }
+        this.mascara = tamanio - 1;
+    }
+
+    /** Encola {@code elemento}; devuelve {@code false} si la cola está llena. */
+    public boolean offer(E elemento) {
+        if (elemento == null) {
+            throw new NullPointerException("No se admiten elementos nulos");
+        }
+        while (true) {
+            long posicion = cola.get();
+            int indice = (int) (posicion & mascara);
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    elementos.set(indice, elemento);
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+            } else if (diferencia < 0) {
+                // El consumidor aún no ha liberado la ranura de hace una vuelta
+                return false;
+            }
+            // Otro productor ganó la posición: se reintenta con la siguiente
+        }
+    }
+
+    /** Desencola el siguiente elemento publicado, o {@code null} si no hay ninguno. */
+    public E poll() {
+        long posicion = cabeza;
+        int indice = (int) (posicion & mascara);
+        if (secuencias.get(indice) != posicion + 1) {
+            return null;
+        }
+        E elemento = elementos.get(indice);
+        elementos.set(indice, null);
+        // La ranura queda libre para la siguiente vuelta de los productores
+        secuencias.set(indice, posicion + mascara + 1);
+        cabeza = posicion + 1;
+        return elemento;
+    }
+
+    /** Número aproximado de elementos encolados. */
+    public int size() {
+        long ocupados = cola.get() - cabeza;
+        return (int) Math.max(0, Math.min(ocupados, capacidad()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacidad() {
+        return mascara + 1;
+    }
+}
@@ -0,0 +1,57 @@
+package com.miempresa.productos.concurrencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FiltroLimiteConcurrenciaTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LimiteAdaptativo limite = new LimiteAdaptativo(4, 4, 4, 1.5, 0.2, 100,
+            Map.of(Prioridad.BAJA, 0.5));
+    private final FiltroLimiteConcurrencia filtro = new FiltroLimiteConcurrencia(limite,
+            List.of("POST /api/productos"), List.of("GET /api/**"), registry);
+
+    @Test
+    @DisplayName("Debe clasificar las peticiones por método y ruta")
+    void prioridad_shouldMatchRules() {
+        assertEquals(Prioridad.CRITICA, filtro.prioridad(new MockHttpServletRequest("POST", "/api/productos")));
+        assertEquals(Prioridad.BAJA, filtro.prioridad(new MockHttpServletRequest("GET", "/api/productos/1")));
+        assertEquals(Prioridad.NORMAL, filtro.prioridad(new MockHttpServletRequest("PUT", "/api/productos/1")));
+    }
+
+    @Test
+    @DisplayName("Debe responder 503 con Retry-After a las lecturas que no caben y seguir admitiendo altas")
+    void doFilter_shouldShedReadsWith503() throws Exception {
+        // GIVEN: dos peticiones en curso, todo lo que admite la prioridad baja con un límite de 4
+        limite.adquirir(Prioridad.CRITICA);
+        limite.adquirir(Prioridad.CRITICA);
+
+        // WHEN
+        MockHttpServletResponse lectura = filtrar("GET", "/api/productos/1");
+        MockHttpServletResponse alta = filtrar("POST", "/api/productos");
+
+        // THEN
+        assertEquals(503, lectura.getStatus());
+        assertEquals("1", lectura.getHeader("Retry-After"));
+        assertEquals(FiltroLimiteConcurrencia.CUERPO_503, lectura.getContentAsString());
+        assertEquals(200, alta.getStatus());
+        assertEquals(2, limite.getEnCurso());
+        assertEquals(1.0, registry.get("concurrencia.rechazadas").tag("prioridad", "baja").counter().count());
+    }
+
+    private MockHttpServletResponse filtrar(String metodo, String ruta) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest(metodo, ruta), response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,69 @@
+package com.miempresa.productos.concurrencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LimiteAdaptativoTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final LimiteAdaptativo limite = new LimiteAdaptativo(20, 4, 200, 1.5, 0.2, 100,
+            Map.of(Prioridad.NORMAL, 0.9, Prioridad.BAJA, 0.5));
+
+    @Test
+    @DisplayName("Debe subir el límite con latencia estable y bajarlo cuando la latencia se dispara")
+    void liberar_shouldFollowLatency() {
+        // GIVEN / WHEN: 200 tandas de peticiones con el límite lleno que tardan 10 ms
+        tandas(200, 10 * MS);
+        int estable = limite.getLimite();
+
+        // THEN
+        assertTrue(estable > 20, "Con latencia estable el límite debe crecer: " + estable);
+
+        // WHEN: la base de datos se atasca y las peticiones pasan a tardar 100 ms
+        tandas(10, 100 * MS);
+
+        // THEN
+        assertTrue(limite.getLimite() < estable / 2, "El límite debe bajar: " + estable + " -> " + limite.getLimite());
+        assertEquals(0, limite.getEnCurso());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar las peticiones de baja prioridad antes que las críticas")
+    void adquirir_shouldShedLowPriorityFirst() {
+        // GIVEN: 10 peticiones en curso, la mitad del límite de 20
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limite.adquirir(Prioridad.BAJA));
+        }
+
+        // WHEN / THEN: las de baja prioridad ya no caben, las normales hasta 18 y las críticas hasta 20
+        assertFalse(limite.adquirir(Prioridad.BAJA));
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limite.adquirir(Prioridad.NORMAL));
+        }
+        assertFalse(limite.adquirir(Prioridad.NORMAL));
+        assertTrue(limite.adquirir(Prioridad.CRITICA));
+        assertTrue(limite.adquirir(Prioridad.CRITICA));
+        assertFalse(limite.adquirir(Prioridad.CRITICA));
+        assertEquals(20, limite.getEnCurso());
+    }
+
+    // Llena el límite con peticiones críticas y las libera todas con la misma latencia
+    private void tandas(int tandas, long rttNanos) {
+        for (int t = 0; t < tandas; t++) {
+            int admitidas = 0;
+            while (limite.adquirir(Prioridad.CRITICA)) {
+                admitidas++;
+            }
+            for (int i = 0; i < admitidas; i++) {
+                limite.liberar(rttNanos);
+            }
+        }
+    }
+}
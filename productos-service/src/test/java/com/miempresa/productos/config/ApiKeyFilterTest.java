@@ -0,0 +1,73 @@
+package com.miempresa.productos.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+
+class ApiKeyFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Sin reposición apreciable durante la prueba: 1 petición cada 1000 s
+    private final ApiKeyFilter filtro = new ApiKeyFilter(List.of(
+            new ApiKeyFilter.Cliente("principal", "clave-principal", 0, 1),
+            new ApiKeyFilter.Cliente("tienda", "clave-tienda", 0.001, 2),
+            new ApiKeyFilter.Cliente("informes", "clave-informes", 0.001, 1)),
+            Tracer.NOOP, registry);
+
+    @Test
+    @DisplayName("Debe responder 401 sin API key o con una desconocida")
+    void doFilter_shouldRejectUnknownKey() throws Exception {
+        // WHEN
+        MockHttpServletResponse sinClave = filtrar(null);
+        MockHttpServletResponse desconocida = filtrar("otra");
+
+        // THEN
+        assertEquals(401, sinClave.getStatus());
+        assertEquals(401, desconocida.getStatus());
+    }
+
+    @Test
+    @DisplayName("Debe responder 429 con Retry-After al agotar la ráfaga, sin afectar a las demás claves")
+    void doFilter_shouldLimitEachKeyIndependently() throws Exception {
+        // WHEN: la tienda agota su ráfaga de 2
+        MockHttpServletResponse primera = filtrar("clave-tienda");
+        MockHttpServletResponse segunda = filtrar("clave-tienda");
+        MockHttpServletResponse tercera = filtrar("clave-tienda");
+
+        // THEN
+        assertEquals(200, primera.getStatus());
+        assertEquals(200, segunda.getStatus());
+        assertEquals(429, tercera.getStatus());
+        assertEquals("1000", tercera.getHeader("Retry-After"));
+        assertEquals(ApiKeyFilter.CUERPO_429, tercera.getContentAsString());
+        assertEquals(1.0, registry.get("api.peticiones.limitadas").tag("cliente", "tienda").counter().count());
+
+        // Las otras claves tienen su propio cubo, y la principal no tiene límite
+        assertEquals(200, filtrar("clave-informes").getStatus());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(200, filtrar("clave-principal").getStatus());
+        }
+        assertNull(filtrar("clave-principal").getHeader("Retry-After"));
+    }
+
+    private MockHttpServletResponse filtrar(String clave) throws Exception {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/productos/1");
+        if (clave != null) {
+            peticion.addHeader("x-api-key", clave);
+        }
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, new MockFilterChain());
+        return respuesta;
+    }
+}
@@ -0,0 +1,47 @@
+package com.miempresa.productos.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+
+import com.miempresa.productos.concurrencia.FiltroLimiteConcurrencia;
+import com.miempresa.productos.consultas.FiltroSentenciasPorPeticion;
+import com.miempresa.productos.consumo.FiltroConsumoPorPeticion;
+import com.miempresa.productos.plazos.FiltroPlazo;
+
+/**
+ * Orden de los filtros de {@code /api/*} tal como los registran las configuraciones. Perezoso:
+ * solo se crean los registros de filtros y lo que necesitan, no los endpoints ni JPA.
+ */
+class OrdenFiltrosTest {
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withInitializer(aplicacion -> aplicacion.addBeanFactoryPostProcessor(new LazyInitializationBeanFactoryPostProcessor()))
+            .withUserConfiguration(PlazosConfig.class, ApiKeyFilterConfig.class, LimiteConcurrenciaConfig.class,
+                    ConsultasConfig.class, ConsumoConfig.class)
+            .withPropertyValues("api.key=clave", "productos.limite-concurrencia.enabled=true");
+
+    @Test
+    @DisplayName("Plazo, API key, límite de concurrencia, sentencias y consumo, en ese orden")
+    void filtros_shouldRunInDocumentedOrder() {
+        contexto.run(aplicacion -> {
+            // WHEN
+            @SuppressWarnings("rawtypes")
+            List<Class<?>> orden = aplicacion.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                    .sorted(Comparator.comparingInt(FilterRegistrationBean::getOrder))
+                    .<Class<?>>map(registro -> registro.getFilter().getClass())
+                    .toList();
+
+            // THEN: la API key antes que el límite, para que una petición sin clave no ocupe hueco
+            assertEquals(List.of(FiltroPlazo.class, ApiKeyFilter.class, FiltroLimiteConcurrencia.class,
+                    FiltroSentenciasPorPeticion.class, FiltroConsumoPorPeticion.class), orden);
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.miempresa.productos.consultas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class InstrumentacionConsultasTest {
+
+    private InstrumentacionConsultas instrumentacion;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:consultas-productos-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        instrumentacion = new InstrumentacionConsultas(10_000, 25, 10);
+        jdbc = new JdbcTemplate(new JdbcInstrumentado(h2, instrumentacion));
+        jdbc.execute("CREATE TABLE productos (id BIGINT PRIMARY KEY, categoria_id BIGINT, precio INT)");
+        for (long id = 1; id <= 20; id++) {
+            jdbc.update("INSERT INTO productos VALUES (?, ?, ?)", id, id, 5);
+        }
+        instrumentacion.reiniciar();
+    }
+
+    @Test
+    @DisplayName("Debe agrupar por forma de la sentencia, con las listas IN de cualquier tamaño como una sola")
+    void registrar_shouldAggregateByStatementShape() {
+        // WHEN
+        jdbc.queryForList("SELECT precio FROM productos WHERE categoria_id IN (?, ?, ?)", Integer.class, 1L, 2L, 3L);
+        jdbc.queryForList("SELECT precio FROM productos WHERE categoria_id IN (?,?)", Integer.class, 4L, 5L);
+        jdbc.queryForObject("SELECT precio FROM productos WHERE categoria_id = ?", Integer.class, 6L);
+
+        // THEN
+        List<InstrumentacionConsultas.Sentencia> sentencias = instrumentacion.sentencias(10);
+        assertEquals(2, sentencias.size());
+        InstrumentacionConsultas.Sentencia lote = sentencias.stream()
+                .filter(sentencia -> sentencia.forma().contains("IN"))
+                .findFirst().orElseThrow();
+        assertEquals("SELECT precio FROM productos WHERE categoria_id IN (?...)", lote.forma());
+        assertEquals(2, lote.ejecuciones());
+        assertEquals(0, lote.lentas());
+    }
+
+    @Test
+    @DisplayName("Debe contar las sentencias de la petición y señalar la consulta repetida como posible N+1")
+    void terminarPeticion_shouldFlagRepeatedStatementAsNPlusOne() {
+        // GIVEN: una consulta por fila en lugar de una por lote
+        instrumentacion.iniciarPeticion();
+        jdbc.queryForList("SELECT id FROM productos", Long.class)
+                .forEach(id -> jdbc.queryForObject("SELECT precio FROM productos WHERE id = ?", Integer.class, id));
+
+        // WHEN
+        int sentencias = instrumentacion.terminarPeticion("GET /api/productos");
+
+        // THEN
+        assertEquals(21, sentencias);
+        List<InstrumentacionConsultas.SospechaNMasUno> sospechas = instrumentacion.sospechasNMasUno();
+        assertEquals(1, sospechas.size());
+        assertEquals("GET /api/productos", sospechas.get(0).ruta());
+        assertEquals("SELECT precio FROM productos WHERE id = ?", sospechas.get(0).forma());
+        assertEquals(20, sospechas.get(0).maxRepeticiones());
+    }
+
+    @Test
+    @DisplayName("Debe marcar como lentas las sentencias sobre el umbral y resumir sus parámetros sin valores")
+    void registrar_shouldCountSlowStatementsAndDescribeParameterShapes() {
+        // GIVEN
+        InstrumentacionConsultas todasLentas = new InstrumentacionConsultas(0, 25, 10);
+
+        // WHEN
+        todasLentas.registrar("UPDATE productos SET precio = ? WHERE id = ?", List.of("setInt", "setLong"), 1_000, 0);
+
+        // THEN
+        assertEquals(1, todasLentas.sentencias(1).get(0).lentas());
+        assertEquals("[Long x3, String, Null]",
+                InstrumentacionConsultas.formaParametros(List.of("setLong", "setLong", "setLong", "setString", "setNull")));
+        assertEquals("[]", InstrumentacionConsultas.formaParametros(List.of()));
+    }
+
+    @Test
+    @DisplayName("Debe dejar llegar al pool Hikari envuelto con unwrap")
+    void unwrap_shouldReachWrappedPool() throws Exception {
+        // GIVEN: el data source del contexto ya no es un HikariDataSource, quien necesite el pool
+        // (métricas, pruebas de carga) lo saca con unwrap
+        try (HikariDataSource pool = new HikariDataSource()) {
+            JdbcInstrumentado instrumentado = new JdbcInstrumentado(pool, instrumentacion);
+
+            // WHEN / THEN
+            assertTrue(instrumentado.isWrapperFor(HikariDataSource.class));
+            assertSame(pool, instrumentado.unwrap(HikariDataSource.class));
+        }
+    }
+}
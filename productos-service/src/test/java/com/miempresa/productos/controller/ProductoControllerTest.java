@@ -1,6 +1,10 @@
 package com.miempresa.productos.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -24,6 +28,10 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.exceptions.GlobalExceptionHandler;
+import com.miempresa.productos.exceptions.RecursoNoEncontradoException;
+import com.miempresa.productos.plazos.FiltroPlazo;
+import com.miempresa.productos.plazos.Plazo;
 import com.miempresa.productos.services.ProductoService;
 
 @ExtendWith(MockitoExtension.class) // Habilita la integración de Mockito con JUnit 5
@@ -148,4 +156,67 @@ class ProductoControllerTest {
                 .andExpect(jsonPath("$[1].data.attributes.descripcion").value("Alta definición para videollamadas"))
                 .andExpect(jsonPath("$[1].data.attributes.precio").value(55.00));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debe filtrar productos por filter[id] delegando en la consulta por lote")
+    void listarProductos_withIdFilter_shouldUseBatchLookup() throws Exception {
+        // GIVEN
+        when(productoService.listarProductosPorIds(List.of(1L, 2L))).thenReturn(List.of(
+            ProductoDto.builder().id(1L).nombre("Teclado Mecánico").build()
+        ));
+
+        // WHEN
+        mockMvc.perform(get("/api/productos").param("filter[id]", "1,2"))
+                // THEN
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].data.id").value("1"));
+        verify(productoService, never()).listarProductos();
+    }
+
+    @Test
+    @DisplayName("Debe responder 404 con el código de error y sin traza cuando el producto no existe")
+    void obtenerProductoPorId_shouldReturnNotFoundWithErrorCode() throws Exception {
+        // GIVEN
+        MockMvc mockMvcConErrores = MockMvcBuilders.standaloneSetup(productoController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        RecursoNoEncontradoException noEncontrado = new RecursoNoEncontradoException("Producto no encontrado con id \"99\"");
+        when(productoService.obtenerProductoPorId(99L)).thenThrow(noEncontrado);
+
+        // WHEN & THEN: el detalle llega escapado dentro de la plantilla JSON:API
+        mockMvcConErrores.perform(get("/api/productos/{id}", 99L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errors[0].status").value("404"))
+                .andExpect(jsonPath("$.errors[0].code").value("RECURSO_NO_ENCONTRADO"))
+                .andExpect(jsonPath("$.errors[0].title").value("Recurso no encontrado"))
+                .andExpect(jsonPath("$.errors[0].detail").value("Producto no encontrado con id \"99\""))
+                .andExpect(jsonPath("$.errors[0].timestamp").exists());
+        assertEquals(0, noEncontrado.getStackTrace().length); // Error de negocio: sin traza
+    }
+
+    @Test
+    @DisplayName("Debe responder 504 sin llegar al servicio si el plazo vence antes de consultar la base de datos")
+    void obtenerProducto_shouldReturnGatewayTimeoutWithoutCallingServiceWhenDeadlineExpires() throws Exception {
+        // GIVEN: el plazo es válido al entrar, pero se agota esperando en un filtro posterior
+        MockMvc mockMvcConPlazo = MockMvcBuilders.standaloneSetup(productoController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(new FiltroPlazo(0, null), (request, response, chain) -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    chain.doFilter(request, response);
+                })
+                .build();
+
+        // WHEN & THEN
+        mockMvcConPlazo.perform(get("/api/productos/{id}", 1L).header(Plazo.CABECERA, "20"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.errors[0].status").value("504"))
+                .andExpect(jsonPath("$.errors[0].code").value("PLAZO_EXCEDIDO"))
+                .andExpect(jsonPath("$.errors[0].detail").value("Plazo de la petición agotado (base-datos)"));
+        verify(productoService, never()).obtenerProductoPorId(anyLong());
+    }
+}
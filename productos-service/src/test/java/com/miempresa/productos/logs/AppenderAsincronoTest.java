@@ -0,0 +1,120 @@
+package com.miempresa.productos.logs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+
+class AppenderAsincronoTest {
+
+    private LoggerContext contexto;
+    private Logger logger;
+    private AppenderLento destino;
+    private AppenderAsincrono asincrono;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new LoggerContext();
+        contexto.setMDCAdapter(new LogbackMDCAdapter());
+        logger = contexto.getLogger("prueba");
+        destino = new AppenderLento();
+        destino.setContext(contexto);
+        destino.start();
+
+        asincrono = new AppenderAsincrono();
+        asincrono.setContext(contexto);
+        asincrono.setName("ASINCRONO");
+        asincrono.setCapacidad(8);
+        asincrono.setUmbralDescarte(0.5);
+        asincrono.addAppender(destino);
+        asincrono.start();
+    }
+
+    @Test
+    @DisplayName("Debe descartar INFO a partir del umbral y todo con la cola llena, sin bloquear al que escribe")
+    void append_shouldDropByLevelWhenQueueFills() throws Exception {
+        // GIVEN: el consumidor se queda atascado entregando el primer evento
+        asincrono.doAppend(evento(Level.INFO, "primero"));
+        assertTrue(destino.entregando.await(5, TimeUnit.SECONDS));
+
+        // WHEN: 4 INFO llenan la cola hasta el umbral (4 de 8), el quinto sobra;
+        // los WARN ocupan el resto y el último ya no cabe
+        for (int i = 0; i < 5; i++) {
+            asincrono.doAppend(evento(Level.INFO, "info " + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            asincrono.doAppend(evento(Level.WARN, "warn " + i));
+        }
+
+        // THEN
+        assertEquals(2, asincrono.getDescartados());
+        destino.liberar.countDown();
+        asincrono.stop();
+
+        List<String> mensajes = destino.recibidos.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertEquals(List.of("primero", "info 0", "info 1", "info 2", "info 3",
+                "warn 0", "warn 1", "warn 2", "warn 3", "Cola de log llena: se descartaron 2 eventos"), mensajes);
+    }
+
+    @Test
+    @DisplayName("Debe entregar en orden lo que quede en la cola al detenerse")
+    void stop_shouldDrainQueue() {
+        // GIVEN
+        destino.liberar.countDown();
+        for (int i = 0; i < 100; i++) {
+            asincrono.doAppend(evento(Level.INFO, "evento " + i));
+        }
+
+        // WHEN
+        asincrono.stop();
+
+        // THEN: con una cola de 8 parte se descarta, pero lo entregado no se pierde ni se desordena
+        List<Integer> entregados = destino.recibidos.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .filter(mensaje -> mensaje.startsWith("evento "))
+                .map(mensaje -> Integer.parseInt(mensaje.substring("evento ".length())))
+                .toList();
+        assertEquals(100, entregados.size() + asincrono.getDescartados());
+        assertEquals(entregados.stream().sorted().toList(), entregados);
+        assertFalse(destino.isStarted());
+    }
+
+    private LoggingEvent evento(Level nivel, String mensaje) {
+        return new LoggingEvent(Logger.class.getName(), logger, nivel, mensaje, null, null);
+    }
+
+    /** Guarda lo que recibe; el primer evento espera a {@code liberar}. */
+    private static final class AppenderLento extends AppenderBase<ILoggingEvent> {
+
+        private final List<ILoggingEvent> recibidos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entregando = new CountDownLatch(1);
+        private final CountDownLatch liberar = new CountDownLatch(1);
+
+        @Override
+        protected void append(ILoggingEvent evento) {
+            entregando.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recibidos.add(evento);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.miempresa.productos.logs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+class MuestreoLogsTest {
+
+    private LoggerContext contexto;
+    private ListAppender<ILoggingEvent> salida;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new LoggerContext();
+        salida = new ListAppender<>();
+        salida.setContext(contexto);
+        salida.start();
+        Logger raiz = contexto.getLogger(Logger.ROOT_LOGGER_NAME);
+        raiz.setLevel(Level.INFO);
+        raiz.addAppender(salida);
+
+        MuestreoLogs muestreo = new MuestreoLogs();
+        muestreo.setContext(contexto);
+        muestreo.addRegla("com.miempresa:10:0");
+        muestreo.addRegla("com.miempresa.altas:1:5");
+        muestreo.start();
+        contexto.addTurboFilter(muestreo);
+    }
+
+    @Test
+    @DisplayName("Debe dejar pasar uno de cada N eventos INFO y todos los WARN")
+    void decide_shouldSampleInfoButNotWarn() {
+        // GIVEN
+        Logger logger = contexto.getLogger("com.miempresa.productos.Servicio");
+
+        // WHEN
+        for (int i = 0; i < 100; i++) {
+            logger.info("Alta {}", i);
+            logger.isInfoEnabled();
+            logger.debug("Desactivado {}", i);
+        }
+        logger.warn("Aviso");
+
+        // THEN
+        assertEquals(11, salida.list.size());
+        assertEquals("Alta 0", salida.list.get(0).getFormattedMessage());
+        assertEquals("Alta 90", salida.list.get(9).getFormattedMessage());
+        assertEquals(Level.WARN, salida.list.get(10).getLevel());
+    }
+
+    @Test
+    @DisplayName("Debe aplicar la regla del prefijo más largo y su máximo por segundo")
+    void decide_shouldApplyLongestPrefixRateLimit() {
+        // GIVEN
+        Logger altas = contexto.getLogger("com.miempresa.altas.Servicio");
+        Logger otros = contexto.getLogger("org.otro.Servicio");
+
+        // WHEN
+        for (int i = 0; i < 50; i++) {
+            altas.info("Alta {}", i);
+            otros.info("Otro {}", i);
+        }
+
+        // THEN: 5 de altas en el segundo en curso y los 50 de un logger sin regla
+        assertEquals(5, salida.list.stream().filter(evento -> evento.getLoggerName().startsWith("com.")).count());
+        assertEquals(50, salida.list.stream().filter(evento -> evento.getLoggerName().startsWith("org.")).count());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar reglas mal formadas")
+    void addRegla_shouldRejectMalformedRules() {
+        MuestreoLogs muestreo = new MuestreoLogs();
+
+        assertThrows(IllegalArgumentException.class, () -> muestreo.addRegla("com.miempresa:10"));
+        assertThrows(IllegalArgumentException.class, () -> muestreo.addRegla("com.miempresa:0:10"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.miempresa.productos.plazos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class FiltroPlazoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FiltroPlazo filtro = new FiltroPlazo(0, registry);
+
+    @Test
+    @DisplayName("Debe responder 504 sin ejecutar la petición si llega con el plazo agotado")
+    void doFilter_shouldRejectExpiredDeadline() throws Exception {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/productos");
+        request.addHeader(Plazo.CABECERA, "0");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // WHEN
+        filtro.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(504, response.getStatus());
+        assertEquals(FiltroPlazo.CUERPO_504, response.getContentAsString());
+        assertNull(chain.getRequest());
+        assertEquals(1.0, registry.get("plazo.excedido").tag("fase", "entrada").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debe dejar el plazo disponible durante la petición y contar la fase en que se agota")
+    void doFilter_shouldExposeDeadlineAndCountPhase() throws Exception {
+        // GIVEN: el controlador ve el plazo y lo da por agotado al consultar la base de datos
+        AtomicLong restanteMs = new AtomicLong(-1);
+        HttpServlet controlador = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                Plazo plazo = Plazo.actual();
+                restanteMs.set(plazo.restanteMs());
+                plazo.excedido("base-datos");
+            }
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos/1");
+        request.addHeader(Plazo.CABECERA, "300");
+
+        // WHEN
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(controlador));
+
+        // THEN
+        assertTrue(restanteMs.get() > 0 && restanteMs.get() <= 300, "Restante: " + restanteMs.get());
+        assertNull(Plazo.actual());
+        assertEquals(1.0, registry.get("plazo.excedido").tag("fase", "base-datos").counter().count());
+    }
+}
@@ -0,0 +1,104 @@
+package com.miempresa.productos.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.miempresa.productos.dtos.ProductoDto;
+import com.miempresa.productos.services.ProductoService;
+import com.miempresa.productos.services.impl.ProductoServiceImpl;
+
+/**
+ * {@link ProductoServiceImpl} sobre {@link DataSourceLecturaEscritura}, con dos bases H2 que
+ * tienen datos distintos: cada lectura dice de qué base salió. Hibernate crea el esquema en la
+ * primaria y se copia a la réplica.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductoServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoServiceReplicaTest {
+
+    private static final JdbcDataSource BASE_PRIMARIA = base("primaria");
+    private static final JdbcDataSource BASE_REPLICA = base("replica");
+
+    @Autowired
+    private ProductoService productoService;
+
+    private final JdbcTemplate primaria = new JdbcTemplate(BASE_PRIMARIA);
+    private final JdbcTemplate replica = new JdbcTemplate(BASE_REPLICA);
+
+    @TestConfiguration
+    static class Configuracion {
+
+        @Bean
+        DataSource dataSource() {
+            DataSourceLecturaEscritura enrutado = new DataSourceLecturaEscritura(BASE_PRIMARIA, BASE_REPLICA,
+                    () -> true, null);
+            enrutado.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(enrutado);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'PRODUCTOS'", Integer.class) == 0) {
+            primaria.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        }
+        primaria.update("DELETE FROM productos");
+        replica.update("DELETE FROM productos");
+
+        // La réplica va por detrás: todavía tiene el nombre anterior
+        primaria.update("INSERT INTO productos (id, nombre, descripcion, precio) VALUES (100, 'Teclado v2', 'Mecánico', 90)");
+        replica.update("INSERT INTO productos (id, nombre, descripcion, precio) VALUES (100, 'Teclado', 'Mecánico', 90)");
+    }
+
+    @Test
+    @DisplayName("Las consultas del servicio deben leer de la réplica")
+    void consultas_shouldReadFromReplica() {
+        // WHEN / THEN
+        assertEquals("Teclado", productoService.obtenerProductoPorId(100L).getNombre());
+        assertEquals("Teclado", productoService.listarProductos().get(0).getNombre());
+        assertEquals("Teclado", productoService.listarProductosPorIds(List.of(100L)).get(0).getNombre());
+    }
+
+    @Test
+    @DisplayName("El alta de un producto debe escribir en la primaria")
+    void crearProducto_shouldWriteToPrimary() {
+        // WHEN
+        productoService.crearProducto(ProductoDto.builder()
+                .nombre("Ratón").descripcion("Inalámbrico").precio(new BigDecimal("25.00")).build());
+
+        // THEN
+        assertEquals(2, primaria.queryForObject("SELECT COUNT(*) FROM productos", Integer.class));
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM productos", Integer.class));
+    }
+
+    private static JdbcDataSource base(String nombre) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:productos-" + nombre + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+}
@@ -21,6 +21,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.miempresa.productos.dtos.ProductoDto;
 import com.miempresa.productos.entities.ProductoEntity;
 import com.miempresa.productos.exceptions.RecursoNoEncontradoException;
+import com.miempresa.productos.exceptions.SolicitudInvalidaException;
 import com.miempresa.productos.repositories.ProductoRepository;
 import com.miempresa.productos.services.impl.ProductoServiceImpl;
 
@@ -63,7 +64,7 @@ class ProductoServiceImplTest {
     void crearProducto_shouldReturnCreatedProductDto() {
         // GIVEN: Cuando el repositorio.save() es llamado con cualquier ProductoEntity,
         // debe devolver el productoEntity simulado (con ID asignado).
-        // Si el ProductoDto de entrada tiene un ID, BeanUtils.copyProperties lo copiará al entity,
+        // Si el ProductoDto de entrada tiene un ID, ProductoMapper.toEntity lo copiará al entity,
         // pero en el servicio el ID real lo asigna la base de datos (simulada por save()).
         // Por eso el entity de salida debe tener el ID asignado.
         when(productoRepository.save(any(ProductoEntity.class))).thenReturn(productoEntity);
@@ -184,4 +185,32 @@ class ProductoServiceImplTest {
         // Verificamos que findAll() fue llamado una vez
         verify(productoRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debe resolver varios productos por id con una única consulta al repositorio")
+    void listarProductosPorIds_shouldUseSingleFindAllById() {
+        // GIVEN: el id 3 no existe y simplemente no aparece en el resultado
+        List<Long> ids = List.of(1L, 3L);
+        when(productoRepository.findAllById(ids)).thenReturn(List.of(productoEntity));
+
+        // WHEN
+        List<ProductoDto> resultados = productoService.listarProductosPorIds(ids);
+
+        // THEN
+        assertEquals(1, resultados.size());
+        assertEquals(1L, resultados.get(0).getId());
+        verify(productoRepository, times(1)).findAllById(ids);
+        verify(productoRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar consultas por lote que superan el máximo de ids")
+    void listarProductosPorIds_shouldRejectTooManyIds() {
+        // GIVEN
+        List<Long> ids = java.util.stream.LongStream.rangeClosed(1, 201).boxed().toList();
+
+        // WHEN & THEN
+        assertThrows(SolicitudInvalidaException.class, () -> productoService.listarProductosPorIds(ids));
+        verifyNoInteractions(productoRepository);
+    }
+}
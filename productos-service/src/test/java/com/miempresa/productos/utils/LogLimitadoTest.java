@@ -0,0 +1,31 @@
+package com.miempresa.productos.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LogLimitadoTest {
+
+    @Test
+    @DisplayName("Debe emitir como mucho el máximo por intervalo e informar de los omitidos en la siguiente ventana")
+    void emitir_shouldLimitPerIntervalAndReportOmitted() throws InterruptedException {
+        // GIVEN
+        LogLimitado logLimitado = new LogLimitado(2, 50, TimeUnit.MILLISECONDS);
+        List<Long> emitidos = new ArrayList<>();
+
+        // WHEN: cinco ocurrencias en la misma ventana y una más en la siguiente
+        for (int i = 0; i < 5; i++) {
+            logLimitado.emitir(emitidos::add);
+        }
+        Thread.sleep(60);
+        logLimitado.emitir(emitidos::add);
+
+        // THEN
+        assertEquals(List.of(0L, 0L, 3L), emitidos);
+    }
+}
@@ -0,0 +1,110 @@
+package com.miempresa.productos.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("Debe redondear la capacidad a potencia de dos y rechazar cuando está llena")
+    void offer_shouldRejectWhenFull() {
+        // GIVEN
+        MpscRingBuffer<Integer> cola = new MpscRingBuffer<>(3);
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            assertTrue(cola.offer(i));
+        }
+        boolean aceptado = cola.offer(99);
+
+        // THEN
+        assertEquals(4, cola.capacidad());
+        assertFalse(aceptado);
+        assertEquals(4, cola.size());
+    }
+
+    @Test
+    @DisplayName("Debe entregar en orden FIFO y reutilizar las ranuras liberadas")
+    void poll_shouldReturnInOrderAcrossLaps() {
+        // GIVEN
+        MpscRingBuffer<Integer> cola = new MpscRingBuffer<>(2);
+        List<Integer> recibidos = new ArrayList<>();
+
+        // WHEN: varias vueltas completas al anillo
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cola.offer(i));
+            recibidos.add(cola.poll());
+        }
+
+        // THEN
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), recibidos);
+        assertNull(cola.poll());
+        assertTrue(cola.isEmpty());
+    }
+
+    @Test
+    @DisplayName("No debe perder ni duplicar elementos con varios productores concurrentes")
+    void offer_shouldNotLoseElementsUnderContention() throws InterruptedException {
+        // GIVEN
+        int productores = 4;
+        int porProductor = 20_000;
+        MpscRingBuffer<Integer> cola = new MpscRingBuffer<>(256);
+        CountDownLatch salida = new CountDownLatch(1);
+        boolean[] vistos = new boolean[productores * porProductor];
+
+        // WHEN: los productores reintentan mientras la cola está llena
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(productores)) {
+            for (int p = 0; p < productores; p++) {
+                int base = p * porProductor;
+                ejecutor.execute(() -> {
+                    awaitQuietly(salida);
+                    for (int i = 0; i < porProductor; i++) {
+                        while (!cola.offer(base + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+            salida.countDown();
+
+            int recibidos = 0;
+            int[] ultimoPorProductor = new int[productores];
+            Arrays.fill(ultimoPorProductor, -1);
+            while (recibidos < vistos.length) {
+                Integer valor = cola.poll();
+                if (valor == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // THEN: cada valor llega una vez y en el orden de su productor
+                assertFalse(vistos[valor], "Elemento duplicado: " + valor);
+                vistos[valor] = true;
+                int productor = valor / porProductor;
+                assertTrue(valor > ultimoPorProductor[productor]);
+                ultimoPorProductor[productor] = valor;
+                recibidos++;
+            }
+        }
+        assertTrue(cola.isEmpty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}